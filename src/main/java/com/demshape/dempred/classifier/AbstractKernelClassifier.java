@@ -6,9 +6,13 @@ import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
 import com.demshape.dempred.grouper.GrouperInterface;
 import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.kernels.KernelMatrix;
+import com.demshape.dempred.kernels.KernelRowCache;
+import com.demshape.dempred.kernels.KernelRowProvider;
 import com.demshape.dempred.lossfunction.LossFunctionInterface;
 import com.demshape.dempred.math.DenseVector;
 import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
 
 
 
@@ -17,7 +21,7 @@ import com.demshape.dempred.math.VectorInterface;
  *
  * @param <T> the generic type
  */
-public abstract class AbstractKernelClassifier<T extends Datapoint> implements ClassifierInterface<T>, Serializable {
+public abstract class AbstractKernelClassifier<T extends Datapoint> implements ClassifierInterface<T>, CompilableInterface, Serializable {
 
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = -25654304351676869L;
@@ -55,14 +59,32 @@ public abstract class AbstractKernelClassifier<T extends Datapoint> implements C
 	/** The offset. */
 	protected double offset;
 
+	/** The squared norms of the train vectors, computed on first use. */
+	private transient double[] trainSqNorms;
+
+	/** The train vectors the squared norms belong to. */
+	private transient VectorInterface[] trainSqNormsOf;
+
+	/** The number of threads used to compute the kernel matrix. */
+	protected transient int numThreads = 1;
+
+	/** If true the kernel matrix is stored in single precision. */
+	protected transient boolean floatKernelMatrix;
+
+	/** Memory budget in megabytes for kernel rows. If the kernel matrix is larger, rows are computed on demand and cached. 0 means no limit. */
+	protected transient double kernelCacheSize;
+
 	/* (non-Javadoc)
 	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Dataset)
 	 */
 	public final void predict(Dataset<T> dataset) throws IllegalArgumentException {
+		double[] sqNorms = getTrainSqNorms();
+		double[] kernelValues = new double[trainVectors.length];
 		for (Datapoint datapoint : dataset.getDatapoints()) {
+			kernel.evaluateAll(kernelInput(datapoint.getFeatureVector()), trainVectors, sqNorms, kernelValues);
 			double value = 0.0;
 			for (int i = 0; i < alpha.size(); ++i)
-				value += alpha.get(i) * kernel.evaluate(trainVectors[i], datapoint.getFeatureVector());
+				value += alpha.get(i) * kernelValues[i];
 			datapoint.setPredictedValue(value + offset);
 			if (grouper != null)
 				datapoint.setPredictedGroup(grouper.getGroup(datapoint.getPredictedValue()));
@@ -73,15 +95,34 @@ public abstract class AbstractKernelClassifier<T extends Datapoint> implements C
 	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Datapoint)
 	 */
 	public final double predict(Datapoint datapoint) throws IllegalArgumentException {
+		double[] kernelValues = new double[trainVectors.length];
+		kernel.evaluateAll(kernelInput(datapoint.getFeatureVector()), trainVectors, getTrainSqNorms(), kernelValues);
 		double value = 0.0;
 		for (int i = 0; i < alpha.size(); ++i)
-			value += alpha.get(i) * kernel.evaluate(trainVectors[i], datapoint.getFeatureVector());
+			value += alpha.get(i) * kernelValues[i];
 		datapoint.setPredictedValue(value + offset);
 		if (grouper != null)
 			datapoint.setPredictedGroup(grouper.getGroup(datapoint.getPredictedValue()));
 		return value;
 	}
 
+	// the vector the kernel is evaluated on, the bias feature is appended unless the features already contain it
+	private VectorInterface kernelInput(VectorInterface features) {
+		if (hasBiasFeature() && features.size() == trainVectors[0].size() - 1)
+			return features.clone().extendByOne(1.0);
+		return features;
+	}
+
+	/**
+	 * Checks if the train vectors end with a bias feature which is not part of the datapoints. The vectors to predict are extended by a constant 1
+	 * before the kernel is evaluated.
+	 *
+	 * @return true, if the train vectors have a bias feature
+	 */
+	protected boolean hasBiasFeature() {
+		return false;
+	}
+
 	/**
 	 * Gets the weight.
 	 *
@@ -288,4 +329,155 @@ public abstract class AbstractKernelClassifier<T extends Datapoint> implements C
 		return alpha;
 	}
 
+	/**
+	 * Sets the alpha.
+	 *
+	 * @param alpha the new alpha
+	 */
+	public final void setAlpha(VectorInterface alpha) {
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Gets the train vectors.
+	 *
+	 * @return the train vectors
+	 */
+	public final VectorInterface[] getTrainVectors() {
+		return trainVectors;
+	}
+
+	/**
+	 * Sets the train vectors, there must be one for every element of alpha.
+	 *
+	 * @param trainVectors the new train vectors
+	 */
+	public final void setTrainVectors(VectorInterface[] trainVectors) {
+		this.trainVectors = trainVectors;
+	}
+
+	/**
+	 * Returns a thread safe predictor of the current model, later training does not change it.
+	 *
+	 * @return the predictor
+	 */
+	public PredictorInterface compile() {
+		if (alpha == null || trainVectors == null)
+			throw new IllegalStateException("The classifier has not been trained yet");
+		return new KernelPredictor(kernel, trainVectors, getTrainSqNorms(), alpha, offset, hasBiasFeature());
+	}
+
+	/**
+	 * Returns the squared norms of the train vectors. They are computed once after every training, since learn assigns a new train vector array.
+	 *
+	 * @return the squared norms
+	 */
+	protected final double[] getTrainSqNorms() {
+		if (trainSqNormsOf != trainVectors) {
+			trainSqNorms = VectorMetric.squaredNorms(trainVectors);
+			trainSqNormsOf = trainVectors;
+		}
+		return trainSqNorms;
+	}
+
+	/**
+	 * Computes the kernel matrix of the given vectors with the number of threads and the precision configured for this classifier.
+	 *
+	 * @param vectors the vectors
+	 * @return the kernel matrix
+	 */
+	protected final KernelMatrix computeKernelMatrix(VectorInterface[] vectors) {
+		return new KernelMatrix(kernel, vectors, floatKernelMatrix, numThreads);
+	}
+
+	/**
+	 * Returns the kernel matrix of the feature vectors of the dataset, or null if it does not fit into the kernel cache size.
+	 *
+	 * @param dataset the dataset
+	 * @return the kernel matrix or null
+	 */
+	public final KernelMatrix kernelMatrix(Dataset<?> dataset) {
+		long n = dataset.size();
+		double matrixSize = (floatKernelMatrix ? 4.0 : 8.0) * n * (n + 1) / 2 / (1024 * 1024);
+		if (kernelCacheSize > 0.0 && matrixSize > kernelCacheSize)
+			return null;
+		VectorInterface[] vectors = new VectorInterface[dataset.size()];
+		for (int i = 0; i < vectors.length; ++i)
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector();
+		return computeKernelMatrix(vectors);
+	}
+
+	/**
+	 * Returns the full kernel matrix of the given vectors if it fits into the kernel cache size, otherwise a cache which computes rows on demand.
+	 *
+	 * @param vectors the vectors
+	 * @return the kernel rows
+	 */
+	protected final KernelRowProvider kernelRows(VectorInterface[] vectors) {
+		long n = vectors.length;
+		double matrixSize = (floatKernelMatrix ? 4.0 : 8.0) * n * (n + 1) / 2 / (1024 * 1024);
+		if (kernelCacheSize > 0.0 && matrixSize > kernelCacheSize)
+			return new KernelRowCache(kernel, vectors, kernelCacheSize);
+		return computeKernelMatrix(vectors);
+	}
+
+	/**
+	 * Gets the kernel cache size.
+	 *
+	 * @return the kernel cache size in megabytes
+	 */
+	public final double getKernelCacheSize() {
+		return kernelCacheSize;
+	}
+
+	/**
+	 * Sets the memory budget for the kernel matrix in megabytes. If the full kernel matrix would need more memory, the most recently used rows are
+	 * cached within this budget and all other rows are recomputed when needed. 0 (the default) always computes the full matrix.
+	 * <p>
+	 * The cache pays off for sparse duals only: every objective evaluation multiplies the kernel matrix with the dual weights and recomputes each
+	 * uncached row of a non zero weight. With dense weights, as found by the BFGS and Rprop solvers, this costs O(n^2 * d) kernel work per evaluation
+	 * once the budget holds fewer than n rows, compared to O(n^2) with the full matrix.
+	 *
+	 * @param kernelCacheSize the kernel cache size in megabytes
+	 */
+	public final void setKernelCacheSize(double kernelCacheSize) {
+		this.kernelCacheSize = kernelCacheSize;
+	}
+
+	/**
+	 * Gets the number of threads.
+	 *
+	 * @return the number of threads
+	 */
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to compute the kernel matrix.
+	 *
+	 * @param numThreads the number of threads
+	 */
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Checks if the kernel matrix is stored in single precision.
+	 *
+	 * @return true, if float kernel matrix
+	 */
+	public final boolean isFloatKernelMatrix() {
+		return floatKernelMatrix;
+	}
+
+	/**
+	 * Sets whether the kernel matrix is stored in single precision, which halves its memory.
+	 *
+	 * @param floatKernelMatrix true to store the kernel matrix as float
+	 */
+	public final void setFloatKernelMatrix(boolean floatKernelMatrix) {
+		this.floatKernelMatrix = floatKernelMatrix;
+	}
+
 }
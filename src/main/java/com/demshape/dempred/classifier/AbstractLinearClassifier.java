@@ -2,6 +2,11 @@ package com.demshape.dempred.classifier;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
@@ -9,6 +14,7 @@ import com.demshape.dempred.grouper.GrouperInterface;
 import com.demshape.dempred.lossfunction.LossFunctionInterface;
 import com.demshape.dempred.math.DenseVector;
 import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.util.ThreadTools;
 
 
 
@@ -18,7 +24,7 @@ import com.demshape.dempred.math.VectorInterface;
  *
  * @param <T> the generic type
  */
-public abstract class AbstractLinearClassifier<T extends Datapoint> implements ClassifierInterface<T>, Serializable {
+public abstract class AbstractLinearClassifier<T extends Datapoint> implements ClassifierInterface<T>, CompilableInterface, Serializable {
 
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 1584937045062049454L;
@@ -50,26 +56,42 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	/** The grouper. */
 	protected GrouperInterface grouper;
 
+	/** The number of chunks the dataset is split into for parallel evaluation of the objective function, 1 or less evaluates sequentially. */
+	protected transient int numThreads = 1;
+
+	/** The executor the chunks are evaluated on. If null, a pool with numThreads threads is created on demand. */
+	protected transient ExecutorService executor;
+
+	/** The pool created on demand if no executor is set. */
+	private transient ExecutorService ownExecutor;
+
 	/**
-	 * Scoring function f...
+	 * Scoring function f... The last element of w is the bias. If x has one element less than w the bias is added implicitly, so feature vectors
+	 * do not have to be extended by a constant feature. Feature vectors that are already extended are multiplied with w as they are.
 	 *
 	 * @param x the x
 	 * @param w the w
 	 * @return the double
 	 */
 	public final double f(VectorInterface x, VectorInterface w) {
-		return x.scalarProduct(w);
+		if (x.size() == w.size())
+			return x.scalarProduct(w);
+		if (x.size() + 1 != w.size())
+			throw new IllegalArgumentException("Feature vector has " + x.size() + " elements but the weight vector has " + w.size());
+		return x.scalarProduct(w.getElements()) + w.get(x.size());
 	}
 
 	/**
-	 * derivative of scoring function f
+	 * derivative of scoring function f. Has the size of w, that is the derivative with respect to the implicit bias is appended if necessary.
 	 *
 	 * @param x the x
 	 * @param w the w
 	 * @return the f vector
 	 */
 	public final VectorInterface f_deriv(VectorInterface x, VectorInterface w) {
-		return x.clone();
+		if (x.size() == w.size())
+			return x.clone();
+		return x.clone().extendByOne(1.0);
 	}
 
 	/**
@@ -80,23 +102,204 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 * @return score of objective function...
 	 */
 	public final double L(VectorInterface w, Dataset<T> dataset) {
+		return evaluate(w, dataset, null);
+	}
+
+	/**
+	 * Objective function without regularization and, if gradient is not null, its derivative in a single pass over the dataset. Every margin f(x,w)
+	 * is computed once and the loss function delivers g and g_deriv together.
+	 *
+	 * @param w the w
+	 * @param dataset the dataset
+	 * @param gradient array of size w.size() receiving the gradient or null if only the value is needed
+	 * @return score of objective function
+	 */
+	private double evaluate(VectorInterface w, Dataset<T> dataset, double[] gradient) {
+		double[] groupWeights = groupWeights(dataset);
+		double weight_minus = groupWeights[0];
+		double weight_plus = groupWeights[1];
+		if (gradient != null)
+			Arrays.fill(gradient, 0.0);
+		List<T> datapoints = dataset.getDatapoints();
+		int numChunks = Math.min(numThreads, datapoints.size());
+		double[] sums;
+		if (numChunks > 1)
+			sums = evaluateParallel(w, datapoints, numChunks, weight_plus, weight_minus, gradient);
+		else
+			sums = evaluateChunk(w, datapoints, null, 0, datapoints.size(), weight_plus, weight_minus, gradient);
+		if (groupAveraging)
+			return ((weight_minus * sums[0]) + (weight_plus * sums[1]));
+		else
+			return weight_minus * sums[0];
+	}
+
+	/**
+	 * Splits the datapoints into numChunks consecutive chunks of nearly equal size which are evaluated on the executor. Every chunk accumulates its
+	 * gradient in its own buffer. The partial sums and gradients are merged in chunk order, so the result only depends on the number of chunks and
+	 * not on the scheduling of the threads.
+	 */
+	private double[] evaluateParallel(final VectorInterface w, final List<T> datapoints, int numChunks, final double weight_plus, final double weight_minus, double[] gradient) {
+		ExecutorService executor = chunkExecutor();
+		List<Future<double[]>> futures = new ArrayList<Future<double[]>>(numChunks);
+		double[][] chunkGradients = new double[numChunks][];
+		for (int c = 0; c < numChunks; ++c) {
+			final int from = (int) ((long) c * datapoints.size() / numChunks);
+			final int to = (int) ((long) (c + 1) * datapoints.size() / numChunks);
+			final double[] chunkGradient = gradient == null ? null : new double[gradient.length];
+			chunkGradients[c] = chunkGradient;
+			futures.add(executor.submit(new Callable<double[]>() {
+				public double[] call() {
+					return evaluateChunk(w, datapoints, null, from, to, weight_plus, weight_minus, chunkGradient);
+				}
+			}));
+		}
+		double[] sums = new double[2];
+		for (int c = 0; c < numChunks; ++c) {
+			double[] chunkSums = ThreadTools.get(futures.get(c));
+			sums[0] += chunkSums[0];
+			sums[1] += chunkSums[1];
+			if (gradient != null) {
+				for (int j = 0; j < gradient.length; ++j)
+					gradient[j] += chunkGradients[c][j];
+			}
+		}
+		return sums;
+	}
+
+	/**
+	 * Evaluates the datapoints from (inclusive) to to (exclusive), or the datapoints indices[from] to indices[to - 1] if indices is not null. The
+	 * weighted losses of the negative and positive group are returned, the gradient (if not null) is accumulated already scaled by the group weights.
+	 */
+	private double[] evaluateChunk(VectorInterface w, List<T> datapoints, int[] indices, int from, int to, double weight_plus, double weight_minus, double[] gradient) {
+		int biasIndex = w.size() - 1;
+		double[] deriv = new double[1];
 		double sum_neg = 0.0;
 		double sum_pos = 0.0;
 		double dweight = 1.0;
-		for (T datapoint : dataset.getDatapoints()) {
+		for (int i = from; i < to; ++i) {
+			T datapoint = datapoints.get(indices == null ? i : indices[i]);
 			if (useDWeights)
 				dweight = datapoint.getWeight();
-			if (groupAveraging && datapoint.getGroup() == 1)
-				sum_pos += dweight * lossFunction.g(f(datapoint.getFeatureVector(), w), datapoint.getValue(), datapoint);
+			VectorInterface feature = datapoint.getFeatureVector();
+			boolean positive = groupAveraging && datapoint.getGroup() == 1;
+			double loss;
+			if (gradient == null)
+				loss = lossFunction.g(f(feature, w), datapoint.getValue(), datapoint);
+			else {
+				loss = lossFunction.gWithDeriv(f(feature, w), datapoint.getValue(), datapoint, deriv);
+				double coef = dweight * deriv[0] * (positive ? weight_plus : weight_minus);
+				feature.addTo(gradient, coef);
+				if (feature.size() == biasIndex)
+					gradient[biasIndex] += coef;
+			}
+			if (positive)
+				sum_pos += dweight * loss;
 			else
-				sum_neg += dweight * lossFunction.g(f(datapoint.getFeatureVector(), w), datapoint.getValue(), datapoint);
+				sum_neg += dweight * loss;
 		}
+		double[] sums = { sum_neg, sum_pos };
+		return sums;
+	}
+
+	/**
+	 * Returns the weights of the negative (index 0) and positive (index 1) group in the objective function. Without group averaging both are
+	 * 1/dataset.size().
+	 *
+	 * @param dataset the dataset
+	 * @return the group weights
+	 */
+	protected final double[] groupWeights(Dataset<T> dataset) {
+		double weight_plus = 1.0 / dataset.size();
+		double weight_minus = 1.0 / dataset.size();
 		if (groupAveraging) {
-			double weight_plus = w_plus / dataset.groupQuantity(1);
-			double weight_minus = (1.0 - w_plus) / dataset.groupQuantity(-1);
-			return ((weight_minus * sum_neg) + (weight_plus * sum_pos));
-		} else
-			return (1.0 / dataset.size()) * sum_neg;
+			weight_plus = w_plus / dataset.groupQuantity(1);
+			weight_minus = (1.0 - w_plus) / dataset.groupQuantity(-1);
+		}
+		double[] groupWeights = { weight_minus, weight_plus };
+		return groupWeights;
+	}
+
+	/**
+	 * Stochastic estimate of the smooth part of the objective function with regularization (that is without the lambda1 term) and its gradient on
+	 * the mini batch indices[from] to indices[to - 1]. The loss of the batch is scaled by datapoints.size() / (to - from), so the estimate is unbiased
+	 * if the batch is drawn uniformly.
+	 *
+	 * @param w the w
+	 * @param datapoints all datapoints of the dataset
+	 * @param indices the indices of the datapoints, usually a shuffled permutation
+	 * @param from first position in indices (inclusive)
+	 * @param to last position in indices (exclusive)
+	 * @param groupWeights the group weights of the whole dataset, see {@link #groupWeights(Dataset) groupWeights}
+	 * @param gradient array of size w.size() receiving the gradient, its previous content is overwritten
+	 * @return the estimate of the objective function
+	 */
+	protected final double batchValueAndGradient(VectorInterface w, List<T> datapoints, int[] indices, int from, int to, double[] groupWeights, double[] gradient) {
+		double scale = (double) datapoints.size() / (to - from);
+		Arrays.fill(gradient, 0.0);
+		double[] sums = evaluateChunk(w, datapoints, indices, from, to, groupWeights[1], groupWeights[0], gradient);
+		for (int j = 0; j < gradient.length; ++j)
+			gradient[j] *= scale;
+		regularizeGradient(w, gradient);
+		double obj = 1 - (lambda2 + lambda1);
+		double value;
+		if (groupAveraging)
+			value = scale * ((groupWeights[0] * sums[0]) + (groupWeights[1] * sums[1]));
+		else
+			value = scale * groupWeights[0] * sums[0];
+		return (obj * value + lambda2 * penalty(w));
+	}
+
+	// the executor set by the user or a pool with numThreads threads owned by this classifier
+	protected final ExecutorService chunkExecutor() {
+		if (executor != null)
+			return executor;
+		if (ownExecutor == null)
+			ownExecutor = ThreadTools.newDaemonPool(numThreads);
+		return ownExecutor;
+	}
+
+	/**
+	 * Objective function with regularization term and its derivative in a single pass over the dataset. This is what the solvers call in every
+	 * iteration, it is equivalent to calling {@link #L_mod(VectorInterface, Dataset) L_mod} and
+	 * {@link #L_mod_deriv(VectorInterface, Dataset, double[]) L_mod_deriv} but computes every margin only once.
+	 *
+	 * @param w the w
+	 * @param dataset the dataset
+	 * @param gradient array of size w.size() receiving the gradient, its previous content is overwritten
+	 * @return the objective function with regularization term
+	 */
+	public final double valueAndGradient(VectorInterface w, Dataset<T> dataset, double[] gradient) {
+		if (gradient.length != w.size())
+			throw new IllegalArgumentException("Gradient array has " + gradient.length + " elements but the weight vector has " + w.size());
+		double obj = 1 - (lambda2 + lambda1);
+		double value = evaluate(w, dataset, gradient);
+		regularizeGradient(w, gradient);
+		return (obj * value + lambda2 * penalty(w));
+	}
+
+	// squared l2 norm of the epsilon weighted w without the bias
+	private double penalty(VectorInterface w) {
+		double penalty = 0.0;
+		for (int i = 0; i < w.size() - 1; ++i) {
+			double wi = w.get(i);
+			if (epsilon != null && i < epsilon.size())
+				wi *= epsilon.get(i);
+			penalty += wi * wi;
+		}
+		return penalty;
+	}
+
+	// turns the gradient of L into the gradient of L_mod
+	private void regularizeGradient(VectorInterface w, double[] gradient) {
+		double obj = 1 - (lambda2 + lambda1);
+		int biasIndex = w.size() - 1;
+		for (int i = 0; i < biasIndex; ++i) {
+			double wi = w.get(i);
+			if (epsilon != null && i < epsilon.size())
+				wi *= epsilon.get(i);
+			gradient[i] = obj * gradient[i] + lambda2 * 2 * wi;
+		}
+		gradient[biasIndex] *= obj;
 	}
 
 	/**
@@ -108,14 +311,7 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 */
 	public final double L_mod(VectorInterface w, Dataset<T> dataset) {
 		double obj = 1 - (lambda2 + lambda1);
-		VectorInterface wCopy = w.clone();
-		wCopy.set(wCopy.size() - 1, 0.0);
-		if (epsilon != null) {
-			double[] a1 = wCopy.getElements();
-			for (int i = 0; i < epsilon.size(); ++i)
-				a1[i] *= epsilon.get(i);
-		}
-		return (obj * L(w, dataset) + lambda2 * wCopy.norm(2));
+		return (obj * L(w, dataset) + lambda2 * penalty(w));
 
 //		 double obj = 1 - (lambda2 + lambda1);
 //		 FVector wCopy = w.clone();
@@ -136,25 +332,23 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 * @return the gradient of the objective function without regularization term.
 	 */
 	public final VectorInterface L_deriv(VectorInterface w, Dataset<T> dataset) {
-		VectorInterface sum_neg = new DenseVector(w.size(), 0.0);
-		VectorInterface sum_pos = new DenseVector(w.size(), 0.0);
-		double dweight = 1.0;
-		int index=0;
-		for (T datapoint : dataset.getDatapoints()) {
-			if (useDWeights)
-				dweight = datapoint.getWeight();
-			VectorInterface feature = datapoint.getFeatureVector();
-			if (groupAveraging && datapoint.getGroup() == 1)
-				sum_pos.addVector(f_deriv(feature, w).mulScalar(dweight * lossFunction.g_deriv(f(feature, w), datapoint.getValue(), datapoint)));
-			else
-				sum_neg.addVector(f_deriv(feature, w).mulScalar(dweight * lossFunction.g_deriv(f(feature, w), datapoint.getValue(), datapoint)));
-		}
-		if (groupAveraging) {
-			double weight_plus = w_plus / dataset.groupQuantity(1);
-			double weight_minus = (1.0 - w_plus) / dataset.groupQuantity(-1);
-			return sum_neg.mulScalar(weight_minus).addVector(sum_pos.mulScalar(weight_plus));
-		} else
-			return sum_neg.mulScalar(1.0 / dataset.size());
+		double[] gradient = new double[w.size()];
+		L_deriv(w, dataset, gradient);
+		return new DenseVector(gradient);
+	}
+
+	/**
+	 * derivative of objective function without regulariztion term. The gradient is accumulated directly into the given array, so no vectors are
+	 * allocated per datapoint. Sparse feature vectors only touch their non zero elements.
+	 *
+	 * @param w the w
+	 * @param dataset the dataset
+	 * @param gradient array of size w.size() receiving the gradient, its previous content is overwritten
+	 */
+	public final void L_deriv(VectorInterface w, Dataset<T> dataset, double[] gradient) {
+		if (gradient.length != w.size())
+			throw new IllegalArgumentException("Gradient array has " + gradient.length + " elements but the weight vector has " + w.size());
+		evaluate(w, dataset, gradient);
 	}
 
 	/**
@@ -165,16 +359,9 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 * @return the gradient of the objective function with regularization term.
 	 */
 	public final VectorInterface L_mod_deriv(VectorInterface w, Dataset<T> dataset) {
-		double obj = 1 - (lambda2 + lambda1);
-		VectorInterface wCopy = w.clone();
-		wCopy.set(wCopy.size() - 1, 0.0);
-		if (epsilon != null) {
-			double[] a1 = wCopy.getElements();
-			for (int i = 0; i < epsilon.size(); ++i) {
-				a1[i] *= epsilon.get(i);
-			}
-		}
-		return (L_deriv(w, dataset).mulScalar(obj).addVector(wCopy.mulScalar(lambda2 * 2)));
+		double[] gradient = new double[w.size()];
+		L_mod_deriv(w, dataset, gradient);
+		return new DenseVector(gradient);
 
 //		double obj = 1 - (lambda2 + lambda1);
 //		FVector w_copy = w.clone();
@@ -192,6 +379,18 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 //		return (L_deriv(w, dataset).mulScalar(obj).addVector(w_copy.sign().mulScalar(lambda1)).addVector(w_copy2.mulScalar(lambda2 * 2)));
 	}
 	
+	/**
+	 * derivative of objective function with regulariztion term. The gradient is written into the given array which can be reused between calls.
+	 *
+	 * @param w the w
+	 * @param dataset the dataset
+	 * @param gradient array of size w.size() receiving the gradient, its previous content is overwritten
+	 */
+	public final void L_mod_deriv(VectorInterface w, Dataset<T> dataset, double[] gradient) {
+		L_deriv(w, dataset, gradient);
+		regularizeGradient(w, gradient);
+	}
+
 	/**
 	 * 
 	 * @param dataset
@@ -206,28 +405,35 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Dataset)
 	 */
 	public final void predict(Dataset<T> dataset) throws IllegalArgumentException {
-		dataset.extend(1.0);
 		for (Datapoint datapoint : dataset.getDatapoints()) {
 			datapoint.setPredictedValue(f(datapoint.getFeatureVector(), weight));
 			if (grouper != null)
 				datapoint.setPredictedGroup(grouper.getGroup(datapoint.getPredictedValue()));
 		}
-		dataset.reduce();
 	}
 
 	/* (non-Javadoc)
 	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Datapoint)
 	 */
 	public final double predict(Datapoint datapoint) throws IllegalArgumentException {
-		datapoint.getFeatureVector().extendByOne(1.0);
 		double value = f(datapoint.getFeatureVector(), weight);
 		datapoint.setPredictedValue(value);
 		if (grouper != null)
 			datapoint.setPredictedGroup(grouper.getGroup(value));
-		datapoint.getFeatureVector().reduceByOne();
 		return value;
 	}
 
+	/**
+	 * Returns a thread safe predictor of the current weights, later training does not change it.
+	 *
+	 * @return the predictor
+	 */
+	public PredictorInterface compile() {
+		if (weight == null)
+			throw new IllegalStateException("The classifier has not been trained yet");
+		return new LinearPredictor(weight);
+	}
+
 	// achtung funktioniert nicht mit kernels!
 	// wenn effectVector
 	// positiv = feature verkleinert den Fehler, also wichtiges Feature
@@ -240,7 +446,6 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 * @return a vector containing a value representing the importance of each value...
 	 */
 	public final VectorInterface effectObjFunc(Dataset<T> dataset) {
-		dataset.extend(1.0);
 		double sum_neg = 0.0;
 		double sum_pos = 0.0;
 		double weight_plus = 1.0 / dataset.size();
@@ -250,7 +455,7 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 			weight_minus = (1.0 - w_plus) / dataset.groupQuantity(-1);
 		}
 		ArrayList<Double> tempVec = new ArrayList<Double>(dataset.size() - 1);
-		VectorInterface effectVec = new DenseVector(dataset.numFeatures() - 1);
+		VectorInterface effectVec = new DenseVector(dataset.numFeatures());
 		for (T datapoint : dataset.getDatapoints()) {
 			if (groupAveraging && datapoint.getGroup() == 1)
 				sum_pos += lossFunction.g(f(datapoint.getFeatureVector(), weight), datapoint.getValue(), datapoint);
@@ -273,7 +478,6 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 			double without_weight = (weight_minus * sum_neg) + (weight_plus * sum_pos);
 			effectVec.set(j, (without_weight - with_weight));
 		}
-		dataset.reduce();
 		return effectVec;
 	}
 
@@ -287,17 +491,13 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	 */
 	public final VectorInterface effectObjRetrain(Dataset<T> dataset) throws Exception {
 		VectorInterface rank = new DenseVector(dataset.numFeatures());
-		dataset.extend(1.0);
 		double with_weight = L(weight, dataset);
-		dataset.reduce();
 		for (int i = 0; i < rank.size(); ++i) {
 			Dataset<T> reducedDataset = dataset.clone();
 			int[] deletedFeatures = { i };
 			reducedDataset.deleteFeatures(deletedFeatures);
 			this.learn(reducedDataset);
-			reducedDataset.extend(1.0);
 			double without_weight = L(weight, reducedDataset);
-			reducedDataset.reduce();
 			rank.set(i, without_weight - with_weight);
 		}
 		return rank;
@@ -316,12 +516,8 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	public final VectorInterface[] effectObjRetrain(Dataset<T> trainset, Dataset<T> testset) throws Exception {
 		VectorInterface rankTrain = new DenseVector(trainset.numFeatures());
 		VectorInterface rankTest = new DenseVector(trainset.numFeatures());
-		trainset.extend(1.0);
-		testset.extend(1.0);
 		double with_weight_train = L(weight, trainset);
 		double with_weight_test = L(weight, testset);
-		trainset.reduce();
-		testset.reduce();
 		for (int i = 0; i < rankTrain.size(); ++i) {
 			Dataset<T> reducedTrainset = trainset.clone();
 			Dataset<T> reducedTestset = testset.clone();
@@ -329,12 +525,8 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 			reducedTrainset.deleteFeatures(deletedFeatures);
 			reducedTestset.deleteFeatures(deletedFeatures);
 			this.learn(reducedTrainset);
-			reducedTrainset.extend(1.0);
-			reducedTestset.extend(1.0);
 			double without_weight_train = L(weight, reducedTrainset);
 			double without_weight_test = L(weight, reducedTestset);
-			reducedTrainset.reduce();
-			reducedTestset.reduce();
 			rankTrain.set(i, without_weight_train - with_weight_train);
 			rankTest.set(i, without_weight_test - with_weight_test);
 		}
@@ -349,7 +541,9 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 	@SuppressWarnings("unchecked")
 	public ClassifierInterface<T> clone() {
 		try {
-			return (AbstractLinearClassifier<T>) super.clone();
+			AbstractLinearClassifier<T> cl = (AbstractLinearClassifier<T>) super.clone();
+			cl.ownExecutor = null;
+			return cl;
 		} catch (CloneNotSupportedException e) {
 			e.printStackTrace();
 			return null;
@@ -509,6 +703,48 @@ public abstract class AbstractLinearClassifier<T extends Datapoint> implements C
 		this.grouper = grouper;
 	}
 
+	/**
+	 * Gets the number of threads.
+	 *
+	 * @return the number of threads
+	 */
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	/**
+	 * Sets the number of chunks the dataset is split into when the objective function and its gradient are evaluated. The chunks are evaluated in
+	 * parallel and merged in a fixed order, so results are reproducible for a given number of threads. Use 1 (the default) inside code that
+	 * already runs in parallel, e.g. when classifiers are trained on several folds at once.
+	 *
+	 * @param numThreads the number of threads
+	 */
+	public final void setNumThreads(int numThreads) {
+		if (numThreads != this.numThreads && ownExecutor != null) {
+			ownExecutor.shutdown();
+			ownExecutor = null;
+		}
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Gets the executor.
+	 *
+	 * @return the executor or null if a pool is created on demand
+	 */
+	public final ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Sets the executor the chunks are evaluated on, e.g. to share one pool between several classifiers. The executor is not shut down by the classifier.
+	 *
+	 * @param executor the executor or null to create a pool on demand
+	 */
+	public final void setExecutor(ExecutorService executor) {
+		this.executor = executor;
+	}
+
 	/**
 	 * Checks if is group averaging.
 	 *
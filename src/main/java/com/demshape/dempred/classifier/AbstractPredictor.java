@@ -0,0 +1,50 @@
+package com.demshape.dempred.classifier;
+
+import java.util.List;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+
+
+
+/**
+ * Implements the batch predictions of a predictor by predicting one row or datapoint after the other.
+ */
+public abstract class AbstractPredictor implements PredictorInterface {
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[][], double[])
+	 */
+	public final void predict(double[][] features, double[] result) {
+		predict(features, 0, features.length, result);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[][], int, int, double[])
+	 */
+	public final void predict(double[][] features, int from, int to, double[] result) {
+		if (from < 0 || to > features.length || from > to)
+			throw new IllegalArgumentException("Invalid range " + from + " to " + to + " of " + features.length + " rows");
+		if (result.length < to)
+			throw new IllegalArgumentException("The result array has less than " + to + " elements");
+		for (int i = from; i < to; ++i)
+			result[i] = predict(features[i]);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(dempred.datastructure.Dataset, double[])
+	 */
+	public final void predict(Dataset<?> dataset, double[] result) {
+		List<? extends Datapoint> datapoints = dataset.getDatapoints();
+		if (result.length < datapoints.size())
+			throw new IllegalArgumentException("The result array has less than " + datapoints.size() + " elements");
+		for (int i = 0; i < datapoints.size(); ++i)
+			result[i] = predict(datapoints.get(i).getFeatureVector());
+	}
+
+	// throws an exception if an array has not the expected number of features
+	protected final void checkSize(int size) {
+		if (size != numFeatures())
+			throw new IllegalArgumentException("Expected " + numFeatures() + " features, got " + size);
+	}
+}
@@ -16,76 +16,135 @@ import com.demshape.dempred.resampling.ResamplingErrorInterface;
 public class ClassifierTools {
 	private static final Logger logger = Logger.getLogger(ClassifierTools.class.getName());
 
+	/**
+	 * Returns a thread safe predictor of a trained classifier, see {@link PredictorInterface}. Classifiers implementing {@link CompilableInterface}
+	 * like the linear and kernel classifiers return a copy of their model, every other classifier is wrapped into a {@link SynchronizedPredictor}
+	 * which predicts plain datapoints one after the other. Classifiers of subclasses of Datapoint need
+	 * {@link #compile(ClassifierInterface, Datapoint) compile} with a template.
+	 *
+	 * @param classifier the classifier
+	 * @return the predictor
+	 */
+	@SuppressWarnings("unchecked")
+	public static PredictorInterface compile(ClassifierInterface<?> classifier) {
+		if (classifier instanceof CompilableInterface)
+			return ((CompilableInterface) classifier).compile();
+		return new SynchronizedPredictor<Datapoint>((ClassifierInterface<Datapoint>) classifier, new Datapoint());
+	}
+
+	/**
+	 * Returns a thread safe predictor of a trained classifier like {@link #compile(ClassifierInterface) compile}, but a classifier which is not
+	 * compilable predicts copies of the given template, e.g. a MultigroupDatapoint for MultiClass.
+	 *
+	 * @param classifier the classifier
+	 * @param template the datapoint whose copies are predicted by a {@link SynchronizedPredictor}
+	 * @return the predictor
+	 */
+	public static <T extends Datapoint> PredictorInterface compile(ClassifierInterface<T> classifier, T template) {
+		if (classifier instanceof CompilableInterface)
+			return ((CompilableInterface) classifier).compile();
+		return new SynchronizedPredictor<T>(classifier, template);
+	}
+
+	/**
+	 * Checks if a classifier neither writes into the datapoints when it learns nor when it is compiled to predict, so several copies of it can be
+	 * trained concurrently on the same datapoints. This holds for the linear and kernel classifiers, meta classifiers like Booster or
+	 * ConsensusClassifier change the weights or predicted values of the datapoints.
+	 *
+	 * @param classifier the classifier
+	 * @return true, if the classifier does not write into the datapoints
+	 */
+	public static boolean isReadOnly(ClassifierInterface<?> classifier) {
+		return classifier instanceof AbstractLinearClassifier || classifier instanceof AbstractKernelClassifier;
+	}
+
 	public static <T extends Datapoint> double optimizeParameter(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, ResamplingErrorInterface<T> errorInterface, Field field, double[] parameterList) throws Exception {
+		return optimizeParameter(classifier, trainset, testset, errorInterface, field, parameterList, 1);
+	}
+
+	/**
+	 * Sets the field of the classifier to the value of parameterList with the lowest estimated error, see {@link GridSearch}. If the error of every
+	 * value is NaN the first value is set.
+	 *
+	 * @param numThreads the number of values which are evaluated concurrently on clones of the classifier if it is {@link #isReadOnly(ClassifierInterface)
+	 *            read only}, other classifiers are evaluated on one thread
+	 * @return the best value
+	 */
+	public static <T extends Datapoint> double optimizeParameter(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, ResamplingErrorInterface<T> errorInterface, Field field, double[] parameterList, int numThreads) throws Exception {
 		logger.fine(String.format("Optimizing parameter: %s ", field.getName()));
-		int bestIndex = 0;
-		double smallestError = Double.POSITIVE_INFINITY;
-		field.setAccessible(true);
-		int logLevel = LoggerTools.getLevel(logger).intValue();
-		for (int i = 0; i < parameterList.length; ++i) {
-			field.set(classifier, parameterList[i]);
-			double error = errorInterface.error(classifier, trainset);
-			if (error < smallestError) {
-				smallestError = error;
-				bestIndex = i;
-			}
-			if (logLevel <= Level.FINE.intValue()) {
-				logger.fine(String.format("Setting: %s to %e", field.getName(), parameterList[i]));
-				classifier.learn(trainset);
-				classifier.predict(trainset);
-				logger.fine(DatasetResult.toStringClassification(trainset));
-				if (testset != null) {
-					classifier.predict(testset);
-					logger.fine(DatasetResult.toStringClassification(testset));
-				}
-				logger.fine(String.format("Estimated error: %.4f %n", error));
+		GridSearch<T> gridSearch = new GridSearch<T>(classifier, trainset, errorInterface);
+		gridSearch.addParameter(field, parameterList);
+		gridSearch.setNumThreads(numThreads);
+		double[] errors = gridSearch.evaluate();
+		if (LoggerTools.getLevel(logger).intValue() <= Level.FINE.intValue()) {
+			for (int i = 0; i < parameterList.length; ++i) {
+				field.set(classifier, parameterList[i]);
+				logResult(classifier, trainset, testset, String.format("Setting: %s to %e", field.getName(), parameterList[i]), errors[i]);
 			}
 		}
-		logger.fine(String.format("Finished optimizing classifier parameters. Best value is: %e", parameterList[bestIndex]));
-		field.set(classifier, parameterList[bestIndex]);
-		return parameterList[bestIndex];
+		int bestIndex = Math.max(gridSearch.getBestIndex(), 0);
+		double best = parameterList[bestIndex];
+		logger.fine(String.format("Finished optimizing classifier parameters. Best value is: %e", best));
+		gridSearch.setCandidate(bestIndex);
+		return best;
 		// return smallestError;
 	}
 
 	public static <T extends Datapoint> double[] optimize2Parameters(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, ResamplingErrorInterface<T> errorInterface, Field field1, double[] parameterList1, Field field2, double[] parameterList2) throws Exception {
-		int logLevel = LoggerTools.getLevel(logger).intValue();
-		double bestParameter1 = 0;
-		double bestParameter2 = 0;
-		double bestError = Double.POSITIVE_INFINITY;
-		field1.setAccessible(true);
-		field2.setAccessible(true);
-		for (int i = 0; i < parameterList1.length; ++i) {
-			if (logLevel <= Level.FINE.intValue()) {
-				logger.fine(String.format("################ %n Setting: %s to %e %n", field1.getName(), parameterList1[i]));
+		return optimize2Parameters(classifier, trainset, testset, errorInterface, field1, parameterList1, field2, parameterList2, 1);
+	}
+
+	/**
+	 * Sets both fields of the classifier to the pair of values with the lowest estimated error, see {@link GridSearch}. Pairs whose sum exceeds 0.9
+	 * are skipped. If every pair is skipped or has the error NaN the first pair is set.
+	 *
+	 * @param numThreads the number of pairs which are evaluated concurrently on clones of the classifier if it is {@link #isReadOnly(ClassifierInterface)
+	 *            read only}, other classifiers are evaluated on one thread
+	 * @return the best values of field1 and field2
+	 */
+	public static <T extends Datapoint> double[] optimize2Parameters(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, ResamplingErrorInterface<T> errorInterface, Field field1, double[] parameterList1, Field field2, double[] parameterList2, int numThreads) throws Exception {
+		GridSearch<T> gridSearch = new GridSearch<T>(classifier, trainset, errorInterface) {
+			@Override
+			protected boolean isCandidate(Object[] candidateValues) {
+				return (Double) candidateValues[0] + (Double) candidateValues[1] <= 0.9;
+			}
+		};
+		gridSearch.addParameter(field1, parameterList1);
+		gridSearch.addParameter(field2, parameterList2);
+		gridSearch.setNumThreads(numThreads);
+		double[] errors = gridSearch.evaluate();
+		if (LoggerTools.getLevel(logger).intValue() <= Level.FINE.intValue()) {
+			for (int i = 0; i < parameterList1.length; ++i) {
 				for (int j = 0; j < parameterList2.length; ++j) {
-					logger.fine(String.format("%n Setting: %s to %e %n", field2.getName(), parameterList2[j]));
-					if (parameterList1[i] + parameterList2[j] > 0.9)
+					double error = errors[i * parameterList2.length + j];
+					if (Double.isNaN(error))
 						continue;
 					field1.set(classifier, parameterList1[i]);
 					field2.set(classifier, parameterList2[j]);
-					double error = errorInterface.error(classifier, trainset);
-					if (error < bestError) {
-						bestError = error;
-						bestParameter1 = parameterList1[i];
-						bestParameter2 = parameterList2[j];
-					}
-					if (logLevel <= Level.FINE.intValue()) {
-						classifier.learn(trainset);
-						classifier.predict(trainset);
-						classifier.predict(testset);
-						logger.fine(DatasetResult.toStringClassification(trainset));
-						logger.fine(DatasetResult.toStringClassification(testset));
-						logger.fine(String.format("Estimated error: %.4f %n", error));
-					}
+					logResult(classifier, trainset, testset, String.format("Setting: %s to %e, %s to %e", field1.getName(), parameterList1[i], field2.getName(), parameterList2[j]), error);
 				}
 			}
 		}
-		field1.set(classifier, bestParameter1);
-		field1.set(classifier, bestParameter2);
-		double[] result = { bestParameter1, bestParameter2 };
+		int bestIndex = Math.max(gridSearch.getBestIndex(), 0);
+		gridSearch.setCandidate(bestIndex);
+		Object[] best = gridSearch.getCandidate(bestIndex);
+		double[] result = { (Double) best[0], (Double) best[1] };
 		return result;
 	}
 
+	// logs the classification of the train and test set by the classifier trained with the actual parameters
+	private static <T extends Datapoint> void logResult(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, String parameters, double error) throws Exception {
+		logger.fine(parameters);
+		classifier.learn(trainset);
+		classifier.predict(trainset);
+		logger.fine(DatasetResult.toStringClassification(trainset));
+		if (testset != null) {
+			classifier.predict(testset);
+			logger.fine(DatasetResult.toStringClassification(testset));
+		}
+		logger.fine(String.format("Estimated error: %.4f %n", error));
+	}
+
 	public static <T extends Datapoint> double setBestParameterMCC(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, Field field, double[] parameterList) throws Exception {
 		int bestIndex = 0;
 		double bestPerformance = Double.NEGATIVE_INFINITY;
@@ -0,0 +1,18 @@
+package com.demshape.dempred.classifier;
+
+
+
+/**
+ * Implemented by classifiers whose trained model can be copied into a {@link PredictorInterface predictor} of its own, see
+ * {@link ClassifierTools#compile(ClassifierInterface) compile}.
+ */
+public interface CompilableInterface {
+
+	/**
+	 * Returns a thread safe predictor of the trained model, later training does not change it.
+	 *
+	 * @return the predictor
+	 * @throws IllegalStateException if the classifier has not been trained yet
+	 */
+	public PredictorInterface compile();
+}
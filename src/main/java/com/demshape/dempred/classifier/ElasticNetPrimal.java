@@ -0,0 +1,460 @@
+package com.demshape.dempred.classifier;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.lossfunction.LogisticRegression;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.SparseRowVector;
+import com.demshape.dempred.math.SparseVector;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * Linear classifier for the elastic net (1 - (lambda1 + lambda2)) * L(w) + lambda2 * sum_j epsilon_j * w_j^2 + lambda1 * sum_j |w_j| trained with
+ * cyclic coordinate descent, the bias is not penalized. L is the Mse or the LogisticRegression loss with the group averaging and datapoint weights of
+ * the other linear classifiers. The logistic loss is replaced by a weighted least squares approximation around the current weights, which is solved by
+ * coordinate descent and renewed until the weights do not change anymore (IRLS), a step that increases the objective is halved.
+ * <p>
+ * The features are stored once per learn column by column, only their non zero elements. The predictions are updated after every coordinate step, so
+ * one step costs the non zero elements of its column. Passes over all remaining features alternate with passes over the non zero weights only. With
+ * screening the strong rule discards the features whose gradient is clearly below lambda1 before the descent, afterwards the discarded features are
+ * checked against the optimality conditions and the descent is repeated with the violating ones. {@link #learnPath(Dataset, double[]) learnPath}
+ * solves a list of lambda1 values from the strongest to the weakest, each starting from the previous solution.
+ */
+public class ElasticNetPrimal<T extends Datapoint> extends AbstractLinearClassifier<T> implements ClassifierInterface<T>, Cloneable, Serializable {
+
+	private static final long serialVersionUID = -4410828539177702736L;
+	private static final Logger logger = Logger.getLogger(ElasticNetPrimal.class.getName());
+
+	/** The lower bound of the curvature of the logistic loss. */
+	private static final double MIN_CURVATURE = 1e-5;
+
+	/** The maximum number of halvings of an IRLS step. */
+	private static final int MAX_HALVINGS = 30;
+
+	// solver options
+	private transient double tolerance = 1e-7;
+	private transient int maxIterations = 1000;
+	private transient boolean screening = true;
+
+	public ElasticNetPrimal() {
+		super();
+		lossFunction = new Mse<T>();
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.ClassifierInterface#learn(dempred.datastructure.Dataset)
+	 */
+	public void learn(Dataset<T> dataset) throws IllegalArgumentException {
+		logger.fine("learning ElasticNetPrimal");
+		Problem problem = new Problem(dataset);
+		double[] w = new double[problem.numFeatures + 1];
+		if (weight != null && weight.size() == w.length) {
+			for (int j = 0; j < w.length; ++j)
+				w[j] = weight.get(j);
+		}
+		problem.solve(w, lambda1, screening ? problem.lambda1Max() : lambda1);
+		weight = new DenseVector(w);
+	}
+
+	/**
+	 * Trains the classifier for every lambda1 from the strongest to the weakest, each solve starts from the weights of the previous one. The first solve
+	 * starts from zero weights. The classifier keeps its lambda1 and its weights.
+	 *
+	 * @param dataset the dataset
+	 * @param lambda1s the lambda1 values, in any order
+	 * @return the weight vectors in the order of lambda1s
+	 * @throws IllegalArgumentException the illegal argument exception
+	 */
+	public VectorInterface[] learnPath(Dataset<T> dataset, double[] lambda1s) throws IllegalArgumentException {
+		Problem problem = new Problem(dataset);
+		double[] sorted = lambda1s.clone();
+		Arrays.sort(sorted);
+		VectorInterface[] weights = new VectorInterface[lambda1s.length];
+		double[] w = new double[problem.numFeatures + 1];
+		double previous = problem.lambda1Max();
+		for (int i = sorted.length - 1; i >= 0; --i) {
+			// equal values are solved once
+			if (i < sorted.length - 1 && sorted[i] == sorted[i + 1])
+				continue;
+			problem.solve(w, sorted[i], screening ? Math.max(previous, sorted[i]) : sorted[i]);
+			previous = sorted[i];
+			for (int l = 0; l < lambda1s.length; ++l) {
+				if (lambda1s[l] == sorted[i])
+					weights[l] = new DenseVector(w.clone());
+			}
+			logger.fine(String.format("lambda1=%e | non zero weights: %d", sorted[i], problem.numNonZero(w)));
+		}
+		return weights;
+	}
+
+	/**
+	 * The smallest lambda1 for which all weights except the bias are zero, with the lambda2 of the classifier.
+	 *
+	 * @param dataset the dataset
+	 * @return the lambda1
+	 * @throws IllegalArgumentException the illegal argument exception
+	 */
+	public double lambda1Max(Dataset<T> dataset) throws IllegalArgumentException {
+		return new Problem(dataset).lambda1Max();
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.AbstractLinearClassifier#clone()
+	 */
+	@Override
+	public ClassifierInterface<T> clone() {
+		ElasticNetPrimal<T> cl = (ElasticNetPrimal<T>) super.clone();
+		if (this.weight != null)
+			cl.weight = this.weight.clone();
+		return cl;
+	}
+
+	/**
+	 * The data of a dataset in the form used by the coordinate descent.
+	 */
+	private final class Problem {
+
+		private final int numRows;
+		private final int numFeatures;
+
+		/** The non zero elements column by column, column j is columnStart[j] .. columnStart[j + 1]. */
+		private final int[] columnStart;
+		private final int[] rowIndices;
+		private final double[] values;
+
+		/** The targets, the value for Mse and the group for LogisticRegression. */
+		private final double[] y;
+
+		/** The weights of the rows in L, group averaging and datapoint weights. */
+		private final double[] c;
+
+		/** The epsilon of every feature. */
+		private final double[] penalty;
+
+		private final boolean logistic;
+
+		Problem(Dataset<T> dataset) {
+			if (lossFunction instanceof LogisticRegression)
+				logistic = true;
+			else if (lossFunction instanceof Mse)
+				logistic = false;
+			else
+				throw new IllegalArgumentException("ElasticNetPrimal supports the Mse and LogisticRegression loss functions but got " + lossFunction.getClass().getName());
+			numRows = dataset.size();
+			numFeatures = dataset.numFeatures();
+			if (epsilon != null && epsilon.size() != numFeatures)
+				throw new IllegalArgumentException("Epsilon has " + epsilon.size() + " elements but the dataset has " + numFeatures + " features");
+			penalty = new double[numFeatures];
+			for (int j = 0; j < numFeatures; ++j)
+				penalty[j] = epsilon != null ? epsilon.get(j) : 1.0;
+
+			y = new double[numRows];
+			c = new double[numRows];
+			double[] weights = groupWeights(dataset);
+			for (int i = 0; i < numRows; ++i) {
+				Datapoint datapoint = dataset.getDatapoint(i);
+				y[i] = logistic ? datapoint.getGroup() : datapoint.getValue();
+				c[i] = groupAveraging && datapoint.getGroup() == 1 ? weights[1] : weights[0];
+				if (useDWeights)
+					c[i] *= datapoint.getWeight();
+			}
+
+			// count the non zero elements of every column, then fill the columns
+			int[] indexBuffer = new int[numFeatures];
+			double[] valueBuffer = new double[numFeatures];
+			columnStart = new int[numFeatures + 1];
+			for (int i = 0; i < numRows; ++i) {
+				int nnz = nonZeros(dataset.getDatapoint(i).getFeatureVector(), indexBuffer, valueBuffer);
+				for (int k = 0; k < nnz; ++k)
+					++columnStart[indexBuffer[k] + 1];
+			}
+			for (int j = 0; j < numFeatures; ++j)
+				columnStart[j + 1] += columnStart[j];
+			rowIndices = new int[columnStart[numFeatures]];
+			values = new double[columnStart[numFeatures]];
+			int[] next = Arrays.copyOf(columnStart, numFeatures);
+			for (int i = 0; i < numRows; ++i) {
+				int nnz = nonZeros(dataset.getDatapoint(i).getFeatureVector(), indexBuffer, valueBuffer);
+				for (int k = 0; k < nnz; ++k) {
+					int position = next[indexBuffer[k]]++;
+					rowIndices[position] = i;
+					values[position] = valueBuffer[k];
+				}
+			}
+		}
+
+		// writes the indices and values of the non zero elements of x to the buffers and returns their number
+		private int nonZeros(VectorInterface x, int[] indices, double[] elements) {
+			if (x.size() != numFeatures)
+				throw new IllegalArgumentException("Feature vector has " + x.size() + " elements but the dataset has " + numFeatures + " features");
+			int nnz = 0;
+			if (x instanceof SparseVector) {
+				SparseVector sparse = (SparseVector) x;
+				int[] keys = sparse.getKeys();
+				double[] sparseValues = sparse.getValues();
+				for (int k = 0; k < sparse.getUsed(); ++k) {
+					if (sparseValues[k] != 0.0) {
+						indices[nnz] = keys[k];
+						elements[nnz++] = sparseValues[k];
+					}
+				}
+			} else if (x instanceof SparseRowVector && ((SparseRowVector) x).getTailSize() == 0) {
+				SparseRowVector sparse = (SparseRowVector) x;
+				int[] columns = sparse.getColumnIndices();
+				double[] sparseValues = sparse.getValues();
+				for (int k = sparse.getStart(); k < sparse.getEnd(); ++k) {
+					if (sparseValues[k] != 0.0) {
+						indices[nnz] = columns[k];
+						elements[nnz++] = sparseValues[k];
+					}
+				}
+			} else {
+				for (int j = 0; j < numFeatures; ++j) {
+					double value = x.get(j);
+					if (value != 0.0) {
+						indices[nnz] = j;
+						elements[nnz++] = value;
+					}
+				}
+			}
+			return nnz;
+		}
+
+		// the smallest lambda1 with zero weights: the bias only solution is optimal while (1 - lambda1 - lambda2) * |dL/dw_j| <= lambda1
+		double lambda1Max() {
+			double[] w = new double[numFeatures + 1];
+			double[] f = predictions(w);
+			descend(w, f, new boolean[numFeatures], 1.0 - lambda2, 0.0);
+			double[] gradient = gradient(f, 1.0);
+			double max = 0.0;
+			for (int j = 0; j < numFeatures; ++j)
+				max = Math.max(max, Math.abs(gradient[j]));
+			return (1.0 - lambda2) * max / (1.0 + max);
+		}
+
+		// minimizes the objective for lambda1 starting from w, previousLambda1 is the lambda1 of the strong rule
+		void solve(double[] w, double lambda1, double previousLambda1) {
+			double obj = 1.0 - (lambda1 + lambda2);
+			if (obj <= 0.0)
+				throw new IllegalArgumentException("lambda1 + lambda2 must be below 1 but is " + (lambda1 + lambda2));
+			double[] f = predictions(w);
+			boolean[] strong = new boolean[numFeatures];
+			double[] gradient = gradient(f, obj);
+			double threshold = 2.0 * lambda1 - previousLambda1;
+			for (int j = 0; j < numFeatures; ++j)
+				strong[j] = !screening || w[j] != 0.0 || Math.abs(gradient[j]) >= threshold;
+			while (true) {
+				descend(w, f, strong, obj, lambda1);
+				// a discarded feature is optimal at zero while |gradient| <= lambda1
+				gradient = gradient(f, obj);
+				int violations = 0;
+				for (int j = 0; j < numFeatures; ++j) {
+					if (!strong[j] && Math.abs(gradient[j]) > lambda1) {
+						strong[j] = true;
+						++violations;
+					}
+				}
+				if (violations == 0)
+					break;
+				logger.finest("features added after the optimality check: " + violations);
+			}
+		}
+
+		// coordinate descent over the features in strong and the bias, w and f are updated in place
+		private void descend(double[] w, double[] f, boolean[] strong, double obj, double lambda1) {
+			double[] h = new double[numRows];
+			double[] target = new double[numRows];
+			double[] curvature = new double[numFeatures];
+			double[] oldW = logistic ? new double[w.length] : null;
+			double[] oldF = logistic ? new double[numRows] : null;
+			for (int iteration = 0; iteration < maxIterations; ++iteration) {
+				// weighted least squares approximation sum_i h_i / 2 * (target_i - f_i)^2
+				for (int i = 0; i < numRows; ++i) {
+					if (logistic) {
+						double s = 1.0 / (1.0 + Math.exp(-y[i] * f[i]));
+						double curv = Math.max(s * (1.0 - s), MIN_CURVATURE);
+						h[i] = obj * c[i] * curv;
+						target[i] = f[i] + y[i] * (1.0 - s) / curv;
+					} else {
+						h[i] = 2.0 * obj * c[i];
+						target[i] = y[i];
+					}
+				}
+				double hSum = 0.0;
+				for (int i = 0; i < numRows; ++i)
+					hSum += h[i];
+				for (int j = 0; j < numFeatures; ++j) {
+					if (!strong[j])
+						continue;
+					double sum = 0.0;
+					for (int k = columnStart[j]; k < columnStart[j + 1]; ++k)
+						sum += h[rowIndices[k]] * values[k] * values[k];
+					curvature[j] = sum;
+				}
+				double oldObjective = 0.0;
+				if (logistic) {
+					System.arraycopy(w, 0, oldW, 0, w.length);
+					System.arraycopy(f, 0, oldF, 0, numRows);
+					oldObjective = objective(w, f, obj, lambda1);
+				}
+
+				// full passes alternate with passes over the non zero weights until a full pass changes nothing
+				boolean fullPass = true;
+				for (int pass = 0; pass < maxIterations; ++pass) {
+					double maxChange = pass(w, f, h, target, hSum, curvature, strong, fullPass, lambda1);
+					if (fullPass) {
+						if (maxChange < tolerance)
+							break;
+						fullPass = false;
+					} else if (maxChange < tolerance)
+						fullPass = true;
+				}
+				if (!logistic)
+					return;
+
+				// halve the step while the objective increases
+				double newObjective = objective(w, f, obj, lambda1);
+				for (int halving = 0; halving < MAX_HALVINGS && newObjective > oldObjective; ++halving) {
+					for (int j = 0; j < w.length; ++j)
+						w[j] = 0.5 * (w[j] + oldW[j]);
+					for (int i = 0; i < numRows; ++i)
+						f[i] = 0.5 * (f[i] + oldF[i]);
+					newObjective = objective(w, f, obj, lambda1);
+				}
+				double change = hSum * (w[numFeatures] - oldW[numFeatures]) * (w[numFeatures] - oldW[numFeatures]);
+				for (int j = 0; j < numFeatures; ++j) {
+					if (strong[j])
+						change = Math.max(change, curvature[j] * (w[j] - oldW[j]) * (w[j] - oldW[j]));
+				}
+				logger.finest(String.format("IRLS iteration %d | objective: %e | change: %e", iteration, newObjective, change));
+				if (change < tolerance)
+					return;
+			}
+			logger.warning("ElasticNetPrimal did not converge after " + maxIterations + " iterations");
+		}
+
+		// one pass of coordinate steps, returns the largest decrease curvature * step^2 of the quadratic approximation
+		private double pass(double[] w, double[] f, double[] h, double[] target, double hSum, double[] curvature, boolean[] strong, boolean fullPass, double lambda1) {
+			double maxChange = 0.0;
+			if (hSum > 0.0) {
+				double sum = 0.0;
+				for (int i = 0; i < numRows; ++i)
+					sum += h[i] * (target[i] - f[i]);
+				double delta = sum / hSum;
+				w[numFeatures] += delta;
+				for (int i = 0; i < numRows; ++i)
+					f[i] += delta;
+				maxChange = hSum * delta * delta;
+			}
+			for (int j = 0; j < numFeatures; ++j) {
+				if (!strong[j] || (!fullPass && w[j] == 0.0))
+					continue;
+				double old = w[j];
+				double u = curvature[j] * old;
+				for (int k = columnStart[j]; k < columnStart[j + 1]; ++k) {
+					int i = rowIndices[k];
+					u += h[i] * values[k] * (target[i] - f[i]);
+				}
+				double denominator = curvature[j] + 2.0 * lambda2 * penalty[j];
+				double updated = 0.0;
+				if (denominator > 0.0 && Math.abs(u) > lambda1)
+					updated = (u - Math.signum(u) * lambda1) / denominator;
+				if (updated != old) {
+					double delta = updated - old;
+					w[j] = updated;
+					for (int k = columnStart[j]; k < columnStart[j + 1]; ++k)
+						f[rowIndices[k]] += delta * values[k];
+					maxChange = Math.max(maxChange, curvature[j] * delta * delta);
+				}
+			}
+			return maxChange;
+		}
+
+		// obj * dL/dw_j for every feature
+		private double[] gradient(double[] f, double obj) {
+			double[] r = new double[numRows];
+			for (int i = 0; i < numRows; ++i) {
+				if (logistic)
+					r[i] = -obj * c[i] * y[i] / (Math.exp(y[i] * f[i]) + 1.0);
+				else
+					r[i] = 2.0 * obj * c[i] * (f[i] - y[i]);
+			}
+			double[] gradient = new double[numFeatures];
+			for (int j = 0; j < numFeatures; ++j) {
+				double sum = 0.0;
+				for (int k = columnStart[j]; k < columnStart[j + 1]; ++k)
+					sum += r[rowIndices[k]] * values[k];
+				gradient[j] = sum;
+			}
+			return gradient;
+		}
+
+		private double objective(double[] w, double[] f, double obj, double lambda1) {
+			double loss = 0.0;
+			for (int i = 0; i < numRows; ++i) {
+				if (logistic) {
+					double z = -y[i] * f[i];
+					loss += c[i] * (z > 0.0 ? z + Math.log1p(Math.exp(-z)) : Math.log1p(Math.exp(z)));
+				} else
+					loss += c[i] * (f[i] - y[i]) * (f[i] - y[i]);
+			}
+			double regularization = 0.0;
+			for (int j = 0; j < numFeatures; ++j)
+				regularization += lambda2 * penalty[j] * w[j] * w[j] + lambda1 * Math.abs(w[j]);
+			return obj * loss + regularization;
+		}
+
+		private double[] predictions(double[] w) {
+			double[] f = new double[numRows];
+			Arrays.fill(f, w[numFeatures]);
+			for (int j = 0; j < numFeatures; ++j) {
+				if (w[j] == 0.0)
+					continue;
+				for (int k = columnStart[j]; k < columnStart[j + 1]; ++k)
+					f[rowIndices[k]] += w[j] * values[k];
+			}
+			return f;
+		}
+
+		int numNonZero(double[] w) {
+			int count = 0;
+			for (int j = 0; j < numFeatures; ++j) {
+				if (w[j] != 0.0)
+					++count;
+			}
+			return count;
+		}
+	}
+
+	public final double getTolerance() {
+		return tolerance;
+	}
+
+	public final void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	public final int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public final void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	public final boolean isScreening() {
+		return screening;
+	}
+
+	public final void setScreening(boolean screening) {
+		this.screening = screening;
+	}
+
+}
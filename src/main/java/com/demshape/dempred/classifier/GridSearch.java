@@ -0,0 +1,275 @@
+package com.demshape.dempred.classifier;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.resampling.ResamplingErrorInterface;
+import com.demshape.dempred.util.ThreadTools;
+
+
+
+/**
+ * Evaluates every combination of values of one or more fields of a classifier (e.g. lambda2 x w_plus) with a resampling error. Each candidate is
+ * evaluated on its own clone of the classifier. The clones share the datapoints of the trainset, so up to numThreads candidates are evaluated
+ * concurrently only if the classifier is {@link ClassifierTools#isReadOnly(ClassifierInterface) read only}, other classifiers are evaluated one
+ * candidate after the other. The error of every candidate is kept, the classifier itself is only changed by {@link #setBest() setBest} and
+ * {@link #setCandidate(int) setCandidate}. Only classifiers which can not be cloned are evaluated in place, their fields keep the values of the last
+ * candidate. Of candidates with the same error the first one is
+ * the best, candidates with the error NaN are never the best.
+ *
+ * @param <T> the generic type
+ */
+public class GridSearch<T extends Datapoint> {
+
+	/** The Constant logger. */
+	private static final Logger logger = Logger.getLogger(GridSearch.class.getName());
+
+	/** The classifier to be optimized. */
+	private ClassifierInterface<T> classifier;
+
+	/** The trainset. */
+	private Dataset<T> trainset;
+
+	/** The resampler used to estimate the error of a candidate. */
+	private ResamplingErrorInterface<T> resampler;
+
+	/** The fields to be optimized. */
+	private List<Field> fields = new ArrayList<Field>();
+
+	/** The values of every field. */
+	private List<Object[]> values = new ArrayList<Object[]>();
+
+	/** The number of threads. */
+	private int numThreads = 1;
+
+	/** The errors of all candidates, NaN for candidates which are not evaluated. */
+	private double[] errors;
+
+	/** The index of the best candidate. */
+	private int bestIndex = -1;
+
+	/**
+	 * Instantiates a new grid search.
+	 *
+	 * @param classifier the classifier to be optimized, a read only classifier has to support clone if more than one thread is used
+	 * @param trainset the trainset
+	 * @param resampler the resampler, it is used by several threads at once
+	 */
+	public GridSearch(ClassifierInterface<T> classifier, Dataset<T> trainset, ResamplingErrorInterface<T> resampler) {
+		this.classifier = classifier;
+		this.trainset = trainset;
+		this.resampler = resampler;
+	}
+
+	/**
+	 * Adds a dimension to the grid. The first field added varies slowest in the candidate order.
+	 *
+	 * @param field the field
+	 * @param parameterList the values of the field
+	 */
+	public void addParameter(Field field, Object[] parameterList) {
+		if (parameterList.length == 0)
+			throw new IllegalArgumentException("The parameter list of " + field.getName() + " is empty");
+		field.setAccessible(true);
+		fields.add(field);
+		values.add(parameterList);
+		errors = null;
+		bestIndex = -1;
+	}
+
+	/**
+	 * Adds a dimension to the grid.
+	 *
+	 * @param field the field
+	 * @param parameterList the values of the field
+	 */
+	public void addParameter(Field field, double[] parameterList) {
+		Object[] boxed = new Object[parameterList.length];
+		for (int i = 0; i < parameterList.length; ++i)
+			boxed[i] = parameterList[i];
+		addParameter(field, boxed);
+	}
+
+	/**
+	 * Number of candidates, that is the product of the number of values of all fields.
+	 *
+	 * @return the number of candidates
+	 */
+	public int numCandidates() {
+		int numCandidates = 1;
+		for (Object[] parameterList : values)
+			numCandidates *= parameterList.length;
+		return numCandidates;
+	}
+
+	/**
+	 * Returns the values of the fields of a candidate.
+	 *
+	 * @param candidate the index of the candidate
+	 * @return the values
+	 */
+	public Object[] getCandidate(int candidate) {
+		Object[] candidateValues = new Object[fields.size()];
+		for (int i = fields.size() - 1; i >= 0; --i) {
+			Object[] parameterList = values.get(i);
+			candidateValues[i] = parameterList[candidate % parameterList.length];
+			candidate /= parameterList.length;
+		}
+		return candidateValues;
+	}
+
+	/**
+	 * Decides if a candidate is evaluated, subclasses can exclude invalid combinations.
+	 *
+	 * @param candidateValues the values of the fields
+	 * @return true, if the candidate is evaluated
+	 */
+	protected boolean isCandidate(Object[] candidateValues) {
+		return true;
+	}
+
+	/**
+	 * Evaluates all candidates.
+	 *
+	 * @return the errors of all candidates, see {@link #getErrors() getErrors}
+	 * @throws Exception the exception of the first failing candidate
+	 */
+	public double[] evaluate() throws Exception {
+		if (fields.isEmpty())
+			throw new IllegalArgumentException("No parameter has been added");
+		int numCandidates = numCandidates();
+		double[] errors = new double[numCandidates];
+		if (numThreads <= 1 || !ClassifierTools.isReadOnly(classifier)) {
+			for (int i = 0; i < numCandidates; ++i) {
+				ClassifierInterface<T> copy = classifier.clone();
+				errors[i] = evaluate(i, copy != null ? copy : classifier);
+			}
+		} else {
+			ExecutorService executor = ThreadTools.newDaemonPool(Math.min(numThreads, numCandidates));
+			try {
+				List<Future<Double>> futures = new ArrayList<Future<Double>>(numCandidates);
+				for (int i = 0; i < numCandidates; ++i) {
+					final int candidate = i;
+					final ClassifierInterface<T> copy = classifier.clone();
+					if (copy == null)
+						throw new UnsupportedOperationException("Classifiers of type " + classifier.getClass().getName() + " can not be cloned and evaluated concurrently");
+					futures.add(executor.submit(new Callable<Double>() {
+						public Double call() throws Exception {
+							return evaluate(candidate, copy);
+						}
+					}));
+				}
+				for (int i = 0; i < numCandidates; ++i)
+					errors[i] = ThreadTools.get(futures.get(i));
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		bestIndex = -1;
+		for (int i = 0; i < numCandidates; ++i) {
+			if (!Double.isNaN(errors[i]) && (bestIndex < 0 || errors[i] < errors[bestIndex]))
+				bestIndex = i;
+		}
+		this.errors = errors;
+		return errors.clone();
+	}
+
+	// sets the values of a candidate and returns its estimated error
+	private double evaluate(int candidate, ClassifierInterface<T> target) throws Exception {
+		Object[] candidateValues = getCandidate(candidate);
+		if (!isCandidate(candidateValues))
+			return Double.NaN;
+		setValues(target, candidateValues);
+		double error = resampler.error(target, trainset);
+		logger.fine(String.format("Candidate %d of %d %s: estimated error %.4f", candidate + 1, numCandidates(), toString(candidateValues), error));
+		return error;
+	}
+
+	private void setValues(ClassifierInterface<T> target, Object[] candidateValues) throws IllegalAccessException {
+		for (int i = 0; i < fields.size(); ++i)
+			fields.get(i).set(target, candidateValues[i]);
+	}
+
+	private String toString(Object[] candidateValues) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < fields.size(); ++i)
+			builder.append(i == 0 ? "" : ", ").append(fields.get(i).getName()).append('=').append(candidateValues[i]);
+		return builder.toString();
+	}
+
+	/**
+	 * Sets the fields of the classifier to the values of the best candidate.
+	 *
+	 * @throws Exception the exception
+	 */
+	public void setBest() throws Exception {
+		setValues(classifier, bestValues());
+	}
+
+	/**
+	 * Sets the fields of the classifier to the values of a candidate.
+	 *
+	 * @param candidate the index of the candidate
+	 * @throws Exception the exception
+	 */
+	public void setCandidate(int candidate) throws Exception {
+		setValues(classifier, getCandidate(candidate));
+	}
+
+	/**
+	 * Returns the values of the candidate with the lowest error.
+	 *
+	 * @return the best values
+	 */
+	public Object[] bestValues() {
+		if (bestIndex < 0)
+			throw new IllegalStateException("No candidate has been evaluated");
+		return getCandidate(bestIndex);
+	}
+
+	/**
+	 * Returns the index of the candidate with the lowest error.
+	 *
+	 * @return the best index
+	 */
+	public final int getBestIndex() {
+		return bestIndex;
+	}
+
+	/**
+	 * Returns the lowest error.
+	 *
+	 * @return the best error
+	 */
+	public final double getBestError() {
+		if (bestIndex < 0)
+			throw new IllegalStateException("No candidate has been evaluated");
+		return errors[bestIndex];
+	}
+
+	/**
+	 * Returns the error surface, the error of candidate i at position i (see {@link #getCandidate(int) getCandidate}). For two fields the error of the
+	 * values i and j is at i * (number of values of the second field) + j.
+	 *
+	 * @return the errors
+	 */
+	public final double[] getErrors() {
+		return errors == null ? null : errors.clone();
+	}
+
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.demshape.dempred.classifier;
+
+import java.util.Arrays;
+
+import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
+
+
+
+/**
+ * The predictor of a kernel classifier, f(x) = sum_i alpha_i * kernel(x_i, x) + offset. The coefficients are copied, the train vectors are shared with
+ * the classifier, which replaces but never modifies them. If the train vectors end with a bias feature, x is extended by a constant 1 like the
+ * classifier does. Every thread keeps its own buffers for the kernel values and the extended features, so predictions allocate nothing after the
+ * first call of a thread. The kernel must not modify the vectors it is evaluated on.
+ */
+public final class KernelPredictor extends AbstractPredictor {
+
+	/** The kernel. */
+	private final KernelInterface kernel;
+
+	/** The train vectors. */
+	private final VectorInterface[] trainVectors;
+
+	/** The squared norms of the train vectors. */
+	private final double[] sqNorms;
+
+	/** The coefficients of the train vectors. */
+	private final double[] alpha;
+
+	/** The offset. */
+	private final double offset;
+
+	/** The number of features without the bias feature. */
+	private final int numFeatures;
+
+	/** If true the train vectors end with a bias feature. */
+	private final boolean bias;
+
+	/** Per thread buffers. */
+	private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer(trainVectors.length, bias ? numFeatures + 1 : 0);
+		}
+	};
+
+	private static final class Buffer {
+		final double[] kernelValues;
+		// the features followed by the bias feature 1
+		final double[] extended;
+		// wraps the feature arrays passed to predict(double[]) or extended
+		final DenseVector features = new DenseVector(new double[0]);
+
+		Buffer(int numTrainVectors, int extendedSize) {
+			kernelValues = new double[numTrainVectors];
+			extended = new double[extendedSize];
+		}
+	}
+
+	/**
+	 * Instantiates a new kernel predictor.
+	 *
+	 * @param kernel the kernel
+	 * @param trainVectors the train vectors
+	 * @param sqNorms the squared norms of the train vectors or null
+	 * @param alpha the coefficients of the train vectors
+	 * @param offset the offset
+	 */
+	public KernelPredictor(KernelInterface kernel, VectorInterface[] trainVectors, double[] sqNorms, VectorInterface alpha, double offset) {
+		this(kernel, trainVectors, sqNorms, alpha, offset, false);
+	}
+
+	/**
+	 * Instantiates a new kernel predictor.
+	 *
+	 * @param kernel the kernel
+	 * @param trainVectors the train vectors
+	 * @param sqNorms the squared norms of the train vectors or null
+	 * @param alpha the coefficients of the train vectors
+	 * @param offset the offset
+	 * @param bias true if the last feature of the train vectors is a bias feature, the features to predict have one element less
+	 */
+	public KernelPredictor(KernelInterface kernel, VectorInterface[] trainVectors, double[] sqNorms, VectorInterface alpha, double offset, boolean bias) {
+		if (trainVectors.length == 0 || alpha.size() != trainVectors.length)
+			throw new IllegalArgumentException("There must be one coefficient for every train vector");
+		this.kernel = kernel;
+		this.trainVectors = trainVectors;
+		this.sqNorms = sqNorms != null ? sqNorms : VectorMetric.squaredNorms(trainVectors);
+		this.alpha = alpha.getElements().clone();
+		this.offset = offset;
+		this.bias = bias;
+		this.numFeatures = trainVectors[0].size() - (bias ? 1 : 0);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#numFeatures()
+	 */
+	public int numFeatures() {
+		return numFeatures;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[])
+	 */
+	public double predict(double[] features) {
+		checkSize(features.length);
+		Buffer buffer = buffers.get();
+		if (bias) {
+			System.arraycopy(features, 0, buffer.extended, 0, numFeatures);
+			buffer.extended[numFeatures] = 1.0;
+			buffer.features.setElements(buffer.extended);
+		} else
+			buffer.features.setElements(features);
+		try {
+			return predict(buffer.features, buffer.kernelValues);
+		} finally {
+			buffer.features.setElements(null);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(dempred.math.VectorInterface)
+	 */
+	public double predict(VectorInterface features) {
+		checkSize(features.size());
+		Buffer buffer = buffers.get();
+		if (!bias)
+			return predict(features, buffer.kernelValues);
+		Arrays.fill(buffer.extended, 0.0);
+		features.addTo(buffer.extended, 1.0);
+		buffer.extended[numFeatures] = 1.0;
+		buffer.features.setElements(buffer.extended);
+		try {
+			return predict(buffer.features, buffer.kernelValues);
+		} finally {
+			buffer.features.setElements(null);
+		}
+	}
+
+	private double predict(VectorInterface features, double[] kernelValues) {
+		kernel.evaluateAll(features, trainVectors, sqNorms, kernelValues);
+		double value = 0.0;
+		for (int i = 0; i < alpha.length; ++i)
+			value += alpha[i] * kernelValues[i];
+		return value + offset;
+	}
+}
@@ -0,0 +1,76 @@
+package com.demshape.dempred.classifier;
+
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * The predictor of a linear classifier, f(x) = w * x + b. The weights are copied, so retraining the classifier does not change the predictor.
+ */
+public final class LinearPredictor extends AbstractPredictor {
+
+	/** The weights without the bias. */
+	private final double[] weights;
+
+	/** The bias. */
+	private final double bias;
+
+	/**
+	 * Instantiates a new linear predictor.
+	 *
+	 * @param weight the weight vector of size d + 1 with the bias as last element
+	 */
+	public LinearPredictor(VectorInterface weight) {
+		int numFeatures = weight.size() - 1;
+		if (numFeatures < 0)
+			throw new IllegalArgumentException("The weight vector must at least contain the bias");
+		this.weights = new double[numFeatures];
+		for (int i = 0; i < numFeatures; ++i)
+			weights[i] = weight.get(i);
+		this.bias = weight.get(numFeatures);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#numFeatures()
+	 */
+	public int numFeatures() {
+		return weights.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[])
+	 */
+	public double predict(double[] features) {
+		checkSize(features.length);
+		double value = bias;
+		for (int i = 0; i < weights.length; ++i)
+			value += weights[i] * features[i];
+		return value;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(dempred.math.VectorInterface)
+	 */
+	public double predict(VectorInterface features) {
+		checkSize(features.size());
+		return features.scalarProduct(weights) + bias;
+	}
+
+	/**
+	 * Gets a copy of the weights without the bias.
+	 *
+	 * @return the weights
+	 */
+	public double[] getWeights() {
+		return weights.clone();
+	}
+
+	/**
+	 * Gets the bias.
+	 *
+	 * @return the bias
+	 */
+	public double getBias() {
+		return bias;
+	}
+}
@@ -97,6 +97,33 @@ public class ParameterOptimizer<T extends Datapoint> implements Iterator<Classif
 		return classifier;
 	}
 
+	/**
+	 * Evaluates all remaining parameters on up to numThreads clones of the classifier at once if it is
+	 * {@link ClassifierTools#isReadOnly(ClassifierInterface) read only}, otherwise one after the other, see {@link GridSearch}. Afterwards hasNext
+	 * returns false and setBest and bestValue refer to the best parameter of all evaluated ones.
+	 *
+	 * @param numThreads the number of threads
+	 * @return the errors of the remaining parameters
+	 * @throws Exception the exception
+	 */
+	public double[] evaluateRemaining(int numThreads) throws Exception {
+		Object[] remaining = new Object[parameterList.length - actualIndex];
+		System.arraycopy(parameterList, actualIndex, remaining, 0, remaining.length);
+		if (remaining.length == 0)
+			return new double[0];
+		GridSearch<T> gridSearch = new GridSearch<T>(classifier, trainset, resampler);
+		gridSearch.addParameter(field, remaining);
+		gridSearch.setNumThreads(numThreads);
+		double[] errors = gridSearch.evaluate();
+		if (gridSearch.getBestIndex() >= 0 && gridSearch.getBestError() < smallestError) {
+			smallestError = gridSearch.getBestError();
+			bestIndex = actualIndex + gridSearch.getBestIndex();
+		}
+		actualError = errors[errors.length - 1];
+		actualIndex = parameterList.length;
+		return errors;
+	}
+
 	/**
 	 * Sets the best so far found parameter.
 	 *
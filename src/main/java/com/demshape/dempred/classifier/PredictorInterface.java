@@ -0,0 +1,63 @@
+package com.demshape.dempred.classifier;
+
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * An immutable snapshot of a trained classifier which only computes predicted values. Unlike the predict methods of {@link ClassifierInterface} a
+ * predictor does not write into datapoints, so one predictor can be shared by several threads. The batch methods write into a caller provided
+ * array and allocate nothing per call.
+ */
+public interface PredictorInterface {
+
+	/**
+	 * The number of features the predictor expects.
+	 *
+	 * @return the number of features
+	 */
+	public int numFeatures();
+
+	/**
+	 * Predicts a single feature array.
+	 *
+	 * @param features array of numFeatures() elements
+	 * @return the predicted value
+	 */
+	public double predict(double[] features);
+
+	/**
+	 * Predicts a single feature vector.
+	 *
+	 * @param features the feature vector
+	 * @return the predicted value
+	 */
+	public double predict(VectorInterface features);
+
+	/**
+	 * Predicts every row of a feature matrix.
+	 *
+	 * @param features the rows to predict
+	 * @param result array receiving the predicted value of row i at index i
+	 */
+	public void predict(double[][] features, double[] result);
+
+	/**
+	 * Predicts the rows from (inclusive) to to (exclusive) of a feature matrix. Several threads may predict disjoint ranges into the same result array.
+	 *
+	 * @param features the rows to predict
+	 * @param from the first row
+	 * @param to the row after the last one
+	 * @param result array receiving the predicted value of row i at index i
+	 */
+	public void predict(double[][] features, int from, int to, double[] result);
+
+	/**
+	 * Predicts the datapoints of a dataset or of a view of a dataset, the datapoints are not modified.
+	 *
+	 * @param dataset the dataset
+	 * @param result array receiving the predicted value of datapoint i at index i
+	 */
+	public void predict(Dataset<?> dataset, double[] result);
+}
@@ -0,0 +1,333 @@
+package com.demshape.dempred.classifier;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.resampling.AbstractResamplingError;
+import com.demshape.dempred.resampling.ResamplingErrorInterface;
+import com.demshape.dempred.util.RandomNumber;
+import com.demshape.dempred.util.ThreadTools;
+
+
+
+/**
+ * Optimizes a parameter of a classifier by successive halving. All values are evaluated with minEvaluations calls of the resampler, then the worst
+ * dropFraction of the values is dropped and the remaining values are evaluated more often, until one value is left or the values have been evaluated
+ * maxEvaluations times. The error of a value is the mean of its evaluations.
+ * <p>
+ * A cheap resampler fits best, e.g. a CrossvalidationError with one round. If it extends {@link AbstractResamplingError} its seed is set before the
+ * values are evaluated, never while the resampler runs, so all values are compared on the same folds and the result does not depend on the number
+ * of threads. Its seed is restored afterwards.
+ * <p>
+ * Every value is evaluated on its own clone of the classifier, the classifier itself is only changed by {@link #setBest() setBest}. Only
+ * classifiers which can not be cloned are evaluated in place, their field keeps the value evaluated last. With more than one thread the values of
+ * a rung are evaluated concurrently if the classifier is {@link ClassifierTools#isReadOnly(ClassifierInterface) read only}: the resampler is then
+ * called on several threads at once and all calls share the datapoints of the trainset, so it must not keep state between calls. Learners like
+ * Booster (which sets the weights) or ConsensusClassifier (which normalizes the features) write into the datapoints and are evaluated one value
+ * after the other.
+ *
+ * @param <T> the generic type
+ */
+public class RacingOptimizer<T extends Datapoint> {
+
+	/** The Constant logger. */
+	private static final Logger logger = Logger.getLogger(RacingOptimizer.class.getName());
+
+	/** The classifier to be optimized. */
+	private ClassifierInterface<T> classifier;
+
+	/** The trainset. */
+	private Dataset<T> trainset;
+
+	/** The resampler used to evaluate a value. */
+	private ResamplingErrorInterface<T> resampler;
+
+	/** The field to be optimized. */
+	private Field field;
+
+	/** The parameter list. */
+	private Object[] parameterList;
+
+	/** The number of evaluations of every value in the first rung. */
+	private int minEvaluations = 1;
+
+	/** The number of evaluations after which the race ends. */
+	private int maxEvaluations = 8;
+
+	/** The fraction of the values which is dropped after each rung. */
+	private double dropFraction = 0.5;
+
+	/** The maximal number of fits, 0 for no limit. */
+	private long budget = 0;
+
+	/** The number of fits of one evaluation if the resampler does not extend AbstractResamplingError. */
+	private int fitsPerEvaluation = 1;
+
+	/** The number of values evaluated concurrently. */
+	private int numThreads = 1;
+
+	/** The summed errors of every value. */
+	private double[] errorSums;
+
+	/** The number of evaluations of every value. */
+	private int[] numEvaluations;
+
+	/** The number of fits used. */
+	private long numFits;
+
+	/** The best index. */
+	private int bestIndex = -1;
+
+	/**
+	 * Instantiates a new racing optimizer.
+	 *
+	 * @param classifier the classifier to be optimized, a read only classifier has to support clone if more than one thread is used
+	 * @param trainset the trainset used to optimize the classifier
+	 * @param resampler the resampler used to evaluate the error of a parameter, it is called on several threads at once if more than one thread is used
+	 * @param field the field to be optimized
+	 * @param parameterList the parameter list
+	 */
+	public RacingOptimizer(ClassifierInterface<T> classifier, Dataset<T> trainset, ResamplingErrorInterface<T> resampler, Field field, Object[] parameterList) {
+		if (parameterList.length == 0)
+			throw new IllegalArgumentException("The parameter list of " + field.getName() + " is empty");
+		this.classifier = classifier;
+		this.trainset = trainset;
+		this.resampler = resampler;
+		this.field = field;
+		this.parameterList = parameterList;
+		this.field.setAccessible(true);
+	}
+
+	/**
+	 * Instantiates a new racing optimizer.
+	 *
+	 * @param classifier the classifier to be optimized
+	 * @param trainset the trainset used to optimize the classifier
+	 * @param resampler the resampler used to evaluate the error of a parameter
+	 * @param field the field to be optimized
+	 * @param parameterList the parameter list
+	 */
+	public RacingOptimizer(ClassifierInterface<T> classifier, Dataset<T> trainset, ResamplingErrorInterface<T> resampler, Field field, double[] parameterList) {
+		this(classifier, trainset, resampler, field, box(parameterList));
+	}
+
+	private static Object[] box(double[] parameterList) {
+		Object[] boxed = new Object[parameterList.length];
+		for (int i = 0; i < parameterList.length; ++i)
+			boxed[i] = parameterList[i];
+		return boxed;
+	}
+
+	/**
+	 * Runs the race. A rung which would exceed the budget is not started, the best value is then chosen among the values of the last finished rung.
+	 *
+	 * @return the best value
+	 * @throws Exception the exception
+	 */
+	public Object race() throws Exception {
+		if (minEvaluations < 1 || maxEvaluations < minEvaluations)
+			throw new IllegalArgumentException("minEvaluations must be positive and not larger than maxEvaluations");
+		if (dropFraction <= 0.0 || dropFraction >= 1.0)
+			throw new IllegalArgumentException("dropFraction must be in (0, 1)");
+		errorSums = new double[parameterList.length];
+		numEvaluations = new int[parameterList.length];
+		numFits = 0;
+		bestIndex = -1;
+		AbstractResamplingError<T> seeded = resampler instanceof AbstractResamplingError ? (AbstractResamplingError<T>) resampler : null;
+		long seed = seeded != null ? seeded.getSeed() : 0;
+		int fits = seeded != null ? seeded.numFits() : fitsPerEvaluation;
+		Integer[] survivors = new Integer[parameterList.length];
+		for (int i = 0; i < survivors.length; ++i)
+			survivors[i] = i;
+		int evaluations = 0;
+		int target = minEvaluations;
+		try {
+			while (true) {
+				if (budget > 0 && numFits + (long) survivors.length * (target - evaluations) * fits > budget) {
+					logger.fine(String.format("Stopping the race after %d fits, the next rung exceeds the budget of %d fits", numFits, budget));
+					break;
+				}
+				for (; evaluations < target; ++evaluations) {
+					if (seeded != null)
+						seeded.setSeed(RandomNumber.splitSeed(seed, evaluations));
+					evaluate(survivors);
+					numFits += (long) survivors.length * fits;
+				}
+				sortByError(survivors);
+				logger.fine(String.format("%d values evaluated %d times, best %s=%s with error %.4f", survivors.length, evaluations, field.getName(), parameterList[survivors[0]], meanError(survivors[0])));
+				bestIndex = survivors[0];
+				if (survivors.length == 1 || evaluations >= maxEvaluations)
+					break;
+				survivors = Arrays.copyOf(survivors, Math.max(1, (int) Math.ceil(survivors.length * (1.0 - dropFraction))));
+				target = Math.min(maxEvaluations, Math.max(evaluations + 1, (int) Math.round(evaluations / (1.0 - dropFraction))));
+			}
+		} finally {
+			if (seeded != null)
+				seeded.setSeed(seed);
+		}
+		if (bestIndex < 0)
+			throw new IllegalArgumentException(String.format("A budget of %d fits does not suffice for the first rung", budget));
+		return parameterList[bestIndex];
+	}
+
+	// evaluates every survivor once on a clone of the classifier and adds the errors in the order of the survivors
+	private void evaluate(Integer[] survivors) throws Exception {
+		if (numThreads <= 1 || survivors.length == 1 || !ClassifierTools.isReadOnly(classifier)) {
+			for (int index : survivors) {
+				ClassifierInterface<T> copy = classifier.clone();
+				if (copy == null)
+					copy = classifier;
+				field.set(copy, parameterList[index]);
+				errorSums[index] += resampler.error(copy, trainset);
+				++numEvaluations[index];
+			}
+			return;
+		}
+		ExecutorService executor = ThreadTools.newDaemonPool(Math.min(numThreads, survivors.length));
+		try {
+			List<Future<Double>> futures = new ArrayList<Future<Double>>(survivors.length);
+			for (int index : survivors) {
+				final ClassifierInterface<T> copy = classifier.clone();
+				if (copy == null)
+					throw new UnsupportedOperationException("Classifiers of type " + classifier.getClass().getName() + " can not be cloned and evaluated concurrently");
+				field.set(copy, parameterList[index]);
+				futures.add(executor.submit(new Callable<Double>() {
+					public Double call() throws Exception {
+						return resampler.error(copy, trainset);
+					}
+				}));
+			}
+			for (int i = 0; i < survivors.length; ++i) {
+				errorSums[survivors[i]] += ThreadTools.get(futures.get(i));
+				++numEvaluations[survivors[i]];
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// sorts by mean error, values with the same error keep the order of the parameter list
+	private void sortByError(Integer[] survivors) {
+		Arrays.sort(survivors, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int result = Double.compare(meanError(a), meanError(b));
+				return result != 0 ? result : a.compareTo(b);
+			}
+		});
+	}
+
+	private double meanError(int index) {
+		return numEvaluations[index] == 0 ? Double.NaN : errorSums[index] / numEvaluations[index];
+	}
+
+	/**
+	 * Sets the best found parameter.
+	 *
+	 * @throws Exception the exception
+	 */
+	public void setBest() throws Exception {
+		field.set(classifier, bestValue());
+	}
+
+	/**
+	 * Returns the parameter with lowest error among the values of the last finished rung.
+	 *
+	 * @return the best parameter
+	 */
+	public Object bestValue() {
+		if (bestIndex < 0)
+			throw new IllegalStateException("The race has not been run");
+		return parameterList[bestIndex];
+	}
+
+	/**
+	 * Returns the mean error of every value, NaN for values which have not been evaluated. Values which were dropped early have fewer evaluations, see
+	 * {@link #getNumEvaluations() getNumEvaluations}.
+	 *
+	 * @return the errors
+	 */
+	public double[] getErrors() {
+		if (numEvaluations == null)
+			return null;
+		double[] errors = new double[parameterList.length];
+		for (int i = 0; i < errors.length; ++i)
+			errors[i] = meanError(i);
+		return errors;
+	}
+
+	/**
+	 * Returns the number of evaluations of every value.
+	 *
+	 * @return the number of evaluations
+	 */
+	public int[] getNumEvaluations() {
+		return numEvaluations == null ? null : numEvaluations.clone();
+	}
+
+	/**
+	 * Returns the number of fits of the last race.
+	 *
+	 * @return the number of fits
+	 */
+	public final long getNumFits() {
+		return numFits;
+	}
+
+	public final int getMinEvaluations() {
+		return minEvaluations;
+	}
+
+	public final void setMinEvaluations(int minEvaluations) {
+		this.minEvaluations = minEvaluations;
+	}
+
+	public final int getMaxEvaluations() {
+		return maxEvaluations;
+	}
+
+	public final void setMaxEvaluations(int maxEvaluations) {
+		this.maxEvaluations = maxEvaluations;
+	}
+
+	public final double getDropFraction() {
+		return dropFraction;
+	}
+
+	public final void setDropFraction(double dropFraction) {
+		this.dropFraction = dropFraction;
+	}
+
+	public final long getBudget() {
+		return budget;
+	}
+
+	public final void setBudget(long budget) {
+		this.budget = budget;
+	}
+
+	public final int getFitsPerEvaluation() {
+		return fitsPerEvaluation;
+	}
+
+	public final void setFitsPerEvaluation(int fitsPerEvaluation) {
+		this.fitsPerEvaluation = fitsPerEvaluation;
+	}
+
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+}
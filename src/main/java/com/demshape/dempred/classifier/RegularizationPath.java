@@ -0,0 +1,251 @@
+package com.demshape.dempred.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.resampling.CrossValidation;
+import com.demshape.dempred.resampling.ResamplingTools;
+import com.demshape.dempred.util.RandomNumber;
+import com.demshape.dempred.util.ThreadTools;
+
+
+
+/**
+ * Trains a linear classifier for a list of lambda2 values from the strongest to the weakest regularization. Each solve starts from the weights of the
+ * previous one (learn keeps the weight vector if its size fits), which is much cheaper than starting every value from zero. The path is computed on a
+ * clone of the classifier, only {@link #setBest() setBest} changes the classifier itself.
+ * <p>
+ * The errors are computed like in the resampling package: the mean loss, optionally weighted by the datapoint weights and averaged over both groups.
+ * {@link #crossValidate(Dataset, int, int) crossValidate} runs one path per fold and uses the same folds as a CrossvalidationError with the same seed.
+ *
+ * @param <T> the generic type
+ */
+public class RegularizationPath<T extends Datapoint> {
+
+	/** The Constant logger. */
+	private static final Logger logger = Logger.getLogger(RegularizationPath.class.getName());
+
+	/** The classifier. */
+	private AbstractLinearClassifier<T> classifier;
+
+	/** The lambda2 values, sorted from strong to weak. */
+	private double[] lambdas;
+
+	/** The loss function of the errors. */
+	private LossFunctionInterface<T> lossFunction;
+
+	/** The group averaging of the errors. */
+	private boolean groupAveraging;
+
+	/** The weighting of the errors. */
+	private boolean weighting;
+
+	/** The number of folds trained concurrently. */
+	private int numThreads = 1;
+
+	/** The seed of the folds. */
+	private long seed = new Random().nextLong();
+
+	/** The weights of the last fit, one per lambda. */
+	private VectorInterface[] weights;
+
+	/** The train errors of the last fit. */
+	private double[] trainErrors;
+
+	/** The validation errors of the last fit, NaN without validation set. */
+	private double[] validationErrors;
+
+	/** The cross validation errors. */
+	private double[] crossValidationErrors;
+
+	/**
+	 * Instantiates a new regularization path.
+	 *
+	 * @param classifier the classifier, it has to support clone
+	 * @param lambdas the lambda2 values, in any order
+	 * @param lossFunction the loss function of the errors
+	 * @param groupAveraging the group averaging of the errors
+	 * @param weighting the weighting of the errors
+	 */
+	public RegularizationPath(AbstractLinearClassifier<T> classifier, double[] lambdas, LossFunctionInterface<T> lossFunction, boolean groupAveraging, boolean weighting) {
+		if (lambdas.length == 0)
+			throw new IllegalArgumentException("The list of lambda values is empty");
+		this.classifier = classifier;
+		this.lambdas = lambdas.clone();
+		Arrays.sort(this.lambdas);
+		for (int i = 0, j = this.lambdas.length - 1; i < j; ++i, --j) {
+			double temp = this.lambdas[i];
+			this.lambdas[i] = this.lambdas[j];
+			this.lambdas[j] = temp;
+		}
+		this.lossFunction = lossFunction;
+		this.groupAveraging = groupAveraging;
+		this.weighting = weighting;
+	}
+
+	/**
+	 * Computes the path on the trainset.
+	 *
+	 * @param trainset the trainset
+	 * @param validationset the validationset or null
+	 * @throws Exception the exception
+	 */
+	public void fit(Dataset<T> trainset, Dataset<T> validationset) throws Exception {
+		weights = new VectorInterface[lambdas.length];
+		trainErrors = new double[lambdas.length];
+		validationErrors = new double[lambdas.length];
+		AbstractLinearClassifier<T> copy = copy();
+		for (int i = 0; i < lambdas.length; ++i) {
+			copy.setLambda2(lambdas[i]);
+			copy.learn(trainset);
+			weights[i] = copy.getWeight().clone();
+			LinearPredictor predictor = new LinearPredictor(weights[i]);
+			trainErrors[i] = error(predictor, trainset);
+			validationErrors[i] = validationset != null ? error(predictor, validationset) : Double.NaN;
+			logger.fine(String.format("lambda2=%e | train error: %.4f | validation error: %.4f", lambdas[i], trainErrors[i], validationErrors[i]));
+		}
+	}
+
+	/**
+	 * Computes the cross validation error of every lambda with one path per fold, the folds run on numThreads threads.
+	 *
+	 * @param dataset the dataset
+	 * @param numFolds the number of folds
+	 * @param numRounds the number of rounds
+	 * @return the cross validation errors in the order of {@link #getLambdas() getLambdas}
+	 * @throws Exception the exception
+	 */
+	public double[] crossValidate(final Dataset<T> dataset, int numFolds, int numRounds) throws Exception {
+		List<Callable<double[]>> folds = new ArrayList<Callable<double[]>>(numRounds * numFolds);
+		for (int round = 0; round < numRounds; ++round) {
+			final CrossValidation<T> crossValidation = new CrossValidation<T>(dataset);
+			crossValidation.generateFolds(numFolds, new Random(RandomNumber.splitSeed(seed, round)));
+			for (int fold = 0; fold < numFolds; ++fold) {
+				final int currentFold = fold;
+				folds.add(new Callable<double[]>() {
+					public double[] call() throws Exception {
+						Dataset<T> crossMain = crossValidation.getFoldsExcept(currentFold);
+						Dataset<T> crossFold = crossValidation.getFold(currentFold);
+						AbstractLinearClassifier<T> copy = copy();
+						// sums[4 * i .. 4 * i + 3] for lambda i
+						double[] sums = new double[4 * lambdas.length];
+						for (int i = 0; i < lambdas.length; ++i) {
+							copy.setLambda2(lambdas[i]);
+							copy.learn(crossMain);
+							addLosses(new LinearPredictor(copy.getWeight()), crossFold, sums, 4 * i);
+						}
+						return sums;
+					}
+				});
+			}
+		}
+		double[] total = ResamplingTools.total(ThreadTools.invokeAll(folds, numThreads));
+		crossValidationErrors = new double[lambdas.length];
+		for (int i = 0; i < lambdas.length; ++i) {
+			crossValidationErrors[i] = ResamplingTools.error(groupAveraging, total, 4 * i);
+			logger.fine(String.format("lambda2=%e | cross validation error: %.4f", lambdas[i], crossValidationErrors[i]));
+		}
+		return crossValidationErrors.clone();
+	}
+
+	// a clone of the classifier which starts the path from zero weights
+	private AbstractLinearClassifier<T> copy() {
+		ClassifierInterface<T> copy = classifier.clone();
+		if (copy == null)
+			throw new UnsupportedOperationException("Classifiers of type " + classifier.getClass().getName() + " can not be cloned");
+		AbstractLinearClassifier<T> linear = (AbstractLinearClassifier<T>) copy;
+		linear.setWeight(null);
+		return linear;
+	}
+
+	// adds the losses of the predictions of a dataset to the four sums at offset, see ResamplingTools
+	private void addLosses(PredictorInterface predictor, Dataset<T> dataset, double[] sums, int offset) {
+		double[] predictions = new double[dataset.size()];
+		predictor.predict(dataset, predictions);
+		ResamplingTools.addLosses(dataset, predictions, lossFunction, weighting, groupAveraging, sums, offset);
+	}
+
+	// the error of a predictor on a dataset
+	private double error(PredictorInterface predictor, Dataset<T> dataset) {
+		double[] sums = new double[4];
+		addLosses(predictor, dataset, sums, 0);
+		return ResamplingTools.error(groupAveraging, sums, 0);
+	}
+
+	/**
+	 * Returns the lambda with the lowest cross validation error, or if crossValidate has not been called, with the lowest validation error of the last
+	 * fit. Of lambdas with the same error the strongest one is returned.
+	 *
+	 * @return the best lambda
+	 */
+	public double bestLambda() {
+		double[] errors = crossValidationErrors != null ? crossValidationErrors : validationErrors;
+		if (errors == null)
+			throw new IllegalStateException("Neither a cross validation nor a fit with validation set has been computed");
+		int bestIndex = -1;
+		for (int i = 0; i < errors.length; ++i) {
+			if (!Double.isNaN(errors[i]) && (bestIndex < 0 || errors[i] < errors[bestIndex]))
+				bestIndex = i;
+		}
+		if (bestIndex < 0)
+			throw new IllegalStateException("Neither a cross validation nor a fit with validation set has been computed");
+		return lambdas[bestIndex];
+	}
+
+	/**
+	 * Sets lambda2 of the classifier to the best lambda.
+	 */
+	public void setBest() {
+		classifier.setLambda2(bestLambda());
+	}
+
+	/**
+	 * Returns the lambda2 values from the strongest to the weakest.
+	 *
+	 * @return the lambdas
+	 */
+	public final double[] getLambdas() {
+		return lambdas.clone();
+	}
+
+	public final VectorInterface[] getWeights() {
+		return weights;
+	}
+
+	public final double[] getTrainErrors() {
+		return trainErrors;
+	}
+
+	public final double[] getValidationErrors() {
+		return validationErrors;
+	}
+
+	public final double[] getCrossValidationErrors() {
+		return crossValidationErrors;
+	}
+
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public final long getSeed() {
+		return seed;
+	}
+
+	public final void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+}
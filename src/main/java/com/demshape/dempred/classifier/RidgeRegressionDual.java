@@ -17,8 +17,7 @@ public class RidgeRegressionDual<T extends Datapoint> extends AbstractKernelClas
 
 	public void learn(Dataset<T> dataset) throws IllegalArgumentException {
 		logger.fine("learning RidgeRegressionDual");
-		dataset.extend(1.0);
-		int featureSize = dataset.numFeatures();
+		int featureSize = dataset.numFeatures() + 1;
 		alpha = new DenseVector(dataset.size(), 0.0);
 
 		// K Matrix
@@ -45,6 +44,7 @@ public class RidgeRegressionDual<T extends Datapoint> extends AbstractKernelClas
 		for (int i = 0; i < dataset.size(); ++i) {
 			for (int j = 0; j < dataset.numFeatures(); ++j)
 				Xtemp[i][j] = weighting[i] * dataset.getDatapoint(i).getFeatureAt(j);
+			Xtemp[i][featureSize - 1] = weighting[i];
 		}
 		// Matrix X = new Matrix(Xtemp);
 
@@ -60,12 +60,7 @@ public class RidgeRegressionDual<T extends Datapoint> extends AbstractKernelClas
 			trainVectors[i] = new DenseVector(Xtemp[i]);
 
 		// CheloskyDecomposition
-		double[][] atemp = new double[dataset.size()][dataset.size()];
-		for (int i = 0; i < dataset.size(); ++i) {
-			for (int j = 0; j < dataset.size(); ++j)
-				atemp[i][j] = kernel.evaluate(trainVectors[i], trainVectors[j]);
-		}
-		Matrix A = new Matrix(atemp);
+		Matrix A = new Matrix(computeKernelMatrix(trainVectors).toArray());
 		Matrix B = M;
 		if (epsilon != null) {
 			for (int i = 0; i < A.getColumnDimension() - 1; ++i)
@@ -79,12 +74,21 @@ public class RidgeRegressionDual<T extends Datapoint> extends AbstractKernelClas
 		double[][] wtemp = a.transpose().getArray();
 		alpha = new DenseVector(wtemp[0]);
 
-		dataset.reduce();
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.AbstractKernelClassifier#hasBiasFeature()
+	 */
+	@Override
+	protected boolean hasBiasFeature() {
+		// the train vectors are the weighted rows of X including the bias column
+		return true;
 	}
 
 	public ClassifierInterface<T> clone() {
 		RidgeRegressionDual<T> cl = (RidgeRegressionDual<T>) super.clone();
-		cl.alpha = this.alpha.clone();
+		if (this.alpha != null)
+			cl.alpha = this.alpha.clone();
 		return cl;
 	}
 
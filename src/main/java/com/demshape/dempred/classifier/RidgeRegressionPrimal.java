@@ -1,6 +1,11 @@
 package com.demshape.dempred.classifier;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import Jama.CholeskyDecomposition;
@@ -10,6 +15,8 @@ import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
 import com.demshape.dempred.lossfunction.Mse;
 import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.GramAccumulator;
+import com.demshape.dempred.util.ThreadTools;
 
 public class RidgeRegressionPrimal<T extends Datapoint> extends AbstractLinearClassifier<T> implements ClassifierInterface<T>, Cloneable, Serializable {
 
@@ -23,46 +30,55 @@ public class RidgeRegressionPrimal<T extends Datapoint> extends AbstractLinearCl
 
 	public void learn(Dataset<T> dataset) throws IllegalArgumentException {
 		logger.fine("learning RidgeRegressionPrimal");
-		dataset.extend(1.0);
-		int featureSize = dataset.numFeatures();
+		int featureSize = dataset.numFeatures() + 1;
 		weight = new DenseVector(featureSize, 0.0);
 
-		// K Matrix
+		// weight of every row in the normal equations
 		double obj = 1 - lambda2;
 		double weight_plus = w_plus / dataset.groupQuantity(1);
 		double weight_minus = (1.0 - w_plus) / dataset.groupQuantity(-1);
 		double dweight = 1.0;
-		double[] weighting = new double[dataset.size()];
+		final double[] weighting = new double[dataset.size()];
 		for (int i = 0; i < dataset.size(); ++i) {
 			Datapoint datapoint = dataset.getDatapoint(i);
 			if (useDWeights)
 				dweight = datapoint.getWeight();
 			if (groupAveraging) {
 				if (datapoint.getGroup() == 1)
-					weighting[i] = Math.sqrt(obj * weight_plus * dweight);
+					weighting[i] = obj * weight_plus * dweight;
 				else
-					weighting[i] = Math.sqrt(obj * weight_minus * dweight);
+					weighting[i] = obj * weight_minus * dweight;
 			} else
-				weighting[i] = Math.sqrt(obj * dweight * (1.0 / dataset.size()));
+				weighting[i] = obj * dweight * (1.0 / dataset.size());
 		}
 
-		// X Matrix
-		double[][] Xtemp = new double[dataset.size()][featureSize];
-		for (int i = 0; i < dataset.size(); ++i) {
-			for (int j = 0; j < dataset.numFeatures(); ++j)
-				Xtemp[i][j] = weighting[i] * dataset.getDatapoint(i).getFeatureAt(j);
+		// X'X and X'M accumulated from the rows, in numThreads chunks
+		final List<T> datapoints = dataset.getDatapoints();
+		final int numFeatures = dataset.numFeatures();
+		int numChunks = Math.max(1, Math.min(numThreads, datapoints.size()));
+		GramAccumulator accumulator;
+		if (numChunks == 1) {
+			accumulator = accumulate(datapoints, weighting, numFeatures, 0, datapoints.size());
+		} else {
+			ExecutorService executor = chunkExecutor();
+			List<Future<GramAccumulator>> futures = new ArrayList<Future<GramAccumulator>>(numChunks);
+			for (int c = 0; c < numChunks; ++c) {
+				final int from = (int) ((long) c * datapoints.size() / numChunks);
+				final int to = (int) ((long) (c + 1) * datapoints.size() / numChunks);
+				futures.add(executor.submit(new Callable<GramAccumulator>() {
+					public GramAccumulator call() {
+						return accumulate(datapoints, weighting, numFeatures, from, to);
+					}
+				}));
+			}
+			accumulator = ThreadTools.get(futures.get(0));
+			for (int c = 1; c < numChunks; ++c)
+				accumulator.add(ThreadTools.get(futures.get(c)));
 		}
-		Matrix X = new Matrix(Xtemp);
-
-		// M Matrix
-		double[][] Btemp = new double[dataset.size()][1];
-		for (int i = 0; i < dataset.size(); ++i)
-			Btemp[i][0] = weighting[i] * dataset.getDatapoint(i).getValue();
-		Matrix M = new Matrix(Btemp);
 
 		// CholeskyDecomposition
-		Matrix A = X.transpose().times(X);
-		Matrix B = X.transpose().times(M);
+		Matrix A = new Matrix(accumulator.getGram());
+		Matrix B = new Matrix(accumulator.getMoment(), featureSize);
 		if (epsilon != null) {
 			for (int i = 0; i < A.getColumnDimension() - 1; ++i)
 				A.set(i, i, (A.get(i, i) + lambda2 * epsilon.get(i)));
@@ -75,13 +91,23 @@ public class RidgeRegressionPrimal<T extends Datapoint> extends AbstractLinearCl
 
 		double[][] wtemp = w.transpose().getArray();
 		weight = new DenseVector(wtemp[0]);
-		dataset.reduce();
+	}
+
+	// the normal equations of the datapoints from (inclusive) to to (exclusive)
+	private static <T extends Datapoint> GramAccumulator accumulate(List<T> datapoints, double[] weighting, int numFeatures, int from, int to) {
+		GramAccumulator accumulator = new GramAccumulator(numFeatures);
+		for (int i = from; i < to; ++i) {
+			T datapoint = datapoints.get(i);
+			accumulator.add(datapoint.getFeatureVector(), datapoint.getValue(), weighting[i]);
+		}
+		return accumulator;
 	}
 
 	@Override
 	public ClassifierInterface<T> clone() {
 		RidgeRegressionPrimal<T> cl = (RidgeRegressionPrimal<T>) super.clone();
-		cl.weight = this.weight.clone();
+		if (this.weight != null)
+			cl.weight = this.weight.clone();
 		return cl;
 	}
 
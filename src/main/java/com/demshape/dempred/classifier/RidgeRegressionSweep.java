@@ -0,0 +1,205 @@
+package com.demshape.dempred.classifier;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.GramAccumulator;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * Solves the normal equations of {@link RidgeRegressionPrimal} for many lambda2 values with one eigendecomposition. The ridge regression minimizes
+ * (1 - lambda2) * E(w) + lambda2 * sum_i epsilon_i * w_i^2 with the weighted squared error E(w) = sum_i c_i * (y_i - w * x_i)^2, where c_i contains
+ * the group averaging and datapoint weights. Dividing by (1 - lambda2) leaves C + mu * diag(epsilon) with mu = lambda2 / (1 - lambda2) and the
+ * weighted Gram matrix C. The unpenalized bias is eliminated with the Schur complement of C, the remaining matrix, scaled with epsilon^(-1/2), is
+ * decomposed once, after which every lambda costs O(d^2).
+ */
+public class RidgeRegressionSweep {
+
+	/** The number of weights without the bias. */
+	private final int numFeatures;
+
+	/** The eigenvectors. */
+	private final double[][] eigenvectors;
+
+	/** The eigenvalues. */
+	private final double[] eigenvalues;
+
+	/** The right side projected on the eigenvectors. */
+	private final double[] projection;
+
+	/** epsilon^(-1/2). */
+	private final double[] scale;
+
+	/** The weighted Gram matrix including the bias. */
+	private final double[][] gram;
+
+	/** The weighted x * y including the bias. */
+	private final double[] moment;
+
+	/** The weighted sum of y^2. */
+	private final double yy;
+
+	/**
+	 * Instantiates a new sweep from the weighted normal equations, x with an appended 1 for the bias.
+	 *
+	 * @param gram the weighted Gram matrix sum_i c_i * x_i * x_i', only the lower triangle is read
+	 * @param moment the weighted sum_i c_i * x_i * y_i
+	 * @param yy the weighted sum_i c_i * y_i^2
+	 * @param epsilon the per feature penalties or null
+	 */
+	public RidgeRegressionSweep(double[][] gram, double[] moment, double yy, VectorInterface epsilon) {
+		int size = moment.length;
+		numFeatures = size - 1;
+		this.gram = new double[size][size];
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j <= i; ++j) {
+				this.gram[i][j] = gram[i][j];
+				this.gram[j][i] = gram[i][j];
+			}
+		}
+		this.moment = moment.clone();
+		this.yy = yy;
+		scale = new double[numFeatures];
+		for (int i = 0; i < numFeatures; ++i) {
+			double e = epsilon != null ? epsilon.get(i) : 1.0;
+			if (e <= 0.0)
+				throw new IllegalArgumentException("The sweep needs positive epsilon values but epsilon " + i + " is " + e);
+			scale[i] = 1.0 / Math.sqrt(e);
+		}
+		// Schur complement of the bias, scaled with epsilon^(-1/2) on both sides
+		double c22 = this.gram[numFeatures][numFeatures];
+		Matrix schur = new Matrix(numFeatures, numFeatures);
+		double[] rightSide = new double[numFeatures];
+		for (int i = 0; i < numFeatures; ++i) {
+			double ci = this.gram[i][numFeatures];
+			for (int j = 0; j < numFeatures; ++j)
+				schur.set(i, j, scale[i] * scale[j] * (this.gram[i][j] - ci * this.gram[j][numFeatures] / c22));
+			rightSide[i] = scale[i] * (moment[i] - ci * moment[numFeatures] / c22);
+		}
+		EigenvalueDecomposition eigen = new EigenvalueDecomposition(schur);
+		eigenvectors = eigen.getV().getArray();
+		eigenvalues = eigen.getRealEigenvalues();
+		projection = new double[numFeatures];
+		for (int k = 0; k < numFeatures; ++k) {
+			double sum = 0.0;
+			for (int i = 0; i < numFeatures; ++i)
+				sum += eigenvectors[i][k] * rightSide[i];
+			projection[k] = sum;
+		}
+	}
+
+	/**
+	 * Instantiates a new sweep for the hyperparameters of the classifier except lambda2.
+	 *
+	 * @param classifier the classifier
+	 * @param dataset the dataset
+	 * @return the sweep
+	 */
+	public static <T extends Datapoint> RidgeRegressionSweep create(RidgeRegressionPrimal<T> classifier, Dataset<T> dataset) {
+		GramAccumulator accumulator = new GramAccumulator(dataset.numFeatures());
+		double weight_plus = classifier.getW_plus() / dataset.groupQuantity(1);
+		double weight_minus = (1.0 - classifier.getW_plus()) / dataset.groupQuantity(-1);
+		for (T datapoint : dataset.getDatapoints()) {
+			double c = classifier.isGroupAveraging() ? (datapoint.getGroup() == 1 ? weight_plus : weight_minus) : 1.0 / dataset.size();
+			if (classifier.isUseDWeights())
+				c *= datapoint.getWeight();
+			accumulator.add(datapoint.getFeatureVector(), datapoint.getValue(), c);
+		}
+		return new RidgeRegressionSweep(accumulator.getGram(), accumulator.getMoment(), accumulator.getSumOfSquares(), classifier.getEpsilon());
+	}
+
+	/**
+	 * The weights for a lambda2, the same as RidgeRegressionPrimal.learn up to rounding.
+	 *
+	 * @param lambda2 the lambda2 in [0, 1)
+	 * @return the weight vector of size d + 1 with the bias as last element
+	 */
+	public double[] weight(double lambda2) {
+		if (lambda2 < 0.0 || lambda2 >= 1.0)
+			throw new IllegalArgumentException("lambda2 must be in [0, 1) but is " + lambda2);
+		double mu = lambda2 / (1.0 - lambda2);
+		double[] coefficients = new double[numFeatures];
+		for (int k = 0; k < numFeatures; ++k)
+			coefficients[k] = projection[k] / (eigenvalues[k] + mu);
+		double[] weight = new double[numFeatures + 1];
+		double bias = moment[numFeatures];
+		for (int i = 0; i < numFeatures; ++i) {
+			double sum = 0.0;
+			for (int k = 0; k < numFeatures; ++k)
+				sum += eigenvectors[i][k] * coefficients[k];
+			weight[i] = scale[i] * sum;
+			bias -= gram[numFeatures][i] * weight[i];
+		}
+		weight[numFeatures] = bias / gram[numFeatures][numFeatures];
+		return weight;
+	}
+
+	/**
+	 * The weighted squared error E(w) of a weight vector on the data of the sweep, computed from the normal equations in O(d^2).
+	 *
+	 * @param weight the weight vector of size d + 1
+	 * @return the train error
+	 */
+	public double trainError(double[] weight) {
+		double error = yy;
+		for (int i = 0; i <= numFeatures; ++i) {
+			double row = 0.0;
+			for (int j = 0; j <= numFeatures; ++j)
+				row += gram[i][j] * weight[j];
+			error += weight[i] * (row - 2.0 * moment[i]);
+		}
+		return error;
+	}
+
+	/**
+	 * The weights for every lambda2.
+	 *
+	 * @param lambdas the lambda2 values
+	 * @return the weight vectors in the order of lambdas
+	 */
+	public VectorInterface[] weights(double[] lambdas) {
+		VectorInterface[] weights = new VectorInterface[lambdas.length];
+		for (int i = 0; i < lambdas.length; ++i)
+			weights[i] = new DenseVector(weight(lambdas[i]));
+		return weights;
+	}
+
+	/**
+	 * The train errors E(w) for every lambda2.
+	 *
+	 * @param lambdas the lambda2 values
+	 * @return the train errors in the order of lambdas
+	 */
+	public double[] trainErrors(double[] lambdas) {
+		double[] errors = new double[lambdas.length];
+		for (int i = 0; i < lambdas.length; ++i)
+			errors[i] = trainError(weight(lambdas[i]));
+		return errors;
+	}
+
+	/**
+	 * Sets the lambda2 and the weights of the classifier without retraining it.
+	 *
+	 * @param classifier the classifier
+	 * @param lambda2 the lambda2
+	 */
+	public <T extends Datapoint> void apply(RidgeRegressionPrimal<T> classifier, double lambda2) {
+		classifier.setLambda2(lambda2);
+		classifier.setWeight(new DenseVector(weight(lambda2)));
+	}
+
+	/**
+	 * Returns the number of features without the bias.
+	 *
+	 * @return the number of features
+	 */
+	public final int numFeatures() {
+		return numFeatures;
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.demshape.dempred.classifier;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * The predictor of a classifier which does not implement {@link CompilableInterface}, e.g. a meta classifier. Every prediction copies a template
+ * datapoint with a copy of the features and calls predict of the classifier on it while holding the lock of the classifier, so several threads may
+ * share the predictor but their predictions run one after the other. The predicted value is the one the classifier stores in the datapoint. The
+ * classifier is not copied, retraining it changes the predictor.
+ *
+ * @param <T> the generic type of the classifier
+ */
+public final class SynchronizedPredictor<T extends Datapoint> extends AbstractPredictor {
+
+	/** The classifier. */
+	private final ClassifierInterface<T> classifier;
+
+	/** The datapoint whose copies are predicted. */
+	private final T template;
+
+	/**
+	 * Instantiates a new synchronized predictor.
+	 *
+	 * @param classifier the trained classifier
+	 * @param template the datapoint whose copies with the features to predict are handed to the classifier, its features give the number of
+	 *            features the predictor expects unless it has none
+	 */
+	public SynchronizedPredictor(ClassifierInterface<T> classifier, T template) {
+		this.classifier = classifier;
+		this.template = template;
+	}
+
+	/**
+	 * The number of features of the template datapoint, zero if the template has none. The number of features is then not checked.
+	 *
+	 * @return the number of features
+	 */
+	public int numFeatures() {
+		return template.getNumFeatures();
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[])
+	 */
+	public double predict(double[] features) {
+		return predict(new DenseVector(features));
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(dempred.math.VectorInterface)
+	 */
+	@SuppressWarnings("unchecked")
+	public double predict(VectorInterface features) {
+		if (numFeatures() > 0)
+			checkSize(features.size());
+		T datapoint = (T) template.cloneWithFeatureVector(features.clone());
+		try {
+			synchronized (classifier) {
+				classifier.predict(datapoint);
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return datapoint.getPredictedValue();
+	}
+
+	/**
+	 * Gets the classifier.
+	 *
+	 * @return the classifier
+	 */
+	public ClassifierInterface<T> getClassifier() {
+		return classifier;
+	}
+}
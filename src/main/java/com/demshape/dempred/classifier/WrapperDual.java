@@ -8,6 +8,8 @@ import com.demshape.dempred.bfgs.LBFGS;
 import com.demshape.dempred.bfgs.LBFGS.ExceptionWithIflag;
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.kernels.KernelMatrix;
+import com.demshape.dempred.kernels.KernelRowProvider;
 import com.demshape.dempred.loggingtools.LoggerTools;
 import com.demshape.dempred.math.DenseVector;
 import com.demshape.dempred.math.VectorInterface;
@@ -22,14 +24,16 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 	private transient int solver;
 	private transient double gradLength;
 
-	private final double predictTrainingPoint(VectorInterface a, int i, double[][] kernelMatrix) {
-		double predictedValue = 0.0;
-		for (int j = 0; j < a.size(); ++j)
-			predictedValue += a.get(j) * kernelMatrix[i][j];
-		return predictedValue + offset;
+	// predicted values of all training points in one pass over the kernel matrix
+	private final double[] predictTrainingPoints(VectorInterface a, KernelRowProvider kernelMatrix) {
+		double[] predictedValues = kernelMatrix.multiply(a.getElements(), new double[kernelMatrix.size()]);
+		for (int i = 0; i < predictedValues.length; ++i)
+			predictedValues[i] += offset;
+		return predictedValues;
 	}
 
-	public final double L(VectorInterface a, Dataset<T> dataset, double[][] kernelMatrix) {
+	public final double L(VectorInterface a, Dataset<T> dataset, KernelRowProvider kernelMatrix) {
+		double[] predictedValues = predictTrainingPoints(a, kernelMatrix);
 		double sum_neg = 0.0;
 		double sum_pos = 0.0;
 		double dweight = 1.0;
@@ -38,9 +42,9 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 			if (useDWeights)
 				dweight = datapoint.getWeight();
 			if (groupAveraging && datapoint.getGroup() == 1)
-				sum_pos += dweight * lossFunction.g(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				sum_pos += dweight * lossFunction.g(predictedValues[i], datapoint.getValue(), datapoint);
 			else
-				sum_neg += dweight * lossFunction.g(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				sum_neg += dweight * lossFunction.g(predictedValues[i], datapoint.getValue(), datapoint);
 		}
 		if (groupAveraging) {
 			double weight_plus = w_plus / dataset.groupQuantity(1);
@@ -50,12 +54,13 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 			return (1.0 / dataset.size()) * sum_neg;
 	}
 
-	public final double L_mod(VectorInterface a, Dataset<T> dataset, double[][] kernelMatrix) {
+	public final double L_mod(VectorInterface a, Dataset<T> dataset, KernelRowProvider kernelMatrix) {
 		double obj = 1 - (lambda2);
 		return (obj * L(a, dataset, kernelMatrix) + lambda2 * getWeight().norm(2));
 	}
 
-	public final VectorInterface alpha_deriv(VectorInterface a, Dataset<T> dataset, double[][] kernelMatrix) {
+	public final VectorInterface alpha_deriv(VectorInterface a, Dataset<T> dataset, KernelRowProvider kernelMatrix) {
+		double[] predictedValues = predictTrainingPoints(a, kernelMatrix);
 		double obj = 1 - (lambda2);
 		double weight_plus;
 		double weight_minus;
@@ -73,14 +78,15 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 			if (useDWeights)
 				dweight = datapoint.getWeight();
 			if (groupAveraging && datapoint.getGroup() == 1)
-				gradient[i] = a.get(i) + weight_plus * dweight * lossFunction.g_deriv(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				gradient[i] = a.get(i) + weight_plus * dweight * lossFunction.g_deriv(predictedValues[i], datapoint.getValue(), datapoint);
 			else
-				gradient[i] = a.get(i) + weight_minus * dweight * lossFunction.g_deriv(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				gradient[i] = a.get(i) + weight_minus * dweight * lossFunction.g_deriv(predictedValues[i], datapoint.getValue(), datapoint);
 		}
 		return new DenseVector(gradient);
 	}
 
-	public final double b_deriv(VectorInterface a, Dataset<T> dataset, double[][] kernelMatrix) {
+	public final double b_deriv(VectorInterface a, Dataset<T> dataset, KernelRowProvider kernelMatrix) {
+		double[] predictedValues = predictTrainingPoints(a, kernelMatrix);
 		double obj = 1 - (lambda2);
 		double weight_plus;
 		double weight_minus;
@@ -98,24 +104,40 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 			if (useDWeights)
 				dweight = datapoint.getWeight();
 			if (groupAveraging && datapoint.getGroup() == 1)
-				gradient += weight_plus * dweight * lossFunction.g_deriv(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				gradient += weight_plus * dweight * lossFunction.g_deriv(predictedValues[i], datapoint.getValue(), datapoint);
 			else
-				gradient += weight_minus * dweight * lossFunction.g_deriv(predictTrainingPoint(a, i, kernelMatrix), datapoint.getValue(), datapoint);
+				gradient += weight_minus * dweight * lossFunction.g_deriv(predictedValues[i], datapoint.getValue(), datapoint);
 		}
 		return gradient;
 	}
 
 	public void learn(Dataset<T> dataset) throws Exception {
-		trainVectors = new VectorInterface[dataset.size()];
+		VectorInterface[] vectors = new VectorInterface[dataset.size()];
 		for (int i = 0; i < dataset.size(); ++i)
-			trainVectors[i] = dataset.getDatapoint(i).getFeatureVector().clone();
-		int numDatapoints = dataset.size();
-		double[][] kernelMatrix = new double[numDatapoints][numDatapoints];
-		for (int i = 0; i < numDatapoints; ++i){
-			logger.fine(String.format("Evaluating %d of %d", i, numDatapoints));
-			for (int j = 0; j < numDatapoints; ++j)
-				kernelMatrix[i][j] = kernel.evaluate(trainVectors[i], trainVectors[j]);
-		}
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector().clone();
+		logger.fine(String.format("Evaluating kernel matrix of %d datapoints", dataset.size()));
+		learn(dataset, vectors, kernelRows(vectors));
+	}
+
+	/**
+	 * Learns with a precomputed kernel matrix of the feature vectors of the dataset, e.g. a {@link KernelMatrix#subMatrix(int[]) subMatrix} of the
+	 * kernel matrix of a larger dataset.
+	 *
+	 * @param dataset the dataset
+	 * @param kernelMatrix the kernel matrix of the dataset
+	 * @throws Exception the exception
+	 */
+	public void learn(Dataset<T> dataset, KernelRowProvider kernelMatrix) throws Exception {
+		if (kernelMatrix.size() != dataset.size())
+			throw new IllegalArgumentException("Kernel matrix has " + kernelMatrix.size() + " rows but the dataset has " + dataset.size() + " datapoints");
+		VectorInterface[] vectors = new VectorInterface[dataset.size()];
+		for (int i = 0; i < dataset.size(); ++i)
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector().clone();
+		learn(dataset, vectors, kernelMatrix);
+	}
+
+	private void learn(Dataset<T> dataset, VectorInterface[] vectors, KernelRowProvider kernelMatrix) throws Exception {
+		trainVectors = vectors;
 		if (solver == 0)
 			learnBFGS(dataset, kernelMatrix);
 		else if (solver == 1)
@@ -124,7 +146,7 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 			throw new IllegalArgumentException("The selected solver does not exist.");
 	}
 
-	public void learnRprop(Dataset<T> dataset, double[][] kernelMatrix) throws IllegalArgumentException {
+	public void learnRprop(Dataset<T> dataset, KernelRowProvider kernelMatrix) throws IllegalArgumentException {
 		int numDatapoints = dataset.size();
 		RpropInterface rprop = new IRpropMinus(numDatapoints, 0.001);
 		IRpropMinus rpropOffset = new IRpropMinus(1, 0.001);
@@ -145,7 +167,7 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 		}
 	}
 
-	public void learnBFGS(Dataset<T> dataset, double[][] kernelMatrix) throws ExceptionWithIflag {
+	public void learnBFGS(Dataset<T> dataset, KernelRowProvider kernelMatrix) throws ExceptionWithIflag {
 		int n = dataset.size();
 		alpha = new DenseVector(n, 0.0);
 		int LoggerLevel = LoggerTools.getLevel(logger).intValue();
@@ -166,7 +188,8 @@ public class WrapperDual<T extends Datapoint> extends AbstractKernelClassifier<T
 
 	public ClassifierInterface<T> clone() {
 		WrapperDual<T> cl = (WrapperDual<T>) super.clone();
-		cl.alpha = this.alpha.clone();
+		if (this.alpha != null)
+			cl.alpha = this.alpha.clone();
 		return cl;
 	}
 
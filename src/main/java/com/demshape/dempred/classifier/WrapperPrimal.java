@@ -1,6 +1,9 @@
 package com.demshape.dempred.classifier;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,6 +27,13 @@ public class WrapperPrimal<T extends Datapoint> extends AbstractLinearClassifier
 	private transient double gradLength;
 	private transient int solver;
 	private transient int rPropFlag;
+	private transient int batchSize = 128;
+	private transient int numEpochs = 20;
+	private transient double learnRate = 0.01;
+	// 0 = Adam, 1 = AdaGrad
+	private transient int sgdMethod;
+	private transient boolean averaging;
+	private transient long seed;
 
 	public void learn(Dataset<T> dataset) throws Exception {
 		int numFeatures = dataset.numFeatures() + 1;
@@ -37,12 +47,13 @@ public class WrapperPrimal<T extends Datapoint> extends AbstractLinearClassifier
 			learnOWLQN(dataset);
 		else if (solver == 3)
 			learnRpropOld(dataset);
+		else if (solver == 4)
+			learnSGD(dataset);
 		else
 			throw new IllegalArgumentException("The selected solver does not exist.");
 	}
 
 	public void learnOWLQN(Dataset<T> dataset) throws IllegalArgumentException {
-		dataset.extend(1.0);
 		double regweight = lambda1;
 		OWLQNMinimizer owlqn = new OWLQNMinimizer(regweight);
 		if (LoggerTools.getLevel(logger).intValue() <= Level.FINEST.intValue())
@@ -50,24 +61,39 @@ public class WrapperPrimal<T extends Datapoint> extends AbstractLinearClassifier
 		else
 			owlqn.quite = true;
 		FunctionAdapter obj = new FunctionAdapter();
-		obj.numFeatures = dataset.numFeatures();
+		obj.numFeatures = weight.size();
 		obj.dataset = dataset;
 		double tol = 0.0000001;
 		double[] opt = owlqn.minimize(obj, tol, weight.getElements());
 		weight = new DenseVector(opt);
-		dataset.reduce();
 	}
 
 	class FunctionAdapter implements DiffFunction {
 		public int numFeatures;
 		public Dataset<T> dataset;
+		// the minimizer asks for the value and the derivative at the same point one after the other, both are computed in one pass and cached.
+		// the gradient array is reused between calls, the minimizer copies the returned gradient
+		private double[] cachedX;
+		private double cachedValue;
+		private double[] gradient;
+
+		private void evaluate(double[] x) {
+			if (cachedX != null && Arrays.equals(cachedX, x))
+				return;
+			if (gradient == null || gradient.length != x.length)
+				gradient = new double[x.length];
+			cachedValue = valueAndGradient(new DenseVector(x), dataset, gradient);
+			cachedX = x.clone();
+		}
 
 		public double valueAt(double[] x) {
-			return L_mod(new DenseVector(x), dataset);
+			evaluate(x);
+			return cachedValue;
 		}
 
 		public double[] derivativeAt(double[] x) {
-			return L_mod_deriv(new DenseVector(x), dataset).getElements();
+			evaluate(x);
+			return gradient;
 		}
 
 		public int domainDimension() {
@@ -77,74 +103,155 @@ public class WrapperPrimal<T extends Datapoint> extends AbstractLinearClassifier
 	
 	public void learnRpropOld(Dataset<T> dataset) throws IllegalArgumentException {
 		rPropFlag = 0;
-		dataset.extend(1.0);
-		int featureSize = dataset.numFeatures();
+		int featureSize = weight.size();
 		RpropInterface rprop = new IRpropMinus(featureSize, 0.001);
 		int LoggerLevel = LoggerTools.getLevel(logger).intValue();
 		int i = 0;
-		VectorInterface g = L_mod_deriv(weight, dataset);
+		double[] gradient = new double[featureSize];
+		VectorInterface g = new DenseVector(gradient);
 		double preError = Double.MAX_VALUE;
 		while (rPropFlag < 5) {
-			double error = L_mod(weight, dataset);
+			double error = valueAndGradient(weight, dataset, gradient);
 			if (Math.abs(error - preError) < gradLength)
 				++rPropFlag;
 			else
 				rPropFlag = 0;
 			if (error < preError)
 				preError = error;
-			rprop.adjust(weight.getElements(), g.getElements(), 0.0);
-			g = L_mod_deriv(weight, dataset);
+			rprop.adjust(weight.getElements(), gradient, 0.0);
 			if (LoggerLevel <= Level.FINEST.intValue()){
 				logger.finest(String.format("Learning RpropOld step:%d | Error:%.8f | GradientNorm:%.8f | WeightNorm:%.8f", ++i, error, g.normRadical(2), weight.normRadical(2)));
 			}
 		}		
-		dataset.reduce();
 	}
 
 	public void learnRprop(Dataset<T> dataset) throws IllegalArgumentException {
-		dataset.extend(1.0);
-		int featureSize = dataset.numFeatures();
+		int featureSize = weight.size();
 		RpropInterface rprop = new IRpropMinus(featureSize, 0.001);
 		int LoggerLevel = LoggerTools.getLevel(logger).intValue();
 		int i = 0;
-		VectorInterface g = L_mod_deriv(weight, dataset);
+		double[] gradient = new double[featureSize];
+		VectorInterface g = new DenseVector(gradient);
+		double error = valueAndGradient(weight, dataset, gradient);
 		while (g.normRadical(2) > (gradLength * Math.max(1.0, weight.normRadical(2)))) {
-			rprop.adjust(weight.getElements(), g.getElements(), 0.0);
-			g = L_mod_deriv(weight, dataset);
+			rprop.adjust(weight.getElements(), gradient, 0.0);
+			error = valueAndGradient(weight, dataset, gradient);
 			if (LoggerLevel <= Level.FINEST.intValue())
-				logger.finest(String.format("Learning Rprop step:%d | Error:%.8f | GradientNorm:%.8f | WeightNorm:%.8f", ++i, L_mod(weight, dataset), g.normRadical(2), weight.normRadical(2)));
+				logger.finest(String.format("Learning Rprop step:%d | Error:%.8f | GradientNorm:%.8f | WeightNorm:%.8f", ++i, error, g.normRadical(2), weight.normRadical(2)));
 		}
-		dataset.reduce();
 	}
 
 	public void learnBFGS(Dataset<T> dataset) throws ExceptionWithIflag {
-		dataset.extend(1.0);
 		int LoggerLevel = LoggerTools.getLevel(logger).intValue();
 		int i = 0;
 		int[] iflag = { 0 };
 		int[] iprint = { -1, 1 };
-		int n = dataset.numFeatures();
+		int n = weight.size();
 		int m = 3;
 		double xtol = 1.0e-16;
 		boolean diagco = false;
 		double[] diag = new double[n];
 		LBFGS lbfgs = new LBFGS();
 		double lmod;
-		VectorInterface g;
+		double[] gradient = new double[n];
+		VectorInterface g = new DenseVector(gradient);
 		do {
-			lmod = L_mod(weight, dataset);
-			g = L_mod_deriv(weight, dataset);
-			lbfgs.lbfgs(n, m, weight.getElements(), lmod, g.getElements(), diagco, diag, iprint, gradLength, xtol, iflag);
+			lmod = valueAndGradient(weight, dataset, gradient);
+			lbfgs.lbfgs(n, m, weight.getElements(), lmod, gradient, diagco, diag, iprint, gradLength, xtol, iflag);
 			if (LoggerLevel <= Level.FINEST.intValue())
 				logger.finest(String.format("Learning BFGS step:%d | Error:%.8f | GradientNorm:%.8f | WeightNorm:%.8f", ++i, lmod, g.normRadical(2), weight.normRadical(2)));
 		} while (iflag[0] != 0);
-		dataset.reduce();
+	}
+
+	/**
+	 * Mini batch stochastic gradient descent. Every epoch visits the datapoints once in a new random order (reproducible through the seed) in batches of
+	 * batchSize datapoints. Step sizes are adapted per coordinate with Adam or AdaGrad (see sgdMethod), lambda1 is handled by a proximal soft thresholding
+	 * step. With averaging the returned weight is the mean of all iterates from the second epoch on. Learning stops after numEpochs or when the
+	 * estimated objective of two consecutive epochs differs by less than gradLength (relative).
+	 *
+	 * @param dataset the dataset
+	 */
+	public void learnSGD(Dataset<T> dataset) throws IllegalArgumentException {
+		if (batchSize < 1 || numEpochs < 1 || learnRate <= 0.0)
+			throw new IllegalArgumentException("batchSize and numEpochs must be positive and learnRate greater than zero.");
+		if (sgdMethod != 0 && sgdMethod != 1)
+			throw new IllegalArgumentException("The selected sgd method does not exist.");
+		int LoggerLevel = LoggerTools.getLevel(logger).intValue();
+		List<T> datapoints = dataset.getDatapoints();
+		int n = datapoints.size();
+		int d = weight.size();
+		int batch = Math.min(batchSize, n);
+		double[] groupWeights = groupWeights(dataset);
+		double[] w = weight.getElements();
+		double[] gradient = new double[d];
+		double[] m = new double[d];
+		double[] v = new double[d];
+		double[] mean = averaging ? new double[d] : null;
+		int numAveraged = 0;
+		double beta1 = 0.9;
+		double beta2 = 0.999;
+		double delta = 1.0e-8;
+		double beta1Power = 1.0;
+		double beta2Power = 1.0;
+		int[] order = new int[n];
+		for (int i = 0; i < n; ++i)
+			order[i] = i;
+		Random random = new Random(seed);
+		double preError = Double.MAX_VALUE;
+		for (int epoch = 0; epoch < numEpochs; ++epoch) {
+			for (int i = n - 1; i > 0; --i) {
+				int j = random.nextInt(i + 1);
+				int temp = order[i];
+				order[i] = order[j];
+				order[j] = temp;
+			}
+			double error = 0.0;
+			for (int from = 0; from < n; from += batch) {
+				int to = Math.min(n, from + batch);
+				error += batchValueAndGradient(weight, datapoints, order, from, to, groupWeights, gradient) * (to - from) / n;
+				beta1Power *= beta1;
+				beta2Power *= beta2;
+				for (int j = 0; j < d; ++j) {
+					double step;
+					double direction;
+					if (sgdMethod == 0) {
+						m[j] = beta1 * m[j] + (1.0 - beta1) * gradient[j];
+						v[j] = beta2 * v[j] + (1.0 - beta2) * gradient[j] * gradient[j];
+						step = learnRate / (Math.sqrt(v[j] / (1.0 - beta2Power)) + delta);
+						direction = m[j] / (1.0 - beta1Power);
+					} else {
+						v[j] += gradient[j] * gradient[j];
+						step = learnRate / (Math.sqrt(v[j]) + delta);
+						direction = gradient[j];
+					}
+					w[j] -= step * direction;
+					// proximal step of the l1 term, the bias is not regularized
+					if (lambda1 > 0.0 && j < d - 1)
+						w[j] = Math.signum(w[j]) * Math.max(0.0, Math.abs(w[j]) - step * lambda1);
+				}
+				if (mean != null && (epoch > 0 || numEpochs == 1)) {
+					++numAveraged;
+					for (int j = 0; j < d; ++j)
+						mean[j] += (w[j] - mean[j]) / numAveraged;
+				}
+			}
+			for (int j = 0; j < d - 1; ++j)
+				error += lambda1 * Math.abs(w[j]);
+			if (LoggerLevel <= Level.FINEST.intValue())
+				logger.finest(String.format("Learning SGD epoch:%d | Error:%.8f | WeightNorm:%.8f", epoch + 1, error, weight.normRadical(2)));
+			if (Math.abs(preError - error) < gradLength * Math.max(1.0, Math.abs(error)))
+				break;
+			preError = error;
+		}
+		if (mean != null && numAveraged > 0)
+			weight = new DenseVector(mean);
 	}
 
 	@Override
 	public ClassifierInterface<T> clone() {
 		WrapperPrimal<T> cl = (WrapperPrimal<T>) super.clone();
-		cl.weight = this.weight.clone();
+		if (this.weight != null)
+			cl.weight = this.weight.clone();
 		return cl;
 	}
 
@@ -168,4 +275,52 @@ public class WrapperPrimal<T extends Datapoint> extends AbstractLinearClassifier
 		this.solver = solver;
 	}
 
+	public final int getBatchSize() {
+		return batchSize;
+	}
+
+	public final void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public final int getNumEpochs() {
+		return numEpochs;
+	}
+
+	public final void setNumEpochs(int numEpochs) {
+		this.numEpochs = numEpochs;
+	}
+
+	public final double getLearnRate() {
+		return learnRate;
+	}
+
+	public final void setLearnRate(double learnRate) {
+		this.learnRate = learnRate;
+	}
+
+	public final int getSgdMethod() {
+		return sgdMethod;
+	}
+
+	public final void setSgdMethod(int sgdMethod) {
+		this.sgdMethod = sgdMethod;
+	}
+
+	public final boolean isAveraging() {
+		return averaging;
+	}
+
+	public final void setAveraging(boolean averaging) {
+		this.averaging = averaging;
+	}
+
+	public final long getSeed() {
+		return seed;
+	}
+
+	public final void setSeed(long seed) {
+		this.seed = seed;
+	}
+
 }
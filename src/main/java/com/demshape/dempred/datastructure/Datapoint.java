@@ -237,6 +237,24 @@ public class Datapoint implements Cloneable, Serializable {
 		}
 	}
 
+	/**
+	 * Returns a shallow copy of this datapoint which uses the given feature vector. Unlike {@link #clone() clone} the feature vector of this datapoint is not copied.
+	 * 
+	 * @param features the feature vector of the copy
+	 * @return the copy
+	 */
+	public Datapoint cloneWithFeatureVector(VectorInterface features) {
+		try {
+			Datapoint newDatapoint = (Datapoint) super.clone();
+			newDatapoint.featureVector = features;
+			newDatapoint.extended = false;
+			return newDatapoint;
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Clone not supported!");
+			return null;
+		}
+	}
+
 	/**
 	 * Checks if is extended.
 	 * 
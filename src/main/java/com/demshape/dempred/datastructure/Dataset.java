@@ -1,14 +1,21 @@
 package com.demshape.dempred.datastructure;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
+import com.demshape.dempred.math.CsrMatrix;
+import com.demshape.dempred.math.DenseMatrix;
 import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.ProjectedVector;
+import com.demshape.dempred.math.SparseVector;
+import com.demshape.dempred.math.VectorInterface;
 
 
 
@@ -46,6 +53,40 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 	/** The feature names. If the used features have names or a description this list should contain these. That way the feature names can be used to identify the features at any stage of model building.*/
 	private List<String> featureNames;
 
+	/** The packed feature matrix. If set, the feature vector of every datapoint in this dataset is a row view into this matrix. See {@link #pack() pack}.*/
+	private DenseMatrix featureMatrix;
+
+	/** The sparse feature matrix. If set, the feature vector of every datapoint in this dataset is a row view into this matrix. See {@link #packSparse() packSparse}.*/
+	private CsrMatrix sparseFeatureMatrix;
+
+	/** If this dataset is a view (see {@link #view(int[]) view}) this array contains the indices of its datapoints within the underlying dataset, null otherwise.*/
+	private int[] viewIndices;
+
+	/**
+	 * Read-only list of datapoints backed by the list of an underlying dataset and an index array.
+	 */
+	private static final class IndexList<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+		private static final long serialVersionUID = -3849274613084520176L;
+		private final List<T> base;
+		private final int[] indices;
+
+		private IndexList(List<T> base, int[] indices) {
+			this.base = base;
+			this.indices = indices;
+		}
+
+		@Override
+		public T get(int index) {
+			return base.get(indices[index]);
+		}
+
+		@Override
+		public int size() {
+			return indices.length;
+		}
+	}
+
 	/**
 	 * Instantiates a new dataset with empty datapoints, new groupCounter and empty featurenames
 	 */
@@ -97,11 +138,15 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 	 * @throws IllegalArgumentException the illegal argument exception
 	 */
 	public void addDatapoint(T datapoint) throws IllegalArgumentException {
+		if (viewIndices != null)
+			throw new UnsupportedOperationException("Datapoints can not be added to a view of a dataset");
 		if (featureIndex == null)
 			initFeatureIndex(datapoint.getNumFeatures());
 		else if (featureIndex.size() != datapoint.getNumFeatures())
 			throw new IllegalArgumentException("The inserted datapoint has not the same number of features as the previous ones!: actual:" + featureIndex.size() + " trying to insert: " + datapoint.getNumFeatures());
 		datapoints.add(datapoint);
+		featureMatrix = null;
+		sparseFeatureMatrix = null;
 		int numGroup = 0;
 		if (datapoint.hasGroup()) {
 			if (groupCounter.containsKey(datapoint.getGroup()))
@@ -116,6 +161,8 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 	 * @param numFeatures the number of features
 	 */
 	public void initFeatureIndex(int numFeatures) {
+		featureMatrix = null;
+		sparseFeatureMatrix = null;
 		featureIndex = new ArrayList<Integer>(numFeatures + 1);
 		for (int i = 0; i < numFeatures; ++i)
 			featureIndex.add(i);
@@ -138,6 +185,186 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 		return this.groupCounter.size();
 	}
 
+	/**
+	 * Returns a view of this dataset containing the datapoints with the given indices (duplicates are allowed). The view shares the datapoints with this dataset,
+	 * nothing is copied except for the feature index, so creating a view is much cheaper than adding the datapoints to a new dataset one by one. Features of a view are read-only
+	 * in the sense that {@link #keepFeatures(int[]) keepFeatures}, {@link #deleteFeatures(int[]) deleteFeatures} and adding datapoints throw an UnsupportedOperationException.
+	 * {@link #extend(Double) extend} and {@link #reduce() reduce} can be used as usual. A {@link #clone() clone} of a view is an ordinary dataset.
+	 *
+	 * @param indices the indices of the datapoints, the array is not copied and must not be changed afterwards
+	 * @return the view
+	 */
+	public Dataset<T> view(int[] indices) {
+		Map<Integer, Integer> groupCounts = new HashMap<Integer, Integer>();
+		for (int index : indices) {
+			T datapoint = datapoints.get(index);
+			if (datapoint.hasGroup()) {
+				Integer numGroup = groupCounts.get(datapoint.getGroup());
+				groupCounts.put(datapoint.getGroup(), numGroup == null ? 1 : numGroup + 1);
+			}
+		}
+		return view(indices, groupCounts);
+	}
+
+	/**
+	 * Returns a view of this dataset containing the datapoints with the given indices and the precomputed number of datapoints per group. See {@link #view(int[]) view}.
+	 *
+	 * @param indices the indices of the datapoints, the array is not copied and must not be changed afterwards
+	 * @param groupCounts the number of datapoints per group within the view
+	 * @return the view
+	 */
+	@SuppressWarnings("unchecked")
+	public Dataset<T> view(int[] indices, Map<Integer, Integer> groupCounts) {
+		try {
+			Dataset<T> view = (Dataset<T>) super.clone();
+			if (viewIndices != null) {
+				// views of views index directly into the underlying dataset
+				int[] baseIndices = new int[indices.length];
+				for (int i = 0; i < indices.length; ++i)
+					baseIndices[i] = viewIndices[indices[i]];
+				indices = baseIndices;
+				view.datapoints = new IndexList<T>(((IndexList<T>) datapoints).base, indices);
+			} else
+				view.datapoints = new IndexList<T>(datapoints, indices);
+			view.viewIndices = indices;
+			view.groupCounter = groupCounts;
+			view.featureIndex = featureIndex == null ? null : new ArrayList<Integer>(featureIndex);
+			view.featureMatrix = null;
+			view.sparseFeatureMatrix = null;
+			return view;
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Clone not supported!");
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if this dataset is a view of another dataset.
+	 *
+	 * @return true, if view
+	 */
+	public boolean isView() {
+		return viewIndices != null;
+	}
+
+	/**
+	 * Gets the indices of the datapoints of this view within the underlying dataset or null if this dataset is not a view.
+	 *
+	 * @return the view indices
+	 */
+	public int[] getViewIndices() {
+		return viewIndices;
+	}
+
+	/**
+	 * Returns a new dataset containing shallow copies of all datapoints whose feature vectors are read-only {@link com.demshape.dempred.math.ProjectedVector projections} 
+	 * onto the given columns of this dataset. Feature i of the projection is feature columns[i] of this dataset. No features are copied, so training on a few columns of
+	 * a dataset with many features is cheap. Values, groups and weights are copied, predictions made on the projection do not affect this dataset.
+	 *
+	 * @param columns the indices of the features of the projection
+	 * @return the projected dataset
+	 */
+	@SuppressWarnings("unchecked")
+	public Dataset<T> project(int[] columns) {
+		Dataset<T> projection = new Dataset<T>();
+		projection.setName(name + "-Projection");
+		projection.setComment("Projection of the Dataset: " + name);
+		projection.initFeatureIndex(columns.length);
+		for (T datapoint : datapoints)
+			projection.addDatapoint((T) datapoint.cloneWithFeatureVector(new ProjectedVector(datapoint.getFeatureVector(), columns)));
+		if (featureIndex != null && featureNames != null && featureNames.size() == featureIndex.size()) {
+			for (int column : columns)
+				projection.featureNames.add(featureNames.get(column));
+		}
+		return projection;
+	}
+
+	private void checkNotView() {
+		if (viewIndices != null)
+			throw new UnsupportedOperationException("The features of a view of a dataset are read-only, clone the view first");
+	}
+
+	/**
+	 * Copies the features of all datapoints into one contiguous row-major {@link com.demshape.dempred.math.DenseMatrix DenseMatrix} and replaces the feature vector of every datapoint
+	 * by a lightweight row view into this matrix. Getting and setting features keeps working as before, but scans over the whole dataset become sequential reads
+	 * and the per datapoint overhead of an own feature array disappears. Sparse feature vectors are stored densely. Adding further datapoints unpacks the dataset again, the already packed rows remain views.
+	 *
+	 * @return this dataset
+	 */
+	public Dataset<T> pack() {
+		checkNotView();
+		int numFeatures = numFeatures();
+		DenseMatrix matrix = new DenseMatrix(datapoints.size(), numFeatures);
+		for (int i = 0; i < datapoints.size(); ++i)
+			matrix.setRow(i, datapoints.get(i).getFeatureVector());
+		for (int i = 0; i < datapoints.size(); ++i)
+			datapoints.get(i).setFeatureVector(matrix.getRow(i));
+		featureMatrix = matrix;
+		sparseFeatureMatrix = null;
+		return this;
+	}
+
+	/**
+	 * Copies the features of all datapoints into one shared compressed sparse row {@link com.demshape.dempred.math.CsrMatrix CsrMatrix} and replaces the feature vector of every
+	 * datapoint by a row view into this matrix. Only non zero features are stored, so this is the storage of choice for high-dimensional sparse data like one-hot
+	 * encoded sequences. Feature deletion, scale-only normalization (see {@link DatasetNormalizer#setScaleOnly(boolean) setScaleOnly}) and the linear objective functions
+	 * work directly on the sparse rows. Operations which would turn zeros into non zeros (e.g. subtracting a mean) throw an UnsupportedOperationException.
+	 * Adding further datapoints unpacks the dataset again, the already packed rows remain views.
+	 *
+	 * @return this dataset
+	 */
+	public Dataset<T> packSparse() {
+		checkNotView();
+		VectorInterface[] rows = new VectorInterface[datapoints.size()];
+		for (int i = 0; i < datapoints.size(); ++i)
+			rows[i] = datapoints.get(i).getFeatureVector();
+		setSparseFeatureMatrix(new CsrMatrix(rows, numFeatures()));
+		return this;
+	}
+
+	private void setSparseFeatureMatrix(CsrMatrix matrix) {
+		for (int i = 0; i < datapoints.size(); ++i)
+			datapoints.get(i).setFeatureVector(matrix.getRow(i));
+		sparseFeatureMatrix = matrix;
+		featureMatrix = null;
+	}
+
+	/**
+	 * Checks if all datapoints of this dataset are stored in a packed feature matrix.
+	 *
+	 * @return true, if packed
+	 */
+	public boolean isPacked() {
+		return featureMatrix != null;
+	}
+
+	/**
+	 * Gets the packed feature matrix or null if this dataset is not packed.
+	 *
+	 * @return the feature matrix
+	 */
+	public DenseMatrix getFeatureMatrix() {
+		return featureMatrix;
+	}
+
+	/**
+	 * Checks if all datapoints of this dataset are stored in a sparse feature matrix.
+	 *
+	 * @return true, if sparse packed
+	 */
+	public boolean isSparse() {
+		return sparseFeatureMatrix != null;
+	}
+
+	/**
+	 * Gets the sparse feature matrix or null if this dataset is not sparse packed.
+	 *
+	 * @return the sparse feature matrix
+	 */
+	public CsrMatrix getSparseFeatureMatrix() {
+		return sparseFeatureMatrix;
+	}
+
 	// feature related
 	/**
 	 * Utility function used to extend all datapoints in this dataset by an additional feature with value. This is used in order to encode the bias parameter 'b'.
@@ -175,11 +402,31 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 	 * @param indices the indices of the features which should be kept
 	 */
 	public void keepFeatures(int[] indices) {
-		for (Datapoint datapoint : this.datapoints) {
-			DenseVector reducedFeatures = new DenseVector(indices.length);
-			for (int i = 0; i < indices.length; ++i)
-				reducedFeatures.set(i, datapoint.getFeatureAt(indices[i]));
-			datapoint.setFeatureVector(reducedFeatures);
+		checkNotView();
+		if (sparseFeatureMatrix != null) {
+			setSparseFeatureMatrix(sparseFeatureMatrix.keepColumns(indices));
+		} else if (featureMatrix != null) {
+			DenseMatrix reducedMatrix = new DenseMatrix(datapoints.size(), indices.length);
+			for (int row = 0; row < datapoints.size(); ++row) {
+				Datapoint datapoint = datapoints.get(row);
+				for (int i = 0; i < indices.length; ++i)
+					reducedMatrix.set(row, i, datapoint.getFeatureAt(indices[i]));
+				datapoint.setFeatureVector(reducedMatrix.getRow(row));
+			}
+			featureMatrix = reducedMatrix;
+		} else {
+			for (Datapoint datapoint : this.datapoints) {
+				if (datapoint.getFeatureVector() instanceof SparseVector) {
+					SparseVector reducedFeatures = ((SparseVector) datapoint.getFeatureVector()).clone();
+					reducedFeatures.keep(indices);
+					datapoint.setFeatureVector(reducedFeatures);
+					continue;
+				}
+				DenseVector reducedFeatures = new DenseVector(indices.length);
+				for (int i = 0; i < indices.length; ++i)
+					reducedFeatures.set(i, datapoint.getFeatureAt(indices[i]));
+				datapoint.setFeatureVector(reducedFeatures);
+			}
 		}
 		featureIndex = new ArrayList<Integer>(indices.length);
 		for (int i = 0; i < indices.length; ++i)
@@ -198,19 +445,38 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 	 * @param indices the indices of the features which should be deleted
 	 */
 	public void deleteFeatures(int[] indices) {
+		checkNotView();
 		Arrays.sort(indices);
-		for (Datapoint datapoint : this.datapoints) {
-			DenseVector reducedFeatures = new DenseVector(datapoint.getNumFeatures() - indices.length);
+		boolean packed = isPacked();
+		if (sparseFeatureMatrix != null) {
+			int[] keptIndices = new int[featureIndex.size()];
+			int numKept = 0;
 			int indexPointer = 0;
-			int vectorPointer = 0;
-			for (int i = 0; i < datapoint.getNumFeatures(); ++i) {
-				if (indexPointer < indices.length && i == indices[indexPointer]) {
-					while (indexPointer < indices.length && i == indices[indexPointer])
-						++indexPointer;
-				} else
-					reducedFeatures.set(vectorPointer++, datapoint.getFeatureAt(i));
+			for (int i = 0; i < featureIndex.size(); ++i) {
+				while (indexPointer < indices.length && indices[indexPointer] < i)
+					++indexPointer;
+				if (indexPointer == indices.length || indices[indexPointer] != i)
+					keptIndices[numKept++] = i;
+			}
+			setSparseFeatureMatrix(sparseFeatureMatrix.keepColumns(Arrays.copyOf(keptIndices, numKept)));
+		} else {
+			for (Datapoint datapoint : this.datapoints) {
+				if (datapoint.getFeatureVector() instanceof SparseVector) {
+					datapoint.setFeatureVector(((SparseVector) datapoint.getFeatureVector()).clone().delete(indices));
+					continue;
+				}
+				DenseVector reducedFeatures = new DenseVector(datapoint.getNumFeatures() - indices.length);
+				int indexPointer = 0;
+				int vectorPointer = 0;
+				for (int i = 0; i < datapoint.getNumFeatures(); ++i) {
+					if (indexPointer < indices.length && i == indices[indexPointer]) {
+						while (indexPointer < indices.length && i == indices[indexPointer])
+							++indexPointer;
+					} else
+						reducedFeatures.set(vectorPointer++, datapoint.getFeatureAt(i));
+				}
+				datapoint.setFeatureVector(reducedFeatures);
 			}
-			datapoint.setFeatureVector(reducedFeatures);
 		}
 		// featureIndex hier reduzieren
 		List<Integer> reducedFeatureIndex = new ArrayList<Integer>(featureIndex.size() - indices.length);
@@ -236,6 +502,8 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 			}
 			this.featureNames = reducedFeatureNames;
 		}
+		if (packed)
+			pack();
 	}
 
 	/**
@@ -350,8 +618,15 @@ public class Dataset<T extends Datapoint> implements Cloneable, Serializable, It
 			cl.groupCounter = new HashMap<Integer, Integer>();
 			cl.featureNames = new ArrayList<String>(this.featureNames);
 			cl.featureIndex = null;
+			cl.featureMatrix = null;
+			cl.sparseFeatureMatrix = null;
+			cl.viewIndices = null;
 			for (T datapoint : this.getDatapoints())
 				cl.addDatapoint((T) datapoint.clone());
+			if (this.isPacked())
+				cl.pack();
+			else if (this.isSparse())
+				cl.packSparse();
 			return cl;
 		} catch (CloneNotSupportedException e) {
 			System.out.println("Clone not supported!");
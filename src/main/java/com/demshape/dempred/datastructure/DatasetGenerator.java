@@ -282,4 +282,24 @@ public class DatasetGenerator {
 		return returnDataset;
 	}
 
+	/**
+	 * Like {@link #generateSubset(Dataset, FeatureSubset) generateSubset} but the features are not copied. The returned dataset uses read-only projections of the
+	 * original feature vectors, see {@link Dataset#project(int[]) project}. Use this if the subset is only used to train and predict.
+	 *
+	 * @param <T> the generic type
+	 * @param dataset the dataset
+	 * @param subset a feature subset
+	 * @return a dataset which contains all datapoints from the original input dataset projected onto a subset of features.
+	 */
+	public static <T extends Datapoint> Dataset<T> projectSubset(Dataset<T> dataset, FeatureSubset subset) {
+		int[] columns = new int[subset.size()];
+		int index = 0;
+		for (int featureIndex : subset.getFeatureIndices())
+			columns[index++] = featureIndex;
+		Dataset<T> returnDataset = dataset.project(columns);
+		returnDataset.setName(dataset.getName() + "-Subset");
+		returnDataset.setComment("Generated from a feature subset of the Dataset: " + dataset.getName());
+		return returnDataset;
+	}
+
 }
@@ -61,6 +61,8 @@ public class DatasetManipulator {
 	 * @param dataset the dataset
 	 */
 	public static <T extends Datapoint> void squareFeatures(Dataset<T> dataset) {
+		boolean packed = dataset.isPacked();
+		boolean sparse = dataset.isSparse();
 		int numSquareFeatures = 0;
 		for (T datapoint : dataset.getDatapoints()) {
 			double[] linearFeatures = datapoint.getFeatureVector().getElements();
@@ -85,6 +87,7 @@ public class DatasetManipulator {
 				featureNames.add(originalFeatureNames.get(i) + " * " + originalFeatureNames.get(j));
 		}
 		dataset.setFeatureNames(featureNames);
+		repack(dataset, packed, sparse);
 	}
 
 	/**
@@ -95,6 +98,8 @@ public class DatasetManipulator {
 	 * @param featureIndex index of the featre to be squared
 	 */
 	public static <T extends Datapoint> void squareSingleFeatures(Dataset<T> dataset, int featureIndex) {
+		boolean packed = dataset.isPacked();
+		boolean sparse = dataset.isSparse();
 		int numSquareFeatures = 0;
 		List<String> originalFeatureNames = dataset.getFeatureNames();
 		List<String> featureNames = new ArrayList<String>(numSquareFeatures);
@@ -119,6 +124,7 @@ public class DatasetManipulator {
 		}
 		dataset.initFeatureIndex(numSquareFeatures);
 		dataset.setFeatureNames(featureNames);
+		repack(dataset, packed, sparse);
 	}
 
 	/**
@@ -130,6 +136,8 @@ public class DatasetManipulator {
 	 * @throws Exception the exception
 	 */
 	public static <T extends Datapoint> void addFeatures(Dataset<T> dataset, FeatureGeneratorInterface<T> featureGenerator) throws Exception {
+		boolean packed = dataset.isPacked();
+		boolean sparse = dataset.isSparse();
 		int numFeatures = -1;
 		for (T datapoint : dataset.getDatapoints()) {
 			double[] oldFeatures = datapoint.getFeatureVector().getElements();
@@ -142,6 +150,15 @@ public class DatasetManipulator {
 		}
 		dataset.initFeatureIndex(numFeatures);
 		dataset.getFeatureNames().addAll(featureGenerator.getNames(dataset.getDatapoint(0)));
+		repack(dataset, packed, sparse);
+	}
+
+	// the feature vectors have been replaced by new vectors, a packed dataset is packed again
+	private static void repack(Dataset<?> dataset, boolean packed, boolean sparse) {
+		if (packed)
+			dataset.pack();
+		else if (sparse)
+			dataset.packSparse();
 	}
 
 	/**
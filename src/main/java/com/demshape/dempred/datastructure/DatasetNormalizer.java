@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.util.Arrays;
 
 import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.SparseRowVector;
+import com.demshape.dempred.math.SparseVector;
 import com.demshape.dempred.math.VectorInterface;
 
 
@@ -31,6 +33,9 @@ public class DatasetNormalizer implements Serializable {
 	/** The non zero indices extracted from the trainings set. */
 	private int[] nonZeroIndices;
 
+	/** If true features are only divided by their standard deviation but not centered, which keeps sparse datasets sparse. */
+	private boolean scaleOnly;
+
 	/**
 	 * Instantiates a new dataset normalizer.
 	 */
@@ -47,6 +52,17 @@ public class DatasetNormalizer implements Serializable {
 		train(dataset);
 	}
 
+	/**
+	 * Instantiates a new dataset normalizer which is trained on the given dataset. See {@link #setScaleOnly(boolean) setScaleOnly}.
+	 *
+	 * @param dataset the dataset
+	 * @param scaleOnly true to skip the mean subtraction
+	 */
+	public DatasetNormalizer(Dataset<?> dataset, boolean scaleOnly) {
+		this.scaleOnly = scaleOnly;
+		train(dataset);
+	}
+
 	/**
 	 * Instantiates a new dataset normalizer given a mean and standard normalization vector and a vector containing those indices that have a standard
 	 * variation of zero
@@ -69,8 +85,9 @@ public class DatasetNormalizer implements Serializable {
 	 * @param dataset the dataset
 	 */
 	public void train(Dataset<?> dataset) {
-		meanVector = getMean(dataset);
-		stdVector = getStandart(dataset, meanVector);
+		DenseVector[] moments = getSparseMoments(dataset);
+		meanVector = moments[0];
+		stdVector = moments[1];
 		zeroIndices = stdVector.findIndices("==", 0.0);
 		nonZeroIndices = stdVector.findIndices("!=", 0.0);
 		meanVector.delete(zeroIndices);
@@ -79,25 +96,36 @@ public class DatasetNormalizer implements Serializable {
 
 	/**
 	 * Normalizes a given dataset with mean and standard values extracted from train process. Indices saved in zeroIndices are removed from the dataset.
-	 * 
+	 * Centered features are not sparse anymore, so a dataset packed with {@link Dataset#packSparse() packSparse} is packed densely before the mean is
+	 * subtracted unless only scaling is applied.
 	 *
 	 * @param dataset the dataset
 	 */
 	public void normalize(Dataset<?> dataset) {
 		dataset.deleteFeatures(zeroIndices);
-		substractMean(dataset, meanVector);
+		if (!scaleOnly) {
+			if (dataset.isSparse())
+				dataset.pack();
+			substractMean(dataset, meanVector);
+		}
 		divStandart(dataset, stdVector);
 	}
 
 	/**
-	 * Normalizes a single datapoint.
+	 * Normalizes a single datapoint. The row of a sparse packed dataset can neither lose columns nor be centered, so unless only scaling without removed
+	 * columns is applied the datapoint gets its own copy of the features.
 	 *
 	 * @param datapoint the datapoint
 	 */
 	public void normalize(Datapoint datapoint) {
 		VectorInterface featureVector = datapoint.getFeatureVector();
+		if (featureVector instanceof SparseRowVector && (!scaleOnly || zeroIndices.length > 0)) {
+			featureVector = scaleOnly ? featureVector.clone() : new DenseVector(featureVector.getElements());
+			datapoint.setFeatureVector(featureVector);
+		}
 		featureVector.delete(zeroIndices);
-		featureVector.subVector(meanVector);
+		if (!scaleOnly)
+			featureVector.subVector(meanVector);
 		featureVector.divVector(stdVector);
 	}
 
@@ -108,14 +136,74 @@ public class DatasetNormalizer implements Serializable {
 	 * @return the mean
 	 */
 	public DenseVector getMean(Dataset<?> dataset) {
-		DenseVector meanVector = new DenseVector(dataset.numFeatures(), 0.0);
+		double[] sum = new double[dataset.numFeatures()];
 		for (Datapoint datapoint : dataset.getDatapoints()) {
-			meanVector.addVector(datapoint.getFeatureVector());
+			datapoint.getFeatureVector().addTo(sum, 1.0);
 		}
+		DenseVector meanVector = new DenseVector(sum);
 		meanVector.divScalarZero(dataset.size());
 		return meanVector;
 	}
 
+	/**
+	 * Returns the mean and standard vector of a dataset. Only the non zero elements of sparse feature vectors are visited, the zeros are accounted for
+	 * analytically, so this takes time proportional to the number of non zero features. The sums run over the deviations from the first visited value
+	 * of each column, so a constant column gets its value as the exact mean and a standard deviation of exactly zero.
+	 *
+	 * @param dataset the dataset
+	 * @return the mean vector at index 0 and the standard vector at index 1
+	 */
+	public DenseVector[] getSparseMoments(Dataset<?> dataset) {
+		int numFeatures = dataset.numFeatures();
+		double[] shift = new double[numFeatures];
+		double[] sum = new double[numFeatures];
+		double[] sumSquares = new double[numFeatures];
+		// the number of visited elements per column
+		int[] visited = new int[numFeatures];
+		for (Datapoint datapoint : dataset.getDatapoints()) {
+			VectorInterface featureVector = datapoint.getFeatureVector();
+			if (featureVector instanceof SparseRowVector) {
+				SparseRowVector rowVector = (SparseRowVector) featureVector;
+				int[] colIdx = rowVector.getColumnIndices();
+				double[] values = rowVector.getValues();
+				for (int k = rowVector.getStart(); k < rowVector.getEnd(); ++k)
+					accumulate(colIdx[k], values[k], shift, sum, sumSquares, visited);
+			} else if (featureVector instanceof SparseVector) {
+				SparseVector sparseVector = (SparseVector) featureVector;
+				int[] keys = sparseVector.getKeys();
+				double[] values = sparseVector.getValues();
+				for (int k = 0; k < sparseVector.used(); ++k)
+					accumulate(keys[k], values[k], shift, sum, sumSquares, visited);
+			} else {
+				for (int j = 0; j < numFeatures; ++j)
+					accumulate(j, featureVector.get(j), shift, sum, sumSquares, visited);
+			}
+		}
+		int n = dataset.size();
+		DenseVector meanVector = new DenseVector(numFeatures);
+		DenseVector stdVector = new DenseVector(numFeatures);
+		for (int j = 0; j < numFeatures; ++j) {
+			int zeros = n - visited[j];
+			sum[j] -= zeros * shift[j];
+			sumSquares[j] += zeros * shift[j] * shift[j];
+			double mean = n > 0 ? shift[j] + sum[j] / n : 0.0;
+			double variance = n > 1 ? (sumSquares[j] - sum[j] * sum[j] / n) / (n - 1) : 0.0;
+			meanVector.set(j, mean);
+			stdVector.set(j, variance > 0.0 ? Math.sqrt(variance) : 0.0);
+		}
+		DenseVector[] moments = { meanVector, stdVector };
+		return moments;
+	}
+
+	// adds the deviation of value from the first value visited in column j to the sums
+	private static void accumulate(int j, double value, double[] shift, double[] sum, double[] sumSquares, int[] visited) {
+		if (visited[j]++ == 0)
+			shift[j] = value;
+		double deviation = value - shift[j];
+		sum[j] += deviation;
+		sumSquares[j] += deviation * deviation;
+	}
+
 	/**
 	 * Given a meanVector this function supstracts these values form a dataset.
 	 *
@@ -129,21 +217,50 @@ public class DatasetNormalizer implements Serializable {
 	}
 
 	/**
-	 * Returns the standard vector of a dataset given a meanVector.
+	 * Returns the standard vector of a dataset given a meanVector. Of sparse feature vectors only the non zero elements are visited, the squared
+	 * deviations of the zeros are added per column at the end.
 	 *
 	 * @param dataset the dataset
 	 * @param meanVector the mean vector
 	 * @return the standart
 	 */
 	public DenseVector getStandart(Dataset<?> dataset, DenseVector meanVector) {
-		VectorInterface tempVector;
-		DenseVector sumVector = new DenseVector(dataset.numFeatures(), 0.0);
+		int numFeatures = dataset.numFeatures();
+		double[] mean = meanVector.getElements();
+		double[] sum = new double[numFeatures];
+		// the number of visited elements per column
+		int[] visited = new int[numFeatures];
 		for (Datapoint datapoint : dataset.getDatapoints()) {
-			tempVector = datapoint.getFeatureVector().clone();
-			tempVector.subVector(meanVector);
-			tempVector.powScalar(2);
-			sumVector.addVector(tempVector);
+			VectorInterface featureVector = datapoint.getFeatureVector();
+			if (featureVector instanceof SparseRowVector) {
+				SparseRowVector rowVector = (SparseRowVector) featureVector;
+				int[] colIdx = rowVector.getColumnIndices();
+				double[] values = rowVector.getValues();
+				for (int k = rowVector.getStart(); k < rowVector.getEnd(); ++k) {
+					double deviation = values[k] - mean[colIdx[k]];
+					sum[colIdx[k]] += deviation * deviation;
+					++visited[colIdx[k]];
+				}
+			} else if (featureVector instanceof SparseVector) {
+				SparseVector sparseVector = (SparseVector) featureVector;
+				int[] keys = sparseVector.getKeys();
+				double[] values = sparseVector.getValues();
+				for (int k = 0; k < sparseVector.used(); ++k) {
+					double deviation = values[k] - mean[keys[k]];
+					sum[keys[k]] += deviation * deviation;
+					++visited[keys[k]];
+				}
+			} else {
+				for (int j = 0; j < numFeatures; ++j) {
+					double deviation = featureVector.get(j) - mean[j];
+					sum[j] += deviation * deviation;
+					++visited[j];
+				}
+			}
 		}
+		for (int j = 0; j < numFeatures; ++j)
+			sum[j] += (dataset.size() - visited[j]) * mean[j] * mean[j];
+		DenseVector sumVector = new DenseVector(sum);
 		sumVector.divScalarZero(dataset.size() - 1);
 		sumVector.powScalar(0.5);
 		return sumVector;
@@ -271,6 +388,25 @@ public class DatasetNormalizer implements Serializable {
 		this.zeroIndices = zeroIndices;
 	}
 
+	/**
+	 * Checks if only scaling without centering is applied.
+	 *
+	 * @return true, if scale only
+	 */
+	public boolean isScaleOnly() {
+		return scaleOnly;
+	}
+
+	/**
+	 * Sets whether features are only divided by their standard deviation. Centering would turn all zeros of a sparse dataset into non zeros,
+	 * so this mode should be used for datasets packed with {@link Dataset#packSparse() packSparse}. Has to be set before {@link #train(Dataset) train}.
+	 *
+	 * @param scaleOnly true to skip the mean subtraction
+	 */
+	public void setScaleOnly(boolean scaleOnly) {
+		this.scaleOnly = scaleOnly;
+	}
+
 	/**
 	 * Gets the non zero indices.
 	 *
@@ -280,4 +416,13 @@ public class DatasetNormalizer implements Serializable {
 		return nonZeroIndices;
 	}
 
+	/**
+	 * Sets the non zero indices.
+	 *
+	 * @param nonZeroIndices the new non zero indices
+	 */
+	public final void setNonZeroIndices(int[] nonZeroIndices) {
+		this.nonZeroIndices = nonZeroIndices;
+	}
+
 }
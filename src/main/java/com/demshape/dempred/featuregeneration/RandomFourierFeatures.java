@@ -0,0 +1,150 @@
+package com.demshape.dempred.featuregeneration;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * Maps the features of a datapoint to random Fourier features z(x) = sqrt(2/D) * cos(W * x + b) whose scalar product z(x) * z(y) approximates the RBF
+ * kernel exp(-gamma * ||x - y||^2). The rows of W are drawn from a normal distribution with variance 2 * gamma and b uniformly from [0, 2 pi]. A linear
+ * classifier like WrapperPrimal trained on these features approximates a kernel classifier with the RBF kernel, but training is linear in the number of
+ * datapoints and predicting a datapoint costs O(D * d) instead of O(#train vectors * d).
+ *
+ * The random numbers are drawn on the first call from the seed, so generators with the same gamma, number of components and seed produce the same
+ * features, e.g. for the train and the test set.
+ *
+ * @param <T> the generic type of the feature generator
+ */
+public class RandomFourierFeatures<T extends Datapoint> implements FeatureGeneratorInterface<T>, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 4867413926057307271L;
+
+	/** The gamma of the approximated kernel. */
+	private double gamma;
+
+	/** The number of generated features D. */
+	private int numComponents;
+
+	/** The seed. */
+	private long seed;
+
+	/** The random frequencies W, numComponents x number of input features. */
+	private double[][] frequencies;
+
+	/** The random phases b. */
+	private double[] phases;
+
+	/**
+	 * Instantiates a new random Fourier feature generator approximating the given kernel.
+	 *
+	 * @param kernel the kernel
+	 * @param numComponents the number of generated features
+	 * @param seed the seed
+	 */
+	public RandomFourierFeatures(RBFKernel kernel, int numComponents, long seed) {
+		this(kernel.getGamma(), numComponents, seed);
+	}
+
+	/**
+	 * Instantiates a new random Fourier feature generator approximating the RBF kernel exp(-gamma * ||x - y||^2).
+	 *
+	 * @param gamma the gamma
+	 * @param numComponents the number of generated features
+	 * @param seed the seed
+	 */
+	public RandomFourierFeatures(double gamma, int numComponents, long seed) {
+		if (gamma <= 0)
+			throw new IllegalArgumentException("Gamma must not be smaller than 0");
+		if (numComponents < 1)
+			throw new IllegalArgumentException("The number of components must be at least one: " + numComponents);
+		this.gamma = gamma;
+		this.numComponents = numComponents;
+		this.seed = seed;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.featuregeneration.FeatureGeneratorInterface#generateFeature(dempred.datastructure.Datapoint)
+	 */
+	public double[] generateFeature(T datapoint) throws Exception {
+		return generateFeature(datapoint.getFeatureVector());
+	}
+
+	/**
+	 * Computes the random Fourier features of a feature vector.
+	 *
+	 * @param features the feature vector
+	 * @return the random Fourier features
+	 */
+	public double[] generateFeature(VectorInterface features) {
+		double[][] frequencies = getFrequencies(features.size());
+		double scale = Math.sqrt(2.0 / numComponents);
+		double[] result = new double[numComponents];
+		for (int i = 0; i < numComponents; ++i)
+			result[i] = scale * Math.cos(features.scalarProduct(frequencies[i]) + phases[i]);
+		return result;
+	}
+
+	// draws the random numbers for the given input dimension on the first call
+	private synchronized double[][] getFrequencies(int numFeatures) {
+		if (frequencies == null) {
+			Random random = new Random(seed);
+			double deviation = Math.sqrt(2.0 * gamma);
+			double[][] frequencies = new double[numComponents][numFeatures];
+			phases = new double[numComponents];
+			for (int i = 0; i < numComponents; ++i) {
+				for (int j = 0; j < numFeatures; ++j)
+					frequencies[i][j] = deviation * random.nextGaussian();
+				phases[i] = 2.0 * Math.PI * random.nextDouble();
+			}
+			this.frequencies = frequencies;
+		} else if (frequencies[0].length != numFeatures)
+			throw new IllegalArgumentException("The features were generated for " + frequencies[0].length + " input features, not " + numFeatures);
+		return frequencies;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.featuregeneration.FeatureGeneratorInterface#getNames(dempred.datastructure.Datapoint)
+	 */
+	public List<String> getNames(T datapoint) {
+		List<String> featureNames = new ArrayList<String>(numComponents);
+		for (int i = 0; i < numComponents; ++i)
+			featureNames.add("RFF_" + i);
+		return featureNames;
+	}
+
+	/**
+	 * Gets the gamma.
+	 *
+	 * @return the gamma
+	 */
+	public final double getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * Gets the number of generated features.
+	 *
+	 * @return the number of components
+	 */
+	public final int getNumComponents() {
+		return numComponents;
+	}
+
+	/**
+	 * Gets the seed.
+	 *
+	 * @return the seed
+	 */
+	public final long getSeed() {
+		return seed;
+	}
+
+}
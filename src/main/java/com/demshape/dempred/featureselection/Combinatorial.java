@@ -74,7 +74,7 @@ public class Combinatorial<T extends Datapoint> {
 			List<FeatureSubset> mergedSubsets = new ArrayList<FeatureSubset>(numMergedSubsets);
 			for (int i = 0; i < featureSubsets.size() && i < numRegardedSubsets; ++i) {
 				List<FeatureSubset> filteredMergedSubsets = new ArrayList<FeatureSubset>(numFilteredSubsets);
-				Dataset<T> tempTrain = DatasetGenerator.generateSubset(trainset, featureSubsets.get(i));
+				Dataset<T> tempTrain = DatasetGenerator.projectSubset(trainset, featureSubsets.get(i));
 				RidgeRegressionPrimal<T> newClassifier = new RidgeRegressionPrimal<T>();
 				newClassifier.learn(tempTrain);
 				VectorInterface weight = newClassifier.getWeight();
@@ -89,8 +89,7 @@ public class Combinatorial<T extends Datapoint> {
 						if (!generatedSubsets.contains(mergedSubset)) {
 							generatedSubsets.add(mergedSubset);
 							if (alpha < 1.0) {
-								Dataset<T> reducedTrainset = DatasetGenerator.generateSubset(trainset, mergedSubset);
-								reducedTrainset.extend(1.0);
+								Dataset<T> reducedTrainset = DatasetGenerator.projectSubset(trainset, mergedSubset);
 								//FVector gradient = newClassifier.L_deriv(weight, reducedTrainset);
 								//mergedSubset.setScore(Math.abs(gradient.get(gradient.size() - 2)));
 							}
@@ -362,8 +361,8 @@ public class Combinatorial<T extends Datapoint> {
 	public void testResults(ClassifierInterface<T> classifier, Dataset<T> trainset, Dataset<T> testset, int number) throws Exception {
 		for (int i = 0; i < number; ++i) {
 			System.out.format("Testing subset %d of %d: %n", i, featureSubsets.size());
-			Dataset<T> tempTrain = DatasetGenerator.generateSubset(trainset, featureSubsets.get(i));
-			Dataset<T> tempTest = DatasetGenerator.generateSubset(testset, featureSubsets.get(i));
+			Dataset<T> tempTrain = DatasetGenerator.projectSubset(trainset, featureSubsets.get(i));
+			Dataset<T> tempTest = DatasetGenerator.projectSubset(testset, featureSubsets.get(i));
 
 			double[] lambdaValues = { 0.0000000001, 0.000000001, 0.00000001, 0.0000001, 0.000001, 0.00001, 0.0001, 0.001, 0.01, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8 };
 
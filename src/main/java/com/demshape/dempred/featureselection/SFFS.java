@@ -93,8 +93,8 @@ public class SFFS<T extends Datapoint> {
 			if (LoggerTools.getLevel(logger).intValue() <= Level.FINE.intValue()) {
 				// test actual feature set
 				logger.fine("-->Testing actual feature set:");
-				Dataset<T> tempTrain = DatasetGenerator.generateSubset(trainset, actualSubset);
-				Dataset<T> tempTest = DatasetGenerator.generateSubset(testset, actualSubset);
+				Dataset<T> tempTrain = DatasetGenerator.projectSubset(trainset, actualSubset);
+				Dataset<T> tempTest = DatasetGenerator.projectSubset(testset, actualSubset);
 				classifier.learn(tempTrain);
 				classifier.predict(tempTrain);
 				classifier.predict(tempTest);
@@ -113,8 +113,8 @@ public class SFFS<T extends Datapoint> {
 		for (int i = 0; i < number; ++i) {
 			if (bestSubsets[i] != null) {
 				logger.fine(String.format("Testing subset %d of %d: %n", i, bestSubsets.length));
-				Dataset<T> tempTrain = DatasetGenerator.generateSubset(trainset, bestSubsets[i]);
-				Dataset<T> tempTest = DatasetGenerator.generateSubset(testset, bestSubsets[i]);
+				Dataset<T> tempTrain = DatasetGenerator.projectSubset(trainset, bestSubsets[i]);
+				Dataset<T> tempTest = DatasetGenerator.projectSubset(testset, bestSubsets[i]);
 
 				// analytical
 				classifier.learn(tempTrain);
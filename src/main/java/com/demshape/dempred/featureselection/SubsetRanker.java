@@ -19,7 +19,7 @@ public class SubsetRanker {
 	// }
 
 	public static <T extends Datapoint> double getScore(ClassifierInterface<T> classifier, Dataset<T> dataset, FeatureSubset subset, ResamplingErrorInterface<T> resampler) throws Exception {
-		Dataset<T> reducedDataset = DatasetGenerator.generateSubset(dataset, subset);
+		Dataset<T> reducedDataset = DatasetGenerator.projectSubset(dataset, subset);
 		//double[] lambdaValues = { 0.0000001, 0.00001, 0.001, 0.1, 0.3, 0.5, 0.7, 0.9, 0.95 };
 		//double optimizedParam = ClassifierTools.optimizeParameter(classifier, reducedDataset, null, resampler, Lib.getDeclaredField(classifier, "lambda_2"), lambdaValues);
 		return resampler.error(classifier, reducedDataset);
@@ -15,4 +15,26 @@ public interface KernelInterface {
 	 * @return the double
 	 */
 	public double evaluate(VectorInterface a, VectorInterface b);
+
+	/**
+	 * Evaluates the Kernel for two given Vectors whose squared norms a*a and b*b are already known. Kernels based on the distance of the vectors use
+	 * them to avoid computing a - b, no vectors are allocated.
+	 *
+	 * @param a the a
+	 * @param b the b
+	 * @param sqNormA the squared norm of a
+	 * @param sqNormB the squared norm of b
+	 * @return the double
+	 */
+	public double evaluate(VectorInterface a, VectorInterface b, double sqNormA, double sqNormB);
+
+	/**
+	 * Evaluates the Kernel for a query and every vector of an array, e.g. all training vectors of a kernel classifier.
+	 *
+	 * @param query the query
+	 * @param vectors the vectors
+	 * @param sqNorms the squared norms of the vectors (see {@link com.demshape.dempred.math.VectorMetric#squaredNorms(VectorInterface[]) squaredNorms}) or null
+	 * @param result array of at least vectors.length elements receiving the kernel values
+	 */
+	public void evaluateAll(VectorInterface query, VectorInterface[] vectors, double[] sqNorms, double[] result);
 }
@@ -0,0 +1,275 @@
+package com.demshape.dempred.kernels;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
+import com.demshape.dempred.util.ThreadTools;
+
+/**
+ * The symmetric kernel (Gram) matrix K[i][j] = kernel(x_i, x_j) of a set of vectors. Only the upper triangle is computed and stored, packed row by
+ * row into a single array of n*(n+1)/2 elements, either as double or, to halve the memory, as float. The matrix is filled in square tiles which
+ * are distributed over several threads.
+ */
+public class KernelMatrix implements KernelRowProvider, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -3304709719766302357L;
+
+	/** The edge length of the tiles the computation is split into. */
+	private static final int TILE_SIZE = 64;
+
+	/** The number of rows and columns. */
+	private int size;
+
+	/** The packed upper triangle if stored as double. */
+	private double[] values;
+
+	/** The packed upper triangle if stored as float. */
+	private float[] floatValues;
+
+	/**
+	 * Computes the kernel matrix of the given vectors with one thread in double precision.
+	 *
+	 * @param kernel the kernel
+	 * @param vectors the vectors
+	 */
+	public KernelMatrix(KernelInterface kernel, VectorInterface[] vectors) {
+		this(kernel, vectors, false, 1);
+	}
+
+	/**
+	 * Computes the kernel matrix of the given vectors. The kernel is evaluated concurrently, so it must not modify the vectors.
+	 *
+	 * @param kernel the kernel
+	 * @param vectors the vectors
+	 * @param useFloat true to store the elements as float
+	 * @param numThreads the number of threads
+	 */
+	public KernelMatrix(KernelInterface kernel, VectorInterface[] vectors, boolean useFloat, int numThreads) {
+		this(vectors.length, useFloat);
+		if (numThreads <= 1 || size <= TILE_SIZE) {
+			double[] sqNorms = VectorMetric.squaredNorms(vectors);
+			for (int rowTile = 0; rowTile < size; rowTile += TILE_SIZE) {
+				for (int columnTile = rowTile; columnTile < size; columnTile += TILE_SIZE)
+					fillTile(kernel, vectors, sqNorms, rowTile, columnTile);
+			}
+		} else {
+			ExecutorService executor = ThreadTools.newDaemonPool(numThreads);
+			try {
+				fillParallel(kernel, vectors, executor);
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Computes the kernel matrix of the given vectors on an existing executor.
+	 *
+	 * @param kernel the kernel
+	 * @param vectors the vectors
+	 * @param useFloat true to store the elements as float
+	 * @param executor the executor, it is not shut down
+	 */
+	public KernelMatrix(KernelInterface kernel, VectorInterface[] vectors, boolean useFloat, ExecutorService executor) {
+		this(vectors.length, useFloat);
+		fillParallel(kernel, vectors, executor);
+	}
+
+	private KernelMatrix(int size, boolean useFloat) {
+		this.size = size;
+		long numElements = (long) size * (size + 1) / 2;
+		if (numElements > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("A kernel matrix of " + size + " vectors does not fit into a single array");
+		if (useFloat)
+			floatValues = new float[(int) numElements];
+		else
+			values = new double[(int) numElements];
+	}
+
+	private void fillParallel(final KernelInterface kernel, final VectorInterface[] vectors, ExecutorService executor) {
+		final double[] sqNorms = VectorMetric.squaredNorms(vectors);
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int rowTile = 0; rowTile < size; rowTile += TILE_SIZE) {
+			for (int columnTile = rowTile; columnTile < size; columnTile += TILE_SIZE) {
+				final int row = rowTile;
+				final int column = columnTile;
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						fillTile(kernel, vectors, sqNorms, row, column);
+						return null;
+					}
+				}));
+			}
+		}
+		for (Future<Object> future : futures)
+			ThreadTools.get(future);
+	}
+
+	// fills the elements (i, j) with rowTile <= i < rowTile + TILE_SIZE, columnTile <= j < columnTile + TILE_SIZE and i <= j
+	private void fillTile(KernelInterface kernel, VectorInterface[] vectors, double[] sqNorms, int rowTile, int columnTile) {
+		int rowEnd = Math.min(rowTile + TILE_SIZE, size);
+		int columnEnd = Math.min(columnTile + TILE_SIZE, size);
+		for (int i = rowTile; i < rowEnd; ++i) {
+			int start = Math.max(i, columnTile);
+			int index = index(i, start);
+			for (int j = start; j < columnEnd; ++j, ++index) {
+				double value = kernel.evaluate(vectors[i], vectors[j], sqNorms[i], sqNorms[j]);
+				if (values != null)
+					values[index] = value;
+				else
+					floatValues[index] = (float) value;
+			}
+		}
+	}
+
+	// position of element (i, j) with i <= j in the packed upper triangle
+	private int index(int i, int j) {
+		return (int) ((long) i * size - (long) i * (i - 1) / 2 + (j - i));
+	}
+
+	/**
+	 * Gets the element at a given position.
+	 *
+	 * @param i the row
+	 * @param j the column
+	 * @return the element
+	 */
+	@Override
+	public final double get(int i, int j) {
+		int index = i <= j ? index(i, j) : index(j, i);
+		return values != null ? values[index] : floatValues[index];
+	}
+
+	/**
+	 * Returns a copy of row i.
+	 *
+	 * @param i the row
+	 * @return the row
+	 */
+	@Override
+	public final double[] getRow(int i) {
+		return getRow(i, new double[size]);
+	}
+
+	/**
+	 * Copies row i into the given array.
+	 *
+	 * @param i the row
+	 * @param row array of at least size() elements
+	 * @return the row
+	 */
+	public final double[] getRow(int i, double[] row) {
+		for (int j = 0; j < i; ++j)
+			row[j] = get(j, i);
+		int index = index(i, i);
+		for (int j = i; j < size; ++j, ++index)
+			row[j] = values != null ? values[index] : floatValues[index];
+		return row;
+	}
+
+	/**
+	 * Computes result = K * a walking once over the packed triangle.
+	 *
+	 * @param a vector with size() elements
+	 * @param result array of size() elements receiving the product
+	 * @return the result
+	 */
+	@Override
+	public final double[] multiply(double[] a, double[] result) {
+		if (a.length < size || result.length < size)
+			throw new IllegalArgumentException("Arrays must have at least " + size + " elements");
+		for (int i = 0; i < size; ++i)
+			result[i] = 0.0;
+		int index = 0;
+		for (int i = 0; i < size; ++i) {
+			double ai = a[i];
+			double sum = 0.0;
+			if (values != null) {
+				sum += values[index++] * ai;
+				for (int j = i + 1; j < size; ++j, ++index) {
+					double k = values[index];
+					sum += k * a[j];
+					result[j] += k * ai;
+				}
+			} else {
+				sum += floatValues[index++] * ai;
+				for (int j = i + 1; j < size; ++j, ++index) {
+					double k = floatValues[index];
+					sum += k * a[j];
+					result[j] += k * ai;
+				}
+			}
+			result[i] += sum;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the full matrix as a two dimensional array, e.g. to hand it to a decomposition.
+	 *
+	 * @return the array
+	 */
+	public final double[][] toArray() {
+		double[][] array = new double[size][size];
+		for (int i = 0; i < size; ++i) {
+			int index = index(i, i);
+			for (int j = i; j < size; ++j, ++index) {
+				double value = values != null ? values[index] : floatValues[index];
+				array[i][j] = value;
+				array[j][i] = value;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Number of rows and columns.
+	 *
+	 * @return the size
+	 */
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the kernel matrix of a subset of the vectors, element (i, j) of the result is element (indices[i], indices[j]) of this matrix. The
+	 * elements are copied, no kernel is evaluated.
+	 *
+	 * @param indices the indices of the vectors of the subset
+	 * @return the sub matrix
+	 */
+	public final KernelMatrix subMatrix(int[] indices) {
+		KernelMatrix subMatrix = new KernelMatrix(indices.length, floatValues != null);
+		int index = 0;
+		for (int i = 0; i < indices.length; ++i) {
+			for (int j = i; j < indices.length; ++j, ++index) {
+				int a = indices[i];
+				int b = indices[j];
+				int source = a <= b ? index(a, b) : index(b, a);
+				if (values != null)
+					subMatrix.values[index] = values[source];
+				else
+					subMatrix.floatValues[index] = floatValues[source];
+			}
+		}
+		return subMatrix;
+	}
+
+	/**
+	 * Checks if the elements are stored as float.
+	 *
+	 * @return true, if stored as float
+	 */
+	public final boolean isFloat() {
+		return floatValues != null;
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.demshape.dempred.kernels;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
+
+/**
+ * Computes rows of a kernel matrix on demand and keeps the least recently used rows within a memory budget, similar to the kernel cache of libsvm.
+ * This allows dual training on datasets whose full kernel matrix does not fit into memory. It saves time only if few dual weights are non zero, a
+ * multiplication with dense weights recomputes all rows which do not fit into the budget. The cache is not thread safe.
+ */
+public class KernelRowCache implements KernelRowProvider {
+
+	private final KernelInterface kernel;
+	private final VectorInterface[] vectors;
+	private final double[] sqNorms;
+	private final int maxRows;
+	private final LinkedHashMap<Integer, double[]> rows;
+
+	/** Direction of the last multiplication, rows are visited alternately forward and backward. */
+	private boolean backward;
+
+	/**
+	 * Instantiates a new kernel row cache.
+	 *
+	 * @param kernel the kernel
+	 * @param vectors the vectors
+	 * @param cacheSize the memory budget for cached rows in megabytes, at least two rows are cached. {@link #multiply(double[], double[]) multiply}
+	 *            recomputes every uncached row with a non zero weight, so with dense weights and a budget of fewer than n rows each multiplication
+	 *            costs O(n^2 * d) kernel work instead of O(n^2)
+	 */
+	public KernelRowCache(KernelInterface kernel, VectorInterface[] vectors, double cacheSize) {
+		if (cacheSize <= 0.0)
+			throw new IllegalArgumentException("The cache size must be greater than zero: " + cacheSize);
+		this.kernel = kernel;
+		this.vectors = vectors;
+		this.sqNorms = VectorMetric.squaredNorms(vectors);
+		long rowBytes = 8L * Math.max(1, vectors.length);
+		this.maxRows = (int) Math.max(2, Math.min(vectors.length, (long) (cacheSize * 1024 * 1024) / rowBytes));
+		this.rows = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+				return size() > maxRows;
+			}
+		};
+	}
+
+	@Override
+	public final int size() {
+		return vectors.length;
+	}
+
+	@Override
+	public final double get(int i, int j) {
+		double[] row = rows.get(i);
+		if (row != null)
+			return row[j];
+		row = rows.get(j);
+		if (row != null)
+			return row[i];
+		return kernel.evaluate(vectors[i], vectors[j], sqNorms[i], sqNorms[j]);
+	}
+
+	@Override
+	public final double[] getRow(int i) {
+		double[] row = rows.get(i);
+		if (row == null) {
+			row = new double[vectors.length];
+			kernel.evaluateAll(vectors[i], vectors, sqNorms, row);
+			rows.put(i, row);
+		}
+		return row;
+	}
+
+	/**
+	 * Computes result = K * a as the sum of the rows j weighted by a[j], rows with a[j] equal to zero are not computed. Successive calls visit the rows in
+	 * alternating order, so the rows computed last in one call are still cached at the beginning of the next one.
+	 */
+	@Override
+	public final double[] multiply(double[] a, double[] result) {
+		int n = vectors.length;
+		if (a.length < n || result.length < n)
+			throw new IllegalArgumentException("Arrays must have at least " + n + " elements");
+		for (int i = 0; i < n; ++i)
+			result[i] = 0.0;
+		for (int k = 0; k < n; ++k) {
+			int j = backward ? n - 1 - k : k;
+			if (a[j] == 0.0)
+				continue;
+			double[] row = getRow(j);
+			double aj = a[j];
+			for (int i = 0; i < n; ++i)
+				result[i] += aj * row[i];
+		}
+		backward = !backward;
+		return result;
+	}
+
+	/**
+	 * The maximal number of cached rows.
+	 *
+	 * @return the max rows
+	 */
+	public final int getMaxRows() {
+		return maxRows;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.demshape.dempred.kernels;
+
+/**
+ * Gives access to the rows of a symmetric kernel matrix without requiring the whole matrix to be held in memory.
+ */
+public interface KernelRowProvider {
+
+	/**
+	 * Number of rows and columns.
+	 *
+	 * @return the size
+	 */
+	public int size();
+
+	/**
+	 * Gets the element at a given position.
+	 *
+	 * @param i the row
+	 * @param j the column
+	 * @return the element
+	 */
+	public double get(int i, int j);
+
+	/**
+	 * Returns row i. The returned array must not be modified.
+	 *
+	 * @param i the row
+	 * @return the row
+	 */
+	public double[] getRow(int i);
+
+	/**
+	 * Computes result = K * a.
+	 *
+	 * @param a vector with size() elements
+	 * @param result array of size() elements receiving the product
+	 * @return the result
+	 */
+	public double[] multiply(double[] a, double[] result);
+}
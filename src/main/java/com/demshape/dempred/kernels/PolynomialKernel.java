@@ -67,6 +67,23 @@ public class PolynomialKernel implements KernelInterface, Serializable {
 		return Math.pow(factor * a.scalarProduct(b) + offset, degree);
 	}
 
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluate(dempred.math.VectorInterface, dempred.math.VectorInterface, double, double)
+	 */
+	@Override
+	public double evaluate(VectorInterface a, VectorInterface b, double sqNormA, double sqNormB) {
+		return evaluate(a, b);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluateAll(dempred.math.VectorInterface, dempred.math.VectorInterface[], double[], double[])
+	 */
+	@Override
+	public void evaluateAll(VectorInterface query, VectorInterface[] vectors, double[] sqNorms, double[] result) {
+		for (int i = 0; i < vectors.length; ++i)
+			result[i] = evaluate(query, vectors[i]);
+	}
+
 	/**
 	 * Gets the degree.
 	 *
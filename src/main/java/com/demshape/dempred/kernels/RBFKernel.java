@@ -32,7 +32,29 @@ public class RBFKernel implements KernelInterface, Serializable {
 	 */
 	@Override
 	public double evaluate(VectorInterface a, VectorInterface b) {
-		return Math.exp( sigma * (a.clone().subVector(b)).norm(2.0) );
+		return evaluate(a, b, a.scalarProduct(a), b.scalarProduct(b));
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluate(dempred.math.VectorInterface, dempred.math.VectorInterface, double, double)
+	 */
+	@Override
+	public double evaluate(VectorInterface a, VectorInterface b, double sqNormA, double sqNormB) {
+		// ||a - b||^2 = ||a||^2 + ||b||^2 - 2ab, rounding may make it slightly negative for nearly equal vectors
+		double distance = Math.max(0.0, sqNormA + sqNormB - 2.0 * a.scalarProduct(b));
+		return Math.exp(sigma * distance);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluateAll(dempred.math.VectorInterface, dempred.math.VectorInterface[], double[], double[])
+	 */
+	@Override
+	public void evaluateAll(VectorInterface query, VectorInterface[] vectors, double[] sqNorms, double[] result) {
+		double sqNormQuery = query.scalarProduct(query);
+		for (int i = 0; i < vectors.length; ++i) {
+			double sqNorm = sqNorms != null ? sqNorms[i] : vectors[i].scalarProduct(vectors[i]);
+			result[i] = evaluate(query, vectors[i], sqNormQuery, sqNorm);
+		}
 	}
 	
 	/**
@@ -56,14 +78,23 @@ public class RBFKernel implements KernelInterface, Serializable {
 	}
 	
 	/**
-	 * Sets the gamma.
+	 * Gets the gamma of exp(-gamma * ||a - b||^2).
+	 *
+	 * @return the gamma
+	 */
+	public final double getGamma() {
+		return -sigma;
+	}
+
+	/**
+	 * Sets the gamma of exp(-gamma * ||a - b||^2).
 	 *
 	 * @param gamma the new gamma
 	 */
 	public final void setGamma(double gamma) {
 		if (gamma <= 0)
 			throw new IllegalArgumentException("Gamma must not be smaller than 0");
-		this.sigma = gamma;
+		this.sigma = -gamma;
 	}
 
 }
@@ -55,8 +55,24 @@ public class SigmoidKernel implements KernelInterface, Serializable {
 	 */
 	@Override
 	public double evaluate(VectorInterface a, VectorInterface b) {
-		Math.tanh(factor * a.scalarProduct(b) + offset);
-		return 0;
+		return Math.tanh(factor * a.scalarProduct(b) + offset);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluate(dempred.math.VectorInterface, dempred.math.VectorInterface, double, double)
+	 */
+	@Override
+	public double evaluate(VectorInterface a, VectorInterface b, double sqNormA, double sqNormB) {
+		return evaluate(a, b);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluateAll(dempred.math.VectorInterface, dempred.math.VectorInterface[], double[], double[])
+	 */
+	@Override
+	public void evaluateAll(VectorInterface query, VectorInterface[] vectors, double[] sqNorms, double[] result) {
+		for (int i = 0; i < vectors.length; ++i)
+			result[i] = evaluate(query, vectors[i]);
 	}
 
 	/**
@@ -22,4 +22,21 @@ public class SimpleKernel implements KernelInterface, Serializable {
 		return a.scalarProduct(b);
 	}
 
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluate(dempred.math.VectorInterface, dempred.math.VectorInterface, double, double)
+	 */
+	@Override
+	public double evaluate(VectorInterface a, VectorInterface b, double sqNormA, double sqNormB) {
+		return evaluate(a, b);
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.kernels.KernelInterface#evaluateAll(dempred.math.VectorInterface, dempred.math.VectorInterface[], double[], double[])
+	 */
+	@Override
+	public void evaluateAll(VectorInterface query, VectorInterface[] vectors, double[] sqNorms, double[] result) {
+		for (int i = 0; i < vectors.length; ++i)
+			result[i] = evaluate(query, vectors[i]);
+	}
+
 }
@@ -18,6 +18,13 @@ public class Bnll<T extends Datapoint> implements LossFunctionInterface<T> {
 		return (-group * Math.exp(group * (-x + m - group)) / (1.0 + Math.exp(group * (-x + m - group))));
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		int group = datapoint.getGroup();
+		double e = Math.exp(group * (-x + m - group));
+		deriv[0] = (-group * e / (1.0 + e));
+		return Math.log(1.0 + e);
+	}
+
 	public String getName() {
 		return "BNLL";
 	}
@@ -22,6 +22,11 @@ public class HardStepFunction<T extends Datapoint> implements LossFunctionInterf
 		return 0;
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		deriv[0] = 0;
+		return g(x, m, datapoint);
+	}
+
 	public String getName() {
 		return "HardStep";
 	}
@@ -32,6 +32,13 @@ public class LogLoss<T extends Datapoint> implements LossFunctionInterface<T> {
 		return -1.0 * logLoss;
 	}
 
+	public double gWithDeriv(double f, double m, T datapoint, double[] deriv) {
+		f = Math.max(f, eps);
+		f = Math.min(f, 1.0 - eps);
+		deriv[0] = -1.0 * (m * 1.0 / f + (1.0 - m) * 1.0 / (1.0 - f));
+		return -1.0 * (m * Math.log(f) + (1.0 - m) * Math.log(1.0 - f));
+	}
+
 	public String getName() {
 		return "LogLoss";
 	}
@@ -18,6 +18,13 @@ public class LogisticRegression<T extends Datapoint> implements LossFunctionInte
 		return -(group / (Math.exp(group * f) + 1.0));
 	}
 
+	public double gWithDeriv(double f, double m, T datapoint, double[] deriv) {
+		double group = datapoint.getGroup();
+		double e = Math.exp(-group * f);
+		deriv[0] = -(group / (1.0 / e + 1.0));
+		return Math.log(1.0 + e);
+	}
+
 	public String getName() {
 		return "LogisticRegression";
 	}
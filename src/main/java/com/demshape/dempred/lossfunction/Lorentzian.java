@@ -13,6 +13,12 @@ public class Lorentzian<T extends Datapoint> implements LossFunctionInterface<T>
 		return (2.0 * x - 2.0 * m) / (Math.pow(x - m, 2) + 1);
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		double denominator = Math.pow(x - m, 2) + 1;
+		deriv[0] = (2.0 * x - 2.0 * m) / denominator;
+		return Math.log(denominator);
+	}
+
 	public String getName() {
 		return "Lorentzian";
 	}
@@ -8,5 +8,8 @@ public interface LossFunctionInterface<T extends Datapoint> {
 
 	public double g_deriv(double a, double m, T datapoint);
 
+	// returns g and stores g_deriv in deriv[0], sharing the work both have in common
+	public double gWithDeriv(double a, double m, T datapoint, double[] deriv);
+
 	public String getName();
 }
@@ -14,6 +14,12 @@ public class Mse<T extends Datapoint> implements LossFunctionInterface<T> {
 		return 2.0 * (x - m);
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		double diff = x - m;
+		deriv[0] = 2.0 * diff;
+		return Math.pow(diff, 2);
+	}
+
 	public String getName() {
 		return "Mse";
 	}
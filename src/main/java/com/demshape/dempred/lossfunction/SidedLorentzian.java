@@ -22,6 +22,17 @@ public class SidedLorentzian<T extends Datapoint> implements LossFunctionInterfa
 			return 0;
 	}
 
+	public double gWithDeriv(double x, double y, T datapoint, double[] deriv) {
+		int group = datapoint.getGroup();
+		if (group * x < group * y) {
+			double denominator = Math.pow(x - y, 2) + 1;
+			deriv[0] = (2.0 * x - 2.0 * y) / denominator;
+			return Math.log(denominator);
+		}
+		deriv[0] = 0;
+		return 0;
+	}
+
 	public String getName() {
 		return "SidedLorentzian";
 	}
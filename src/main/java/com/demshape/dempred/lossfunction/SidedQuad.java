@@ -22,6 +22,16 @@ public class SidedQuad<T extends Datapoint> implements LossFunctionInterface<T>
 			return 0;
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		int group = datapoint.getGroup();
+		if (group * x < group * m) {
+			deriv[0] = 2.0 * (x - m);
+			return Math.pow((x - m), 2);
+		}
+		deriv[0] = 0;
+		return 0;
+	}
+
 	public String getName() {
 		return "SidedQuad";
 	}
@@ -20,6 +20,13 @@ public class Sigmodial<T extends Datapoint> implements LossFunctionInterface<T>
 		return -1.0 / Math.pow(1 + Math.exp(group * sigma * (x - m + group)), 2) * group * sigma * Math.exp(group * sigma * (x - m + group));
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		int group = datapoint.getGroup();
+		double e = Math.exp(group * sigma * (x - m + group));
+		deriv[0] = -1.0 / Math.pow(1 + e, 2) * group * sigma * e;
+		return (1 / (1 + e));
+	}
+
 	public String getName() {
 		return "Sigmodial";
 	}
@@ -22,6 +22,20 @@ public class SmoothHinge<T extends Datapoint> implements LossFunctionInterface<T
 		return 0;
 	}
 
+	public double gWithDeriv(double x, double m, T datapoint, double[] deriv) {
+		int group = datapoint.getGroup();
+		if ((group * x) <= (group * m - 1)) {
+			deriv[0] = -1.0 * group;
+			return 0.5 - group * x;
+		}
+		if (((group * m - 1) < (group * x)) && ((group * x) < (group * m))) {
+			deriv[0] = -m + x;
+			return 0.5 * Math.pow(m - x, 2);
+		}
+		deriv[0] = 0;
+		return 0;
+	}
+
 	public String getName() {
 		return "SmoothHinge";
 	}
@@ -0,0 +1,272 @@
+package com.demshape.dempred.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A sparse matrix in compressed sparse row (CSR) format. The non zero elements of all rows are stored in one shared column index array and
+ * one shared value array, rowPtr[i] to rowPtr[i+1] delimit the elements of row i. Column indices within a row are sorted ascending.
+ * Rows are handed out as {@link SparseRowVector SparseRowVector} views so that changes to the values are written through.
+ */
+public class CsrMatrix implements Cloneable, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -6117935807781529604L;
+
+	/** The start of every row within colIdx and values, numRows+1 entries. */
+	private int[] rowPtr;
+
+	/** The column indices of the non zero elements. */
+	private int[] colIdx;
+
+	/** The non zero elements. */
+	private double[] values;
+
+	/** The number of columns. */
+	private int numColumns;
+
+	/**
+	 * Instantiates a new csr matrix from given arrays. The arrays are not copied.
+	 *
+	 * @param rowPtr the row pointers
+	 * @param colIdx the column indices
+	 * @param values the values
+	 * @param numColumns the number of columns
+	 */
+	public CsrMatrix(int[] rowPtr, int[] colIdx, double[] values, int numColumns) {
+		if (rowPtr.length == 0 || colIdx.length != values.length || rowPtr[rowPtr.length - 1] > colIdx.length)
+			throw new IllegalArgumentException("Inconsistent csr arrays: rowPtr:" + rowPtr.length + " colIdx:" + colIdx.length + " values:" + values.length);
+		this.rowPtr = rowPtr;
+		this.colIdx = colIdx;
+		this.values = values;
+		this.numColumns = numColumns;
+	}
+
+	/**
+	 * Instantiates a new csr matrix by copying the non zero elements of given vectors.
+	 *
+	 * @param rows the rows
+	 * @param numColumns the number of columns, every vector must have this size
+	 */
+	public CsrMatrix(VectorInterface[] rows, int numColumns) {
+		this.numColumns = numColumns;
+		rowPtr = new int[rows.length + 1];
+		for (int i = 0; i < rows.length; ++i) {
+			if (rows[i].size() != numColumns)
+				throw new IllegalArgumentException("Vector has " + rows[i].size() + " elements but the matrix has " + numColumns + " columns");
+			rowPtr[i + 1] = rowPtr[i] + nonZeros(rows[i]);
+		}
+		colIdx = new int[rowPtr[rows.length]];
+		values = new double[rowPtr[rows.length]];
+		for (int i = 0; i < rows.length; ++i) {
+			int pos = rowPtr[i];
+			VectorInterface row = rows[i];
+			if (row instanceof SparseVector) {
+				SparseVector sparseVector = (SparseVector) row;
+				int[] keys = sparseVector.getKeys();
+				double[] rowValues = sparseVector.getValues();
+				for (int k = 0; k < sparseVector.used(); ++k) {
+					if (rowValues[k] != 0.0) {
+						colIdx[pos] = keys[k];
+						values[pos++] = rowValues[k];
+					}
+				}
+			} else if (row instanceof SparseRowVector) {
+				SparseRowVector rowVector = (SparseRowVector) row;
+				int[] rowColIdx = rowVector.getColumnIndices();
+				double[] rowValues = rowVector.getValues();
+				for (int k = rowVector.getStart(); k < rowVector.getEnd(); ++k) {
+					if (rowValues[k] != 0.0) {
+						colIdx[pos] = rowColIdx[k];
+						values[pos++] = rowValues[k];
+					}
+				}
+			} else {
+				for (int j = 0; j < numColumns; ++j) {
+					double value = row.get(j);
+					if (value != 0.0) {
+						colIdx[pos] = j;
+						values[pos++] = value;
+					}
+				}
+			}
+		}
+	}
+
+	private static int nonZeros(VectorInterface row) {
+		int count = 0;
+		if (row instanceof SparseVector) {
+			SparseVector sparseVector = (SparseVector) row;
+			double[] rowValues = sparseVector.getValues();
+			for (int k = 0; k < sparseVector.used(); ++k) {
+				if (rowValues[k] != 0.0)
+					++count;
+			}
+		} else if (row instanceof SparseRowVector) {
+			SparseRowVector rowVector = (SparseRowVector) row;
+			double[] rowValues = rowVector.getValues();
+			for (int k = rowVector.getStart(); k < rowVector.getEnd(); ++k) {
+				if (rowValues[k] != 0.0)
+					++count;
+			}
+		} else {
+			for (int j = 0; j < row.size(); ++j) {
+				if (row.get(j) != 0.0)
+					++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a view of a single row. Changes to the non zero elements of the view are written through to this matrix.
+	 *
+	 * @param row the row
+	 * @return the row view
+	 */
+	public final SparseRowVector getRow(int row) {
+		if (row < 0 || row >= numRows())
+			throw new IndexOutOfBoundsException(Integer.toString(row));
+		return new SparseRowVector(colIdx, values, rowPtr[row], rowPtr[row + 1], numColumns);
+	}
+
+	/**
+	 * Gets the element at a given position.
+	 *
+	 * @param row the row
+	 * @param column the column
+	 * @return the element
+	 */
+	public final double get(int row, int column) {
+		int spot = Arrays.binarySearch(colIdx, rowPtr[row], rowPtr[row + 1], column);
+		return spot < 0 ? 0.0 : values[spot];
+	}
+
+	/**
+	 * Returns a new matrix containing only the given columns in the given order. Column i of the new matrix is column indices[i] of this matrix.
+	 *
+	 * @param indices the indices of the columns to keep
+	 * @return the reduced matrix
+	 */
+	public CsrMatrix keepColumns(int[] indices) {
+		int[] mapping = new int[numColumns];
+		Arrays.fill(mapping, -1);
+		boolean ascending = true;
+		for (int i = 0; i < indices.length; ++i) {
+			mapping[indices[i]] = i;
+			if (i > 0 && indices[i] <= indices[i - 1])
+				ascending = false;
+		}
+		int numRows = numRows();
+		int[] newRowPtr = new int[numRows + 1];
+		for (int i = 0; i < numRows; ++i) {
+			int count = 0;
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; ++k) {
+				if (mapping[colIdx[k]] >= 0)
+					++count;
+			}
+			newRowPtr[i + 1] = newRowPtr[i] + count;
+		}
+		int[] newColIdx = new int[newRowPtr[numRows]];
+		double[] newValues = new double[newRowPtr[numRows]];
+		for (int i = 0; i < numRows; ++i) {
+			int pos = newRowPtr[i];
+			for (int k = rowPtr[i]; k < rowPtr[i + 1]; ++k) {
+				int column = mapping[colIdx[k]];
+				if (column >= 0) {
+					newColIdx[pos] = column;
+					newValues[pos++] = values[k];
+				}
+			}
+			if (!ascending)
+				sortRow(newColIdx, newValues, newRowPtr[i], pos);
+		}
+		return new CsrMatrix(newRowPtr, newColIdx, newValues, indices.length);
+	}
+
+	// insertion sort, rows are short
+	private static void sortRow(int[] colIdx, double[] values, int start, int end) {
+		for (int i = start + 1; i < end; ++i) {
+			int column = colIdx[i];
+			double value = values[i];
+			int j = i - 1;
+			while (j >= start && colIdx[j] > column) {
+				colIdx[j + 1] = colIdx[j];
+				values[j + 1] = values[j];
+				--j;
+			}
+			colIdx[j + 1] = column;
+			values[j + 1] = value;
+		}
+	}
+
+	/**
+	 * Multiplies every column j with factors[j]. Only non zero elements are touched so the sparsity is kept.
+	 *
+	 * @param factors the factors
+	 */
+	public final void scaleColumns(double[] factors) {
+		if (factors.length != numColumns)
+			throw new IllegalArgumentException("Vector has " + factors.length + " elements but the matrix has " + numColumns + " columns");
+		int nnz = nnz();
+		for (int k = 0; k < nnz; ++k)
+			values[k] *= factors[colIdx[k]];
+	}
+
+	/**
+	 * Number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public final int numRows() {
+		return rowPtr.length - 1;
+	}
+
+	/**
+	 * Number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public final int numColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Number of stored (non zero) elements.
+	 *
+	 * @return the number of stored elements
+	 */
+	public final int nnz() {
+		return rowPtr[rowPtr.length - 1];
+	}
+
+	public final int[] getRowPtr() {
+		return rowPtr;
+	}
+
+	public final int[] getColIdx() {
+		return colIdx;
+	}
+
+	public final double[] getValues() {
+		return values;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#clone()
+	 */
+	@Override
+	public CsrMatrix clone() {
+		try {
+			CsrMatrix cl = (CsrMatrix) super.clone();
+			cl.rowPtr = rowPtr.clone();
+			cl.colIdx = colIdx.clone();
+			cl.values = values.clone();
+			return cl;
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Clone not supported!");
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.demshape.dempred.math;
+
+import java.io.Serializable;
+
+/**
+ * A dense row-major matrix which stores all of its rows in a few large double arrays (slabs) instead of one array per row.
+ * Rows are handed out as {@link DenseRowVector DenseRowVector} views so that a whole dataset can be scanned sequentially without chasing one object per row.
+ * Every row may reserve a number of trailing cells which are not part of the row but can be used to extend a row view in place (e.g. for the bias feature).
+ */
+public class DenseMatrix implements Cloneable, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -3722420101846562581L;
+
+	/** The maximal number of elements of a single slab (2^27 doubles = 1GB). */
+	private static final int MAX_SLAB_LENGTH = 1 << 27;
+
+	/** The slabs containing the rows. */
+	private double[][] slabs;
+
+	/** The number of rows. */
+	private int numRows;
+
+	/** The number of columns. */
+	private int numColumns;
+
+	/** The distance between two consecutive rows within a slab (numColumns + reserved cells). */
+	private int stride;
+
+	/** The number of rows stored in one slab. */
+	private int rowsPerSlab;
+
+	/**
+	 * Instantiates a new dense matrix filled with zeros.
+	 *
+	 * @param numRows the number of rows
+	 * @param numColumns the number of columns
+	 */
+	public DenseMatrix(int numRows, int numColumns) {
+		this(numRows, numColumns, 0);
+	}
+
+	/**
+	 * Instantiates a new dense matrix filled with zeros, reserving some trailing cells after each row.
+	 *
+	 * @param numRows the number of rows
+	 * @param numColumns the number of columns
+	 * @param numReserved the number of reserved cells after each row
+	 */
+	public DenseMatrix(int numRows, int numColumns, int numReserved) {
+		if (numRows < 0 || numColumns < 0 || numReserved < 0)
+			throw new IllegalArgumentException("Matrix dimensions must not be negative: " + numRows + "x" + numColumns + " reserved: " + numReserved);
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.stride = numColumns + numReserved;
+		this.rowsPerSlab = Math.max(1, MAX_SLAB_LENGTH / Math.max(1, stride));
+		int numSlabs = (numRows + rowsPerSlab - 1) / rowsPerSlab;
+		slabs = new double[numSlabs][];
+		for (int s = 0; s < numSlabs; ++s) {
+			int rowsInSlab = Math.min(rowsPerSlab, numRows - s * rowsPerSlab);
+			slabs[s] = new double[rowsInSlab * stride];
+		}
+	}
+
+	/**
+	 * Gets the element at a given position.
+	 *
+	 * @param row the row
+	 * @param column the column
+	 * @return the element
+	 */
+	public final double get(int row, int column) {
+		return slabs[row / rowsPerSlab][(row % rowsPerSlab) * stride + column];
+	}
+
+	/**
+	 * Sets the element at a given position.
+	 *
+	 * @param row the row
+	 * @param column the column
+	 * @param value the value
+	 */
+	public final void set(int row, int column, double value) {
+		slabs[row / rowsPerSlab][(row % rowsPerSlab) * stride + column] = value;
+	}
+
+	/**
+	 * Copies a vector into a row of this matrix.
+	 *
+	 * @param row the row
+	 * @param vector the vector which must have numColumns elements
+	 */
+	public final void setRow(int row, VectorInterface vector) {
+		if (vector.size() != numColumns)
+			throw new IllegalArgumentException("Vector has " + vector.size() + " elements but the matrix has " + numColumns + " columns");
+		double[] slab = getSlab(row);
+		int offset = getOffset(row);
+		if (vector instanceof DenseVector)
+			System.arraycopy(((DenseVector) vector).getElements(), 0, slab, offset, numColumns);
+		else if (vector instanceof DenseRowVector) {
+			DenseRowVector rowVector = (DenseRowVector) vector;
+			System.arraycopy(rowVector.getData(), rowVector.getOffset(), slab, offset, numColumns);
+		} else {
+			for (int j = 0; j < numColumns; ++j)
+				slab[offset + j] = vector.get(j);
+		}
+	}
+
+	/**
+	 * Returns a view of a single row. Changes to the view are written through to this matrix.
+	 *
+	 * @param row the row
+	 * @return the row view
+	 */
+	public final DenseRowVector getRow(int row) {
+		if (row < 0 || row >= numRows)
+			throw new IndexOutOfBoundsException(Integer.toString(row));
+		return new DenseRowVector(getSlab(row), getOffset(row), numColumns, stride);
+	}
+
+	/**
+	 * Returns the slab containing a given row.
+	 *
+	 * @param row the row
+	 * @return the slab
+	 */
+	public final double[] getSlab(int row) {
+		return slabs[row / rowsPerSlab];
+	}
+
+	/**
+	 * Returns the offset of a given row within its slab.
+	 *
+	 * @param row the row
+	 * @return the offset
+	 */
+	public final int getOffset(int row) {
+		return (row % rowsPerSlab) * stride;
+	}
+
+	/**
+	 * Number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public final int numRows() {
+		return numRows;
+	}
+
+	/**
+	 * Number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public final int numColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Gets the stride, that is the distance of two consecutive rows within a slab.
+	 *
+	 * @return the stride
+	 */
+	public final int getStride() {
+		return stride;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#clone()
+	 */
+	@Override
+	public DenseMatrix clone() {
+		try {
+			DenseMatrix cl = (DenseMatrix) super.clone();
+			cl.slabs = new double[slabs.length][];
+			for (int s = 0; s < slabs.length; ++s)
+				cl.slabs[s] = slabs[s].clone();
+			return cl;
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Clone not supported!");
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,419 @@
+package com.demshape.dempred.math;
+
+import java.io.Serializable;
+import java.text.DecimalFormat;
+
+/**
+ * A dense vector which is a view of a single row of a {@link DenseMatrix DenseMatrix}. All element-wise operations work directly on the rows of the
+ * underlying matrix. Operations which change the size of the vector work in place as long as the row has reserved cells left, otherwise the
+ * vector is detached from the matrix and continues with a private copy of its elements.
+ */
+public class DenseRowVector implements Cloneable, Serializable, VectorInterface {
+
+	private static final long serialVersionUID = 2719485237658401387L;
+	private double[] data;
+	private int offset;
+	private int size;
+	private int capacity;
+
+	// ********************konstruktoren
+	public DenseRowVector(double[] data, int offset, int size, int capacity) {
+		if (offset < 0 || size > capacity || offset + capacity > data.length)
+			throw new IllegalArgumentException("Row view out of bounds: offset:" + offset + " size:" + size + " capacity:" + capacity + " length:" + data.length);
+		this.data = data;
+		this.offset = offset;
+		this.size = size;
+		this.capacity = capacity;
+	}
+
+	private void detach(int newCapacity) {
+		double[] newData = new double[newCapacity];
+		System.arraycopy(data, offset, newData, 0, Math.min(size, newCapacity));
+		data = newData;
+		offset = 0;
+		capacity = newCapacity;
+	}
+
+	private DenseVector copy() {
+		double[] elements = new double[size];
+		System.arraycopy(data, offset, elements, 0, size);
+		return new DenseVector(elements);
+	}
+
+	// ********************modifier
+	@Override
+	public final double get(int i) {
+		if (i >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		return data[offset + i];
+	}
+
+	@Override
+	public final void set(int i, double element) {
+		if (i >= size)
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		data[offset + i] = element;
+	}
+
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	@Override
+	public DenseRowVector extendByOne(double value) {
+		if (size == capacity)
+			detach(size + 1);
+		data[offset + size] = value;
+		++size;
+		return this;
+	}
+
+	@Override
+	public DenseRowVector reduceByOne() {
+		--size;
+		return this;
+	}
+
+	// ********************operationen
+	@Override
+	public final double sum() {
+		double sum = 0.0;
+		for (int i = offset; i < offset + size; ++i)
+			sum += data[i];
+		return sum;
+	}
+
+	@Override
+	public final double norm(double p) {
+		double p_norm = 0.0;
+		for (int i = offset; i < offset + size; ++i)
+			p_norm += Math.pow(Math.abs(data[i]), p);
+		return p_norm;
+	}
+
+	@Override
+	public final double normRadical(double p) {
+		return Math.pow(norm(p), (1.0 / p));
+	}
+
+	@Override
+	public DenseRowVector sign() {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] = Math.signum(data[i]);
+		return this;
+	}
+
+	@Override
+	public DenseRowVector abs() {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] = Math.abs(data[i]);
+		return this;
+	}
+
+	@Override
+	public int count(String mode, double x) {
+		return copy().count(mode, x);
+	}
+
+	@Override
+	public int[] findIndices(String mode, double x) {
+		return copy().findIndices(mode, x);
+	}
+
+	@Override
+	public int[] minIndex(int numEntries) {
+		return copy().minIndex(numEntries);
+	}
+
+	@Override
+	public int[] maxIndex(int numEntries) {
+		return copy().maxIndex(numEntries);
+	}
+
+	@Override
+	public double min() {
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = offset; i < offset + size; ++i) {
+			if (data[i] < min)
+				min = data[i];
+		}
+		return min;
+	}
+
+	@Override
+	public double max() {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = offset; i < offset + size; ++i) {
+			if (data[i] > max)
+				max = data[i];
+		}
+		return max;
+	}
+
+	@Override
+	public double mean() {
+		return sum() / size;
+	}
+
+	@Override
+	public double std() {
+		return std(this.mean());
+	}
+
+	@Override
+	public double std(double mean) {
+		double sdt = 0.0;
+		for (int i = offset; i < offset + size; ++i)
+			sdt += Math.pow(data[i] - mean, 2);
+		return Math.sqrt(sdt / (size - 1));
+	}
+
+	@Override
+	public double median() {
+		return copy().median();
+	}
+
+	// ********************matrix operationen
+	@Override
+	public final DenseRowVector mulMatrix(SimpleMatrix mat) throws IllegalArgumentException {
+		DenseVector result = copy().mulMatrix(mat);
+		System.arraycopy(result.getElements(), 0, data, offset, size);
+		return this;
+	}
+
+	// ********************vector operationen
+	@Override
+	public final double scalarProduct(VectorInterface b) {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		double sum = 0.0;
+		if (b instanceof DenseVector) {
+			double[] elements = ((DenseVector) b).getElements();
+			for (int i = 0; i < size; ++i)
+				sum += data[offset + i] * elements[i];
+		} else if (b instanceof DenseRowVector) {
+			DenseRowVector rowVector = (DenseRowVector) b;
+			for (int i = 0; i < size; ++i)
+				sum += data[offset + i] * rowVector.data[rowVector.offset + i];
+		} else if (b instanceof SparseVector || b instanceof SparseRowVector) {
+			return b.scalarProduct(this);
+		} else {
+			for (int i = 0; i < size; ++i)
+				sum += data[offset + i] * b.get(i);
+		}
+		return sum;
+	}
+
+	@Override
+	public final double scalarProduct(double[] b) {
+		if (b.length < size)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + b.length + " and " + size);
+		double sum = 0.0;
+		for (int i = 0; i < size; ++i)
+			sum += data[offset + i] * b[i];
+		return sum;
+	}
+
+	@Override
+	public final void addTo(double[] target, double scale) {
+		if (target.length < size)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + target.length + " and " + size);
+		for (int i = 0; i < size; ++i)
+			target[i] += scale * data[offset + i];
+	}
+
+	@Override
+	public final DenseRowVector addVector(VectorInterface b) throws IllegalArgumentException {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		if (b instanceof SparseVector) {
+			SparseVector sparseVector = (SparseVector) b;
+			int[] keys = sparseVector.getKeys();
+			double[] values = sparseVector.getValues();
+			for (int i = 0; i < sparseVector.used(); ++i)
+				data[offset + keys[i]] += values[i];
+		} else {
+			for (int i = 0; i < size; ++i)
+				data[offset + i] += b.get(i);
+		}
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector subVector(VectorInterface b) {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < size; ++i)
+			data[offset + i] -= b.get(i);
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector mulVector(VectorInterface b) {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < size; ++i)
+			data[offset + i] *= b.get(i);
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector divVector(VectorInterface b) throws IllegalArgumentException {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < size; ++i) {
+			if (b.get(i) == 0)
+				throw new IllegalArgumentException("Division by zero!");
+			data[offset + i] /= b.get(i);
+		}
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector powVector(VectorInterface b) {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < size; ++i)
+			data[offset + i] = Math.pow(data[offset + i], b.get(i));
+		return this;
+	}
+
+	// ********************scalar operationen
+	@Override
+	public final DenseRowVector powScalar(double scalar) {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] = Math.pow(data[i], scalar);
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector divScalarZero(double scalar) {
+		if (scalar == 0)
+			return this;
+		for (int i = offset; i < offset + size; ++i)
+			data[i] /= scalar;
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector divScalar(double scalar) throws IllegalArgumentException {
+		if (scalar == 0)
+			throw new IllegalArgumentException("Division by zero!");
+		for (int i = offset; i < offset + size; ++i)
+			data[i] /= scalar;
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector addScalar(double scalar) {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] += scalar;
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector subScalar(double scalar) {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] -= scalar;
+		return this;
+	}
+
+	@Override
+	public final DenseRowVector mulScalar(double scalar) {
+		for (int i = offset; i < offset + size; ++i)
+			data[i] *= scalar;
+		return this;
+	}
+
+	// ********************sonstige
+	@Override
+	public DenseRowVector delete(int[] indices) {
+		double[] reduced = copy().delete(indices).getElements();
+		data = reduced;
+		offset = 0;
+		size = reduced.length;
+		capacity = reduced.length;
+		return this;
+	}
+
+	@Override
+	public void keep(int[] indices) {
+		double[] reduced = new double[indices.length];
+		for (int i = 0; i < indices.length; ++i)
+			reduced[i] = get(indices[i]);
+		data = reduced;
+		offset = 0;
+		size = reduced.length;
+		capacity = reduced.length;
+	}
+
+	/**
+	 * Returns a detached dense copy of this row.
+	 */
+	@Override
+	public DenseVector clone() {
+		return copy();
+	}
+
+	@Override
+	public final String toString() {
+		return toString(",", "0.0000");
+	}
+
+	@Override
+	public final String toString(String delimiter, String pattern) {
+		String del = "";
+		StringBuffer output = new StringBuffer(size * 10);
+		DecimalFormat myDF = new DecimalFormat(pattern);
+		for (int i = offset; i < offset + size; ++i) {
+			output.append(del);
+			output.append(myDF.format(data[i]));
+			del = delimiter;
+		}
+		return output.toString();
+	}
+
+	// getters and setters
+	/**
+	 * Returns the elements of this row. Unless the row has been detached and exactly fills its private array this is a copy, so changes
+	 * to the returned array are not guaranteed to be written through.
+	 */
+	@Override
+	public final double[] getElements() {
+		if (offset == 0 && size == data.length)
+			return data;
+		return copy().getElements();
+	}
+
+	@Override
+	public final void setElements(double[] elements) {
+		if (elements.length <= capacity)
+			System.arraycopy(elements, 0, data, offset, elements.length);
+		else {
+			data = elements;
+			offset = 0;
+			capacity = elements.length;
+		}
+		size = elements.length;
+	}
+
+	/**
+	 * Gets the array which contains this row.
+	 *
+	 * @return the data
+	 */
+	public final double[] getData() {
+		return data;
+	}
+
+	/**
+	 * Gets the offset of this row within {@link #getData() getData}.
+	 *
+	 * @return the offset
+	 */
+	public final int getOffset() {
+		return offset;
+	}
+
+}
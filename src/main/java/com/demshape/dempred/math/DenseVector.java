@@ -384,12 +384,42 @@ public class DenseVector implements Cloneable, Serializable, VectorInterface {
 	public final double scalarProduct(VectorInterface b) {
 		if (this.size() != b.size())
 			throw new IllegalArgumentException("Vectors have different number of elements: " + this.elements.length + " and " + b.size());
+		if (b instanceof SparseVector || b instanceof SparseRowVector)
+			return b.scalarProduct(this);
 		double sum = 0.0;
 		for (int i = 0; i < elements.length; ++i)
 			sum += this.get(i) * b.get(i);
 		return sum;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see dempred.math.VectorInterface#scalarProduct(double[])
+	 */
+	@Override
+	public final double scalarProduct(double[] b) {
+		if (b.length < elements.length)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + b.length + " and " + elements.length);
+		double sum = 0.0;
+		for (int i = 0; i < elements.length; ++i)
+			sum += elements[i] * b[i];
+		return sum;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see dempred.math.VectorInterface#addTo(double[], double)
+	 */
+	@Override
+	public final void addTo(double[] target, double scale) {
+		if (target.length < elements.length)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + target.length + " and " + elements.length);
+		for (int i = 0; i < elements.length; ++i)
+			target[i] += scale * elements[i];
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -409,6 +439,23 @@ public class DenseVector implements Cloneable, Serializable, VectorInterface {
 			double[] values = sparseVector.getValues();
 			for (int i = 0; i < sparseVector.used(); ++i)
 				this.elements[keys[i]] += values[i];
+		} else if (b instanceof DenseRowVector) {
+			DenseRowVector rowVector = (DenseRowVector) b;
+			double[] data = rowVector.getData();
+			int offset = rowVector.getOffset();
+			for (int i = 0; i < elements.length; ++i)
+				this.elements[i] += data[offset + i];
+		} else if (b instanceof SparseRowVector) {
+			SparseRowVector rowVector = (SparseRowVector) b;
+			int[] colIdx = rowVector.getColumnIndices();
+			double[] values = rowVector.getValues();
+			for (int k = rowVector.getStart(); k < rowVector.getEnd(); ++k)
+				this.elements[colIdx[k]] += values[k];
+			for (int i = 0; i < rowVector.getTailSize(); ++i)
+				this.elements[rowVector.getNumColumns() + i] += rowVector.getTail(i);
+		} else if (b instanceof ProjectedVector) {
+			for (int i = 0; i < elements.length; ++i)
+				this.elements[i] += b.get(i);
 		} else
 			throw new IllegalArgumentException("Wrong Vector Type");
 		
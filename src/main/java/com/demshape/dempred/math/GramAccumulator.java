@@ -0,0 +1,210 @@
+package com.demshape.dempred.math;
+
+/**
+ * Accumulates the weighted normal equations sum_i c_i * x_i * x_i', sum_i c_i * x_i * y_i and sum_i c_i * y_i^2 of a stream of rows without storing
+ * the rows. Every row x is extended by a constant 1 for the bias, so the matrices have numFeatures + 1 rows. Dense rows are collected in blocks of
+ * BLOCK_SIZE rows stored column by column, one block is added as a symmetric rank-k update of the lower triangle with contiguous inner loops. Rows of
+ * type {@link SparseVector} and {@link SparseRowVector} are added directly from their non zero elements. To accumulate in parallel every thread fills
+ * its own accumulator, the accumulators are merged with {@link #add(GramAccumulator) add}.
+ */
+public class GramAccumulator {
+
+	/** The number of dense rows added at once. */
+	public static final int BLOCK_SIZE = 64;
+
+	/** The number of features plus one for the bias. */
+	private final int size;
+
+	/** The lower triangle of the Gram matrix. */
+	private final double[][] gram;
+
+	/** The weighted x * y. */
+	private final double[] moment;
+
+	/** The weighted sum of y^2. */
+	private double sumOfSquares;
+
+	/** The sum of the weights. */
+	private double sumOfWeights;
+
+	/** The number of rows. */
+	private int numRows;
+
+	/** The weighted elements of the collected dense rows, column by column. */
+	private final double[][] weightedBlock;
+
+	/** The elements of the collected dense rows, column by column. */
+	private final double[][] block;
+
+	/** The targets of the collected dense rows. */
+	private final double[] blockTargets;
+
+	/** The number of collected dense rows. */
+	private int blockRows;
+
+	/** The indices and values of a sparse row including the bias. */
+	private int[] sparseIndices = new int[0];
+	private double[] sparseValues = new double[0];
+
+	/**
+	 * Instantiates a new gram accumulator.
+	 *
+	 * @param numFeatures the number of features without the bias
+	 */
+	public GramAccumulator(int numFeatures) {
+		size = numFeatures + 1;
+		gram = new double[size][];
+		for (int i = 0; i < size; ++i)
+			gram[i] = new double[i + 1];
+		moment = new double[size];
+		weightedBlock = new double[size][BLOCK_SIZE];
+		block = new double[size][BLOCK_SIZE];
+		blockTargets = new double[BLOCK_SIZE];
+	}
+
+	/**
+	 * Adds a row.
+	 *
+	 * @param x the features without the bias
+	 * @param y the target
+	 * @param weight the weight c of the row
+	 */
+	public void add(VectorInterface x, double y, double weight) {
+		if (x.size() != size - 1)
+			throw new IllegalArgumentException("Feature vector has " + x.size() + " elements but the accumulator expects " + (size - 1));
+		++numRows;
+		sumOfWeights += weight;
+		sumOfSquares += weight * y * y;
+		if (x instanceof SparseVector) {
+			SparseVector sparse = (SparseVector) x;
+			addSparse(sparse.getKeys(), sparse.getValues(), 0, sparse.getUsed(), y, weight);
+		} else if (x instanceof SparseRowVector && ((SparseRowVector) x).getTailSize() == 0) {
+			SparseRowVector sparse = (SparseRowVector) x;
+			addSparse(sparse.getColumnIndices(), sparse.getValues(), sparse.getStart(), sparse.getEnd(), y, weight);
+		} else {
+			for (int i = 0; i < size - 1; ++i) {
+				double xi = x.get(i);
+				block[i][blockRows] = xi;
+				weightedBlock[i][blockRows] = weight * xi;
+			}
+			block[size - 1][blockRows] = 1.0;
+			weightedBlock[size - 1][blockRows] = weight;
+			blockTargets[blockRows] = y;
+			if (++blockRows == BLOCK_SIZE)
+				flush();
+		}
+	}
+
+	// adds the non zero elements indices[from..to) with values[from..to) and the bias
+	private void addSparse(int[] indices, double[] values, int from, int to, double y, double weight) {
+		int nnz = to - from + 1;
+		if (sparseIndices.length < nnz) {
+			sparseIndices = new int[nnz];
+			sparseValues = new double[nnz];
+		}
+		System.arraycopy(indices, from, sparseIndices, 0, nnz - 1);
+		System.arraycopy(values, from, sparseValues, 0, nnz - 1);
+		sparseIndices[nnz - 1] = size - 1;
+		sparseValues[nnz - 1] = 1.0;
+		// the indices are ascending, so row p >= column q for q <= p
+		for (int p = 0; p < nnz; ++p) {
+			double[] row = gram[sparseIndices[p]];
+			double value = weight * sparseValues[p];
+			for (int q = 0; q <= p; ++q)
+				row[sparseIndices[q]] += value * sparseValues[q];
+			moment[sparseIndices[p]] += value * y;
+		}
+	}
+
+	// adds the collected dense rows to the lower triangle
+	private void flush() {
+		int rows = blockRows;
+		if (rows == 0)
+			return;
+		for (int i = 0; i < size; ++i) {
+			double[] weighted = weightedBlock[i];
+			double[] row = gram[i];
+			for (int j = 0; j <= i; ++j) {
+				double[] column = block[j];
+				double sum = 0.0;
+				for (int k = 0; k < rows; ++k)
+					sum += weighted[k] * column[k];
+				row[j] += sum;
+			}
+			double sum = 0.0;
+			for (int k = 0; k < rows; ++k)
+				sum += weighted[k] * blockTargets[k];
+			moment[i] += sum;
+		}
+		blockRows = 0;
+	}
+
+	/**
+	 * Adds the sums of another accumulator of the same size.
+	 *
+	 * @param other the other accumulator
+	 */
+	public void add(GramAccumulator other) {
+		if (other.size != size)
+			throw new IllegalArgumentException("Accumulators have different sizes: " + size + " and " + other.size);
+		flush();
+		other.flush();
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j <= i; ++j)
+				gram[i][j] += other.gram[i][j];
+			moment[i] += other.moment[i];
+		}
+		sumOfSquares += other.sumOfSquares;
+		sumOfWeights += other.sumOfWeights;
+		numRows += other.numRows;
+	}
+
+	/**
+	 * Returns the symmetric Gram matrix sum_i c_i * x_i * x_i', the bias in the last row and column.
+	 *
+	 * @return the gram matrix
+	 */
+	public double[][] getGram() {
+		flush();
+		double[][] result = new double[size][size];
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j <= i; ++j) {
+				result[i][j] = gram[i][j];
+				result[j][i] = gram[i][j];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns sum_i c_i * x_i * y_i, the sum of c_i * y_i as last element.
+	 *
+	 * @return the moment
+	 */
+	public double[] getMoment() {
+		flush();
+		return moment.clone();
+	}
+
+	public final double getSumOfSquares() {
+		return sumOfSquares;
+	}
+
+	public final double getSumOfWeights() {
+		return sumOfWeights;
+	}
+
+	public final int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Returns the number of features without the bias.
+	 *
+	 * @return the number of features
+	 */
+	public final int numFeatures() {
+		return size - 1;
+	}
+
+}
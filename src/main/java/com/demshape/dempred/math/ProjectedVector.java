@@ -0,0 +1,347 @@
+package com.demshape.dempred.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A read-only view of selected elements of another vector. Element i of this vector is element columns[i] of the base vector, nothing is copied.
+ * This is used to train on a few columns of a large dataset (e.g. during feature selection) without materializing the reduced feature vectors.
+ * Elements appended with {@link #extendByOne(double) extendByOne} (e.g. the bias feature) are kept in a small tail behind the projected elements and can be changed.
+ */
+public class ProjectedVector implements Cloneable, Serializable, VectorInterface {
+
+	private static final long serialVersionUID = 4475202516938190513L;
+	private VectorInterface base;
+	private int[] columns;
+	private double[] tail;
+	private int tailSize;
+
+	// ********************konstruktoren
+	public ProjectedVector(VectorInterface base, int[] columns) {
+		this.base = base;
+		this.columns = columns;
+		this.tail = new double[0];
+	}
+
+	private DenseVector copy() {
+		return new DenseVector(getElements());
+	}
+
+	private UnsupportedOperationException readOnly(String operation) {
+		return new UnsupportedOperationException(operation + " is not supported by a read-only projection, clone the vector first");
+	}
+
+	// ********************modifier
+	@Override
+	public final double get(int i) {
+		if (i < columns.length)
+			return base.get(columns[i]);
+		if (i - columns.length >= tailSize)
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		return tail[i - columns.length];
+	}
+
+	@Override
+	public final void set(int i, double element) {
+		if (i < columns.length)
+			throw readOnly("Setting a projected element");
+		if (i - columns.length >= tailSize)
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		tail[i - columns.length] = element;
+	}
+
+	@Override
+	public final int size() {
+		return columns.length + tailSize;
+	}
+
+	@Override
+	public ProjectedVector extendByOne(double value) {
+		if (tailSize == tail.length)
+			tail = Arrays.copyOf(tail, tailSize + 1);
+		tail[tailSize++] = value;
+		return this;
+	}
+
+	@Override
+	public ProjectedVector reduceByOne() {
+		if (tailSize == 0)
+			throw readOnly("Removing a projected element");
+		--tailSize;
+		return this;
+	}
+
+	// ********************operationen
+	@Override
+	public final double sum() {
+		double sum = 0.0;
+		for (int i = 0; i < size(); ++i)
+			sum += get(i);
+		return sum;
+	}
+
+	@Override
+	public final double norm(double p) {
+		double p_norm = 0.0;
+		for (int i = 0; i < size(); ++i)
+			p_norm += Math.pow(Math.abs(get(i)), p);
+		return p_norm;
+	}
+
+	@Override
+	public final double normRadical(double p) {
+		return Math.pow(norm(p), (1.0 / p));
+	}
+
+	@Override
+	public ProjectedVector sign() {
+		throw readOnly("sign");
+	}
+
+	@Override
+	public ProjectedVector abs() {
+		throw readOnly("abs");
+	}
+
+	@Override
+	public int count(String mode, double x) {
+		return copy().count(mode, x);
+	}
+
+	@Override
+	public int[] findIndices(String mode, double x) {
+		return copy().findIndices(mode, x);
+	}
+
+	@Override
+	public int[] minIndex(int numEntries) {
+		return copy().minIndex(numEntries);
+	}
+
+	@Override
+	public int[] maxIndex(int numEntries) {
+		return copy().maxIndex(numEntries);
+	}
+
+	@Override
+	public double min() {
+		return copy().min();
+	}
+
+	@Override
+	public double max() {
+		return copy().max();
+	}
+
+	@Override
+	public double mean() {
+		return sum() / size();
+	}
+
+	@Override
+	public double std() {
+		return copy().std();
+	}
+
+	@Override
+	public double std(double mean) {
+		return copy().std(mean);
+	}
+
+	@Override
+	public double median() {
+		return copy().median();
+	}
+
+	// ********************matrix operationen
+	@Override
+	public final ProjectedVector mulMatrix(SimpleMatrix mat) throws IllegalArgumentException {
+		throw readOnly("mulMatrix");
+	}
+
+	// ********************vector operationen
+	@Override
+	public final double scalarProduct(VectorInterface b) {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		double sum = 0.0;
+		if (b instanceof DenseVector) {
+			double[] elements = ((DenseVector) b).getElements();
+			if (base instanceof DenseVector) {
+				double[] baseElements = ((DenseVector) base).getElements();
+				for (int i = 0; i < columns.length; ++i)
+					sum += baseElements[columns[i]] * elements[i];
+			} else if (base instanceof DenseRowVector) {
+				double[] data = ((DenseRowVector) base).getData();
+				int offset = ((DenseRowVector) base).getOffset();
+				for (int i = 0; i < columns.length; ++i)
+					sum += data[offset + columns[i]] * elements[i];
+			} else {
+				for (int i = 0; i < columns.length; ++i)
+					sum += base.get(columns[i]) * elements[i];
+			}
+			for (int i = 0; i < tailSize; ++i)
+				sum += tail[i] * elements[columns.length + i];
+		} else {
+			for (int i = 0; i < size(); ++i)
+				sum += get(i) * b.get(i);
+		}
+		return sum;
+	}
+
+	@Override
+	public final double scalarProduct(double[] b) {
+		if (b.length < size())
+			throw new IllegalArgumentException("Array has less elements than the vector: " + b.length + " and " + size());
+		double sum = 0.0;
+		if (base instanceof DenseVector) {
+			double[] baseElements = ((DenseVector) base).getElements();
+			for (int i = 0; i < columns.length; ++i)
+				sum += baseElements[columns[i]] * b[i];
+		} else if (base instanceof DenseRowVector) {
+			double[] data = ((DenseRowVector) base).getData();
+			int offset = ((DenseRowVector) base).getOffset();
+			for (int i = 0; i < columns.length; ++i)
+				sum += data[offset + columns[i]] * b[i];
+		} else {
+			for (int i = 0; i < columns.length; ++i)
+				sum += base.get(columns[i]) * b[i];
+		}
+		for (int i = 0; i < tailSize; ++i)
+			sum += tail[i] * b[columns.length + i];
+		return sum;
+	}
+
+	@Override
+	public final void addTo(double[] target, double scale) {
+		if (target.length < size())
+			throw new IllegalArgumentException("Array has less elements than the vector: " + target.length + " and " + size());
+		if (base instanceof DenseVector) {
+			double[] baseElements = ((DenseVector) base).getElements();
+			for (int i = 0; i < columns.length; ++i)
+				target[i] += scale * baseElements[columns[i]];
+		} else if (base instanceof DenseRowVector) {
+			double[] data = ((DenseRowVector) base).getData();
+			int offset = ((DenseRowVector) base).getOffset();
+			for (int i = 0; i < columns.length; ++i)
+				target[i] += scale * data[offset + columns[i]];
+		} else {
+			for (int i = 0; i < columns.length; ++i)
+				target[i] += scale * base.get(columns[i]);
+		}
+		for (int i = 0; i < tailSize; ++i)
+			target[columns.length + i] += scale * tail[i];
+	}
+
+	@Override
+	public final ProjectedVector addVector(VectorInterface b) throws IllegalArgumentException {
+		throw readOnly("addVector");
+	}
+
+	@Override
+	public final ProjectedVector subVector(VectorInterface b) {
+		throw readOnly("subVector");
+	}
+
+	@Override
+	public final ProjectedVector mulVector(VectorInterface b) {
+		throw readOnly("mulVector");
+	}
+
+	@Override
+	public final ProjectedVector divVector(VectorInterface b) throws IllegalArgumentException {
+		throw readOnly("divVector");
+	}
+
+	@Override
+	public final ProjectedVector powVector(VectorInterface b) {
+		throw readOnly("powVector");
+	}
+
+	// ********************scalar operationen
+	@Override
+	public final ProjectedVector powScalar(double scalar) {
+		throw readOnly("powScalar");
+	}
+
+	@Override
+	public final ProjectedVector divScalarZero(double scalar) {
+		throw readOnly("divScalarZero");
+	}
+
+	@Override
+	public final ProjectedVector divScalar(double scalar) throws IllegalArgumentException {
+		throw readOnly("divScalar");
+	}
+
+	@Override
+	public final ProjectedVector addScalar(double scalar) {
+		throw readOnly("addScalar");
+	}
+
+	@Override
+	public final ProjectedVector subScalar(double scalar) {
+		throw readOnly("subScalar");
+	}
+
+	@Override
+	public final ProjectedVector mulScalar(double scalar) {
+		throw readOnly("mulScalar");
+	}
+
+	// ********************sonstige
+	@Override
+	public ProjectedVector delete(int[] indices) {
+		throw readOnly("delete");
+	}
+
+	@Override
+	public void keep(int[] indices) {
+		throw readOnly("keep");
+	}
+
+	/**
+	 * Returns a detached dense copy of this projection.
+	 */
+	@Override
+	public DenseVector clone() {
+		return copy();
+	}
+
+	@Override
+	public final String toString() {
+		return toString(",", "0.0000");
+	}
+
+	@Override
+	public final String toString(String delimiter, String pattern) {
+		return copy().toString(delimiter, pattern);
+	}
+
+	// getters and setters
+	/**
+	 * Returns a copy of the projected elements including the tail.
+	 */
+	@Override
+	public final double[] getElements() {
+		double[] elements = new double[size()];
+		for (int i = 0; i < columns.length; ++i)
+			elements[i] = base.get(columns[i]);
+		System.arraycopy(tail, 0, elements, columns.length, tailSize);
+		return elements;
+	}
+
+	@Override
+	public final void setElements(double[] elements) {
+		throw readOnly("setElements");
+	}
+
+	public final VectorInterface getBase() {
+		return base;
+	}
+
+	public final int[] getColumns() {
+		return columns;
+	}
+
+}
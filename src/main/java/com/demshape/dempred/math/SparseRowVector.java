@@ -0,0 +1,483 @@
+package com.demshape.dempred.math;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A sparse vector which is a view of a single row of a {@link CsrMatrix CsrMatrix}. Operations which keep the sparsity pattern (scaling, element-wise
+ * multiplication and division) work directly on the values of the underlying matrix. Operations which would turn zeros into non zeros are not supported.
+ * Elements appended with {@link #extendByOne(double) extendByOne} (e.g. the bias feature) are kept in a small dense tail behind the row.
+ */
+public class SparseRowVector implements Cloneable, Serializable, VectorInterface {
+
+	private static final long serialVersionUID = -2046783913315541771L;
+	private int[] colIdx;
+	private double[] values;
+	private int start;
+	private int end;
+	private int numColumns;
+	private double[] tail;
+	private int tailSize;
+
+	// ********************konstruktoren
+	public SparseRowVector(int[] colIdx, double[] values, int start, int end, int numColumns) {
+		if (start < 0 || start > end || end > colIdx.length || colIdx.length != values.length)
+			throw new IllegalArgumentException("Row view out of bounds: start:" + start + " end:" + end + " length:" + colIdx.length);
+		this.colIdx = colIdx;
+		this.values = values;
+		this.start = start;
+		this.end = end;
+		this.numColumns = numColumns;
+		this.tail = new double[0];
+	}
+
+	private DenseVector copy() {
+		return new DenseVector(getElements());
+	}
+
+	private UnsupportedOperationException densifying(String operation) {
+		return new UnsupportedOperationException(operation + " would destroy the sparsity of a csr row");
+	}
+
+	// ********************modifier
+	@Override
+	public final double get(int i) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		if (i >= numColumns)
+			return tail[i - numColumns];
+		int spot = Arrays.binarySearch(colIdx, start, end, i);
+		return spot < 0 ? 0.0 : values[spot];
+	}
+
+	@Override
+	public final void set(int i, double element) {
+		if (i < 0 || i >= size())
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		if (i >= numColumns) {
+			tail[i - numColumns] = element;
+			return;
+		}
+		int spot = Arrays.binarySearch(colIdx, start, end, i);
+		if (spot >= 0)
+			values[spot] = element;
+		else if (element != 0.0)
+			throw densifying("Setting a zero element");
+	}
+
+	@Override
+	public final int size() {
+		return numColumns + tailSize;
+	}
+
+	@Override
+	public SparseRowVector extendByOne(double value) {
+		if (tailSize == tail.length)
+			tail = Arrays.copyOf(tail, tailSize + 1);
+		tail[tailSize++] = value;
+		return this;
+	}
+
+	@Override
+	public SparseRowVector reduceByOne() {
+		if (tailSize == 0)
+			throw new UnsupportedOperationException("Only elements appended by extendByOne can be removed from a csr row");
+		--tailSize;
+		return this;
+	}
+
+	// ********************operationen
+	@Override
+	public final double sum() {
+		double sum = 0.0;
+		for (int k = start; k < end; ++k)
+			sum += values[k];
+		for (int i = 0; i < tailSize; ++i)
+			sum += tail[i];
+		return sum;
+	}
+
+	@Override
+	public final double norm(double p) {
+		double p_norm = 0.0;
+		for (int k = start; k < end; ++k)
+			p_norm += Math.pow(Math.abs(values[k]), p);
+		for (int i = 0; i < tailSize; ++i)
+			p_norm += Math.pow(Math.abs(tail[i]), p);
+		return p_norm;
+	}
+
+	@Override
+	public final double normRadical(double p) {
+		return Math.pow(norm(p), (1.0 / p));
+	}
+
+	@Override
+	public SparseRowVector sign() {
+		for (int k = start; k < end; ++k)
+			values[k] = Math.signum(values[k]);
+		for (int i = 0; i < tailSize; ++i)
+			tail[i] = Math.signum(tail[i]);
+		return this;
+	}
+
+	@Override
+	public SparseRowVector abs() {
+		for (int k = start; k < end; ++k)
+			values[k] = Math.abs(values[k]);
+		for (int i = 0; i < tailSize; ++i)
+			tail[i] = Math.abs(tail[i]);
+		return this;
+	}
+
+	@Override
+	public int count(String mode, double x) {
+		return copy().count(mode, x);
+	}
+
+	@Override
+	public int[] findIndices(String mode, double x) {
+		return copy().findIndices(mode, x);
+	}
+
+	@Override
+	public int[] minIndex(int numEntries) {
+		return copy().minIndex(numEntries);
+	}
+
+	@Override
+	public int[] maxIndex(int numEntries) {
+		return copy().maxIndex(numEntries);
+	}
+
+	@Override
+	public double min() {
+		return copy().min();
+	}
+
+	@Override
+	public double max() {
+		return copy().max();
+	}
+
+	@Override
+	public double mean() {
+		return sum() / size();
+	}
+
+	@Override
+	public double std() {
+		return std(this.mean());
+	}
+
+	@Override
+	public double std(double mean) {
+		int numZeros = size() - nnz() - tailSize;
+		double sdt = numZeros * mean * mean;
+		for (int k = start; k < end; ++k)
+			sdt += Math.pow(values[k] - mean, 2);
+		for (int i = 0; i < tailSize; ++i)
+			sdt += Math.pow(tail[i] - mean, 2);
+		return Math.sqrt(sdt / (size() - 1));
+	}
+
+	@Override
+	public double median() {
+		return copy().median();
+	}
+
+	// ********************matrix operationen
+	@Override
+	public final SparseRowVector mulMatrix(SimpleMatrix mat) throws IllegalArgumentException {
+		throw densifying("Matrix multiplication");
+	}
+
+	// ********************vector operationen
+	@Override
+	public final double scalarProduct(VectorInterface b) {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		double sum = 0.0;
+		if (b instanceof DenseVector) {
+			double[] elements = ((DenseVector) b).getElements();
+			for (int k = start; k < end; ++k)
+				sum += values[k] * elements[colIdx[k]];
+			for (int i = 0; i < tailSize; ++i)
+				sum += tail[i] * elements[numColumns + i];
+		} else if (b instanceof DenseRowVector) {
+			DenseRowVector rowVector = (DenseRowVector) b;
+			double[] data = rowVector.getData();
+			int offset = rowVector.getOffset();
+			for (int k = start; k < end; ++k)
+				sum += values[k] * data[offset + colIdx[k]];
+			for (int i = 0; i < tailSize; ++i)
+				sum += tail[i] * data[offset + numColumns + i];
+		} else {
+			for (int k = start; k < end; ++k)
+				sum += values[k] * b.get(colIdx[k]);
+			for (int i = 0; i < tailSize; ++i)
+				sum += tail[i] * b.get(numColumns + i);
+		}
+		return sum;
+	}
+
+	@Override
+	public final double scalarProduct(double[] b) {
+		if (b.length < size())
+			throw new IllegalArgumentException("Array has less elements than the vector: " + b.length + " and " + size());
+		double sum = 0.0;
+		for (int k = start; k < end; ++k)
+			sum += values[k] * b[colIdx[k]];
+		for (int i = 0; i < tailSize; ++i)
+			sum += tail[i] * b[numColumns + i];
+		return sum;
+	}
+
+	@Override
+	public final void addTo(double[] target, double scale) {
+		if (target.length < size())
+			throw new IllegalArgumentException("Array has less elements than the vector: " + target.length + " and " + size());
+		for (int k = start; k < end; ++k)
+			target[colIdx[k]] += scale * values[k];
+		for (int i = 0; i < tailSize; ++i)
+			target[numColumns + i] += scale * tail[i];
+	}
+
+	@Override
+	public final SparseRowVector addVector(VectorInterface b) throws IllegalArgumentException {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		for (int i = 0; i < size(); ++i) {
+			double element = b.get(i);
+			if (element != 0.0)
+				set(i, get(i) + element);
+		}
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector subVector(VectorInterface b) {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		for (int i = 0; i < size(); ++i) {
+			double element = b.get(i);
+			if (element != 0.0)
+				set(i, get(i) - element);
+		}
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector mulVector(VectorInterface b) {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		for (int k = start; k < end; ++k)
+			values[k] *= b.get(colIdx[k]);
+		for (int i = 0; i < tailSize; ++i)
+			tail[i] *= b.get(numColumns + i);
+		return this;
+	}
+
+	/**
+	 * Divides the non zero elements by the according elements of b. Zeros of b at positions where this row is zero are ignored.
+	 */
+	@Override
+	public final SparseRowVector divVector(VectorInterface b) throws IllegalArgumentException {
+		if (this.size() != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size() + " and " + b.size());
+		for (int k = start; k < end; ++k) {
+			double divisor = b.get(colIdx[k]);
+			if (divisor == 0)
+				throw new IllegalArgumentException("Division by zero!");
+			values[k] /= divisor;
+		}
+		for (int i = 0; i < tailSize; ++i) {
+			double divisor = b.get(numColumns + i);
+			if (divisor == 0)
+				throw new IllegalArgumentException("Division by zero!");
+			tail[i] /= divisor;
+		}
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector powVector(VectorInterface b) {
+		throw densifying("Element-wise power");
+	}
+
+	// ********************scalar operationen
+	@Override
+	public final SparseRowVector powScalar(double scalar) {
+		if (scalar <= 0)
+			throw densifying("A non positive power");
+		for (int k = start; k < end; ++k)
+			values[k] = Math.pow(values[k], scalar);
+		for (int i = 0; i < tailSize; ++i)
+			tail[i] = Math.pow(tail[i], scalar);
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector divScalarZero(double scalar) {
+		if (scalar == 0)
+			return this;
+		return mulScalar(1.0 / scalar);
+	}
+
+	@Override
+	public final SparseRowVector divScalar(double scalar) throws IllegalArgumentException {
+		if (scalar == 0)
+			throw new IllegalArgumentException("Division by zero!");
+		return mulScalar(1.0 / scalar);
+	}
+
+	@Override
+	public final SparseRowVector addScalar(double scalar) {
+		if (scalar != 0.0)
+			throw densifying("Adding a scalar");
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector subScalar(double scalar) {
+		if (scalar != 0.0)
+			throw densifying("Subtracting a scalar");
+		return this;
+	}
+
+	@Override
+	public final SparseRowVector mulScalar(double scalar) {
+		for (int k = start; k < end; ++k)
+			values[k] *= scalar;
+		for (int i = 0; i < tailSize; ++i)
+			tail[i] *= scalar;
+		return this;
+	}
+
+	// ********************sonstige
+	/**
+	 * Not supported unless indices is empty, columns of a csr row are removed for the whole matrix with {@link CsrMatrix#keepColumns(int[]) keepColumns}.
+	 */
+	@Override
+	public SparseRowVector delete(int[] indices) {
+		if (indices.length == 0)
+			return this;
+		throw new UnsupportedOperationException("Columns of a csr row can only be deleted for the whole matrix");
+	}
+
+	/**
+	 * Not supported, columns of a csr row are removed for the whole matrix with {@link CsrMatrix#keepColumns(int[]) keepColumns}.
+	 */
+	@Override
+	public void keep(int[] indices) {
+		throw new UnsupportedOperationException("Columns of a csr row can only be deleted for the whole matrix");
+	}
+
+	/**
+	 * Returns a detached {@link SparseVector SparseVector} copy of this row including the tail.
+	 */
+	@Override
+	public SparseVector clone() {
+		int used = nnz();
+		int[] keys = new int[used + tailSize];
+		double[] vals = new double[used + tailSize];
+		System.arraycopy(colIdx, start, keys, 0, used);
+		System.arraycopy(values, start, vals, 0, used);
+		for (int i = 0; i < tailSize; ++i) {
+			if (tail[i] != 0.0) {
+				keys[used] = numColumns + i;
+				vals[used++] = tail[i];
+			}
+		}
+		return new SparseVector(Arrays.copyOf(keys, used), Arrays.copyOf(vals, used), size());
+	}
+
+	@Override
+	public final String toString() {
+		return toString(",", "0.0000");
+	}
+
+	@Override
+	public final String toString(String delimiter, String pattern) {
+		return copy().toString(delimiter, pattern);
+	}
+
+	// getters and setters
+	/**
+	 * Returns a dense copy of this row.
+	 */
+	@Override
+	public final double[] getElements() {
+		double[] elements = new double[size()];
+		for (int k = start; k < end; ++k)
+			elements[colIdx[k]] = values[k];
+		System.arraycopy(tail, 0, elements, numColumns, tailSize);
+		return elements;
+	}
+
+	@Override
+	public final void setElements(double[] elements) {
+		throw densifying("Setting all elements");
+	}
+
+	/**
+	 * Number of stored elements of this row, not counting the tail.
+	 *
+	 * @return the number of stored elements
+	 */
+	public final int nnz() {
+		return end - start;
+	}
+
+	/**
+	 * Gets the column index array of the underlying matrix. The indices of this row are found between {@link #getStart() getStart} and {@link #getEnd() getEnd}.
+	 *
+	 * @return the column indices
+	 */
+	public final int[] getColumnIndices() {
+		return colIdx;
+	}
+
+	/**
+	 * Gets the value array of the underlying matrix.
+	 *
+	 * @return the values
+	 */
+	public final double[] getValues() {
+		return values;
+	}
+
+	public final int getStart() {
+		return start;
+	}
+
+	public final int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Gets the number of columns of the underlying matrix, that is the size of this row without the tail.
+	 *
+	 * @return the number of columns
+	 */
+	public final int getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Gets the element i of the tail.
+	 *
+	 * @param i the position within the tail
+	 * @return the element
+	 */
+	public final double getTail(int i) {
+		if (i >= tailSize)
+			throw new IndexOutOfBoundsException(Integer.toString(i));
+		return tail[i];
+	}
+
+	public final int getTailSize() {
+		return tailSize;
+	}
+
+}
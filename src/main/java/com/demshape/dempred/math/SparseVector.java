@@ -25,17 +25,74 @@ public class SparseVector implements Cloneable, VectorInterface {
 		this.used = keys.length;
 	}
 
+	public SparseVector(int[] keys, double[] values, int size) {
+		if (keys.length != values.length)
+			throw new IllegalArgumentException("Elements have different number of elements: " + keys.length + " and " + values.length);
+		if (keys.length > 0 && keys[keys.length - 1] >= size)
+			throw new IllegalArgumentException("Key " + keys[keys.length - 1] + " out of range for size " + size);
+		this.keys = keys;
+		this.values = values;
+		this.size = size;
+		this.used = keys.length;
+	}
+
 	public SparseVector(double[] weightElements) {
-		// count non null elements first then create according sparse vector
-		int capacity = weightElements.length;
-		this.keys = new int[capacity];
-		this.values = new double[capacity];
-		this.size = capacity;
-		this.used = capacity;
-		for (int i = 0; i < weightElements.length; ++i) {
-			if (weightElements[i] != 0.0)
-				this.set(i, weightElements[i]);
+		setElements(weightElements);
+	}
+
+	private DenseVector copy() {
+		return new DenseVector(getElements());
+	}
+
+	// replaces the elements by this[i] + scale * b[i], only non zero results are kept
+	private SparseVector addScaled(VectorInterface b, double scale) {
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		int[] newKeys;
+		double[] newValues;
+		int newUsed = 0;
+		if (b instanceof SparseVector) {
+			SparseVector sparseVector = (SparseVector) b;
+			newKeys = new int[used + sparseVector.used];
+			newValues = new double[used + sparseVector.used];
+			int indexA = 0;
+			int indexB = 0;
+			while (indexA < used || indexB < sparseVector.used) {
+				int key;
+				double value;
+				if (indexB == sparseVector.used || (indexA < used && keys[indexA] < sparseVector.keys[indexB])) {
+					key = keys[indexA];
+					value = values[indexA++];
+				} else if (indexA == used || sparseVector.keys[indexB] < keys[indexA]) {
+					key = sparseVector.keys[indexB];
+					value = scale * sparseVector.values[indexB++];
+				} else {
+					key = keys[indexA];
+					value = values[indexA++] + scale * sparseVector.values[indexB++];
+				}
+				if (value != 0.0) {
+					newKeys[newUsed] = key;
+					newValues[newUsed++] = value;
+				}
+			}
+		} else {
+			newKeys = new int[size];
+			newValues = new double[size];
+			int index = 0;
+			for (int i = 0; i < size; ++i) {
+				double value = scale * b.get(i);
+				if (index < used && keys[index] == i)
+					value += values[index++];
+				if (value != 0.0) {
+					newKeys[newUsed] = i;
+					newValues[newUsed++] = value;
+				}
+			}
 		}
+		keys = newKeys;
+		values = newValues;
+		used = newUsed;
+		return this;
 	}
 
 	public double get(int key) {
@@ -139,98 +196,85 @@ public class SparseVector implements Cloneable, VectorInterface {
 
 	@Override
 	public SparseVector sign() {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet sign");
-		System.exit(0);
-		return null;
+		for (int i = 0; i < used; ++i)
+			values[i] = Math.signum(values[i]);
+		return this;
 	}
 
 	@Override
 	public SparseVector abs() {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet abs");
-		System.exit(0);
-		return null;
+		for (int i = 0; i < used; ++i)
+			values[i] = Math.abs(values[i]);
+		return this;
 	}
 
 	@Override
 	public int count(String mode, double x) {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		return copy().count(mode, x);
 	}
 
 	@Override
 	public int[] findIndices(String mode, double x) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet indices");
-		System.exit(0);
-		return null;
+		return copy().findIndices(mode, x);
 	}
 
 	@Override
 	public int[] minIndex(int numEntries) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet minindex");
-		System.exit(0);
-		return null;
+		return copy().minIndex(numEntries);
 	}
 
 	@Override
 	public int[] maxIndex(int numEntries) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet maxindex");
-		System.exit(0);
-		return null;
+		return copy().maxIndex(numEntries);
 	}
 
 	@Override
 	public double min() {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		double min = used < size ? 0.0 : Double.POSITIVE_INFINITY;
+		for (int i = 0; i < used; ++i) {
+			if (values[i] < min)
+				min = values[i];
+		}
+		return min;
 	}
 
 	@Override
 	public double max() {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		double max = used < size ? 0.0 : Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < used; ++i) {
+			if (values[i] > max)
+				max = values[i];
+		}
+		return max;
 	}
 
 	@Override
 	public double mean() {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		return sum() / size;
 	}
 
 	@Override
 	public double std() {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		return std(this.mean());
 	}
 
 	@Override
 	public double std(double mean) {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-		return 0;
+		double sdt = (size - used) * mean * mean;
+		for (int i = 0; i < used; ++i)
+			sdt += Math.pow(values[i] - mean, 2);
+		return Math.sqrt(sdt / (size - 1));
 	}
 
 	@Override
 	public double median() {
-		// TODO Auto-generated method stub
-		return 0;
+		return copy().median();
 	}
 
 	@Override
 	public SparseVector mulMatrix(SimpleMatrix mat) throws IllegalArgumentException {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet mulmatrix");
-		System.exit(0);
-		return null;
+		setElements(copy().mulMatrix(mat).getElements());
+		return this;
 	}
 
 	@Override
@@ -251,7 +295,9 @@ public class SparseVector implements Cloneable, VectorInterface {
 					++indexB;
 			}
 			return sum;
-		} else if (b instanceof DenseVector) {
+		} else if (b instanceof SparseRowVector) {
+			return b.scalarProduct(this);
+		} else if (b instanceof DenseVector || b instanceof DenseRowVector) {
 			for (int i = 0; i < used; ++i)
 				sum += b.get(keys[i]) * values[i];
 			return sum;
@@ -260,148 +306,181 @@ public class SparseVector implements Cloneable, VectorInterface {
 	}
 
 	@Override
-	public SparseVector addVector(VectorInterface b) throws IllegalArgumentException {
-		if (this.size != b.size())
-			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+	public double scalarProduct(double[] b) {
+		if (b.length < size)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + b.length + " and " + size);
+		double sum = 0.0;
+		for (int i = 0; i < used; ++i)
+			sum += values[i] * b[keys[i]];
+		return sum;
+	}
 
-		if (b instanceof SparseVector) {
-			int indexA = 0;
-			int indexB = 0;
-			while (indexA < this.used && indexB < ((SparseVector) b).used) {
-				if (keys[indexA] == ((SparseVector) b).keys[indexB])
-					values[indexA] = values[indexA++] + ((SparseVector) b).values[indexB++];
-				else if (keys[indexA] < ((SparseVector) b).keys[indexB]) {
-					++indexA;
-				} else if (keys[indexA] > ((SparseVector) b).keys[indexB]) {
-					this.set(((SparseVector) b).keys[indexB], ((SparseVector) b).values[indexB]);
-					++indexB;
-				}
-			}
-			return this;
-		}
-		throw new IllegalArgumentException("Wrong types johnny");
+	@Override
+	public void addTo(double[] target, double scale) {
+		if (target.length < size)
+			throw new IllegalArgumentException("Array has less elements than the vector: " + target.length + " and " + size);
+		for (int i = 0; i < used; ++i)
+			target[keys[i]] += scale * values[i];
+	}
+
+	@Override
+	public SparseVector addVector(VectorInterface b) throws IllegalArgumentException {
+		return addScaled(b, 1.0);
 	}
 
 	@Override
 	public SparseVector subVector(VectorInterface b) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet subvet");
-		System.exit(0);
-		return null;
+		return addScaled(b, -1.0);
 	}
 
 	@Override
 	public SparseVector mulVector(VectorInterface b) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet mulvec");
-		System.exit(0);
-		return null;
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < used; ++i)
+			values[i] *= b.get(keys[i]);
+		return this;
 	}
 
 	@Override
 	public SparseVector divVector(VectorInterface b) throws IllegalArgumentException {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet div");
-		System.exit(0);
-		return null;
+		if (this.size != b.size())
+			throw new IllegalArgumentException("Vectors have different number of elements: " + this.size + " and " + b.size());
+		for (int i = 0; i < used; ++i) {
+			double divisor = b.get(keys[i]);
+			if (divisor == 0)
+				throw new IllegalArgumentException("Division by zero!");
+			values[i] /= divisor;
+		}
+		return this;
 	}
 
 	@Override
 	public SparseVector powVector(VectorInterface b) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet pow");
-		System.exit(0);
-		return null;
+		setElements(copy().powVector(b).getElements());
+		return this;
 	}
 
 	@Override
 	public SparseVector powScalar(double scalar) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet pow");
-		System.exit(0);
-		return null;
+		// only positive powers keep the zeros
+		if (scalar <= 0) {
+			setElements(copy().powScalar(scalar).getElements());
+			return this;
+		}
+		for (int i = 0; i < used; ++i)
+			values[i] = Math.pow(values[i], scalar);
+		return this;
 	}
 
 	@Override
 	public SparseVector divScalarZero(double scalar) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet div");
-		System.exit(0);
-		return null;
+		if (scalar == 0)
+			return this;
+		return mulScalar(1.0 / scalar);
 	}
 
 	@Override
 	public SparseVector divScalar(double scalar) throws IllegalArgumentException {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet div");
-		System.exit(0);
-		return null;
+		if (scalar == 0)
+			throw new IllegalArgumentException("Division by zero!");
+		return mulScalar(1.0 / scalar);
 	}
 
 	@Override
 	public SparseVector addScalar(double scalar) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yetadd");
-		System.exit(0);
-		return null;
+		if (scalar == 0)
+			return this;
+		setElements(copy().addScalar(scalar).getElements());
+		return this;
 	}
 
 	@Override
 	public SparseVector subScalar(double scalar) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yetsub");
-		System.exit(0);
-		return null;
+		return addScalar(-scalar);
 	}
 
 	@Override
 	public SparseVector mulScalar(double scalar) {
-		for (int i = 0; i < values.length; ++i)
+		for (int i = 0; i < used; ++i)
 			values[i] = values[i] * scalar;
 		return this;
 	}
 
 	@Override
 	public SparseVector delete(int[] indices) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yetdelete");
-		System.exit(0);
-		return null;
+		// indices have to be sorted
+		int indexPointer = 0;
+		int newUsed = 0;
+		for (int i = 0; i < used; ++i) {
+			while (indexPointer < indices.length && indices[indexPointer] < keys[i])
+				++indexPointer;
+			if (indexPointer < indices.length && indices[indexPointer] == keys[i])
+				continue;
+			keys[newUsed] = keys[i] - indexPointer;
+			values[newUsed++] = values[i];
+		}
+		int numDeleted = 0;
+		for (int i = 0; i < indices.length; ++i) {
+			if ((i == 0 || indices[i] != indices[i - 1]) && indices[i] < size)
+				++numDeleted;
+		}
+		used = newUsed;
+		size -= numDeleted;
+		return this;
 	}
 
 	@Override
 	public void keep(int[] indices) {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-
+		int[] newKeys = new int[indices.length];
+		double[] newValues = new double[indices.length];
+		int newUsed = 0;
+		for (int i = 0; i < indices.length; ++i) {
+			int spot = Arrays.binarySearch(keys, 0, used, indices[i]);
+			if (spot >= 0 && values[spot] != 0.0) {
+				newKeys[newUsed] = i;
+				newValues[newUsed++] = values[spot];
+			}
+		}
+		keys = newKeys;
+		values = newValues;
+		used = newUsed;
+		size = indices.length;
 	}
 
 	@Override
 	public String toString(String delimiter, String pattern) {
-		// TODO Auto-generated method stub
-		System.out.println("Not implemented yet tostring");
-		System.exit(0);
-		return null;
+		return copy().toString(delimiter, pattern);
 	}
 
 	@Override
 	public double[] getElements() {
 		double[] elements = new double[size];
-		int index = 0;
-		for (int i = 0; i < size; ++i) {
-			if (keys[index] == i)
-				elements[i] = values[index++];
-			else
-				elements[i] = 0.0;
-		}
+		for (int i = 0; i < used; ++i)
+			elements[keys[i]] = values[i];
 		return elements;
 	}
 
+	/**
+	 * Replaces the elements by the non zero elements of a dense array, the size becomes the length of the array.
+	 */
 	@Override
 	public void setElements(double[] elements) {
-		System.out.println("Not implemented yet reduce");
-		System.exit(0);
-
+		int nonZeros = 0;
+		for (int i = 0; i < elements.length; ++i) {
+			if (elements[i] != 0.0)
+				++nonZeros;
+		}
+		keys = new int[nonZeros];
+		values = new double[nonZeros];
+		used = 0;
+		for (int i = 0; i < elements.length; ++i) {
+			if (elements[i] != 0.0) {
+				keys[used] = i;
+				values[used++] = elements[i];
+			}
+		}
+		size = elements.length;
 	}
 
 	@Override
@@ -427,7 +506,7 @@ public class SparseVector implements Cloneable, VectorInterface {
 		StringBuffer strBuffer = new StringBuffer();
 		int index = 0;
 		for (int i = 0; i < size; ++i) {
-			if (keys[index] == i)
+			if (index < used && keys[index] == i)
 				strBuffer.append(values[index++]);
 			else
 				strBuffer.append(0.0);
@@ -49,6 +49,12 @@ public interface VectorInterface {
 	// ********************vector operationen
 	public abstract double scalarProduct(VectorInterface b);
 
+	// scalar product with the first size() elements of b, b may be longer (e.g. a weight vector with a trailing bias)
+	public abstract double scalarProduct(double[] b);
+
+	// target[i] += scale * get(i) for the first size() elements of target without allocating a vector
+	public abstract void addTo(double[] target, double scale);
+
 	public abstract VectorInterface addVector(VectorInterface b) throws IllegalArgumentException;
 
 	public abstract VectorInterface subVector(VectorInterface b);
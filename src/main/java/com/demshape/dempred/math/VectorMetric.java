@@ -6,6 +6,13 @@ public class VectorMetric {
 		return a.scalarProduct(b);
 	}
 
+	public static double[] squaredNorms(VectorInterface[] vectors) {
+		double[] sqNorms = new double[vectors.length];
+		for (int i = 0; i < vectors.length; ++i)
+			sqNorms[i] = vectors[i].scalarProduct(vectors[i]);
+		return sqNorms;
+	}
+
 	public static double euclidean(VectorInterface a, VectorInterface b) {
 		VectorInterface tmp = a.clone();
 		tmp.subVector(b);
@@ -0,0 +1,273 @@
+package com.demshape.dempred.metaclassifier;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.ClassifierTools;
+import com.demshape.dempred.classifier.CompilableInterface;
+import com.demshape.dempred.classifier.PredictorInterface;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.grouper.GrouperInterface;
+import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.kernels.KernelMatrix;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
+
+/**
+ * Approximates a kernel classifier with the Nystroem method. numLandmarks datapoints are sampled as landmarks and every datapoint x is mapped to
+ * the features phi(x) = Lambda^-1/2 * U^T * k(x), where k(x) are the kernel values between x and the landmarks and U * Lambda * U^T is the
+ * eigendecomposition of the landmark kernel matrix, so that phi(x) * phi(y) approximates kernel(x, y). A linear base classifier (e.g.
+ * WrapperPrimal or RidgeRegressionPrimal) is trained on the mapped features. Training needs O(n * m) kernel evaluations and memory instead of
+ * O(n^2) and predicting a datapoint O(m) kernel evaluations, with m the number of landmarks.
+ *
+ * @param <T> the generic type
+ */
+public class NystroemClassifier<T extends Datapoint> implements ClassifierInterface<T>, CompilableInterface, Cloneable, Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -5402785145279620946L;
+	private static final Logger logger = Logger.getLogger(NystroemClassifier.class.getName());
+
+	/** Eigenvalues smaller than this fraction of the largest one are dropped, the landmark kernel matrix is often nearly singular. */
+	private static final double EIGENVALUE_TOLERANCE = 1.0e-10;
+
+	/** The linear classifier trained on the mapped features. */
+	private ClassifierInterface<T> baseClassifier;
+
+	/** The kernel. */
+	private KernelInterface kernel;
+
+	/** The number of landmarks. */
+	private int numLandmarks;
+
+	/** The seed used to sample the landmarks. */
+	private long seed;
+
+	/** The number of threads used to compute the landmark kernel matrix. */
+	private transient int numThreads = 1;
+
+	/** The landmarks. */
+	private VectorInterface[] landmarks;
+
+	/** The squared norms of the landmarks. */
+	private double[] landmarkSqNorms;
+
+	/** The numLandmarks x numComponents matrix U * Lambda^-1/2 mapping kernel values to features. */
+	private double[][] map;
+
+	/**
+	 * Instantiates a new Nystroem classifier.
+	 *
+	 * @param baseClassifier the linear classifier trained on the mapped features
+	 * @param kernel the kernel
+	 * @param numLandmarks the number of landmarks
+	 */
+	public NystroemClassifier(ClassifierInterface<T> baseClassifier, KernelInterface kernel, int numLandmarks) {
+		this.baseClassifier = baseClassifier;
+		this.kernel = kernel;
+		this.numLandmarks = numLandmarks;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.ClassifierInterface#learn(dempred.datastructure.Dataset)
+	 */
+	public void learn(Dataset<T> dataset) throws Exception {
+		if (numLandmarks < 1)
+			throw new IllegalArgumentException("The number of landmarks must be at least one: " + numLandmarks);
+		int n = dataset.size();
+		int m = Math.min(numLandmarks, n);
+
+		// sample the landmarks without replacement by a partial Fisher Yates shuffle
+		int[] order = new int[n];
+		for (int i = 0; i < n; ++i)
+			order[i] = i;
+		Random random = new Random(seed);
+		landmarks = new VectorInterface[m];
+		for (int i = 0; i < m; ++i) {
+			int j = i + random.nextInt(n - i);
+			int temp = order[i];
+			order[i] = order[j];
+			order[j] = temp;
+			landmarks[i] = dataset.getDatapoint(order[i]).getFeatureVector().clone();
+		}
+		landmarkSqNorms = VectorMetric.squaredNorms(landmarks);
+
+		// eigendecomposition of the landmark kernel matrix, the eigenvalues are in ascending order
+		KernelMatrix landmarkKernel = new KernelMatrix(kernel, landmarks, false, numThreads);
+		EigenvalueDecomposition eigen = new EigenvalueDecomposition(new Matrix(landmarkKernel.toArray()));
+		double[] eigenvalues = eigen.getRealEigenvalues();
+		double[][] eigenvectors = eigen.getV().getArray();
+		double threshold = EIGENVALUE_TOLERANCE * Math.max(eigenvalues[m - 1], 0.0);
+		int first = 0;
+		while (first < m && eigenvalues[first] <= threshold)
+			++first;
+		if (first == m)
+			throw new IllegalArgumentException("The kernel matrix of the landmarks is zero");
+		int numComponents = m - first;
+		map = new double[m][numComponents];
+		for (int k = 0; k < numComponents; ++k) {
+			int column = m - 1 - k;
+			double scale = 1.0 / Math.sqrt(eigenvalues[column]);
+			for (int i = 0; i < m; ++i)
+				map[i][k] = eigenvectors[i][column] * scale;
+		}
+		logger.fine(String.format("Nystroem approximation with %d landmarks and %d components", m, numComponents));
+
+		baseClassifier.learn(mapDataset(dataset));
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Dataset)
+	 */
+	public void predict(Dataset<T> dataset) throws Exception {
+		Dataset<T> mappedDataset = mapDataset(dataset);
+		baseClassifier.predict(mappedDataset);
+		for (int i = 0; i < dataset.size(); ++i) {
+			T datapoint = dataset.getDatapoint(i);
+			T mappedDatapoint = mappedDataset.getDatapoint(i);
+			datapoint.setPredictedValue(mappedDatapoint.getPredictedValue());
+			datapoint.setPredictedGroup(mappedDatapoint.getPredictedGroup());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.ClassifierInterface#predict(dempred.datastructure.Datapoint)
+	 */
+	public double predict(T datapoint) throws Exception {
+		T mappedDatapoint = mapDatapoint(datapoint, new double[landmarks.length]);
+		double value = baseClassifier.predict(mappedDatapoint);
+		datapoint.setPredictedValue(mappedDatapoint.getPredictedValue());
+		datapoint.setPredictedGroup(mappedDatapoint.getPredictedGroup());
+		return value;
+	}
+
+	/**
+	 * Maps a feature vector to the approximate kernel feature space.
+	 *
+	 * @param features the feature vector
+	 * @param kernelValues buffer of numLandmarks elements
+	 * @return the mapped feature vector
+	 */
+	public VectorInterface map(VectorInterface features, double[] kernelValues) {
+		if (map == null)
+			throw new IllegalStateException("The classifier has not been trained yet");
+		kernel.evaluateAll(features, landmarks, landmarkSqNorms, kernelValues);
+		return new DenseVector(NystroemPredictor.map(map, kernelValues, new double[map[0].length]));
+	}
+
+	/**
+	 * Returns a thread safe predictor of the current model, the base classifier is compiled with
+	 * {@link ClassifierTools#compile(ClassifierInterface) compile}. Later training does not change it unless the base classifier is wrapped into a
+	 * {@link com.demshape.dempred.classifier.SynchronizedPredictor SynchronizedPredictor}.
+	 *
+	 * @return the predictor
+	 */
+	public PredictorInterface compile() {
+		if (map == null)
+			throw new IllegalStateException("The classifier has not been trained yet");
+		return new NystroemPredictor(kernel, landmarks, landmarkSqNorms, map, ClassifierTools.compile(baseClassifier));
+	}
+
+	@SuppressWarnings("unchecked")
+	private T mapDatapoint(T datapoint, double[] kernelValues) {
+		return (T) datapoint.cloneWithFeatureVector(map(datapoint.getFeatureVector(), kernelValues));
+	}
+
+	private Dataset<T> mapDataset(Dataset<T> dataset) {
+		Dataset<T> mappedDataset = new Dataset<T>();
+		double[] kernelValues = new double[landmarks.length];
+		for (T datapoint : dataset.getDatapoints())
+			mappedDataset.addDatapoint(mapDatapoint(datapoint, kernelValues));
+		List<String> featureNames = new ArrayList<String>(map[0].length);
+		for (int k = 0; k < map[0].length; ++k)
+			featureNames.add("Nystroem_" + k);
+		mappedDataset.setFeatureNames(featureNames);
+		return mappedDataset;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#clone()
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public ClassifierInterface<T> clone() {
+		try {
+			NystroemClassifier<T> cl = (NystroemClassifier<T>) super.clone();
+			// landmarks and map are replaced, never modified, by learn and can be shared
+			cl.baseClassifier = baseClassifier.clone();
+			return cl;
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Clone not supported!");
+			return null;
+		}
+	}
+
+	// ***************************************************************
+	// getters and setters
+
+	public final GrouperInterface getGrouper() {
+		return baseClassifier.getGrouper();
+	}
+
+	public final void setGrouper(GrouperInterface grouper) {
+		baseClassifier.setGrouper(grouper);
+	}
+
+	public final ClassifierInterface<T> getBaseClassifier() {
+		return baseClassifier;
+	}
+
+	public final void setBaseClassifier(ClassifierInterface<T> baseClassifier) {
+		this.baseClassifier = baseClassifier;
+	}
+
+	public final KernelInterface getKernel() {
+		return kernel;
+	}
+
+	public final void setKernel(KernelInterface kernel) {
+		this.kernel = kernel;
+	}
+
+	public final int getNumLandmarks() {
+		return numLandmarks;
+	}
+
+	public final void setNumLandmarks(int numLandmarks) {
+		this.numLandmarks = numLandmarks;
+	}
+
+	public final long getSeed() {
+		return seed;
+	}
+
+	public final void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public final VectorInterface[] getLandmarks() {
+		return landmarks;
+	}
+
+	public final int getNumComponents() {
+		return map == null ? 0 : map[0].length;
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.demshape.dempred.metaclassifier;
+
+import com.demshape.dempred.classifier.AbstractPredictor;
+import com.demshape.dempred.classifier.PredictorInterface;
+import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * The predictor of a {@link NystroemClassifier}, the features are mapped with the Nystroem feature map and predicted by the predictor of the linear
+ * base classifier. The landmarks and the map are shared with the classifier, which replaces but never modifies them. Every thread keeps its own
+ * buffers for the kernel values and the mapped features, so predictions allocate nothing after the first call of a thread unless the base
+ * predictor does.
+ */
+public final class NystroemPredictor extends AbstractPredictor {
+
+	/** The kernel. */
+	private final KernelInterface kernel;
+
+	/** The landmarks. */
+	private final VectorInterface[] landmarks;
+
+	/** The squared norms of the landmarks. */
+	private final double[] landmarkSqNorms;
+
+	/** The numLandmarks x numComponents matrix mapping kernel values to features. */
+	private final double[][] map;
+
+	/** The predictor of the base classifier. */
+	private final PredictorInterface basePredictor;
+
+	/** Per thread buffers. */
+	private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer(landmarks.length, map[0].length);
+		}
+	};
+
+	private static final class Buffer {
+		final double[] kernelValues;
+		final double[] mapped;
+		// wraps the feature arrays passed to predict(double[])
+		final DenseVector features = new DenseVector(new double[0]);
+
+		Buffer(int numLandmarks, int numComponents) {
+			kernelValues = new double[numLandmarks];
+			mapped = new double[numComponents];
+		}
+	}
+
+	/**
+	 * Instantiates a new Nystroem predictor.
+	 *
+	 * @param kernel the kernel
+	 * @param landmarks the landmarks
+	 * @param landmarkSqNorms the squared norms of the landmarks
+	 * @param map the numLandmarks x numComponents matrix mapping kernel values to features
+	 * @param basePredictor the predictor of the linear classifier trained on the mapped features
+	 */
+	public NystroemPredictor(KernelInterface kernel, VectorInterface[] landmarks, double[] landmarkSqNorms, double[][] map, PredictorInterface basePredictor) {
+		if (landmarks.length == 0 || map.length != landmarks.length)
+			throw new IllegalArgumentException("There must be one row of the map for every landmark");
+		this.kernel = kernel;
+		this.landmarks = landmarks;
+		this.landmarkSqNorms = landmarkSqNorms;
+		this.map = map;
+		this.basePredictor = basePredictor;
+	}
+
+	/**
+	 * Computes the mapped features sum_i kernelValues[i] * map[i].
+	 *
+	 * @param map the numLandmarks x numComponents matrix
+	 * @param kernelValues the kernel values between the features and the landmarks
+	 * @param mapped array of numComponents elements receiving the mapped features
+	 * @return the mapped features
+	 */
+	static double[] map(double[][] map, double[] kernelValues, double[] mapped) {
+		for (int k = 0; k < mapped.length; ++k)
+			mapped[k] = 0.0;
+		for (int i = 0; i < map.length; ++i) {
+			double kernelValue = kernelValues[i];
+			if (kernelValue == 0.0)
+				continue;
+			double[] row = map[i];
+			for (int k = 0; k < mapped.length; ++k)
+				mapped[k] += kernelValue * row[k];
+		}
+		return mapped;
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#numFeatures()
+	 */
+	public int numFeatures() {
+		return landmarks[0].size();
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(double[])
+	 */
+	public double predict(double[] features) {
+		checkSize(features.length);
+		Buffer buffer = buffers.get();
+		buffer.features.setElements(features);
+		try {
+			return predict(buffer.features, buffer);
+		} finally {
+			buffer.features.setElements(null);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.classifier.PredictorInterface#predict(dempred.math.VectorInterface)
+	 */
+	public double predict(VectorInterface features) {
+		checkSize(features.size());
+		return predict(features, buffers.get());
+	}
+
+	private double predict(VectorInterface features, Buffer buffer) {
+		kernel.evaluateAll(features, landmarks, landmarkSqNorms, buffer.kernelValues);
+		return basePredictor.predict(map(map, buffer.kernelValues, buffer.mapped));
+	}
+}
@@ -0,0 +1,154 @@
+package com.demshape.dempred.resampling;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.ClassifierTools;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+import com.demshape.dempred.util.RandomNumber;
+import com.demshape.dempred.util.ThreadTools;
+
+/**
+ * Base class of the error estimators which train and test a classifier on many subsets of a dataset. Every fold or round is trained on its own clone of
+ * the classifier, the classifier passed to error is not trained. The datapoints are shared between the folds, so only learners which do not write into
+ * them, the linear and kernel classifiers, run concurrently on numThreads threads. Other learners may change the datapoints they are trained on (e.g.
+ * Booster sets their weights, ConsensusClassifier normalizes their features) and their folds run one after the other. Each round draws its random
+ * numbers from a generator seeded with {@link RandomNumber#splitSeed(long, long) splitSeed} and the partial errors are summed up in a fixed order,
+ * so with the same seed the estimated error does not depend on the number of threads.
+ */
+public abstract class AbstractResamplingError<T extends Datapoint> implements ResamplingErrorInterface<T>, Serializable {
+
+	private static final long serialVersionUID = -3851027456230457011L;
+	protected int numRounds;
+	protected LossFunctionInterface<T> lossFunction;
+	protected boolean weighting;
+	protected boolean groupAveraging;
+	protected int numThreads = 1;
+	protected long seed = new Random().nextLong();
+
+	// the random number generator of a round
+	protected final Random roundRandom(int round) {
+		return new Random(RandomNumber.splitSeed(seed, round));
+	}
+
+	/**
+	 * Checks if the folds of a classifier are trained concurrently. Only {@link ClassifierTools#isReadOnly(ClassifierInterface) read only} classifiers
+	 * are, all other classifiers are trained on one thread.
+	 *
+	 * @param classifier the classifier
+	 * @return true, if numThreads is larger than 1 and the classifier does not write into the datapoints
+	 */
+	protected final boolean isConcurrent(ClassifierInterface<T> classifier) {
+		return numThreads > 1 && ClassifierTools.isReadOnly(classifier);
+	}
+
+	// returns a copy of the classifier for one fold or round, the classifier itself if it can not be cloned, which only happens on one thread
+	protected final ClassifierInterface<T> copy(ClassifierInterface<T> classifier) {
+		ClassifierInterface<T> copy = classifier.clone();
+		if (copy != null)
+			return copy;
+		if (isConcurrent(classifier))
+			throw new UnsupportedOperationException("Classifiers of type " + classifier.getClass().getName() + " can not be cloned and trained concurrently");
+		return classifier;
+	}
+
+	// runs the folds of the classifier, concurrently if isConcurrent, and returns their results in the order of the tasks
+	protected final <R> List<R> run(List<Callable<R>> tasks, ClassifierInterface<T> classifier) throws Exception {
+		return ThreadTools.invokeAll(tasks, isConcurrent(classifier) ? numThreads : 1);
+	}
+
+	// runs tasks which do not write into the datapoints on numThreads threads and returns their results in the order of the tasks
+	protected final <R> List<R> run(List<Callable<R>> tasks) throws Exception {
+		return ThreadTools.invokeAll(tasks, numThreads);
+	}
+
+	// predicts a dataset, linear and kernel classifiers are compiled so that the datapoints, which are shared between concurrent folds, are not written
+	protected final double[] predict(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		double[] predictions = new double[dataset.size()];
+		if (ClassifierTools.isReadOnly(classifier)) {
+			ClassifierTools.compile(classifier).predict(dataset, predictions);
+		} else {
+			classifier.predict(dataset);
+			for (int i = 0; i < predictions.length; ++i)
+				predictions[i] = dataset.getDatapoint(i).getPredictedValue();
+		}
+		return predictions;
+	}
+
+	// adds the losses of the predictions to the four sums at offset, see ResamplingTools
+	protected final void addLosses(Dataset<T> dataset, double[] predictions, double[] sums, int offset) {
+		ResamplingTools.addLosses(dataset, predictions, lossFunction, weighting, groupAveraging, sums, offset);
+	}
+
+	// adds the partial sums of all folds in the order of the folds
+	protected static double[] total(List<double[]> partialSums) {
+		return ResamplingTools.total(partialSums);
+	}
+
+	// the error of sums added by addLosses
+	protected final double error(double[] sums, int offset) {
+		return ResamplingTools.error(groupAveraging, sums, offset);
+	}
+
+	/**
+	 * The number of times the classifier is trained by one call of error, one per round.
+	 *
+	 * @return the number of fits
+	 */
+	public int numFits() {
+		return numRounds;
+	}
+
+	public final int getNumRounds() {
+		return numRounds;
+	}
+
+	public final void setNumRounds(int numRounds) {
+		this.numRounds = numRounds;
+	}
+
+	public final LossFunctionInterface<T> getLossFunction() {
+		return lossFunction;
+	}
+
+	public final void setLossFunction(LossFunctionInterface<T> lossFunction) {
+		this.lossFunction = lossFunction;
+	}
+
+	public final boolean isWeighting() {
+		return weighting;
+	}
+
+	public final void setWeighting(boolean weighting) {
+		this.weighting = weighting;
+	}
+
+	public final boolean isGroupAveraging() {
+		return groupAveraging;
+	}
+
+	public final void setGroupAveraging(boolean groupAveraging) {
+		this.groupAveraging = groupAveraging;
+	}
+
+	public final int getNumThreads() {
+		return numThreads;
+	}
+
+	public final void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public final long getSeed() {
+		return seed;
+	}
+
+	public final void setSeed(long seed) {
+		this.seed = seed;
+	}
+}
@@ -1,5 +1,7 @@
 package com.demshape.dempred.resampling;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import com.demshape.dempred.datastructure.Datapoint;
@@ -10,6 +12,7 @@ import com.demshape.dempred.datastructure.Dataset;
 public class Bootstrap <T extends Datapoint> {
 	private Dataset<T> dataset;
 	private boolean[] selectedDatapoint;
+	private int numSelected;
 	private Dataset<T> sample;
 	private Random random;
 
@@ -18,6 +21,11 @@ public class Bootstrap <T extends Datapoint> {
 		this.dataset = dataset;
 	}
 
+	public Bootstrap(Dataset<T> dataset, Random random) {
+		this.random = random;
+		this.dataset = dataset;
+	}
+
 	public Bootstrap(Dataset<T> dataset, int n) {
 		random = new Random();
 		this.dataset = dataset;
@@ -28,17 +36,29 @@ public class Bootstrap <T extends Datapoint> {
 		generateSample(dataset.size());
 	}
 	
+	// sample and unsampled datasets are views of the original dataset, see Dataset.view
 	public void generateSample(int n) {
-		sample = new Dataset<T>();
-		sample.setName(this.dataset.getName() + " (Bootstrap sample!)");
-		sample.setComment("Bootstrap sample!");
 		selectedDatapoint = new boolean[dataset.size()];
+		numSelected = 0;
 		int numDatapoints = dataset.size();
+		int[] sampleIndex = new int[n];
+		Map<Integer, Integer> groupCounts = new HashMap<Integer, Integer>();
 		for (int i = 0; i < n; ++i) {
 			int randomIndex = random.nextInt(numDatapoints);
-			sample.addDatapoint(dataset.getDatapoint(randomIndex));
-			selectedDatapoint[randomIndex] = true;
+			sampleIndex[i] = randomIndex;
+			if (!selectedDatapoint[randomIndex]) {
+				selectedDatapoint[randomIndex] = true;
+				++numSelected;
+			}
+			T datapoint = dataset.getDatapoint(randomIndex);
+			if (datapoint.hasGroup()) {
+				Integer numGroup = groupCounts.get(datapoint.getGroup());
+				groupCounts.put(datapoint.getGroup(), numGroup == null ? 1 : numGroup + 1);
+			}
 		}
+		sample = dataset.view(sampleIndex, groupCounts);
+		sample.setName(this.dataset.getName() + " (Bootstrap sample!)");
+		sample.setComment("Bootstrap sample!");
 	}
 
 	public Dataset<T> getSample() {
@@ -46,13 +66,15 @@ public class Bootstrap <T extends Datapoint> {
 	}
 
 	public Dataset<T> getUnsampled() {
-		Dataset<T> unSampled = new Dataset<T>();
-		unSampled.setName(this.dataset.getName() + " (Bootstrap unsampled!)");
-		unSampled.setComment("Bootstrap unsampled!");
+		int[] unsampledIndex = new int[selectedDatapoint.length - numSelected];
+		int position = 0;
 		for (int i = 0; i < selectedDatapoint.length; ++i) {
 			if (!selectedDatapoint[i])
-				unSampled.addDatapoint(dataset.getDatapoint(i));
+				unsampledIndex[position++] = i;
 		}
+		Dataset<T> unSampled = dataset.view(unsampledIndex);
+		unSampled.setName(this.dataset.getName() + " (Bootstrap unsampled!)");
+		unSampled.setComment("Bootstrap unsampled!");
 		return unSampled;
 	}
 
@@ -1,16 +1,17 @@
 package com.demshape.dempred.resampling;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import com.demshape.dempred.classifier.ClassifierInterface;
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
 import com.demshape.dempred.lossfunction.LossFunctionInterface;
 
 
-public class Bootstrap632Error<T extends Datapoint> implements ResamplingErrorInterface<T> {
-	private int numRounds;
-	private LossFunctionInterface<T> lossFunction;
-	private boolean weighting;
-	private boolean groupAveraging;
+public class Bootstrap632Error<T extends Datapoint> extends AbstractResamplingError<T> implements ResamplingErrorInterface<T> {
+	private static final long serialVersionUID = 5139284127380560249L;
 
 	public Bootstrap632Error() {
 
@@ -24,67 +25,29 @@ public class Bootstrap632Error<T extends Datapoint> implements ResamplingErrorIn
 	}
 
 	@Override
-	public double error(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
-		double sum_pos_pred = 0.0;
-		double sum_neg_pred = 0.0;
-		int num_neg_pred = 0;
-		int num_pos_pred = 0;
-		double sum_pos_recall = 0.0;
-		double sum_neg_recall = 0.0;
-		int num_neg_recall = 0;
-		int num_pos_recall = 0;
-		Bootstrap<T> bootstrap = new Bootstrap<T>(dataset);
+	public double error(final ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		List<Callable<double[]>> rounds = new ArrayList<Callable<double[]>>(numRounds);
 		for (int round = 0; round < numRounds; ++round) {
+			final Bootstrap<T> bootstrap = new Bootstrap<T>(dataset, roundRandom(round));
 			bootstrap.generateSample();
-			Dataset<T> bootMain = bootstrap.getSample();
-			Dataset<T> bootFold = bootstrap.getUnsampled();
-			classifier.learn(bootMain);
-			classifier.predict(bootMain);
-			classifier.predict(bootFold);
-			double weight = 1.0;
-			// for recall
-			for (T datapoint : bootMain.getDatapoints()) {
-				if (weighting)
-					weight = datapoint.getWeight();
-				if (groupAveraging && datapoint.getGroup() == 1) {
-					++num_pos_recall;
-					sum_pos_recall += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				} else {
-					++num_neg_recall;
-					sum_neg_recall += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				}
-			}
-			// for prediction
-			for (T datapoint : bootFold.getDatapoints()) {
-				if (weighting)
-					weight = datapoint.getWeight();
-				if (groupAveraging && datapoint.getGroup() == 1) {
-					++num_pos_pred;
-					sum_pos_pred += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				} else {
-					++num_neg_pred;
-					sum_neg_pred += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
+			rounds.add(new Callable<double[]>() {
+				public double[] call() throws Exception {
+					Dataset<T> bootMain = bootstrap.getSample();
+					Dataset<T> bootFold = bootstrap.getUnsampled();
+					ClassifierInterface<T> roundClassifier = copy(classifier);
+					roundClassifier.learn(bootMain);
+					// sums[0..3] for prediction, sums[4..7] for recall
+					double[] sums = new double[8];
+					addLosses(bootFold, predict(roundClassifier, bootFold), sums, 0);
+					addLosses(bootMain, predict(roundClassifier, bootMain), sums, 4);
+					return sums;
 				}
-			}
-		}
-		double recallError = 0.0;
-		double predictionError = 0.0;
-		if (groupAveraging) {
-			recallError = ((sum_pos_recall / num_pos_recall) + (sum_neg_recall / num_neg_recall)) / 2.0;
-			predictionError = ((sum_pos_pred / num_pos_pred) + (sum_neg_pred / num_neg_pred)) / 2.0;
-		} else {
-			recallError = sum_neg_recall / num_neg_recall;
-			predictionError = sum_neg_pred / num_neg_pred;
+			});
 		}
+		double[] sums = total(run(rounds, classifier));
+		double recallError = error(sums, 4);
+		double predictionError = error(sums, 0);
 		return (0.368 * recallError + 0.632 * predictionError);
 	}
 
-	public final int getNumRounds() {
-		return numRounds;
-	}
-
-	public final void setNumRounds(int numRounds) {
-		this.numRounds = numRounds;
-	}
-
 }
@@ -1,20 +1,21 @@
 package com.demshape.dempred.resampling;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import com.demshape.dempred.classifier.ClassifierInterface;
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.grouper.GrouperInterface;
 import com.demshape.dempred.lossfunction.LossFunctionInterface;
 
 
 
-public class Bootstrap632PlusError<T extends Datapoint> implements ResamplingErrorInterface<T> {
+public class Bootstrap632PlusError<T extends Datapoint> extends AbstractResamplingError<T> implements ResamplingErrorInterface<T> {
 	private static final Logger logger = Logger.getLogger(Bootstrap632PlusError.class.getName());
-	private int numRounds;
-	private LossFunctionInterface<T> lossFunction;
-	private boolean weighting;
-	private boolean groupAveraging;
+	private static final long serialVersionUID = -6702216063394370538L;
 
 	public Bootstrap632PlusError() {
 
@@ -29,71 +30,42 @@ public class Bootstrap632PlusError<T extends Datapoint> implements ResamplingErr
 
 	// dies gibt, dasselbe resultat wie wenn man es wie im paper beschrieben macht.
 	@Override
-	public double error(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
-		double sum_pos_pred = 0.0;
-		double sum_neg_pred = 0.0;
-		int num_neg_pred = 0;
-		int num_pos_pred = 0;
-		double sum_pos_recall = 0.0;
-		double sum_neg_recall = 0.0;
-		int num_neg_recall = 0;
-		int num_pos_recall = 0;
-		double prior = 0.0;
-		double posterior = 0.0;
-		Bootstrap<T> bootstrap = new Bootstrap<T>(dataset);
+	public double error(final ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		if (classifier.getGrouper() == null)
+			throw new IllegalArgumentException("The .632+ bootstrap error needs a classifier with a grouper");
+		List<Callable<double[]>> rounds = new ArrayList<Callable<double[]>>(numRounds);
 		for (int round = 0; round < numRounds; ++round) {
+			final Bootstrap<T> bootstrap = new Bootstrap<T>(dataset, roundRandom(round));
 			bootstrap.generateSample();
-			Dataset<T> bootMain = bootstrap.getSample();
-			Dataset<T> bootFold = bootstrap.getUnsampled();
-			classifier.learn(bootMain);
-			classifier.predict(bootMain);
-			classifier.predict(bootFold);
-			double weight = 1.0;
-			// for recall
-			for (T datapoint : bootMain.getDatapoints()) {
-				if (weighting)
-					weight = datapoint.getWeight();
-				if (groupAveraging && datapoint.getGroup() == 1) {
-					++num_pos_recall;
-					sum_pos_recall += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				} else {
-					++num_neg_recall;
-					sum_neg_recall += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
+			rounds.add(new Callable<double[]>() {
+				public double[] call() throws Exception {
+					Dataset<T> bootMain = bootstrap.getSample();
+					Dataset<T> bootFold = bootstrap.getUnsampled();
+					ClassifierInterface<T> roundClassifier = copy(classifier);
+					roundClassifier.learn(bootMain);
+					// sums[0..3] for prediction, sums[4..7] for recall, sums[8] and sums[9] for prior and posterior
+					double[] sums = new double[10];
+					double[] mainPredictions = predict(roundClassifier, bootMain);
+					addLosses(bootFold, predict(roundClassifier, bootFold), sums, 0);
+					addLosses(bootMain, mainPredictions, sums, 4);
+					sums[8] = bootMain.groupQuantity(1);
+					GrouperInterface grouper = roundClassifier.getGrouper();
+					for (double prediction : mainPredictions) {
+						if (grouper.getGroup(prediction) == 1)
+							++sums[9];
+					}
+					return sums;
 				}
-			}
-
-			// for prediction
-			for (T datapoint : bootFold.getDatapoints()) {
-				if (weighting)
-					weight = datapoint.getWeight();
-				if (groupAveraging && datapoint.getGroup() == 1) {
-					++num_pos_pred;
-					sum_pos_pred += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				} else {
-					++num_neg_pred;
-					sum_neg_pred += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				}
-			}
-			// prio and posterior
-			prior += bootMain.groupQuantity(1);
-			for (Datapoint datapoint : bootMain.getDatapoints()) {
-				if (datapoint.getPredictedGroup() == 1)
-					++posterior;
-			}
-		}
-		double recallError = 0.0;
-		double predictionError = 0.0;
-		if (groupAveraging) {
-			recallError = ((sum_pos_recall / num_pos_recall) + (sum_neg_recall / num_neg_recall)) / 2.0;
-			predictionError = ((sum_pos_pred / num_pos_pred) + (sum_neg_pred / num_neg_pred)) / 2.0;
-		} else {
-			recallError = sum_neg_recall / num_neg_recall;
-			predictionError = sum_neg_pred / num_neg_pred;
+			});
 		}
+		double[] sums = total(run(rounds, classifier));
+		double recallError = error(sums, 4);
+		double predictionError = error(sums, 0);
 		logger.fine(String.format("recallError:%.4f predictionError:%.4f", recallError, predictionError));
 
-		prior /= num_pos_recall + num_neg_recall;
-		posterior /= num_pos_recall + num_neg_recall;
+		double numRecall = sums[6] + sums[7];
+		double prior = sums[8] / numRecall;
+		double posterior = sums[9] / numRecall;
 		double gamma = prior * (1 - posterior) + (1 - prior) * posterior;
 		double r = (predictionError - recallError) / (gamma - recallError);
 		double weight = 0.632 / (1.0 - 0.368 * r);
@@ -105,12 +77,4 @@ public class Bootstrap632PlusError<T extends Datapoint> implements ResamplingErr
 		logger.fine(String.format("prior: %f posterior: %f gamma: %.4f OverfittingRate: %.4f weight: %.4f %n", prior, posterior, gamma, r, weight));
 		return result;
 	}
-
-	public final int getNumRounds() {
-		return numRounds;
-	}
-
-	public final void setNumRounds(int numRounds) {
-		this.numRounds = numRounds;
-	}
 }
@@ -1,16 +1,17 @@
 package com.demshape.dempred.resampling;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 import com.demshape.dempred.classifier.ClassifierInterface;
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
 import com.demshape.dempred.lossfunction.LossFunctionInterface;
 
 
-public class BootstrapError<T extends Datapoint> implements ResamplingErrorInterface<T> {
-	private int numRounds;
-	private LossFunctionInterface<T> lossFunction;
-	private boolean weighting;
-	private boolean groupAveraging;
+public class BootstrapError<T extends Datapoint> extends AbstractResamplingError<T> implements ResamplingErrorInterface<T> {
+	private static final long serialVersionUID = -2447329651712190683L;
 
 	public BootstrapError() {
 
@@ -24,45 +25,24 @@ public class BootstrapError<T extends Datapoint> implements ResamplingErrorInter
 	}
 
 	@Override
-	public double error(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
-		double sum_pos = 0.0;
-		double sum_neg = 0.0;
-		int num_neg = 0;
-		int num_pos = 0;
-		Bootstrap<T> bootstrap = new Bootstrap<T>(dataset);
+	public double error(final ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		List<Callable<double[]>> rounds = new ArrayList<Callable<double[]>>(numRounds);
 		for (int round = 0; round < numRounds; ++round) {
+			final Bootstrap<T> bootstrap = new Bootstrap<T>(dataset, roundRandom(round));
 			bootstrap.generateSample();
-			Dataset<T> bootMain = bootstrap.getSample();
-			Dataset<T> bootFold = bootstrap.getUnsampled();
-			classifier.learn(bootMain);
-			classifier.predict(bootFold);
-			double weight = 1.0;
-			for (T datapoint : bootFold.getDatapoints()) {
-				if (weighting)
-					weight = datapoint.getWeight();
-				if (groupAveraging && datapoint.getGroup() == 1) {
-					++num_pos;
-					sum_pos += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-				} else {
-					++num_neg;
-					sum_neg += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
+			rounds.add(new Callable<double[]>() {
+				public double[] call() throws Exception {
+					Dataset<T> bootMain = bootstrap.getSample();
+					Dataset<T> bootFold = bootstrap.getUnsampled();
+					ClassifierInterface<T> roundClassifier = copy(classifier);
+					roundClassifier.learn(bootMain);
+					double[] sums = new double[4];
+					addLosses(bootFold, predict(roundClassifier, bootFold), sums, 0);
+					return sums;
 				}
-			}
+			});
 		}
-		double predictionError = 0.0;
-		if (groupAveraging)
-			predictionError = ((sum_pos / num_pos) + (sum_neg / num_neg)) / 2.0;
-		else
-			predictionError = sum_neg / num_neg;
-		return predictionError;
-	}
-
-	public final int getNumRounds() {
-		return numRounds;
-	}
-
-	public final void setNumRounds(int numRounds) {
-		this.numRounds = numRounds;
+		return error(total(run(rounds, classifier)), 0);
 	}
 
 }
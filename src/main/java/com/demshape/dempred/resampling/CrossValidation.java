@@ -2,7 +2,11 @@ package com.demshape.dempred.resampling;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
@@ -13,6 +17,7 @@ public class CrossValidation<T extends Datapoint> {
 	private Dataset<T> dataset;
 	private int[][] foldIndex;
 	private ArrayList<Integer> datasetIndex;
+	private List<Map<Integer, Integer>> foldGroupCounts;
 
 	public CrossValidation(Dataset<T> dataset) {
 		this.dataset = dataset;
@@ -30,13 +35,18 @@ public class CrossValidation<T extends Datapoint> {
 	}
 
 	public void generateFolds(int numFolds) throws IllegalArgumentException {
+		generateFolds(numFolds, new Random());
+	}
+
+	// the datapoints are assigned to the folds in an order drawn from the given generator
+	public void generateFolds(int numFolds, Random random) throws IllegalArgumentException {
 		if (numFolds > dataset.size() || numFolds < 2)
 			throw new IllegalArgumentException("The number of crossfolds can not be larger than the number of elements in the Dataset or smaller than 2: You set:" + numFolds);
 		this.foldIndex = new int[numFolds][];
 		datasetIndex = new ArrayList<Integer>(dataset.size());
 		for (int i = 0; i < dataset.size(); ++i)
 			datasetIndex.add(i);
-		Collections.shuffle(datasetIndex);
+		Collections.shuffle(datasetIndex, random);
 		int modulo = dataset.size() % numFolds;
 		int numDataInFoldCeil = (int) Math.ceil(((double) this.dataset.size()) / numFolds);
 		int numDataInFoldFloor = (int) Math.floor(((double) this.dataset.size()) / numFolds);
@@ -51,31 +61,59 @@ public class CrossValidation<T extends Datapoint> {
 			for (int j = 0; j < numDataInFold; ++j)
 				foldIndex[fold][j] = rIterator.next();
 		}
+		countGroups();
+	}
+
+	private void countGroups() {
+		foldGroupCounts = new ArrayList<Map<Integer, Integer>>(foldIndex.length);
+		for (int fold = 0; fold < foldIndex.length; ++fold) {
+			foldGroupCounts.add(new HashMap<Integer, Integer>());
+			for (int index : foldIndex[fold]) {
+				T datapoint = dataset.getDatapoint(index);
+				if (datapoint.hasGroup()) {
+					Integer numGroup = foldGroupCounts.get(fold).get(datapoint.getGroup());
+					foldGroupCounts.get(fold).put(datapoint.getGroup(), numGroup == null ? 1 : numGroup + 1);
+				}
+			}
+		}
 	}
 
 	// erstes fold ist 0 !!!
+	// the returned datasets are views of the original dataset, see Dataset.view
 	public Dataset<T> getFold(int foldNumber) throws IllegalArgumentException {
-		Dataset<T> reduceddataset = new Dataset<T>();
+		Dataset<T> reduceddataset = this.dataset.view(foldIndex[foldNumber], new HashMap<Integer, Integer>(foldGroupCounts.get(foldNumber)));
 		reduceddataset.setName(this.dataset.getName() + " (Crossvalidation Subset " + foldNumber + "!)");
 		reduceddataset.setComment("K fold CrossValidation. Fold: " + foldNumber);
-		for (int index : foldIndex[foldNumber]) {
-			reduceddataset.addDatapoint(this.dataset.getDatapoint(index));
-		}
-		reduceddataset.setFeatureNames(dataset.getFeatureNames());
 		return reduceddataset;
 	}
 
+	// the indices of the datapoints of all folds except foldNumber, in the order of getFoldsExcept
+	public int[] getIndicesExcept(int foldNumber) throws IllegalArgumentException {
+		int[] indices = new int[this.dataset.size() - foldIndex[foldNumber].length];
+		int position = 0;
+		for (int actualFold = 0; actualFold < this.foldIndex.length; ++actualFold) {
+			if (actualFold == foldNumber)
+				continue;
+			System.arraycopy(foldIndex[actualFold], 0, indices, position, foldIndex[actualFold].length);
+			position += foldIndex[actualFold].length;
+		}
+		return indices;
+	}
+
 	public Dataset<T> getFoldsExcept(int foldNumber) throws IllegalArgumentException {
-		Dataset<T> reduceddataset = new Dataset<T>();
-		reduceddataset.setName(this.dataset.getName() + " (Crossvalidation Subset without fold " + foldNumber + "!)");
-		reduceddataset.setComment("K fold CrossValidation. Without fold: " + foldNumber);
+		int[] indices = getIndicesExcept(foldNumber);
+		Map<Integer, Integer> groupCounts = new HashMap<Integer, Integer>();
 		for (int actualFold = 0; actualFold < this.foldIndex.length; ++actualFold) {
 			if (actualFold == foldNumber)
 				continue;
-			for (int index : foldIndex[actualFold])
-				reduceddataset.addDatapoint(this.dataset.getDatapoint(index));
+			for (Map.Entry<Integer, Integer> entry : foldGroupCounts.get(actualFold).entrySet()) {
+				Integer numGroup = groupCounts.get(entry.getKey());
+				groupCounts.put(entry.getKey(), numGroup == null ? entry.getValue() : numGroup + entry.getValue());
+			}
 		}
-		reduceddataset.setFeatureNames(dataset.getFeatureNames());
+		Dataset<T> reduceddataset = this.dataset.view(indices, groupCounts);
+		reduceddataset.setName(this.dataset.getName() + " (Crossvalidation Subset without fold " + foldNumber + "!)");
+		reduceddataset.setComment("K fold CrossValidation. Without fold: " + foldNumber);
 		return reduceddataset;
 	}
 
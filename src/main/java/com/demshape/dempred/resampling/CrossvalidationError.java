@@ -1,6 +1,9 @@
 package com.demshape.dempred.resampling;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import com.demshape.dempred.classifier.ClassifierInterface;
 import com.demshape.dempred.datastructure.Datapoint;
@@ -9,14 +12,14 @@ import com.demshape.dempred.lossfunction.LossFunctionInterface;
 
 
 
-public class CrossvalidationError<T extends Datapoint> implements ResamplingErrorInterface<T>, Serializable {
+/**
+ * The k fold cross validation error. Ridge regressions and dual wrappers reuse what they compute on the whole dataset in every fold, see
+ * {@link FoldContext}.
+ */
+public class CrossvalidationError<T extends Datapoint> extends AbstractResamplingError<T> implements ResamplingErrorInterface<T>, Serializable {
 	
 	private static final long serialVersionUID = 7387976240805852103L;
-	private int numRounds;
 	private int numFolds;
-	private LossFunctionInterface<T> lossFunction;
-	private boolean weighting;
-	private boolean groupAveraging;
 	
 	public void CrossValidation(){
 		
@@ -31,57 +34,44 @@ public class CrossvalidationError<T extends Datapoint> implements ResamplingErro
 	}
 
 	@Override
-	public double error(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
-		double sum_pos = 0.0;
-		double sum_neg = 0.0;
-		int num_neg = 0;
-		int num_pos = 0;
-		CrossValidation<T> crossValidation = new CrossValidation<T>(dataset);
+	public double error(final ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		final FoldContext<T> context = new FoldContext<T>(classifier, dataset);
+		List<Callable<double[]>> folds = new ArrayList<Callable<double[]>>(numRounds * numFolds);
 		for (int round = 0; round < numRounds; ++round) {
-			crossValidation.generateFolds(numFolds);
+			final CrossValidation<T> crossValidation = new CrossValidation<T>(dataset);
+			crossValidation.generateFolds(numFolds, roundRandom(round));
 			for (int fold = 0; fold < numFolds; ++fold) {
-				
-				Dataset<T> crossMain = crossValidation.getFoldsExcept(fold);
-				Dataset<T> crossFold = crossValidation.getFold(fold);
-				
-				/*
-				Dataset<T> crossMain = crossValidation.getFoldsExcept(fold).clone();
-				Dataset<T> crossFold = crossValidation.getFold(fold).clone();
-				DatasetNormalizer normalizer = new DatasetNormalizer(crossMain);
-				normalizer.normalize(crossMain);
-				normalizer.normalize(crossFold);
-				*/
-				
-				classifier.learn(crossMain);
-				classifier.predict(crossFold);
-				double weight = 1.0;
-				for (T datapoint : crossFold.getDatapoints()) {
-					if (weighting)
-						weight = datapoint.getWeight();
-					if (groupAveraging && datapoint.getGroup() == 1) {
-						++num_pos;
-						sum_pos += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
-					} else {
-						++num_neg;
-						sum_neg += weight * lossFunction.g(datapoint.getPredictedValue(), datapoint.getValue(), datapoint);
+				final int currentFold = fold;
+				folds.add(new Callable<double[]>() {
+					public double[] call() throws Exception {
+						Dataset<T> crossFold = crossValidation.getFold(currentFold);
+
+						/*
+						Dataset<T> crossMain = crossValidation.getFoldsExcept(fold).clone();
+						Dataset<T> crossFold = crossValidation.getFold(fold).clone();
+						DatasetNormalizer normalizer = new DatasetNormalizer(crossMain);
+						normalizer.normalize(crossMain);
+						normalizer.normalize(crossFold);
+						*/
+
+						ClassifierInterface<T> foldClassifier = copy(classifier);
+						context.learn(foldClassifier, crossValidation, currentFold);
+						double[] sums = new double[4];
+						addLosses(crossFold, predict(foldClassifier, crossFold), sums, 0);
+						return sums;
 					}
-				}
+				});
 			}
 		}
-		double predictionError = 0.0;
-		if (groupAveraging)
-			predictionError = ((sum_pos / num_pos) + (sum_neg / num_neg)) / 2.0;
-		else
-			predictionError = sum_neg / num_neg;
-		return predictionError;
+		return error(total(run(folds, classifier)), 0);
 	}
 
-	public final int getNumRounds() {
-		return numRounds;
-	}
-
-	public final void setNumRounds(int numRounds) {
-		this.numRounds = numRounds;
+	/* (non-Javadoc)
+	 * @see dempred.resampling.AbstractResamplingError#numFits()
+	 */
+	@Override
+	public int numFits() {
+		return numRounds * numFolds;
 	}
 
 	public final int getNumFolds() {
@@ -92,20 +82,4 @@ public class CrossvalidationError<T extends Datapoint> implements ResamplingErro
 		this.numFolds = numFolds;
 	}
 
-	public final LossFunctionInterface<T> getLossFunction() {
-		return lossFunction;
-	}
-
-	public final void setLossFunction(LossFunctionInterface<T> lossFunction) {
-		this.lossFunction = lossFunction;
-	}
-
-	public final boolean isWeighting() {
-		return weighting;
-	}
-
-	public final void setWeighting(boolean weighting) {
-		this.weighting = weighting;
-	}
-
 }
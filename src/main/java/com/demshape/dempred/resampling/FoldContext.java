@@ -0,0 +1,48 @@
+package com.demshape.dempred.resampling;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.classifier.WrapperDual;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.kernels.KernelMatrix;
+import com.demshape.dempred.math.DenseVector;
+
+
+
+/**
+ * Trains the classifiers of the folds of a cross validation from data computed once for the whole dataset. For a RidgeRegressionPrimal the normal
+ * equations of the whole dataset are summed up once and a fold subtracts those of its held out datapoints (see {@link RidgeEquations}). For a
+ * WrapperDual the kernel matrix of the whole dataset is computed once and every fold trains on a copy of its rows and columns, unless the matrix
+ * exceeds the kernel cache size of the classifier. Other classifiers, including subclasses of both, are trained as usual. The results are the same
+ * as retraining every fold up to rounding.
+ */
+final class FoldContext<T extends Datapoint> {
+
+	private RidgeEquations<T> equations;
+	private RidgeEquations.Sums full;
+	private KernelMatrix kernelMatrix;
+
+	FoldContext(ClassifierInterface<T> classifier, Dataset<T> dataset) {
+		if (classifier.getClass() == RidgeRegressionPrimal.class) {
+			RidgeRegressionPrimal<T> ridge = (RidgeRegressionPrimal<T>) classifier;
+			equations = new RidgeEquations<T>(ridge, ridge.getLambda2());
+			full = equations.sums(dataset.getDatapoints());
+		} else if (classifier.getClass() == WrapperDual.class) {
+			kernelMatrix = ((WrapperDual<T>) classifier).kernelMatrix(dataset);
+		}
+	}
+
+	// trains the classifier, a copy of the one the context was created for, on all folds except fold
+	void learn(ClassifierInterface<T> foldClassifier, CrossValidation<T> crossValidation, int fold) throws Exception {
+		if (full != null) {
+			RidgeEquations.Sums train = full.minus(equations.sums(crossValidation.getFold(fold).getDatapoints()));
+			((RidgeRegressionPrimal<T>) foldClassifier).setWeight(new DenseVector(equations.solve(train, 0, 0)));
+		} else if (kernelMatrix != null) {
+			KernelMatrix foldMatrix = kernelMatrix.subMatrix(crossValidation.getIndicesExcept(fold));
+			((WrapperDual<T>) foldClassifier).learn(crossValidation.getFoldsExcept(fold), foldMatrix);
+		} else {
+			foldClassifier.learn(crossValidation.getFoldsExcept(fold));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.demshape.dempred.resampling;
+
+import java.util.List;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+
+/**
+ * The loss sums shared by the error estimators. The losses of a dataset are added to four sums, two per group: sums[offset] and sums[offset + 2]
+ * receive the sum and the number of the positive datapoints, sums[offset + 1] and sums[offset + 3] those of the other datapoints. Without group
+ * averaging all datapoints count as negative.
+ */
+public class ResamplingTools {
+
+	/**
+	 * Adds the losses of the predictions to sums.
+	 *
+	 * @param dataset the dataset
+	 * @param predictions the predictions of the datapoints of the dataset
+	 * @param lossFunction the loss function
+	 * @param weighting if true the losses are weighted by the datapoint weights
+	 * @param groupAveraging if true the losses of the positive datapoints are summed separately
+	 * @param sums the sums
+	 * @param offset the position of the four sums
+	 */
+	public static <T extends Datapoint> void addLosses(Dataset<T> dataset, double[] predictions, LossFunctionInterface<T> lossFunction, boolean weighting, boolean groupAveraging, double[] sums, int offset) {
+		double weight = 1.0;
+		for (int i = 0; i < predictions.length; ++i) {
+			T datapoint = dataset.getDatapoint(i);
+			if (weighting)
+				weight = datapoint.getWeight();
+			double loss = weight * lossFunction.g(predictions[i], datapoint.getValue(), datapoint);
+			if (groupAveraging && datapoint.getGroup() == 1) {
+				sums[offset] += loss;
+				++sums[offset + 2];
+			} else {
+				sums[offset + 1] += loss;
+				++sums[offset + 3];
+			}
+		}
+	}
+
+	/**
+	 * Adds the partial sums of all folds in the order of the folds, so the total does not depend on the thread which computed a fold.
+	 *
+	 * @param partialSums the sums of the folds, all of the same length
+	 * @return the total
+	 */
+	public static double[] total(List<double[]> partialSums) {
+		double[] total = new double[partialSums.get(0).length];
+		for (double[] sums : partialSums) {
+			for (int i = 0; i < total.length; ++i)
+				total[i] += sums[i];
+		}
+		return total;
+	}
+
+	/**
+	 * The error of sums added by addLosses, the mean loss or with group averaging the mean of the mean losses of both groups.
+	 *
+	 * @param groupAveraging the group averaging
+	 * @param sums the sums
+	 * @param offset the position of the four sums
+	 * @return the error
+	 */
+	public static double error(boolean groupAveraging, double[] sums, int offset) {
+		if (groupAveraging)
+			return ((sums[offset] / sums[offset + 2]) + (sums[offset + 1] / sums[offset + 3])) / 2.0;
+		return sums[offset + 1] / sums[offset + 3];
+	}
+}
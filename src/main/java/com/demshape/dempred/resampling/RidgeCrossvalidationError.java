@@ -0,0 +1,168 @@
+package com.demshape.dempred.resampling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.classifier.RidgeRegressionSweep;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+
+
+
+/**
+ * The cross validation error of a {@link RidgeRegressionPrimal} without retraining it on every fold. The normal equations of the whole dataset are
+ * summed up once per group (positive and negative, see groupAveraging of the classifier), the equations of a fold are those of the whole dataset
+ * minus those of the fold, rescaled with the group sizes of the remaining datapoints, so each fold costs one small Cholesky decomposition.
+ * <p>
+ * With numFolds 0 the leave-one-out error is computed from the hat matrix: leaving out a datapoint of one group changes the scale of that group only,
+ * so all datapoints of a group share one factorization and the prediction without the datapoint is (f_i - h_i * y_i) / (1 - h_i). Both are exact,
+ * they give the same error as a CrossvalidationError with the same seed up to rounding. The classifier is not changed.
+ */
+public class RidgeCrossvalidationError<T extends Datapoint> extends AbstractResamplingError<T> implements ResamplingErrorInterface<T> {
+
+	private static final long serialVersionUID = -6127482901736617452L;
+	private int numFolds;
+
+	public RidgeCrossvalidationError() {
+
+	}
+
+	/**
+	 * Instantiates a new ridge cross validation error.
+	 *
+	 * @param numFolds the number of folds, 0 for leave-one-out
+	 * @param numRounds the number of rounds, it is ignored by leave-one-out
+	 * @param lossFunction the loss function
+	 * @param groupAveraging the group averaging
+	 * @param weighting the weighting
+	 */
+	public RidgeCrossvalidationError(int numFolds, int numRounds, LossFunctionInterface<T> lossFunction, boolean groupAveraging, boolean weighting) {
+		this.numFolds = numFolds;
+		this.numRounds = numRounds;
+		this.lossFunction = lossFunction;
+		this.groupAveraging = groupAveraging;
+		this.weighting = weighting;
+	}
+
+	@Override
+	public double error(ClassifierInterface<T> classifier, Dataset<T> dataset) throws Exception {
+		if (!(classifier instanceof RidgeRegressionPrimal))
+			throw new IllegalArgumentException("The ridge cross validation error needs a RidgeRegressionPrimal but got " + classifier.getClass().getName());
+		checkFolds(dataset);
+		final RidgeEquations<T> equations = new RidgeEquations<T>((RidgeRegressionPrimal<T>) classifier, ((RidgeRegressionPrimal<T>) classifier).getLambda2());
+		final RidgeEquations.Sums full = equations.sums(dataset.getDatapoints());
+		if (numFolds <= 0) {
+			double[] sums = new double[4];
+			addLosses(dataset, equations.leaveOneOut(dataset, full), sums, 0);
+			return error(sums, 0);
+		}
+		List<Callable<double[]>> folds = new ArrayList<Callable<double[]>>(numRounds * numFolds);
+		for (int round = 0; round < numRounds; ++round) {
+			final CrossValidation<T> crossValidation = new CrossValidation<T>(dataset);
+			crossValidation.generateFolds(numFolds, roundRandom(round));
+			for (int fold = 0; fold < numFolds; ++fold) {
+				final int currentFold = fold;
+				folds.add(new Callable<double[]>() {
+					public double[] call() throws Exception {
+						Dataset<T> crossFold = crossValidation.getFold(currentFold);
+						RidgeEquations.Sums train = full.minus(equations.sums(crossFold.getDatapoints()));
+						double[] weight = equations.solve(train, 0, 0);
+						double[] predictions = new double[crossFold.size()];
+						for (int i = 0; i < predictions.length; ++i)
+							predictions[i] = RidgeEquations.f(weight, crossFold.getDatapoint(i).getFeatureVector());
+						double[] sums = new double[4];
+						addLosses(crossFold, predictions, sums, 0);
+						return sums;
+					}
+				});
+			}
+		}
+		return error(total(run(folds)), 0);
+	}
+
+	/**
+	 * The errors for many lambda2 values at once, the other hyperparameters are taken from the classifier. Each fold is decomposed once with a
+	 * {@link RidgeRegressionSweep}, after which every lambda costs O(d^2) plus the predictions of the fold. Leave-one-out solves every lambda on its own.
+	 *
+	 * @param classifier the classifier
+	 * @param dataset the dataset
+	 * @param lambdas the lambda2 values
+	 * @return the errors in the order of lambdas
+	 * @throws Exception the exception
+	 */
+	public double[] errors(ClassifierInterface<T> classifier, Dataset<T> dataset, final double[] lambdas) throws Exception {
+		if (!(classifier instanceof RidgeRegressionPrimal))
+			throw new IllegalArgumentException("The ridge cross validation error needs a RidgeRegressionPrimal but got " + classifier.getClass().getName());
+		checkFolds(dataset);
+		RidgeRegressionPrimal<T> ridge = (RidgeRegressionPrimal<T>) classifier;
+		double[] errors = new double[lambdas.length];
+		if (numFolds <= 0) {
+			for (int l = 0; l < lambdas.length; ++l) {
+				RidgeEquations<T> equations = new RidgeEquations<T>(ridge, lambdas[l]);
+				double[] sums = new double[4];
+				addLosses(dataset, equations.leaveOneOut(dataset, equations.sums(dataset.getDatapoints())), sums, 0);
+				errors[l] = error(sums, 0);
+			}
+			return errors;
+		}
+		final RidgeEquations<T> equations = new RidgeEquations<T>(ridge, 0.0);
+		final RidgeEquations.Sums full = equations.sums(dataset.getDatapoints());
+		List<Callable<double[]>> folds = new ArrayList<Callable<double[]>>(numRounds * numFolds);
+		for (int round = 0; round < numRounds; ++round) {
+			final CrossValidation<T> crossValidation = new CrossValidation<T>(dataset);
+			crossValidation.generateFolds(numFolds, roundRandom(round));
+			for (int fold = 0; fold < numFolds; ++fold) {
+				final int currentFold = fold;
+				folds.add(new Callable<double[]>() {
+					public double[] call() throws Exception {
+						Dataset<T> crossFold = crossValidation.getFold(currentFold);
+						RidgeRegressionSweep sweep = equations.sweep(full.minus(equations.sums(crossFold.getDatapoints())));
+						// sums[4 * l .. 4 * l + 3] for lambda l
+						double[] sums = new double[4 * lambdas.length];
+						double[] predictions = new double[crossFold.size()];
+						for (int l = 0; l < lambdas.length; ++l) {
+							double[] weight = sweep.weight(lambdas[l]);
+							for (int i = 0; i < predictions.length; ++i)
+								predictions[i] = RidgeEquations.f(weight, crossFold.getDatapoint(i).getFeatureVector());
+							addLosses(crossFold, predictions, sums, 4 * l);
+						}
+						return sums;
+					}
+				});
+			}
+		}
+		double[] total = total(run(folds));
+		for (int l = 0; l < lambdas.length; ++l)
+			errors[l] = error(total, 4 * l);
+		return errors;
+	}
+
+	// every fold must hold at least one datapoint, checked before the normal equations of the whole dataset are summed up
+	private void checkFolds(Dataset<T> dataset) {
+		if (dataset.size() == 0)
+			throw new IllegalArgumentException("The ridge cross validation error needs at least one datapoint");
+		if (numFolds == 1 || numFolds > dataset.size())
+			throw new IllegalArgumentException(String.format("The number of folds must be 0 for leave-one-out or between 2 and the number of datapoints %d but is %d", dataset.size(), numFolds));
+	}
+
+	/* (non-Javadoc)
+	 * @see dempred.resampling.AbstractResamplingError#numFits()
+	 */
+	@Override
+	public int numFits() {
+		return numFolds <= 0 ? 1 : numRounds * numFolds;
+	}
+
+	public final int getNumFolds() {
+		return numFolds;
+	}
+
+	public final void setNumFolds(int numFolds) {
+		this.numFolds = numFolds;
+	}
+
+}
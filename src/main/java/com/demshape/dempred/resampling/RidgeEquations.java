@@ -0,0 +1,199 @@
+package com.demshape.dempred.resampling;
+
+import java.util.List;
+
+import Jama.CholeskyDecomposition;
+import Jama.Matrix;
+
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.classifier.RidgeRegressionSweep;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.math.GramAccumulator;
+import com.demshape.dempred.math.VectorInterface;
+
+
+
+/**
+ * The normal equations of RidgeRegressionPrimal.learn with the hyperparameters of a classifier. They are summed up per group without the group
+ * scales, so the equations of a subset follow from those of the whole dataset by subtracting the rest, see {@link Sums#minus(Sums) minus}.
+ */
+final class RidgeEquations<T extends Datapoint> {
+
+	// the unscaled normal equations of a set of datapoints, index 0 for the positive and 1 for the negative group
+	static final class Sums {
+		final double[][][] gram;
+		final double[][] moment;
+		final double[] yy;
+		// the number of datapoints of group 1 and -1
+		final int[] count;
+		int total;
+
+		Sums(int size) {
+			gram = new double[2][size][size];
+			moment = new double[2][size];
+			yy = new double[2];
+			count = new int[2];
+		}
+
+		Sums minus(Sums other) {
+			int size = moment[0].length;
+			Sums result = new Sums(size);
+			for (int g = 0; g < 2; ++g) {
+				for (int i = 0; i < size; ++i) {
+					for (int j = 0; j <= i; ++j)
+						result.gram[g][i][j] = gram[g][i][j] - other.gram[g][i][j];
+					result.moment[g][i] = moment[g][i] - other.moment[g][i];
+				}
+				result.yy[g] = yy[g] - other.yy[g];
+				result.count[g] = count[g] - other.count[g];
+			}
+			result.total = total - other.total;
+			return result;
+		}
+	}
+
+	private final double lambda2;
+	private final double w_plus;
+	private final boolean groupAveraging;
+	private final boolean useDWeights;
+	private final VectorInterface epsilon;
+
+	RidgeEquations(RidgeRegressionPrimal<T> classifier, double lambda2) {
+		this.lambda2 = lambda2;
+		w_plus = classifier.getW_plus();
+		groupAveraging = classifier.isGroupAveraging();
+		useDWeights = classifier.isUseDWeights();
+		epsilon = classifier.getEpsilon();
+	}
+
+	private static int group(Datapoint datapoint) {
+		return datapoint.getGroup() == 1 ? 0 : 1;
+	}
+
+	// sums up x * x', x * y and y^2 of the datapoints per group, x with an appended 1 for the bias
+	Sums sums(List<T> datapoints) {
+		if (datapoints.isEmpty())
+			throw new IllegalArgumentException("The normal equations need at least one datapoint");
+		int numFeatures = datapoints.get(0).getFeatureVector().size();
+		GramAccumulator[] accumulators = { new GramAccumulator(numFeatures), new GramAccumulator(numFeatures) };
+		Sums sums = new Sums(numFeatures + 1);
+		for (T datapoint : datapoints) {
+			accumulators[group(datapoint)].add(datapoint.getFeatureVector(), datapoint.getValue(), useDWeights ? datapoint.getWeight() : 1.0);
+			++sums.total;
+			if (datapoint.getGroup() == 1)
+				++sums.count[0];
+			else if (datapoint.getGroup() == -1)
+				++sums.count[1];
+		}
+		for (int g = 0; g < 2; ++g) {
+			sums.gram[g] = accumulators[g].getGram();
+			sums.moment[g] = accumulators[g].getMoment();
+			sums.yy[g] = accumulators[g].getSumOfSquares();
+		}
+		return sums;
+	}
+
+	// the scale of each group, one datapoint less in the positive or negative group with removedPositive or removedNegative
+	double[] scales(Sums sums, int removedPositive, int removedNegative) {
+		double obj = 1 - lambda2;
+		double[] scales = new double[2];
+		if (groupAveraging) {
+			scales[0] = obj * w_plus / (sums.count[0] - removedPositive);
+			scales[1] = obj * (1.0 - w_plus) / (sums.count[1] - removedNegative);
+		} else {
+			int size = sums.total - removedPositive - removedNegative;
+			scales[0] = obj / size;
+			scales[1] = obj / size;
+		}
+		return scales;
+	}
+
+	// the weighted normal equations without the factor (1 - lambda2)
+	RidgeRegressionSweep sweep(Sums sums) {
+		int size = sums.moment[0].length;
+		double obj = 1 - lambda2;
+		double[] scales = scales(sums, 0, 0);
+		double[][] gram = new double[size][size];
+		double[] moment = new double[size];
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j <= i; ++j)
+				gram[i][j] = (scales[0] * sums.gram[0][i][j] + scales[1] * sums.gram[1][i][j]) / obj;
+			moment[i] = (scales[0] * sums.moment[0][i] + scales[1] * sums.moment[1][i]) / obj;
+		}
+		return new RidgeRegressionSweep(gram, moment, (scales[0] * sums.yy[0] + scales[1] * sums.yy[1]) / obj, epsilon);
+	}
+
+	Matrix matrix(Sums sums, double[] scales) {
+		int size = sums.moment[0].length;
+		Matrix A = new Matrix(size, size);
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j <= i; ++j) {
+				double value = scales[0] * sums.gram[0][i][j] + scales[1] * sums.gram[1][i][j];
+				A.set(i, j, value);
+				A.set(j, i, value);
+			}
+		}
+		for (int i = 0; i < size - 1; ++i)
+			A.set(i, i, A.get(i, i) + lambda2 * (epsilon != null ? epsilon.get(i) : 1.0));
+		return A;
+	}
+
+	Matrix rightSide(Sums sums, double[] scales) {
+		int size = sums.moment[0].length;
+		Matrix B = new Matrix(size, 1);
+		for (int i = 0; i < size; ++i)
+			B.set(i, 0, scales[0] * sums.moment[0][i] + scales[1] * sums.moment[1][i]);
+		return B;
+	}
+
+	// the weights of the ridge regression on the datapoints of sums
+	double[] solve(Sums sums, int removedPositive, int removedNegative) {
+		double[] scales = scales(sums, removedPositive, removedNegative);
+		return new CholeskyDecomposition(matrix(sums, scales)).solve(rightSide(sums, scales)).getColumnPackedCopy();
+	}
+
+	static double f(double[] weight, VectorInterface features) {
+		int size = weight.length - 1;
+		double value = weight[size];
+		for (int i = 0; i < size; ++i)
+			value += weight[i] * features.get(i);
+		return value;
+	}
+
+	// the leave-one-out predictions of all datapoints
+	double[] leaveOneOut(Dataset<T> dataset, Sums full) {
+		int size = full.moment[0].length;
+		double[] predictions = new double[dataset.size()];
+		for (int g = 0; g < 2; ++g) {
+			if ((g == 0 ? full.count[0] : full.total - full.count[0]) == 0)
+				continue;
+			// one less datapoint in group g
+			double[] scales = scales(full, g == 0 ? 1 : 0, g == 1 ? 1 : 0);
+			CholeskyDecomposition cholDec = new CholeskyDecomposition(matrix(full, scales));
+			double[] weight = cholDec.solve(rightSide(full, scales)).getColumnPackedCopy();
+			double[][] inverse = cholDec.solve(Matrix.identity(size, size)).getArray();
+			double[] x = new double[size];
+			x[size - 1] = 1.0;
+			for (int n = 0; n < predictions.length; ++n) {
+				T datapoint = dataset.getDatapoint(n);
+				if (group(datapoint) != g)
+					continue;
+				VectorInterface features = datapoint.getFeatureVector();
+				for (int i = 0; i < size - 1; ++i)
+					x[i] = features.get(i);
+				double q = 0.0;
+				for (int i = 0; i < size; ++i) {
+					double row = 0.0;
+					for (int j = 0; j < size; ++j)
+						row += inverse[i][j] * x[j];
+					q += x[i] * row;
+				}
+				double h = scales[g] * (useDWeights ? datapoint.getWeight() : 1.0) * q;
+				predictions[n] = (f(weight, features) - h * datapoint.getValue()) / (1.0 - h);
+			}
+		}
+		return predictions;
+	}
+
+}
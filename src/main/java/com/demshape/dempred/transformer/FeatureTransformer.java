@@ -2,6 +2,7 @@ package com.demshape.dempred.transformer;
 
 import com.demshape.dempred.datastructure.Datapoint;
 import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.math.VectorInterface;
 
 public class FeatureTransformer {
 
@@ -15,11 +16,16 @@ public class FeatureTransformer {
 		this.transformer = transformer;
 	};
 
+	/**
+	 * Transforms all features in place. The elements are written with set, so the rows of a packed dataset are changed in the underlying matrix.
+	 *
+	 * @param dataset the dataset
+	 */
 	public void transformFeatures(Dataset<?> dataset) {
 		for (Datapoint datapoint : dataset.getDatapoints()) {
-			double[] features = datapoint.getFeatureVector().getElements();
-			for (int i = 0, len = features.length; i < len; ++i)
-				features[i] = transformer.transform(features[i]);
+			VectorInterface features = datapoint.getFeatureVector();
+			for (int i = 0, len = features.size(); i < len; ++i)
+				features.set(i, transformer.transform(features.get(i)));
 		}
 	}
 
@@ -0,0 +1,515 @@
+package com.demshape.dempred.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import com.demshape.dempred.classifier.AbstractKernelClassifier;
+import com.demshape.dempred.classifier.AbstractLinearClassifier;
+import com.demshape.dempred.classifier.RidgeRegressionDual;
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.classifier.WrapperDual;
+import com.demshape.dempred.classifier.WrapperPrimal;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.DatasetNormalizer;
+import com.demshape.dempred.grouper.AboveThreshold;
+import com.demshape.dempred.grouper.BelowThreshold;
+import com.demshape.dempred.grouper.GrouperInterface;
+import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.kernels.PolynomialKernel;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.kernels.SigmoidKernel;
+import com.demshape.dempred.kernels.SimpleKernel;
+import com.demshape.dempred.lossfunction.Bnll;
+import com.demshape.dempred.lossfunction.HardStepFunction;
+import com.demshape.dempred.lossfunction.LogLoss;
+import com.demshape.dempred.lossfunction.LogisticRegression;
+import com.demshape.dempred.lossfunction.Lorentzian;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.lossfunction.SidedLorentzian;
+import com.demshape.dempred.lossfunction.SidedQuad;
+import com.demshape.dempred.lossfunction.Sigmodial;
+import com.demshape.dempred.lossfunction.SmoothHinge;
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.SparseRowVector;
+import com.demshape.dempred.math.SparseVector;
+import com.demshape.dempred.math.VectorInterface;
+
+/**
+ * A compact binary file format for trained models, an alternative to {@link Serializer} and XML which is faster to load. Like Serializer a file
+ * holds a sequence of objects: WrapperPrimal, RidgeRegressionPrimal, WrapperDual, RidgeRegressionDual (including their grouper, kernel, loss function
+ * and the hyperparameters which are transient for Java serialization) and DatasetNormalizer. The settings of the solvers are not stored.
+ *
+ * The file starts with the magic number "DPMF" and the format version followed by the number of objects. Every object starts with a type tag.
+ * Numbers are little endian, vectors are stored dense or sparse as they were in memory. Files are read with a single memory mapping.
+ */
+public class ModelFile {
+
+	private static final int MAGIC = 0x464D5044; // "DPMF" in little endian
+	private static final int VERSION = 2;
+
+	// object tags
+	private static final int WRAPPER_PRIMAL = 1;
+	private static final int RIDGE_REGRESSION_PRIMAL = 2;
+	private static final int WRAPPER_DUAL = 3;
+	private static final int RIDGE_REGRESSION_DUAL = 4;
+	private static final int DATASET_NORMALIZER = 5;
+
+	// vector tags
+	private static final byte NULL_VECTOR = 0;
+	private static final byte DENSE_VECTOR = 1;
+	private static final byte SPARSE_VECTOR = 2;
+
+	// grouper tags
+	private static final byte NO_GROUPER = 0;
+	private static final byte ABOVE_THRESHOLD = 1;
+	private static final byte BELOW_THRESHOLD = 2;
+
+	// kernel tags, the same as in KernelFactory
+	private static final byte SIMPLE_KERNEL = 0;
+	private static final byte RBF_KERNEL = 1;
+	private static final byte SIGMOID_KERNEL = 2;
+	private static final byte POLYNOMIAL_KERNEL = 3;
+
+	// loss function tags, the same as in LossFunctionFactory
+	private static final byte NO_LOSS_FUNCTION = -1;
+	private static final byte HARD_STEP_FUNCTION = 0;
+	private static final byte BNLL = 1;
+	private static final byte SIGMODIAL = 2;
+	private static final byte SMOOTH_HINGE = 3;
+	private static final byte MSE = 4;
+	private static final byte LORENTZIAN = 5;
+	private static final byte SIDED_QUAD = 6;
+	private static final byte SIDED_LORENTZIAN = 7;
+	private static final byte LOGISTIC_REGRESSION = 8;
+	private static final byte LOG_LOSS = 9;
+
+	public static void saveToFile(File file, Object... objects) throws IOException {
+		Output out = new Output();
+		out.putInt(MAGIC);
+		out.putInt(VERSION);
+		out.putInt(objects.length);
+		for (Object object : objects) {
+			if (object instanceof WrapperPrimal) {
+				out.putInt(WRAPPER_PRIMAL);
+				writeLinear(out, (AbstractLinearClassifier<?>) object);
+			} else if (object instanceof RidgeRegressionPrimal) {
+				out.putInt(RIDGE_REGRESSION_PRIMAL);
+				writeLinear(out, (AbstractLinearClassifier<?>) object);
+			} else if (object instanceof WrapperDual) {
+				out.putInt(WRAPPER_DUAL);
+				writeKernel(out, (AbstractKernelClassifier<?>) object);
+			} else if (object instanceof RidgeRegressionDual) {
+				out.putInt(RIDGE_REGRESSION_DUAL);
+				writeKernel(out, (AbstractKernelClassifier<?>) object);
+			} else if (object instanceof DatasetNormalizer) {
+				out.putInt(DATASET_NORMALIZER);
+				writeNormalizer(out, (DatasetNormalizer) object);
+			} else
+				throw new IllegalArgumentException("Objects of type " + (object == null ? null : object.getClass().getName()) + " can not be written");
+		}
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			FileChannel channel = fos.getChannel();
+			ByteBuffer buffer = out.buffer;
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		} finally {
+			fos.close();
+		}
+	}
+
+	public static ArrayList<Object> readFromFile(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		ByteBuffer in;
+		try {
+			FileChannel channel = raf.getChannel();
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			// the mapping stays valid after the file is closed
+			raf.close();
+		}
+		in.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < 12 || in.getInt() != MAGIC)
+			throw new IOException(file + " is not a model file");
+		int version = in.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported model file version " + version + " of " + file);
+		int numObjects = in.getInt();
+		ArrayList<Object> result = new ArrayList<Object>(numObjects);
+		for (int i = 0; i < numObjects; ++i) {
+			int tag = in.getInt();
+			switch (tag) {
+			case WRAPPER_PRIMAL:
+				result.add(readLinear(in, new WrapperPrimal<Datapoint>()));
+				break;
+			case RIDGE_REGRESSION_PRIMAL:
+				result.add(readLinear(in, new RidgeRegressionPrimal<Datapoint>()));
+				break;
+			case WRAPPER_DUAL:
+				result.add(readKernel(in, new WrapperDual<Datapoint>()));
+				break;
+			case RIDGE_REGRESSION_DUAL:
+				result.add(readKernel(in, new RidgeRegressionDual<Datapoint>()));
+				break;
+			case DATASET_NORMALIZER:
+				result.add(readNormalizer(in));
+				break;
+			default:
+				throw new IOException("Unknown object type " + tag + " in " + file);
+			}
+		}
+		return result;
+	}
+
+	// ********************************************
+	// classifiers and normalizer
+	// ********************************************
+
+	private static void writeLinear(Output out, AbstractLinearClassifier<?> classifier) {
+		writeVector(out, classifier.getWeight());
+		writeGrouper(out, classifier.getGrouper());
+		out.putDouble(classifier.getLambda1());
+		out.putDouble(classifier.getLambda2());
+		out.putDouble(classifier.getW_plus());
+		out.putBoolean(classifier.isUseDWeights());
+		out.putBoolean(classifier.isGroupAveraging());
+		writeLossFunction(out, classifier.getLossFunction());
+		writeVector(out, classifier.getEpsilon());
+	}
+
+	private static <T extends Datapoint> AbstractLinearClassifier<T> readLinear(ByteBuffer in, AbstractLinearClassifier<T> classifier) throws IOException {
+		classifier.setWeight(readVector(in));
+		classifier.setGrouper(readGrouper(in));
+		classifier.setLambda1(in.getDouble());
+		classifier.setLambda2(in.getDouble());
+		classifier.setW_plus(in.getDouble());
+		classifier.setUseDWeights(in.get() != 0);
+		classifier.setGroupAveraging(in.get() != 0);
+		classifier.setLossFunction(ModelFile.<T> readLossFunction(in));
+		classifier.setEpsilon(readVector(in));
+		return classifier;
+	}
+
+	private static void writeKernel(Output out, AbstractKernelClassifier<?> classifier) {
+		writeKernelFunction(out, classifier.getKernel());
+		writeVector(out, classifier.getAlpha());
+		out.putDouble(classifier.getOffset());
+		VectorInterface[] trainVectors = classifier.getTrainVectors();
+		out.putInt(trainVectors == null ? -1 : trainVectors.length);
+		if (trainVectors != null) {
+			for (VectorInterface trainVector : trainVectors)
+				writeVector(out, trainVector);
+		}
+		writeGrouper(out, classifier.getGrouper());
+		out.putDouble(classifier.getLambda());
+		out.putDouble(classifier.getW_plus());
+		out.putBoolean(classifier.isUseDWeights());
+		out.putBoolean(classifier.isGroupAveraging());
+		writeLossFunction(out, classifier.getLossFunction());
+		writeVector(out, classifier.getEpsilon());
+	}
+
+	private static <T extends Datapoint> AbstractKernelClassifier<T> readKernel(ByteBuffer in, AbstractKernelClassifier<T> classifier) throws IOException {
+		classifier.setKernel(readKernelFunction(in));
+		classifier.setAlpha(readVector(in));
+		classifier.setOffset(in.getDouble());
+		int numTrainVectors = in.getInt();
+		if (numTrainVectors >= 0) {
+			VectorInterface[] trainVectors = new VectorInterface[numTrainVectors];
+			for (int i = 0; i < numTrainVectors; ++i)
+				trainVectors[i] = readVector(in);
+			classifier.setTrainVectors(trainVectors);
+		}
+		classifier.setGrouper(readGrouper(in));
+		classifier.setLambda(in.getDouble());
+		classifier.setW_plus(in.getDouble());
+		classifier.setUseDWeights(in.get() != 0);
+		classifier.setGroupAveraging(in.get() != 0);
+		classifier.setLossFunction(ModelFile.<T> readLossFunction(in));
+		classifier.setEpsilon(readVector(in));
+		return classifier;
+	}
+
+	private static void writeNormalizer(Output out, DatasetNormalizer normalizer) {
+		writeVector(out, normalizer.getMeanVector());
+		writeVector(out, normalizer.getStdVector());
+		writeInts(out, normalizer.getZeroIndices());
+		writeInts(out, normalizer.getNonZeroIndices());
+		out.putBoolean(normalizer.isScaleOnly());
+	}
+
+	private static DatasetNormalizer readNormalizer(ByteBuffer in) {
+		DatasetNormalizer normalizer = new DatasetNormalizer();
+		normalizer.setMeanVector(toDense(readVector(in)));
+		normalizer.setStdVector(toDense(readVector(in)));
+		normalizer.setZeroIndices(readInts(in));
+		normalizer.setNonZeroIndices(readInts(in));
+		normalizer.setScaleOnly(in.get() != 0);
+		return normalizer;
+	}
+
+	// ********************************************
+	// components
+	// ********************************************
+
+	private static void writeVector(Output out, VectorInterface vector) {
+		if (vector == null) {
+			out.putByte(NULL_VECTOR);
+		} else if (vector instanceof SparseVector) {
+			SparseVector sparse = (SparseVector) vector;
+			int used = sparse.getUsed();
+			out.putByte(SPARSE_VECTOR);
+			out.putInt(sparse.size());
+			out.putInt(used);
+			out.putInts(sparse.getKeys(), used);
+			out.putDoubles(sparse.getValues(), used);
+		} else if (vector instanceof SparseRowVector) {
+			int[] keys = vector.findIndices("!=", 0.0);
+			double[] values = new double[keys.length];
+			for (int i = 0; i < keys.length; ++i)
+				values[i] = vector.get(keys[i]);
+			out.putByte(SPARSE_VECTOR);
+			out.putInt(vector.size());
+			out.putInt(keys.length);
+			out.putInts(keys, keys.length);
+			out.putDoubles(values, values.length);
+		} else {
+			double[] elements = vector.getElements();
+			out.putByte(DENSE_VECTOR);
+			out.putInt(vector.size());
+			out.putDoubles(elements, vector.size());
+		}
+	}
+
+	private static VectorInterface readVector(ByteBuffer in) {
+		byte tag = in.get();
+		if (tag == NULL_VECTOR)
+			return null;
+		int size = in.getInt();
+		if (tag == DENSE_VECTOR)
+			return new DenseVector(readDoubles(in, size));
+		if (tag == SPARSE_VECTOR) {
+			int used = in.getInt();
+			int[] keys = new int[used];
+			in.asIntBuffer().get(keys);
+			in.position(in.position() + 4 * used);
+			return new SparseVector(keys, readDoubles(in, used), size);
+		}
+		throw new IllegalArgumentException("Unknown vector type " + tag);
+	}
+
+	private static DenseVector toDense(VectorInterface vector) {
+		if (vector == null || vector instanceof DenseVector)
+			return (DenseVector) vector;
+		return new DenseVector(vector.getElements());
+	}
+
+	private static double[] readDoubles(ByteBuffer in, int length) {
+		double[] values = new double[length];
+		in.asDoubleBuffer().get(values);
+		in.position(in.position() + 8 * length);
+		return values;
+	}
+
+	private static void writeInts(Output out, int[] values) {
+		out.putInt(values == null ? -1 : values.length);
+		if (values != null)
+			out.putInts(values, values.length);
+	}
+
+	private static int[] readInts(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0)
+			return null;
+		int[] values = new int[length];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + 4 * length);
+		return values;
+	}
+
+	private static void writeGrouper(Output out, GrouperInterface grouper) {
+		if (grouper == null) {
+			out.putByte(NO_GROUPER);
+		} else if (grouper instanceof AboveThreshold) {
+			out.putByte(ABOVE_THRESHOLD);
+			out.putDouble(((AboveThreshold) grouper).getThreshold());
+		} else if (grouper instanceof BelowThreshold) {
+			out.putByte(BELOW_THRESHOLD);
+			out.putDouble(((BelowThreshold) grouper).getThreshold());
+		} else
+			throw new IllegalArgumentException("Groupers of type " + grouper.getClass().getName() + " can not be written");
+	}
+
+	private static GrouperInterface readGrouper(ByteBuffer in) {
+		byte tag = in.get();
+		switch (tag) {
+		case NO_GROUPER:
+			return null;
+		case ABOVE_THRESHOLD:
+			return new AboveThreshold(in.getDouble());
+		case BELOW_THRESHOLD:
+			return new BelowThreshold(in.getDouble());
+		default:
+			throw new IllegalArgumentException("Unknown grouper type " + tag);
+		}
+	}
+
+	private static void writeKernelFunction(Output out, KernelInterface kernel) {
+		if (kernel instanceof SimpleKernel) {
+			out.putByte(SIMPLE_KERNEL);
+		} else if (kernel instanceof RBFKernel) {
+			out.putByte(RBF_KERNEL);
+			out.putDouble(((RBFKernel) kernel).getGamma());
+		} else if (kernel instanceof SigmoidKernel) {
+			SigmoidKernel sigmoid = (SigmoidKernel) kernel;
+			out.putByte(SIGMOID_KERNEL);
+			out.putDouble(sigmoid.getFactor());
+			out.putDouble(sigmoid.getOffset());
+		} else if (kernel instanceof PolynomialKernel) {
+			PolynomialKernel polynomial = (PolynomialKernel) kernel;
+			out.putByte(POLYNOMIAL_KERNEL);
+			out.putDouble(polynomial.getDegree());
+			out.putDouble(polynomial.getFactor());
+			out.putDouble(polynomial.getOffset());
+		} else
+			throw new IllegalArgumentException("Kernels of type " + (kernel == null ? null : kernel.getClass().getName()) + " can not be written");
+	}
+
+	private static KernelInterface readKernelFunction(ByteBuffer in) throws IOException {
+		byte tag = in.get();
+		switch (tag) {
+		case SIMPLE_KERNEL:
+			return new SimpleKernel();
+		case RBF_KERNEL:
+			RBFKernel rbf = new RBFKernel(1.0);
+			rbf.setGamma(in.getDouble());
+			return rbf;
+		case SIGMOID_KERNEL:
+			return new SigmoidKernel(in.getDouble(), in.getDouble());
+		case POLYNOMIAL_KERNEL:
+			return new PolynomialKernel(in.getDouble(), in.getDouble(), in.getDouble());
+		default:
+			throw new IOException("Unknown kernel type " + tag);
+		}
+	}
+
+	private static void writeLossFunction(Output out, LossFunctionInterface<?> lossFunction) {
+		if (lossFunction == null) {
+			out.putByte(NO_LOSS_FUNCTION);
+			return;
+		}
+		// subclasses may have parameters of their own, so only the known classes themselves are written
+		Class<?> type = lossFunction.getClass();
+		if (type == HardStepFunction.class) {
+			out.putByte(HARD_STEP_FUNCTION);
+			out.putDouble(((HardStepFunction<?>) lossFunction).getThreshold());
+		} else if (type == Bnll.class) {
+			out.putByte(BNLL);
+		} else if (type == Sigmodial.class) {
+			out.putByte(SIGMODIAL);
+			out.putDouble(((Sigmodial<?>) lossFunction).getSigma());
+		} else if (type == SmoothHinge.class) {
+			out.putByte(SMOOTH_HINGE);
+		} else if (type == Mse.class) {
+			out.putByte(MSE);
+		} else if (type == Lorentzian.class) {
+			out.putByte(LORENTZIAN);
+		} else if (type == SidedQuad.class) {
+			out.putByte(SIDED_QUAD);
+		} else if (type == SidedLorentzian.class) {
+			out.putByte(SIDED_LORENTZIAN);
+		} else if (type == LogisticRegression.class) {
+			out.putByte(LOGISTIC_REGRESSION);
+		} else if (type == LogLoss.class) {
+			out.putByte(LOG_LOSS);
+			out.putDouble(((LogLoss<?>) lossFunction).getEps());
+		} else
+			throw new IllegalArgumentException("Loss functions of type " + type.getName() + " can not be written");
+	}
+
+	private static <T extends Datapoint> LossFunctionInterface<T> readLossFunction(ByteBuffer in) throws IOException {
+		byte tag = in.get();
+		switch (tag) {
+		case NO_LOSS_FUNCTION:
+			return null;
+		case HARD_STEP_FUNCTION:
+			return new HardStepFunction<T>(in.getDouble());
+		case BNLL:
+			return new Bnll<T>();
+		case SIGMODIAL:
+			return new Sigmodial<T>(in.getDouble());
+		case SMOOTH_HINGE:
+			return new SmoothHinge<T>();
+		case MSE:
+			return new Mse<T>();
+		case LORENTZIAN:
+			return new Lorentzian<T>();
+		case SIDED_QUAD:
+			return new SidedQuad<T>();
+		case SIDED_LORENTZIAN:
+			return new SidedLorentzian<T>();
+		case LOGISTIC_REGRESSION:
+			return new LogisticRegression<T>();
+		case LOG_LOSS:
+			return new LogLoss<T>(in.getDouble());
+		default:
+			throw new IOException("Unknown loss function type " + tag);
+		}
+	}
+
+	// a growing little endian buffer
+	private static class Output {
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+		private void ensure(int numBytes) {
+			if (buffer.remaining() >= numBytes)
+				return;
+			long capacity = Math.max(2L * buffer.capacity(), (long) buffer.position() + numBytes);
+			if (capacity > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("The model is too large for a model file");
+			ByteBuffer larger = ByteBuffer.allocate((int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+
+		void putByte(byte value) {
+			ensure(1);
+			buffer.put(value);
+		}
+
+		void putBoolean(boolean value) {
+			putByte(value ? (byte) 1 : (byte) 0);
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void putDouble(double value) {
+			ensure(8);
+			buffer.putDouble(value);
+		}
+
+		void putInts(int[] values, int length) {
+			ensure(4 * length);
+			buffer.asIntBuffer().put(values, 0, length);
+			buffer.position(buffer.position() + 4 * length);
+		}
+
+		void putDoubles(double[] values, int length) {
+			ensure(8 * length);
+			buffer.asDoubleBuffer().put(values, 0, length);
+			buffer.position(buffer.position() + 8 * length);
+		}
+	}
+}
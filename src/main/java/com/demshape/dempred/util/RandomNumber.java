@@ -17,6 +17,21 @@ public class RandomNumber {
 		return mean + std * random.nextDouble();
 	}
 
+	/**
+	 * Derives the seed of an independent random number generator from a base seed and an index with the SplitMix64 finalizer, e.g. one generator per
+	 * round of a resampling. The derived seeds do not depend on the order in which they are requested.
+	 *
+	 * @param seed the base seed
+	 * @param index the index
+	 * @return the derived seed
+	 */
+	public static long splitSeed(long seed, long index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
 	public double[] gaussArray(int size, double mean, double std) {
 		double[] result = new double[size];
 		for (int i = 0; i < size; ++i)
@@ -0,0 +1,94 @@
+package com.demshape.dempred.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThreadTools {
+
+	private static final AtomicInteger poolNumber = new AtomicInteger();
+
+	/**
+	 * Returns a fixed size pool of daemon threads. Idle threads terminate after a minute, so pools that are not shut down explicitly do not keep
+	 * threads alive.
+	 *
+	 * @param numThreads the number of threads
+	 * @return the executor
+	 */
+	public static ExecutorService newDaemonPool(int numThreads) {
+		if (numThreads < 1)
+			throw new IllegalArgumentException("The number of threads must be at least one: " + numThreads);
+		final String prefix = "dempred-" + poolNumber.incrementAndGet() + "-";
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Runs the tasks on numThreads daemon threads, or one after the other on the calling thread if numThreads is at most one, and returns their results
+	 * in the order of the tasks. Exceptions of the tasks are rethrown like by {@link #get(Future) get}.
+	 *
+	 * @param tasks the tasks
+	 * @param numThreads the number of threads
+	 * @return the results
+	 * @throws Exception the exception of the first failing task if the tasks run on the calling thread
+	 */
+	public static <R> List<R> invokeAll(List<? extends Callable<R>> tasks, int numThreads) throws Exception {
+		List<R> results = new ArrayList<R>(tasks.size());
+		if (numThreads <= 1 || tasks.size() <= 1) {
+			for (Callable<R> task : tasks)
+				results.add(task.call());
+			return results;
+		}
+		ExecutorService executor = newDaemonPool(Math.min(numThreads, tasks.size()));
+		try {
+			List<Future<R>> futures = new ArrayList<Future<R>>(tasks.size());
+			for (Callable<R> task : tasks)
+				futures.add(executor.submit(task));
+			for (Future<R> future : futures)
+				results.add(get(future));
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Waits for a future and rethrows runtime exceptions and errors of the task unchanged, checked exceptions are wrapped.
+	 *
+	 * @param future the future
+	 * @return the result of the task
+	 */
+	public static <V> V get(Future<V> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a parallel task", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+}
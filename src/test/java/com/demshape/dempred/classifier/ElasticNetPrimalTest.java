@@ -0,0 +1,95 @@
+package com.demshape.dempred.classifier;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.math.VectorInterface;
+
+public class ElasticNetPrimalTest extends TestCase {
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(29, 50, 6).density(0.7).target(0.5, 0.2, 2.0, 0.0, 0.0, -1.0).positiveFraction(0.4).weights(0.5, 1.5).create();
+	}
+
+	private ElasticNetPrimal<Datapoint> elasticNet(boolean groupAveraging) {
+		ElasticNetPrimal<Datapoint> classifier = new ElasticNetPrimal<Datapoint>();
+		classifier.setGroupAveraging(groupAveraging);
+		classifier.setUseDWeights(groupAveraging);
+		classifier.setW_plus(0.3);
+		classifier.setTolerance(1e-12);
+		classifier.setMaxIterations(100000);
+		return classifier;
+	}
+
+	private void assertSameWeights(VectorInterface expected, VectorInterface actual, double delta) {
+		assertEquals(expected.size(), actual.size());
+		for (int j = 0; j < expected.size(); ++j)
+			assertEquals(expected.get(j), actual.get(j), delta);
+	}
+
+	public void testRidge() {
+		for (boolean groupAveraging : new boolean[] { false, true }) {
+			for (double lambda2 : new double[] { 0.0, 0.01, 0.2 }) {
+				Dataset<Datapoint> dataset = dataset();
+				RidgeRegressionPrimal<Datapoint> ridge = new RidgeRegressionPrimal<Datapoint>();
+				ridge.setGroupAveraging(groupAveraging);
+				ridge.setUseDWeights(groupAveraging);
+				ridge.setW_plus(0.3);
+				ridge.setLambda2(lambda2);
+				ridge.learn(dataset);
+				ElasticNetPrimal<Datapoint> elasticNet = elasticNet(groupAveraging);
+				elasticNet.setLambda2(lambda2);
+				elasticNet.setLambda1(0.0);
+				elasticNet.learn(dataset);
+				assertSameWeights(ridge.getWeight(), elasticNet.getWeight(), 1e-6);
+			}
+		}
+	}
+
+	public void testLambda1Max() {
+		for (boolean screening : new boolean[] { true, false }) {
+			Dataset<Datapoint> dataset = dataset();
+			ElasticNetPrimal<Datapoint> classifier = elasticNet(false);
+			classifier.setScreening(screening);
+			classifier.setLambda2(0.1);
+			double lambda1Max = classifier.lambda1Max(dataset);
+			assertTrue(lambda1Max > 0.0);
+			classifier.setLambda1(lambda1Max * 1.0001);
+			classifier.learn(dataset);
+			for (int j = 0; j < dataset.numFeatures(); ++j)
+				assertEquals(0.0, classifier.getWeight().get(j), 0.0);
+			double mean = 0.0;
+			for (Datapoint datapoint : dataset.getDatapoints())
+				mean += datapoint.getValue() / dataset.size();
+			assertEquals(mean, classifier.getWeight().get(dataset.numFeatures()), 1e-8);
+			classifier.setWeight(null);
+			classifier.setLambda1(lambda1Max * 0.95);
+			classifier.learn(dataset);
+			int numNonZero = 0;
+			for (int j = 0; j < dataset.numFeatures(); ++j) {
+				if (classifier.getWeight().get(j) != 0.0)
+					++numNonZero;
+			}
+			assertTrue(numNonZero > 0);
+		}
+	}
+
+	public void testPath() {
+		Dataset<Datapoint> dataset = dataset();
+		ElasticNetPrimal<Datapoint> classifier = elasticNet(true);
+		classifier.setLambda2(0.05);
+		double lambda1Max = classifier.lambda1Max(dataset);
+		double[] lambda1s = { 0.01 * lambda1Max, lambda1Max * 1.01, 0.3 * lambda1Max };
+		VectorInterface[] path = classifier.learnPath(dataset, lambda1s);
+		for (int l = 0; l < lambda1s.length; ++l) {
+			ElasticNetPrimal<Datapoint> single = elasticNet(true);
+			single.setLambda2(0.05);
+			single.setLambda1(lambda1s[l]);
+			single.learn(dataset);
+			assertSameWeights(single.getWeight(), path[l], 1e-6);
+		}
+	}
+
+}
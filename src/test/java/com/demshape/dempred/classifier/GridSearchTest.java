@@ -0,0 +1,147 @@
+package com.demshape.dempred.classifier;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.grouper.GrouperInterface;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.resampling.CrossvalidationError;
+import com.demshape.dempred.resampling.ResamplingErrorInterface;
+
+public class GridSearchTest extends TestCase {
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(3, 30, 3).target(0.0, 0.5, 0.0, 2.0).groupThreshold(0.0).create();
+	}
+
+	private static Field field(String name) throws Exception {
+		Field field = AbstractLinearClassifier.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	// a resampler whose error is never defined
+	private static ResamplingErrorInterface<Datapoint> nanError() {
+		return new ResamplingErrorInterface<Datapoint>() {
+			public double error(ClassifierInterface<Datapoint> classifier, Dataset<Datapoint> dataset) {
+				return Double.NaN;
+			}
+		};
+	}
+
+	// a classifier which writes into the datapoints, it counts how many copies of it learn at the same time
+	private static class Writer implements ClassifierInterface<Datapoint> {
+		private final AtomicInteger active;
+		private final AtomicInteger maxActive;
+		private double lambda2;
+		private RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+
+		Writer(AtomicInteger active, AtomicInteger maxActive) {
+			this.active = active;
+			this.maxActive = maxActive;
+		}
+
+		public void learn(Dataset<Datapoint> dataset) throws Exception {
+			int current = active.incrementAndGet();
+			try {
+				if (current > maxActive.get())
+					maxActive.set(current);
+				for (Datapoint datapoint : dataset.getDatapoints())
+					datapoint.setPredictedValue(lambda2);
+				Thread.sleep(2);
+				classifier.setLambda2(lambda2);
+				classifier.learn(dataset);
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		public void predict(Dataset<Datapoint> dataset) throws Exception {
+			classifier.predict(dataset);
+		}
+
+		public double predict(Datapoint datapoint) throws Exception {
+			return classifier.predict(datapoint);
+		}
+
+		public void setGrouper(GrouperInterface grouper) {
+			classifier.setGrouper(grouper);
+		}
+
+		public GrouperInterface getGrouper() {
+			return classifier.getGrouper();
+		}
+
+		public ClassifierInterface<Datapoint> clone() {
+			Writer copy = new Writer(active, maxActive);
+			copy.lambda2 = lambda2;
+			copy.classifier = (RidgeRegressionPrimal<Datapoint>) classifier.clone();
+			return copy;
+		}
+	}
+
+	public void testWriterSequential() throws Exception {
+		double[] lambdas = { 0.5, 0.01, 0.1, 0.3 };
+		double[][] errors = new double[2][];
+		Field field = Writer.class.getDeclaredField("lambda2");
+		field.setAccessible(true);
+		for (int t = 0; t < 2; ++t) {
+			AtomicInteger maxActive = new AtomicInteger();
+			Writer classifier = new Writer(new AtomicInteger(), maxActive);
+			CrossvalidationError<Datapoint> resampler = new CrossvalidationError<Datapoint>(3, 1, new Mse<Datapoint>(), false, false);
+			resampler.setSeed(5);
+			GridSearch<Datapoint> gridSearch = new GridSearch<Datapoint>(classifier, dataset(), resampler);
+			gridSearch.addParameter(field, lambdas);
+			gridSearch.setNumThreads(t == 0 ? 1 : 4);
+			errors[t] = gridSearch.evaluate();
+			assertEquals(1, maxActive.get());
+			assertEquals(0.0, classifier.lambda2, 0.0);
+		}
+		for (int i = 0; i < lambdas.length; ++i)
+			assertEquals(errors[0][i], errors[1][i], 0.0);
+	}
+
+	public void testClassifierUnchanged() throws Exception {
+		double[] lambdas = { 0.5, 0.01, 0.1 };
+		double[][] errors = new double[2][];
+		for (int numThreads = 1; numThreads <= 2; ++numThreads) {
+			RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+			classifier.setLambda2(0.3);
+			CrossvalidationError<Datapoint> resampler = new CrossvalidationError<Datapoint>(3, 1, new Mse<Datapoint>(), false, false);
+			resampler.setSeed(5);
+			GridSearch<Datapoint> gridSearch = new GridSearch<Datapoint>(classifier, dataset(), resampler);
+			gridSearch.addParameter(field("lambda2"), lambdas);
+			gridSearch.setNumThreads(numThreads);
+			errors[numThreads - 1] = gridSearch.evaluate();
+			assertEquals(0.3, classifier.getLambda2(), 0.0);
+			assertNull(classifier.getWeight());
+			gridSearch.setBest();
+			assertEquals(lambdas[gridSearch.getBestIndex()], classifier.getLambda2(), 0.0);
+		}
+		for (int i = 0; i < lambdas.length; ++i)
+			assertEquals(errors[0][i], errors[1][i], 0.0);
+	}
+
+	public void testOptimizeParameterNaN() throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		double[] lambdas = { 0.2, 0.1 };
+		assertEquals(0.2, ClassifierTools.optimizeParameter(classifier, dataset(), null, nanError(), field("lambda2"), lambdas), 0.0);
+		assertEquals(0.2, classifier.getLambda2(), 0.0);
+	}
+
+	public void testOptimize2ParametersSkipped() throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		CrossvalidationError<Datapoint> resampler = new CrossvalidationError<Datapoint>(3, 1, new Mse<Datapoint>(), false, false);
+		double[] best = ClassifierTools.optimize2Parameters(classifier, dataset(), null, resampler, field("lambda2"), new double[] { 0.5, 0.6 }, field("w_plus"), new double[] { 0.7, 0.8 });
+		assertEquals(0.5, best[0], 0.0);
+		assertEquals(0.7, best[1], 0.0);
+		assertEquals(0.5, classifier.getLambda2(), 0.0);
+		assertEquals(0.7, classifier.getW_plus(), 0.0);
+	}
+
+}
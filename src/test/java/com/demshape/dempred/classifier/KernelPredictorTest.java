@@ -0,0 +1,43 @@
+package com.demshape.dempred.classifier;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.kernels.SimpleKernel;
+
+public class KernelPredictorTest extends TestCase {
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(7, 25, 4).target(0.5, 0.1, 1.0, 0.0, -2.0).groupThreshold(0.0).create();
+	}
+
+	public void testRidgeRegressionDualBias() {
+		Dataset<Datapoint> dataset = dataset();
+		RidgeRegressionDual<Datapoint> classifier = new RidgeRegressionDual<Datapoint>();
+		classifier.setKernel(new SimpleKernel());
+		classifier.setLambda(0.01);
+		classifier.learn(dataset);
+		PredictorInterface predictor = classifier.compile();
+		assertEquals(dataset.numFeatures(), predictor.numFeatures());
+		for (Datapoint datapoint : dataset.getDatapoints()) {
+			double expected = 0.0;
+			for (int i = 0; i < classifier.getTrainVectors().length; ++i)
+				expected += classifier.getAlpha().get(i) * classifier.getTrainVectors()[i].scalarProduct(datapoint.getFeatureVector().clone().extendByOne(1.0));
+			expected += classifier.getOffset();
+			assertEquals(expected, classifier.predict(datapoint), 1e-10);
+			assertEquals(expected, predictor.predict(datapoint.getFeatureVector()), 1e-10);
+			assertEquals(expected, predictor.predict(datapoint.getFeatureVector().getElements()), 1e-10);
+		}
+		Dataset<Datapoint> packed = dataset().packSparse();
+		for (int i = 0; i < packed.size(); ++i)
+			assertEquals(predictor.predict(dataset.getDatapoint(i).getFeatureVector()), predictor.predict(packed.getDatapoint(i).getFeatureVector()), 1e-12);
+		try {
+			predictor.predict(new double[dataset.numFeatures() + 1]);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.demshape.dempred.classifier;
+
+import java.lang.reflect.Field;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.resampling.CrossvalidationError;
+import com.demshape.dempred.util.RandomNumber;
+
+public class RacingOptimizerTest extends TestCase {
+
+	private static final double[] LAMBDAS = { 0.8, 0.3, 0.1, 0.01, 0.001 };
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(7, 60, 4).target(0.5, 0.3, 1.0, -2.0, 0.5, 0.0).create();
+	}
+
+	private static Field lambda2() throws Exception {
+		Field field = AbstractLinearClassifier.class.getDeclaredField("lambda2");
+		field.setAccessible(true);
+		return field;
+	}
+
+	private static CrossvalidationError<Datapoint> resampler() {
+		CrossvalidationError<Datapoint> resampler = new CrossvalidationError<Datapoint>(3, 1, new Mse<Datapoint>(), false, false);
+		resampler.setSeed(11);
+		return resampler;
+	}
+
+	private RacingOptimizer<Datapoint> race(int numThreads) throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setLambda2(0.5);
+		CrossvalidationError<Datapoint> resampler = resampler();
+		RacingOptimizer<Datapoint> optimizer = new RacingOptimizer<Datapoint>(classifier, dataset(), resampler, lambda2(), LAMBDAS);
+		optimizer.setMaxEvaluations(4);
+		optimizer.setNumThreads(numThreads);
+		optimizer.race();
+		assertEquals(0.5, classifier.getLambda2(), 0.0);
+		assertNull(classifier.getWeight());
+		assertEquals(11, resampler.getSeed());
+		optimizer.setBest();
+		assertEquals(optimizer.bestValue(), classifier.getLambda2());
+		return optimizer;
+	}
+
+	public void testBestValue() throws Exception {
+		RacingOptimizer<Datapoint> optimizer = race(1);
+		double[] errors = optimizer.getErrors();
+		int[] numEvaluations = optimizer.getNumEvaluations();
+		int maxEvaluations = 0;
+		for (int i = 0; i < LAMBDAS.length; ++i)
+			maxEvaluations = Math.max(maxEvaluations, numEvaluations[i]);
+		assertEquals(4, maxEvaluations);
+		int best = -1;
+		for (int i = 0; i < LAMBDAS.length; ++i) {
+			// the mean of the errors on the folds of the evaluations
+			CrossvalidationError<Datapoint> resampler = resampler();
+			double sum = 0.0;
+			for (int e = 0; e < numEvaluations[i]; ++e) {
+				RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+				classifier.setLambda2(LAMBDAS[i]);
+				resampler.setSeed(RandomNumber.splitSeed(11, e));
+				sum += resampler.error(classifier, dataset());
+			}
+			assertEquals(sum / numEvaluations[i], errors[i], 1e-12);
+			if (numEvaluations[i] == maxEvaluations && (best < 0 || errors[i] < errors[best]))
+				best = i;
+		}
+		assertEquals(LAMBDAS[best], optimizer.bestValue());
+		assertTrue(LAMBDAS[best] <= 0.01);
+	}
+
+	public void testNumThreads() throws Exception {
+		RacingOptimizer<Datapoint> sequential = race(1);
+		for (int numThreads = 2; numThreads <= 4; numThreads += 2) {
+			RacingOptimizer<Datapoint> concurrent = race(numThreads);
+			assertEquals(sequential.bestValue(), concurrent.bestValue());
+			assertEquals(sequential.getNumFits(), concurrent.getNumFits());
+			double[] errors = concurrent.getErrors();
+			int[] numEvaluations = concurrent.getNumEvaluations();
+			for (int i = 0; i < LAMBDAS.length; ++i) {
+				assertEquals(sequential.getNumEvaluations()[i], numEvaluations[i]);
+				assertEquals(sequential.getErrors()[i], errors[i], 0.0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.demshape.dempred.classifier;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.lossfunction.LogisticRegression;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.resampling.CrossvalidationError;
+
+public class RegularizationPathTest extends TestCase {
+
+	private static final double[] LAMBDAS = { 0.001, 0.3, 0.01, 0.1 };
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(13, 120, 4).target(0.2, 1.0, 1.5, -1.0, 0.5, 0.0).groupThreshold(0.0).create();
+	}
+
+	private WrapperPrimal<Datapoint> logistic() {
+		WrapperPrimal<Datapoint> classifier = new WrapperPrimal<Datapoint>();
+		classifier.setLossFunction(new LogisticRegression<Datapoint>());
+		classifier.setSolver(0);
+		classifier.setGradLength(1e-6);
+		return classifier;
+	}
+
+	private RidgeRegressionPrimal<Datapoint> ridge() {
+		return new RidgeRegressionPrimal<Datapoint>();
+	}
+
+	// a clone of the classifier with lambda2 which learns the dataset from zero weights
+	private VectorInterface coldStart(AbstractLinearClassifier<Datapoint> classifier, double lambda2, Dataset<Datapoint> dataset) throws Exception {
+		AbstractLinearClassifier<Datapoint> copy = (AbstractLinearClassifier<Datapoint>) classifier.clone();
+		copy.setLambda2(lambda2);
+		copy.learn(dataset);
+		return copy.getWeight();
+	}
+
+	private void assertFitMatchesLearn(AbstractLinearClassifier<Datapoint> classifier, LossFunctionInterface<Datapoint> lossFunction, double delta) throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		RegularizationPath<Datapoint> path = new RegularizationPath<Datapoint>(classifier, LAMBDAS, lossFunction, false, false);
+		path.fit(dataset, null);
+		double[] lambdas = path.getLambdas();
+		assertEquals(0.3, lambdas[0], 0.0);
+		assertEquals(0.001, lambdas[lambdas.length - 1], 0.0);
+		for (int i = 0; i < lambdas.length; ++i) {
+			VectorInterface expected = coldStart(classifier, lambdas[i], dataset);
+			VectorInterface actual = path.getWeights()[i];
+			assertEquals(expected.size(), actual.size());
+			for (int j = 0; j < expected.size(); ++j)
+				assertEquals(expected.get(j), actual.get(j), delta);
+			assertTrue(Double.isNaN(path.getValidationErrors()[i]));
+		}
+		assertNull(classifier.getWeight());
+	}
+
+	private void assertCrossValidateMatchesError(AbstractLinearClassifier<Datapoint> classifier, LossFunctionInterface<Datapoint> lossFunction, boolean groupAveraging, double delta) throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		RegularizationPath<Datapoint> path = new RegularizationPath<Datapoint>(classifier, LAMBDAS, lossFunction, groupAveraging, false);
+		path.setSeed(17);
+		path.setNumThreads(3);
+		double[] errors = path.crossValidate(dataset, 4, 2);
+		double[] lambdas = path.getLambdas();
+		int best = 0;
+		for (int i = 0; i < lambdas.length; ++i) {
+			CrossvalidationError<Datapoint> resampler = new CrossvalidationError<Datapoint>(4, 2, lossFunction, groupAveraging, false);
+			resampler.setSeed(17);
+			AbstractLinearClassifier<Datapoint> copy = (AbstractLinearClassifier<Datapoint>) classifier.clone();
+			copy.setLambda2(lambdas[i]);
+			assertEquals(resampler.error(copy, dataset), errors[i], delta);
+			if (errors[i] < errors[best])
+				best = i;
+		}
+		assertEquals(lambdas[best], path.bestLambda(), 0.0);
+		path.setBest();
+		assertEquals(lambdas[best], classifier.getLambda2(), 0.0);
+	}
+
+	public void testFitMatchesColdStart() throws Exception {
+		assertFitMatchesLearn(logistic(), new LogisticRegression<Datapoint>(), 1e-4);
+		assertFitMatchesLearn(ridge(), new Mse<Datapoint>(), 1e-10);
+	}
+
+	public void testCrossValidateMatchesCrossvalidationError() throws Exception {
+		assertCrossValidateMatchesError(logistic(), new LogisticRegression<Datapoint>(), true, 1e-6);
+		assertCrossValidateMatchesError(ridge(), new Mse<Datapoint>(), false, 1e-10);
+	}
+
+}
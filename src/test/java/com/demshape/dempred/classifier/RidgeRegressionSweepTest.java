@@ -0,0 +1,78 @@
+package com.demshape.dempred.classifier;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.math.DenseVector;
+
+public class RidgeRegressionSweepTest extends TestCase {
+
+	private static final double[] LAMBDAS = { 0.0, 1e-4, 0.01, 0.3, 0.9 };
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(19, 35, 5).shift(1.0).target(1.5, 0.3, 1.0, 0.0, 0.0, 0.0, -0.7).positiveFraction(0.4).weights(0.2, 1.2).create();
+	}
+
+	private void assertSweep(RidgeRegressionPrimal<Datapoint> classifier) {
+		Dataset<Datapoint> dataset = dataset();
+		RidgeRegressionSweep sweep = RidgeRegressionSweep.create(classifier, dataset);
+		assertEquals(dataset.numFeatures(), sweep.numFeatures());
+		for (double lambda2 : LAMBDAS) {
+			classifier.setLambda2(lambda2);
+			classifier.learn(dataset);
+			double[] weight = sweep.weight(lambda2);
+			assertEquals(classifier.getWeight().size(), weight.length);
+			for (int i = 0; i < weight.length; ++i)
+				assertEquals(classifier.getWeight().get(i), weight[i], 1e-8);
+		}
+	}
+
+	public void testPlain() {
+		assertSweep(new RidgeRegressionPrimal<Datapoint>());
+	}
+
+	public void testGroupAveragingAndWeights() {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setGroupAveraging(true);
+		classifier.setW_plus(0.3);
+		classifier.setUseDWeights(true);
+		assertSweep(classifier);
+	}
+
+	public void testEpsilon() {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setEpsilon(new DenseVector(new double[] { 1.0, 0.5, 2.0, 4.0, 0.1 }));
+		assertSweep(classifier);
+	}
+
+	public void testTrainError() {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		Dataset<Datapoint> dataset = dataset();
+		RidgeRegressionSweep sweep = RidgeRegressionSweep.create(classifier, dataset);
+		double[] errors = sweep.trainErrors(LAMBDAS);
+		for (int l = 0; l < LAMBDAS.length; ++l) {
+			PredictorInterface predictor = new LinearPredictor(new DenseVector(sweep.weight(LAMBDAS[l])));
+			double error = 0.0;
+			for (Datapoint datapoint : dataset.getDatapoints())
+				error += Math.pow(datapoint.getValue() - predictor.predict(datapoint.getFeatureVector()), 2) / dataset.size();
+			assertEquals(error, errors[l], 1e-9);
+			if (l > 0)
+				assertTrue(errors[l] >= errors[l - 1] - 1e-12);
+		}
+	}
+
+	public void testApply() {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		RidgeRegressionSweep.create(classifier, dataset()).apply(classifier, 0.2);
+		assertEquals(0.2, classifier.getLambda2(), 0.0);
+		assertEquals(dataset().numFeatures() + 1, classifier.getWeight().size());
+		try {
+			RidgeRegressionSweep.create(classifier, dataset()).weight(1.0);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.demshape.dempred.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.grouper.GrouperInterface;
+import com.demshape.dempred.util.ThreadTools;
+
+public class SynchronizedPredictorTest extends TestCase {
+
+	// a classifier which can not be compiled, it overwrites a field on every prediction
+	private static class Delegate implements ClassifierInterface<Datapoint> {
+		private final RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		private Datapoint last;
+
+		public void learn(Dataset<Datapoint> dataset) throws Exception {
+			classifier.learn(dataset);
+		}
+
+		public void predict(Dataset<Datapoint> dataset) throws Exception {
+			for (Datapoint datapoint : dataset.getDatapoints())
+				predict(datapoint);
+		}
+
+		public double predict(Datapoint datapoint) throws Exception {
+			last = datapoint;
+			Thread.yield();
+			double value = classifier.predict(last);
+			last.setPredictedValue(value);
+			return value;
+		}
+
+		public void setGrouper(GrouperInterface grouper) {
+			classifier.setGrouper(grouper);
+		}
+
+		public GrouperInterface getGrouper() {
+			return classifier.getGrouper();
+		}
+
+		public ClassifierInterface<Datapoint> clone() {
+			return null;
+		}
+	}
+
+	public void testMatchesClassifier() throws Exception {
+		final Dataset<Datapoint> dataset = new RandomDataset(9, 40, 3).target(0.5, 0.2, 1.0, -1.0, 0.5).create();
+		Delegate delegate = new Delegate();
+		delegate.classifier.setLambda2(0.01);
+		delegate.learn(dataset);
+		final PredictorInterface predictor = ClassifierTools.compile(delegate);
+		assertTrue(predictor instanceof SynchronizedPredictor);
+		assertEquals(0, predictor.numFeatures());
+		final PredictorInterface expected = delegate.classifier.compile();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int t = 0; t < 4; ++t) {
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					for (int round = 0; round < 50; ++round) {
+						for (Datapoint datapoint : dataset.getDatapoints()) {
+							double value = expected.predict(datapoint.getFeatureVector());
+							assertEquals(value, predictor.predict(datapoint.getFeatureVector()), 1e-12);
+							assertEquals(value, predictor.predict(datapoint.getFeatureVector().getElements()), 1e-12);
+						}
+					}
+					return null;
+				}
+			});
+		}
+		ThreadTools.invokeAll(tasks, 4);
+		// the datapoints of the dataset are not predicted
+		for (Datapoint datapoint : dataset.getDatapoints())
+			assertTrue(Double.isNaN(datapoint.getPredictedValue()));
+	}
+
+	public void testTemplate() throws Exception {
+		Dataset<Datapoint> dataset = new RandomDataset(9, 10, 3).create();
+		PredictorInterface predictor = ClassifierTools.compile(new Delegate(), dataset.getDatapoint(0));
+		assertEquals(3, predictor.numFeatures());
+		try {
+			predictor.predict(new double[2]);
+			fail("The number of features must be checked");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.demshape.dempred.classifier;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.lossfunction.LogisticRegression;
+import com.demshape.dempred.math.VectorInterface;
+
+public class WrapperPrimalTest extends TestCase {
+
+	// features 2 and 3 do not influence the group
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(41, 200, 4).target(0.0, 1.0, 1.5, -1.0, 0.0, 0.0).groupThreshold(0.0).create();
+	}
+
+	private WrapperPrimal<Datapoint> classifier(int solver, double lambda1, double lambda2) {
+		WrapperPrimal<Datapoint> classifier = new WrapperPrimal<Datapoint>();
+		classifier.setLossFunction(new LogisticRegression<Datapoint>());
+		classifier.setSolver(solver);
+		classifier.setGradLength(1e-6);
+		classifier.setLambda1(lambda1);
+		classifier.setLambda2(lambda2);
+		return classifier;
+	}
+
+	private WrapperPrimal<Datapoint> sgd(int sgdMethod, double lambda1, double lambda2) {
+		WrapperPrimal<Datapoint> classifier = classifier(4, lambda1, lambda2);
+		classifier.setGradLength(0.0);
+		classifier.setSgdMethod(sgdMethod);
+		classifier.setBatchSize(20);
+		classifier.setNumEpochs(400);
+		classifier.setLearnRate(sgdMethod == 0 ? 0.05 : 0.5);
+		classifier.setAveraging(true);
+		classifier.setSeed(5);
+		return classifier;
+	}
+
+	private void assertSameWeights(VectorInterface expected, VectorInterface actual, double delta) {
+		assertEquals(expected.size(), actual.size());
+		for (int j = 0; j < expected.size(); ++j)
+			assertEquals(expected.get(j), actual.get(j), delta);
+	}
+
+	public void testSGDReachesBFGSOptimum() throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		WrapperPrimal<Datapoint> bfgs = classifier(0, 0.0, 0.01);
+		bfgs.learn(dataset);
+		for (int sgdMethod : new int[] { 0, 1 }) {
+			WrapperPrimal<Datapoint> sgd = sgd(sgdMethod, 0.0, 0.01);
+			sgd.learn(dataset);
+			assertSameWeights(bfgs.getWeight(), sgd.getWeight(), 0.02);
+		}
+	}
+
+	public void testSGDReachesOWLQNOptimum() throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		WrapperPrimal<Datapoint> owlqn = classifier(2, 0.05, 0.01);
+		owlqn.learn(dataset);
+		for (int sgdMethod : new int[] { 0, 1 }) {
+			WrapperPrimal<Datapoint> sgd = sgd(sgdMethod, 0.05, 0.01);
+			sgd.learn(dataset);
+			// owlqn also penalizes the bias, so only the features are compared
+			for (int j = 0; j < dataset.numFeatures(); ++j)
+				assertEquals(owlqn.getWeight().get(j), sgd.getWeight().get(j), 0.02);
+		}
+	}
+
+	public void testProximalStepGivesExactZeros() throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		for (int sgdMethod : new int[] { 0, 1 }) {
+			WrapperPrimal<Datapoint> sgd = sgd(sgdMethod, 0.05, 0.01);
+			sgd.setAveraging(false);
+			sgd.learn(dataset);
+			assertEquals(0.0, sgd.getWeight().get(2), 0.0);
+			assertEquals(0.0, sgd.getWeight().get(3), 0.0);
+			assertTrue(sgd.getWeight().get(0) > 0.0);
+			assertTrue(sgd.getWeight().get(1) < 0.0);
+		}
+	}
+
+}
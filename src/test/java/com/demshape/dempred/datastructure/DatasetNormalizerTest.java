@@ -0,0 +1,88 @@
+package com.demshape.dempred.datastructure;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.math.DenseVector;
+
+public class DatasetNormalizerTest extends TestCase {
+
+	// half of the features are zero, feature 1 is always zero and feature 3 is constant
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(11, 20, 6).density(0.5).constant(1, 0.0).constant(3, 2.0).create();
+	}
+
+	private void assertSameFeatures(Dataset<Datapoint> expected, Dataset<Datapoint> actual) {
+		assertEquals(expected.numFeatures(), actual.numFeatures());
+		for (int i = 0; i < expected.size(); ++i) {
+			for (int j = 0; j < expected.numFeatures(); ++j)
+				assertEquals(expected.getDatapoint(i).getFeatureAt(j), actual.getDatapoint(i).getFeatureAt(j), 1e-12);
+		}
+	}
+
+	public void testStandardizeSparse() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		DatasetNormalizer denseNormalizer = new DatasetNormalizer(dense);
+		DatasetNormalizer sparseNormalizer = new DatasetNormalizer(sparse);
+		assertTrue(Arrays.equals(new int[] { 1, 3 }, sparseNormalizer.getZeroIndices()));
+		assertTrue(Arrays.equals(denseNormalizer.getZeroIndices(), sparseNormalizer.getZeroIndices()));
+		for (int j = 0; j < 4; ++j) {
+			assertEquals(denseNormalizer.getMeanVector().get(j), sparseNormalizer.getMeanVector().get(j), 1e-12);
+			assertEquals(denseNormalizer.getStdVector().get(j), sparseNormalizer.getStdVector().get(j), 1e-12);
+		}
+		denseNormalizer.normalize(dense);
+		sparseNormalizer.normalize(sparse);
+		assertSameFeatures(dense, sparse);
+		assertEquals(0.0, sparseNormalizer.getMean(sparse).normRadical(2), 1e-12);
+	}
+
+	public void testScaleOnlySparse() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		DatasetNormalizer denseNormalizer = new DatasetNormalizer(dense, true);
+		DatasetNormalizer sparseNormalizer = new DatasetNormalizer(sparse, true);
+		denseNormalizer.normalize(dense);
+		sparseNormalizer.normalize(sparse);
+		assertTrue(sparse.isSparse());
+		assertSameFeatures(dense, sparse);
+	}
+
+	public void testConstantColumn() {
+		for (boolean scaleOnly : new boolean[] { false, true }) {
+			Dataset<Datapoint> dense = new RandomDataset(17, 20, 3).constant(1, 1.7).create();
+			Dataset<Datapoint> sparse = new RandomDataset(17, 20, 3).constant(1, 1.7).create().packSparse();
+			DenseVector[] moments = new DatasetNormalizer().getSparseMoments(sparse);
+			assertEquals(1.7, moments[0].get(1));
+			assertEquals(0.0, moments[1].get(1));
+			DatasetNormalizer denseNormalizer = new DatasetNormalizer(dense, scaleOnly);
+			DatasetNormalizer sparseNormalizer = new DatasetNormalizer(sparse, scaleOnly);
+			assertTrue(Arrays.equals(new int[] { 1 }, denseNormalizer.getZeroIndices()));
+			assertTrue(Arrays.equals(new int[] { 1 }, sparseNormalizer.getZeroIndices()));
+			denseNormalizer.normalize(dense);
+			sparseNormalizer.normalize(sparse);
+			assertSameFeatures(dense, sparse);
+			for (int i = 0; i < dense.size(); ++i) {
+				for (int j = 0; j < 2; ++j)
+					assertTrue(Math.abs(dense.getDatapoint(i).getFeatureAt(j)) < 10);
+			}
+		}
+	}
+
+	public void testNormalizeSparseDatapoint() {
+		for (boolean scaleOnly : new boolean[] { false, true }) {
+			Dataset<Datapoint> dense = dataset();
+			Dataset<Datapoint> sparse = dataset().packSparse();
+			DatasetNormalizer normalizer = new DatasetNormalizer(dense, scaleOnly);
+			for (int i = 0; i < dense.size(); ++i) {
+				normalizer.normalize(dense.getDatapoint(i));
+				normalizer.normalize(sparse.getDatapoint(i));
+				assertEquals(4, sparse.getDatapoint(i).getNumFeatures());
+				for (int j = 0; j < 4; ++j)
+					assertEquals(dense.getDatapoint(i).getFeatureAt(j), sparse.getDatapoint(i).getFeatureAt(j), 1e-12);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package com.demshape.dempred.datastructure;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.math.DenseVector;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.resampling.CrossValidation;
+
+public class DatasetStorageTest extends TestCase {
+
+	private static final int NUM_FEATURES = 7;
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(5, 30, NUM_FEATURES).density(0.4).create();
+	}
+
+	private void assertSameRow(VectorInterface expected, VectorInterface actual) {
+		assertEquals(expected.size(), actual.size());
+		double[] weights = new double[expected.size()];
+		for (int j = 0; j < weights.length; ++j) {
+			assertEquals(expected.get(j), actual.get(j), 0.0);
+			weights[j] = j + 1.0;
+		}
+		assertEquals(expected.scalarProduct(weights), actual.scalarProduct(weights), 1e-12);
+		assertEquals(expected.scalarProduct(new DenseVector(weights)), actual.scalarProduct(new DenseVector(weights)), 1e-12);
+		double[] expectedSum = new double[weights.length];
+		double[] actualSum = new double[weights.length];
+		expected.addTo(expectedSum, 2.0);
+		actual.addTo(actualSum, 2.0);
+		for (int j = 0; j < weights.length; ++j)
+			assertEquals(expectedSum[j], actualSum[j], 0.0);
+	}
+
+	private void assertSameRows(Dataset<Datapoint> expected, Dataset<Datapoint> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+			assertSameRow(expected.getDatapoint(i).getFeatureVector(), actual.getDatapoint(i).getFeatureVector());
+	}
+
+	public void testPacked() {
+		Dataset<Datapoint> packed = dataset().pack();
+		assertTrue(packed.isPacked());
+		assertSameRows(dataset(), packed);
+	}
+
+	public void testSparse() {
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		assertTrue(sparse.isSparse());
+		assertSameRows(dataset(), sparse);
+		Dataset<Datapoint> dense = dataset();
+		dense.extend(1.0);
+		sparse.extend(1.0);
+		assertSameRows(dense, sparse);
+	}
+
+	public void testView() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		int[] indices = { 3, 0, 17, 3, 29 };
+		Dataset<Datapoint> view = sparse.view(indices);
+		assertTrue(view.isView());
+		int numPositive = 0;
+		for (int i = 0; i < indices.length; ++i) {
+			assertSameRow(dense.getDatapoint(indices[i]).getFeatureVector(), view.getDatapoint(i).getFeatureVector());
+			if (dense.getDatapoint(indices[i]).getGroup() == 1)
+				++numPositive;
+		}
+		assertEquals(numPositive, view.groupQuantity(1));
+		assertEquals(indices.length - numPositive, view.groupQuantity(-1));
+	}
+
+	public void testProject() {
+		assertProjection(dataset());
+		assertProjection(dataset().pack());
+		assertProjection(dataset().packSparse());
+	}
+
+	private void assertProjection(Dataset<Datapoint> dataset) {
+		Dataset<Datapoint> dense = dataset();
+		int[] columns = { 5, 1, 2 };
+		Dataset<Datapoint> projection = dataset.project(columns);
+		assertEquals(columns.length, projection.numFeatures());
+		for (int i = 0; i < dense.size(); ++i) {
+			DenseVector expected = new DenseVector(columns.length);
+			for (int c = 0; c < columns.length; ++c)
+				expected.set(c, dense.getDatapoint(i).getFeatureAt(columns[c]));
+			assertSameRow(expected, projection.getDatapoint(i).getFeatureVector());
+		}
+	}
+
+	public void testFolds() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		CrossValidation<Datapoint> crossValidation = new CrossValidation<Datapoint>(sparse);
+		crossValidation.generateFolds(4, new Random(3));
+		for (int fold = 0; fold < 4; ++fold) {
+			Dataset<Datapoint> test = crossValidation.getFold(fold);
+			Dataset<Datapoint> train = crossValidation.getFoldsExcept(fold);
+			int[] trainIndices = crossValidation.getIndicesExcept(fold);
+			assertEquals(dense.size(), test.size() + train.size());
+			assertEquals(trainIndices.length, train.size());
+			int numPositive = 0;
+			for (int i = 0; i < train.size(); ++i) {
+				assertSameRow(dense.getDatapoint(trainIndices[i]).getFeatureVector(), train.getDatapoint(i).getFeatureVector());
+				if (train.getDatapoint(i).getGroup() == 1)
+					++numPositive;
+			}
+			assertEquals(numPositive, train.groupQuantity(1));
+			for (int i = 0; i < test.size(); ++i)
+				assertSameRow(dense.getDatapoint(crossValidation.getFoldIndex()[fold][i]).getFeatureVector(), test.getDatapoint(i).getFeatureVector());
+		}
+	}
+
+}
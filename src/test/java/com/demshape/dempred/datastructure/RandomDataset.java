@@ -0,0 +1,102 @@
+package com.demshape.dempred.datastructure;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.demshape.dempred.math.DenseVector;
+
+/**
+ * Seeded random datasets for the tests. The features are standard normal, shifted by shift * j in column j, and non zero with the probability
+ * density. The value is bias + coefficients * x plus normal noise, or standard normal without coefficients. The group is 1 if the value exceeds the
+ * group threshold, or drawn with the probability positiveFraction if no threshold is set. The weights are uniform in [minWeight, maxWeight].
+ */
+public class RandomDataset {
+
+	private final long seed;
+	private final int size;
+	private final int numFeatures;
+	private double density = 1.0;
+	private double shift;
+	private double bias;
+	private double noise;
+	private double[] coefficients;
+	private double groupThreshold = Double.NaN;
+	private double positiveFraction = 0.5;
+	private double minWeight = 1.0;
+	private double maxWeight = 1.0;
+	private double[] constants;
+
+	public RandomDataset(long seed, int size, int numFeatures) {
+		this.seed = seed;
+		this.size = size;
+		this.numFeatures = numFeatures;
+		constants = new double[numFeatures];
+		Arrays.fill(constants, Double.NaN);
+	}
+
+	public RandomDataset density(double density) {
+		this.density = density;
+		return this;
+	}
+
+	public RandomDataset shift(double shift) {
+		this.shift = shift;
+		return this;
+	}
+
+	public RandomDataset target(double bias, double noise, double... coefficients) {
+		this.bias = bias;
+		this.noise = noise;
+		this.coefficients = coefficients;
+		return this;
+	}
+
+	public RandomDataset groupThreshold(double groupThreshold) {
+		this.groupThreshold = groupThreshold;
+		return this;
+	}
+
+	public RandomDataset positiveFraction(double positiveFraction) {
+		this.positiveFraction = positiveFraction;
+		return this;
+	}
+
+	public RandomDataset weights(double minWeight, double maxWeight) {
+		this.minWeight = minWeight;
+		this.maxWeight = maxWeight;
+		return this;
+	}
+
+	public RandomDataset constant(int column, double value) {
+		constants[column] = value;
+		return this;
+	}
+
+	public Dataset<Datapoint> create() {
+		Random random = new Random(seed);
+		Dataset<Datapoint> dataset = new Dataset<Datapoint>();
+		for (int i = 0; i < size; ++i) {
+			DenseVector features = new DenseVector(numFeatures);
+			for (int j = 0; j < numFeatures; ++j) {
+				double value = random.nextDouble() < density ? random.nextGaussian() + shift * j : 0.0;
+				features.set(j, Double.isNaN(constants[j]) ? value : constants[j]);
+			}
+			double value = random.nextGaussian();
+			if (coefficients != null) {
+				value = bias + noise * value;
+				for (int j = 0; j < coefficients.length; ++j)
+					value += coefficients[j] * features.get(j);
+			}
+			Datapoint datapoint = new Datapoint();
+			datapoint.setFeatureVector(features);
+			datapoint.setValue(value);
+			if (Double.isNaN(groupThreshold))
+				datapoint.setGroup(random.nextDouble() < positiveFraction ? 1 : -1);
+			else
+				datapoint.setGroup(value > groupThreshold ? 1 : -1);
+			datapoint.setWeight(minWeight + (maxWeight - minWeight) * random.nextDouble());
+			dataset.addDatapoint(datapoint);
+		}
+		return dataset;
+	}
+}
@@ -0,0 +1,63 @@
+package com.demshape.dempred.featuregeneration;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.math.DenseVector;
+
+public class RandomFourierFeaturesTest extends TestCase {
+
+	private static final int NUM_COMPONENTS = 20000;
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(8, 12, 3).create();
+	}
+
+	private double dot(double[] a, double[] b) {
+		double sum = 0.0;
+		for (int i = 0; i < a.length; ++i)
+			sum += a[i] * b[i];
+		return sum;
+	}
+
+	public void testApproximatesKernel() throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		for (double gamma : new double[] { 0.1, 0.5, 2.0 }) {
+			RBFKernel kernel = new RBFKernel(1.0);
+			kernel.setGamma(gamma);
+			RandomFourierFeatures<Datapoint> generator = new RandomFourierFeatures<Datapoint>(kernel, NUM_COMPONENTS, 7);
+			assertEquals(gamma, generator.getGamma());
+			double[][] features = new double[dataset.size()][];
+			for (int i = 0; i < dataset.size(); ++i) {
+				features[i] = generator.generateFeature(dataset.getDatapoint(i));
+				assertEquals(NUM_COMPONENTS, features[i].length);
+			}
+			for (int i = 0; i < dataset.size(); ++i) {
+				for (int j = 0; j < dataset.size(); ++j) {
+					double expected = kernel.evaluate(dataset.getDatapoint(i).getFeatureVector(), dataset.getDatapoint(j).getFeatureVector());
+					assertEquals(expected, dot(features[i], features[j]), 0.03);
+				}
+			}
+		}
+	}
+
+	public void testSameSeedSameFeatures() throws Exception {
+		Datapoint datapoint = dataset().getDatapoint(0);
+		RandomFourierFeatures<Datapoint> first = new RandomFourierFeatures<Datapoint>(0.5, 50, 3);
+		RandomFourierFeatures<Datapoint> second = new RandomFourierFeatures<Datapoint>(0.5, 50, 3);
+		RandomFourierFeatures<Datapoint> other = new RandomFourierFeatures<Datapoint>(0.5, 50, 4);
+		assertTrue(Arrays.equals(first.generateFeature(datapoint), second.generateFeature(datapoint)));
+		assertFalse(Arrays.equals(first.generateFeature(datapoint), other.generateFeature(datapoint)));
+		try {
+			first.generateFeature(new DenseVector(4));
+			fail("The input dimension must be checked");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.demshape.dempred.kernels;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.util.ThreadTools;
+
+public class KernelMatrixTest extends TestCase {
+
+	// 65 and 130 vectors end one and two elements behind a tile boundary
+	private static final int[] SIZES = { 1, 65, 130 };
+
+	private VectorInterface[] vectors(int size) {
+		Dataset<Datapoint> dataset = new RandomDataset(size, size, 5).density(0.6).create().packSparse();
+		VectorInterface[] vectors = new VectorInterface[size];
+		for (int i = 0; i < size; ++i)
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector();
+		return vectors;
+	}
+
+	private KernelInterface[] kernels() {
+		return new KernelInterface[] { new RBFKernel(1.5), new PolynomialKernel(2, 0.5, 1.0), new SimpleKernel() };
+	}
+
+	private void assertMatrix(KernelInterface kernel, VectorInterface[] vectors, KernelMatrix matrix, double delta) {
+		assertEquals(vectors.length, matrix.size());
+		double[][] array = matrix.toArray();
+		for (int i = 0; i < vectors.length; ++i) {
+			double[] row = matrix.getRow(i);
+			for (int j = 0; j < vectors.length; ++j) {
+				double expected = kernel.evaluate(vectors[i], vectors[j]);
+				assertEquals(expected, matrix.get(i, j), delta);
+				assertEquals(expected, row[j], delta);
+				assertEquals(expected, array[i][j], delta);
+			}
+		}
+	}
+
+	public void testMatchesKernel() {
+		for (int size : SIZES) {
+			VectorInterface[] vectors = vectors(size);
+			for (KernelInterface kernel : kernels()) {
+				for (boolean useFloat : new boolean[] { false, true }) {
+					double delta = useFloat ? 1e-5 : 1e-12;
+					for (int numThreads : new int[] { 1, 3 }) {
+						KernelMatrix matrix = new KernelMatrix(kernel, vectors, useFloat, numThreads);
+						assertEquals(useFloat, matrix.isFloat());
+						assertMatrix(kernel, vectors, matrix, delta);
+					}
+					ExecutorService executor = ThreadTools.newDaemonPool(2);
+					try {
+						assertMatrix(kernel, vectors, new KernelMatrix(kernel, vectors, useFloat, executor), delta);
+					} finally {
+						executor.shutdown();
+					}
+				}
+			}
+		}
+	}
+
+	public void testSubMatrix() {
+		VectorInterface[] vectors = vectors(130);
+		int[] indices = { 129, 3, 64, 65, 3, 0, 100 };
+		VectorInterface[] subset = new VectorInterface[indices.length];
+		for (int i = 0; i < indices.length; ++i)
+			subset[i] = vectors[indices[i]];
+		for (boolean useFloat : new boolean[] { false, true }) {
+			KernelInterface kernel = new RBFKernel(1.5);
+			KernelMatrix subMatrix = new KernelMatrix(kernel, vectors, useFloat, 3).subMatrix(indices);
+			assertEquals(useFloat, subMatrix.isFloat());
+			assertMatrix(kernel, subset, subMatrix, useFloat ? 1e-5 : 1e-12);
+		}
+	}
+
+	public void testMultiply() {
+		Random random = new Random(3);
+		for (int size : SIZES) {
+			VectorInterface[] vectors = vectors(size);
+			double[] a = new double[size];
+			for (int i = 0; i < size; ++i)
+				a[i] = random.nextDouble() < 0.3 ? 0.0 : random.nextGaussian();
+			for (KernelInterface kernel : kernels()) {
+				double[] expected = new double[size];
+				for (int i = 0; i < size; ++i) {
+					for (int j = 0; j < size; ++j)
+						expected[i] += kernel.evaluate(vectors[i], vectors[j]) * a[j];
+				}
+				for (boolean useFloat : new boolean[] { false, true }) {
+					double[] result = new double[size];
+					Arrays.fill(result, Double.NaN);
+					new KernelMatrix(kernel, vectors, useFloat, 3).multiply(a, result);
+					for (int i = 0; i < size; ++i)
+						assertEquals(expected[i], result[i], useFloat ? 1e-4 : 1e-10);
+				}
+			}
+		}
+	}
+
+}
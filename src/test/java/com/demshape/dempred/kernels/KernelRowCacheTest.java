@@ -0,0 +1,72 @@
+package com.demshape.dempred.kernels;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.math.VectorInterface;
+
+public class KernelRowCacheTest extends TestCase {
+
+	private static final int SIZE = 65;
+
+	private VectorInterface[] vectors() {
+		Dataset<Datapoint> dataset = new RandomDataset(23, SIZE, 4).density(0.6).create().packSparse();
+		VectorInterface[] vectors = new VectorInterface[SIZE];
+		for (int i = 0; i < SIZE; ++i)
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector();
+		return vectors;
+	}
+
+	// a budget of two rows and one for all rows
+	private KernelRowCache[] caches(KernelInterface kernel, VectorInterface[] vectors) {
+		KernelRowCache small = new KernelRowCache(kernel, vectors, 1e-9);
+		KernelRowCache large = new KernelRowCache(kernel, vectors, 1.0);
+		assertEquals(2, small.getMaxRows());
+		assertEquals(SIZE, large.getMaxRows());
+		return new KernelRowCache[] { small, large };
+	}
+
+	public void testRows() {
+		VectorInterface[] vectors = vectors();
+		KernelInterface kernel = new RBFKernel(0.8);
+		Random random = new Random(4);
+		for (KernelRowCache cache : caches(kernel, vectors)) {
+			assertEquals(SIZE, cache.size());
+			for (int k = 0; k < 3 * SIZE; ++k) {
+				int i = random.nextInt(SIZE);
+				int j = random.nextInt(SIZE);
+				double expected = kernel.evaluate(vectors[i], vectors[j]);
+				assertEquals(expected, cache.get(i, j), 1e-12);
+				assertEquals(expected, cache.getRow(i)[j], 1e-12);
+				assertEquals(expected, cache.get(j, i), 1e-12);
+			}
+		}
+	}
+
+	public void testMultiply() {
+		VectorInterface[] vectors = vectors();
+		KernelInterface kernel = new PolynomialKernel(2, 0.5, 1.0);
+		Random random = new Random(5);
+		for (KernelRowCache cache : caches(kernel, vectors)) {
+			// the rows are visited alternately forward and backward
+			for (int round = 0; round < 3; ++round) {
+				double[] a = new double[SIZE];
+				for (int j = 0; j < SIZE; ++j)
+					a[j] = random.nextDouble() < 0.5 ? 0.0 : random.nextGaussian();
+				double[] result = new double[SIZE];
+				cache.multiply(a, result);
+				for (int i = 0; i < SIZE; ++i) {
+					double expected = 0.0;
+					for (int j = 0; j < SIZE; ++j)
+						expected += kernel.evaluate(vectors[i], vectors[j]) * a[j];
+					assertEquals(expected, result[i], 1e-10);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.demshape.dempred.kernels;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.math.VectorInterface;
+import com.demshape.dempred.math.VectorMetric;
+
+public class KernelTest extends TestCase {
+
+	private static final int SIZE = 30;
+	private static final int NUM_FEATURES = 5;
+
+	private VectorInterface[] vectors(boolean sparse) {
+		Dataset<Datapoint> dataset = new RandomDataset(17, SIZE, NUM_FEATURES).density(0.6).create();
+		if (sparse)
+			dataset.packSparse();
+		VectorInterface[] vectors = new VectorInterface[SIZE];
+		for (int i = 0; i < SIZE; ++i)
+			vectors[i] = dataset.getDatapoint(i).getFeatureVector();
+		return vectors;
+	}
+
+	private double dot(VectorInterface a, VectorInterface b) {
+		double sum = 0.0;
+		for (int j = 0; j < NUM_FEATURES; ++j)
+			sum += a.get(j) * b.get(j);
+		return sum;
+	}
+
+	private double distance(VectorInterface a, VectorInterface b) {
+		double sum = 0.0;
+		for (int j = 0; j < NUM_FEATURES; ++j)
+			sum += (a.get(j) - b.get(j)) * (a.get(j) - b.get(j));
+		return sum;
+	}
+
+	// evaluates the kernel element by element
+	private double naive(KernelInterface kernel, VectorInterface a, VectorInterface b) {
+		if (kernel instanceof RBFKernel)
+			return Math.exp(-((RBFKernel) kernel).getGamma() * distance(a, b));
+		if (kernel instanceof PolynomialKernel) {
+			PolynomialKernel polynomial = (PolynomialKernel) kernel;
+			return Math.pow(polynomial.getFactor() * dot(a, b) + polynomial.getOffset(), polynomial.getDegree());
+		}
+		if (kernel instanceof SigmoidKernel) {
+			SigmoidKernel sigmoid = (SigmoidKernel) kernel;
+			return Math.tanh(sigmoid.getFactor() * dot(a, b) + sigmoid.getOffset());
+		}
+		return dot(a, b);
+	}
+
+	public void testEvaluate() {
+		KernelInterface[] kernels = { new RBFKernel(1.2), new PolynomialKernel(3, 0.5, 1.0), new SigmoidKernel(0.3, -0.2), new SimpleKernel() };
+		for (boolean sparse : new boolean[] { false, true }) {
+			VectorInterface[] vectors = vectors(sparse);
+			double[] sqNorms = VectorMetric.squaredNorms(vectors);
+			for (KernelInterface kernel : kernels) {
+				double[] all = new double[SIZE];
+				double[] allWithoutNorms = new double[SIZE];
+				for (int i = 0; i < SIZE; ++i) {
+					kernel.evaluateAll(vectors[i], vectors, sqNorms, all);
+					kernel.evaluateAll(vectors[i], vectors, null, allWithoutNorms);
+					for (int j = 0; j < SIZE; ++j) {
+						double expected = naive(kernel, vectors[i], vectors[j]);
+						assertEquals(expected, kernel.evaluate(vectors[i], vectors[j]), 1e-12);
+						assertEquals(expected, kernel.evaluate(vectors[i], vectors[j], sqNorms[i], sqNorms[j]), 1e-12);
+						assertEquals(expected, all[j], 1e-12);
+						assertEquals(expected, allWithoutNorms[j], 1e-12);
+					}
+				}
+			}
+		}
+	}
+
+	public void testRBFOfEqualVectors() {
+		VectorInterface[] vectors = vectors(false);
+		double[] sqNorms = VectorMetric.squaredNorms(vectors);
+		KernelInterface kernel = new RBFKernel(0.01);
+		for (int i = 0; i < SIZE; ++i) {
+			double value = kernel.evaluate(vectors[i], vectors[i], sqNorms[i], sqNorms[i]);
+			assertTrue(value <= 1.0);
+			assertEquals(1.0, value, 1e-9);
+		}
+	}
+
+}
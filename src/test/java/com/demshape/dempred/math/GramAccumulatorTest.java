@@ -0,0 +1,94 @@
+package com.demshape.dempred.math;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+
+public class GramAccumulatorTest extends TestCase {
+
+	private static final int NUM_FEATURES = 5;
+
+	// more rows than one block, a third of the elements are zero
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(37, 2 * GramAccumulator.BLOCK_SIZE + 17, NUM_FEATURES).density(0.7).weights(0.0, 1.0).create();
+	}
+
+	private GramAccumulator accumulate(Dataset<Datapoint> dataset, int from, int to) {
+		GramAccumulator accumulator = new GramAccumulator(NUM_FEATURES);
+		for (int i = from; i < to; ++i) {
+			Datapoint datapoint = dataset.getDatapoint(i);
+			accumulator.add(datapoint.getFeatureVector(), datapoint.getValue(), datapoint.getWeight());
+		}
+		return accumulator;
+	}
+
+	// compares with the sums over the rows extended by the bias
+	private void assertSums(Dataset<Datapoint> dense, GramAccumulator accumulator) {
+		int size = NUM_FEATURES + 1;
+		double[][] gram = new double[size][size];
+		double[] moment = new double[size];
+		double sumOfSquares = 0.0;
+		double sumOfWeights = 0.0;
+		for (Datapoint datapoint : dense.getDatapoints()) {
+			double[] x = datapoint.getFeatureVector().clone().extendByOne(1.0).getElements();
+			double c = datapoint.getWeight();
+			for (int i = 0; i < size; ++i) {
+				for (int j = 0; j < size; ++j)
+					gram[i][j] += c * x[i] * x[j];
+				moment[i] += c * x[i] * datapoint.getValue();
+			}
+			sumOfSquares += c * datapoint.getValue() * datapoint.getValue();
+			sumOfWeights += c;
+		}
+		double[][] actualGram = accumulator.getGram();
+		double[] actualMoment = accumulator.getMoment();
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j < size; ++j)
+				assertEquals(gram[i][j], actualGram[i][j], 1e-10);
+			assertEquals(moment[i], actualMoment[i], 1e-10);
+		}
+		assertEquals(sumOfSquares, accumulator.getSumOfSquares(), 1e-10);
+		assertEquals(sumOfWeights, accumulator.getSumOfWeights(), 1e-10);
+		assertEquals(dense.size(), accumulator.getNumRows());
+	}
+
+	public void testDense() {
+		Dataset<Datapoint> dataset = dataset();
+		assertSums(dataset, accumulate(dataset, 0, dataset.size()));
+	}
+
+	public void testPackedAndSparse() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> packed = dataset().pack();
+		assertSums(dense, accumulate(packed, 0, packed.size()));
+		Dataset<Datapoint> sparse = dataset().packSparse();
+		assertSums(dense, accumulate(sparse, 0, sparse.size()));
+		Dataset<Datapoint> sparseVectors = dataset();
+		for (Datapoint datapoint : sparseVectors.getDatapoints())
+			datapoint.setFeatureVector(new SparseVector(datapoint.getFeatureVector().getElements()));
+		assertSums(dense, accumulate(sparseVectors, 0, sparseVectors.size()));
+	}
+
+	public void testMixedAndMerged() {
+		Dataset<Datapoint> dense = dataset();
+		Dataset<Datapoint> mixed = dataset();
+		for (int i = 0; i < mixed.size(); i += 3)
+			mixed.getDatapoint(i).setFeatureVector(new SparseVector(mixed.getDatapoint(i).getFeatureVector().getElements()));
+		assertSums(dense, accumulate(mixed, 0, mixed.size()));
+		GramAccumulator merged = accumulate(mixed, 0, 50);
+		merged.add(accumulate(mixed, 50, 100));
+		merged.add(accumulate(mixed, 100, mixed.size()));
+		assertSums(dense, merged);
+	}
+
+	public void testSizeMismatch() {
+		try {
+			new GramAccumulator(NUM_FEATURES).add(new DenseVector(NUM_FEATURES + 1), 1.0, 1.0);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
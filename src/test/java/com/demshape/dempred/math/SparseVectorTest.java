@@ -98,4 +98,37 @@ public class SparseVectorTest extends TestCase {
 		assertTrue(vector.equals(vector2));
 	}
 
+	public void testAddVectorTail() {
+		int[] keys = { 0, 3, 4 };
+		double[] values = { 2.0, 3.0, 1.0 };
+		vector.addVector(new SparseVector(keys, values, 6));
+		double[] elements = { 2.0, 1.0, 0.0, 0.0, 1.0, 1.0 };
+		assertTrue(Arrays.equals(elements, vector.getElements()));
+		assertEquals(4, vector.used());
+	}
+
+	public void testSubVector() {
+		double[] dense = { 0.5, 1.0, 0.0, -1.0, 0.0, 0.0 };
+		vector.subVector(new DenseVector(dense));
+		double[] elements = { -0.5, 0.0, 0.0, -2.0, 0.0, 1.0 };
+		assertTrue(Arrays.equals(elements, vector.getElements()));
+	}
+
+	public void testStatistics() {
+		DenseVector dense = new DenseVector(vector.getElements());
+		assertEquals(dense.mean(), vector.mean(), 1e-12);
+		assertEquals(dense.std(), vector.std(), 1e-12);
+		assertEquals(dense.min(), vector.min());
+		assertEquals(dense.max(), vector.max());
+		assertEquals(dense.median(), vector.median());
+		assertEquals(3, vector.count("==", 0.0));
+	}
+
+	public void testDenseConstructor() {
+		double[] elements = { 0.0, 1.0, 0.0, -3.0, 0.0, 1.0 };
+		SparseVector vectorB = new SparseVector(elements);
+		assertTrue(vector.equals(vectorB));
+		assertEquals(6, vectorB.size());
+	}
+
 }
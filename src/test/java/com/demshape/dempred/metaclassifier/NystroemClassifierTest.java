@@ -0,0 +1,96 @@
+package com.demshape.dempred.metaclassifier;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.classifier.ClassifierTools;
+import com.demshape.dempred.classifier.PredictorInterface;
+import com.demshape.dempred.classifier.WrapperDual;
+import com.demshape.dempred.classifier.WrapperPrimal;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.kernels.KernelInterface;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.math.VectorInterface;
+
+public class NystroemClassifierTest extends TestCase {
+
+	private static final int SIZE = 30;
+
+	private Dataset<Datapoint> dataset(long seed) {
+		return new RandomDataset(seed, SIZE, 3).target(0.5, 0.2, 1.0, -1.0, 0.5).create();
+	}
+
+	private WrapperPrimal<Datapoint> linear() {
+		WrapperPrimal<Datapoint> classifier = new WrapperPrimal<Datapoint>();
+		classifier.setLossFunction(new Mse<Datapoint>());
+		classifier.setLambda2(0.05);
+		classifier.setGradLength(1e-8);
+		return classifier;
+	}
+
+	public void testMapReproducesKernel() throws Exception {
+		Dataset<Datapoint> dataset = dataset(3);
+		Dataset<Datapoint> testset = dataset(4);
+		KernelInterface kernel = new RBFKernel(1.0);
+		NystroemClassifier<Datapoint> nystroem = new NystroemClassifier<Datapoint>(linear(), kernel, SIZE);
+		nystroem.learn(dataset);
+		assertEquals(SIZE, nystroem.getNumComponents());
+		double[] kernelValues = new double[SIZE];
+		VectorInterface[] mapped = new VectorInterface[SIZE];
+		for (int i = 0; i < SIZE; ++i)
+			mapped[i] = nystroem.map(dataset.getDatapoint(i).getFeatureVector(), kernelValues);
+		for (Dataset<Datapoint> points : Arrays.asList(dataset, testset)) {
+			for (int i = 0; i < SIZE; ++i) {
+				VectorInterface features = points.getDatapoint(i).getFeatureVector();
+				VectorInterface phi = nystroem.map(features, kernelValues);
+				for (int j = 0; j < SIZE; ++j)
+					assertEquals(kernel.evaluate(features, dataset.getDatapoint(j).getFeatureVector()), phi.scalarProduct(mapped[j]), 1e-6);
+			}
+		}
+	}
+
+	public void testCompile() throws Exception {
+		Dataset<Datapoint> dataset = dataset(3);
+		NystroemClassifier<Datapoint> nystroem = new NystroemClassifier<Datapoint>(linear(), new RBFKernel(1.0), 10);
+		nystroem.learn(dataset);
+		PredictorInterface predictor = ClassifierTools.compile(nystroem);
+		assertEquals(3, predictor.numFeatures());
+		double[] predictions = new double[SIZE];
+		predictor.predict(dataset, predictions);
+		for (int i = 0; i < SIZE; ++i) {
+			Datapoint datapoint = dataset.getDatapoint(i);
+			nystroem.predict(datapoint);
+			assertEquals(datapoint.getPredictedValue(), predictions[i], 1e-12);
+			assertEquals(datapoint.getPredictedValue(), predictor.predict(datapoint.getFeatureVector().getElements()), 1e-12);
+		}
+	}
+
+	// with all datapoints as landmarks the linear classifier on the mapped features minimizes the objective of the dual kernel classifier, the
+	// predicted values include the offset of the dual classifier
+	public void testAllLandmarksMatchKernelClassifier() throws Exception {
+		Dataset<Datapoint> dataset = dataset(3);
+		KernelInterface kernel = new RBFKernel(1.0);
+		WrapperDual<Datapoint> dual = new WrapperDual<Datapoint>();
+		dual.setKernel(kernel);
+		dual.setLossFunction(new Mse<Datapoint>());
+		dual.setLambda(0.05);
+		dual.setSolver(1);
+		dual.setGradLength(1e-10);
+		dual.learn(dataset);
+		NystroemClassifier<Datapoint> nystroem = new NystroemClassifier<Datapoint>(linear(), kernel, SIZE);
+		nystroem.learn(dataset);
+		for (Dataset<Datapoint> points : Arrays.asList(dataset, dataset(4))) {
+			for (Datapoint datapoint : points.getDatapoints()) {
+				dual.predict(datapoint);
+				double expected = datapoint.getPredictedValue();
+				nystroem.predict(datapoint);
+				assertEquals(expected, datapoint.getPredictedValue(), 1e-4);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.demshape.dempred.resampling;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.classifier.WrapperDual;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.grouper.GrouperInterface;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.lossfunction.Mse;
+
+public class CrossvalidationErrorTest extends TestCase {
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(13, 40, 3).target(0.0, 0.3, 1.0, -1.0).groupThreshold(0.0).create();
+	}
+
+	private CrossvalidationError<Datapoint> crossvalidationError(int numThreads) {
+		CrossvalidationError<Datapoint> error = new CrossvalidationError<Datapoint>(5, 2, new Mse<Datapoint>(), false, false);
+		error.setSeed(17);
+		error.setNumThreads(numThreads);
+		return error;
+	}
+
+	public void testThreadsLinear() throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setLambda2(0.01);
+		double sequential = crossvalidationError(1).error(classifier, dataset());
+		double concurrent = crossvalidationError(4).error(classifier, dataset());
+		assertEquals(sequential, concurrent, 0.0);
+		assertNull(classifier.getWeight());
+	}
+
+	// subclasses are retrained on every fold, the classifiers themselves reuse the whole dataset through FoldContext
+	public void testFoldContextRidge() throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		RidgeRegressionPrimal<Datapoint> retrained = new RidgeRegressionPrimal<Datapoint>() {
+			private static final long serialVersionUID = 1L;
+		};
+		for (RidgeRegressionPrimal<Datapoint> ridge : Arrays.asList(classifier, retrained)) {
+			ridge.setLambda2(0.05);
+			ridge.setGroupAveraging(true);
+			ridge.setW_plus(0.6);
+		}
+		assertEquals(crossvalidationError(1).error(retrained, dataset()), crossvalidationError(1).error(classifier, dataset()), 1e-10);
+	}
+
+	public void testFoldContextWrapperDual() throws Exception {
+		WrapperDual<Datapoint> classifier = new WrapperDual<Datapoint>();
+		WrapperDual<Datapoint> retrained = new WrapperDual<Datapoint>() {
+			private static final long serialVersionUID = 1L;
+		};
+		for (WrapperDual<Datapoint> dual : Arrays.asList(classifier, retrained)) {
+			dual.setKernel(new RBFKernel(2.0));
+			dual.setLossFunction(new Mse<Datapoint>());
+			dual.setLambda(0.01);
+			dual.setSolver(1);
+			dual.setGradLength(1e-4);
+		}
+		assertEquals(crossvalidationError(1).error(retrained, dataset()), crossvalidationError(1).error(classifier, dataset()), 1e-10);
+	}
+
+	public void testMutatingLearnerSequential() throws Exception {
+		MeanLearner classifier = new MeanLearner();
+		CrossvalidationError<Datapoint> error = crossvalidationError(4);
+		assertFalse(error.isConcurrent(classifier));
+		double concurrent = error.error(classifier, dataset());
+		assertEquals(1, classifier.maxActive.get());
+		assertEquals(crossvalidationError(1).error(classifier, dataset()), concurrent, 0.0);
+	}
+
+	// predicts the weighted mean value and halves the weights of the datapoints it learns, like a booster
+	private static class MeanLearner implements ClassifierInterface<Datapoint>, Cloneable {
+
+		private final AtomicInteger active = new AtomicInteger();
+		private final AtomicInteger maxActive = new AtomicInteger();
+		private double mean;
+		private GrouperInterface grouper;
+
+		public void learn(Dataset<Datapoint> dataset) throws Exception {
+			int running = active.incrementAndGet();
+			if (running > maxActive.get())
+				maxActive.set(running);
+			Thread.sleep(2);
+			double sum = 0.0;
+			double sumWeights = 0.0;
+			for (Datapoint datapoint : dataset.getDatapoints()) {
+				sum += datapoint.getWeight() * datapoint.getValue();
+				sumWeights += datapoint.getWeight();
+				datapoint.setWeight(datapoint.getWeight() / 2.0);
+			}
+			mean = sum / sumWeights;
+			active.decrementAndGet();
+		}
+
+		public void predict(Dataset<Datapoint> dataset) throws Exception {
+			for (Datapoint datapoint : dataset.getDatapoints())
+				datapoint.setPredictedValue(mean);
+		}
+
+		public double predict(Datapoint datapoint) throws Exception {
+			datapoint.setPredictedValue(mean);
+			return mean;
+		}
+
+		public void setGrouper(GrouperInterface grouper) {
+			this.grouper = grouper;
+		}
+
+		public GrouperInterface getGrouper() {
+			return grouper;
+		}
+
+		public ClassifierInterface<Datapoint> clone() {
+			try {
+				return (MeanLearner) super.clone();
+			} catch (CloneNotSupportedException e) {
+				return null;
+			}
+		}
+	}
+
+}
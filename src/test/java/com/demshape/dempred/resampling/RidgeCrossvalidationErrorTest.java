@@ -0,0 +1,99 @@
+package com.demshape.dempred.resampling;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.util.RandomNumber;
+
+public class RidgeCrossvalidationErrorTest extends TestCase {
+
+	private static final long SEED = 23;
+
+	private Dataset<Datapoint> dataset(int size) {
+		return new RandomDataset(size, size, 4).target(0.0, 0.4, 1.0, 0.0, 0.0, 0.5).groupThreshold(0.3).weights(0.5, 1.5).create();
+	}
+
+	private RidgeRegressionPrimal<Datapoint> ridge(boolean groupAveraging, double lambda2) {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setLambda2(lambda2);
+		classifier.setGroupAveraging(groupAveraging);
+		classifier.setW_plus(0.4);
+		classifier.setUseDWeights(groupAveraging);
+		return classifier;
+	}
+
+	// the error of retraining a fresh classifier on every fold of the same folds
+	private double retrained(RidgeCrossvalidationError<Datapoint> resampler, RidgeRegressionPrimal<Datapoint> template, Dataset<Datapoint> dataset, int numFolds, int numRounds) throws Exception {
+		double[] sums = new double[4];
+		for (int round = 0; round < numRounds; ++round) {
+			CrossValidation<Datapoint> crossValidation = new CrossValidation<Datapoint>(dataset);
+			crossValidation.generateFolds(numFolds, new Random(RandomNumber.splitSeed(SEED, round)));
+			for (int fold = 0; fold < numFolds; ++fold) {
+				RidgeRegressionPrimal<Datapoint> classifier = ridge(template.isGroupAveraging(), template.getLambda2());
+				classifier.learn(crossValidation.getFoldsExcept(fold));
+				Dataset<Datapoint> crossFold = crossValidation.getFold(fold);
+				double[] predictions = new double[crossFold.size()];
+				classifier.compile().predict(crossFold, predictions);
+				ResamplingTools.addLosses(crossFold, predictions, resampler.getLossFunction(), resampler.isWeighting(), resampler.isGroupAveraging(), sums, 0);
+			}
+		}
+		return ResamplingTools.error(resampler.isGroupAveraging(), sums, 0);
+	}
+
+	private RidgeCrossvalidationError<Datapoint> resampler(int numFolds, boolean groupAveraging) {
+		RidgeCrossvalidationError<Datapoint> resampler = new RidgeCrossvalidationError<Datapoint>(numFolds, 2, new Mse<Datapoint>(), groupAveraging, groupAveraging);
+		resampler.setSeed(SEED);
+		return resampler;
+	}
+
+	public void testKFold() throws Exception {
+		for (boolean groupAveraging : new boolean[] { false, true }) {
+			Dataset<Datapoint> dataset = dataset(40);
+			RidgeRegressionPrimal<Datapoint> classifier = ridge(groupAveraging, 0.05);
+			RidgeCrossvalidationError<Datapoint> resampler = resampler(5, groupAveraging);
+			assertEquals(retrained(resampler, classifier, dataset, 5, 2), resampler.error(classifier, dataset), 1e-9);
+			assertNull(classifier.getWeight());
+		}
+	}
+
+	public void testLeaveOneOut() throws Exception {
+		for (boolean groupAveraging : new boolean[] { false, true }) {
+			Dataset<Datapoint> dataset = dataset(25);
+			RidgeRegressionPrimal<Datapoint> classifier = ridge(groupAveraging, 0.05);
+			RidgeCrossvalidationError<Datapoint> resampler = resampler(0, groupAveraging);
+			assertEquals(retrained(resampler, classifier, dataset, dataset.size(), 1), resampler.error(classifier, dataset), 1e-9);
+		}
+	}
+
+	public void testErrors() throws Exception {
+		double[] lambdas = { 0.5, 0.05, 0.005 };
+		for (int numFolds : new int[] { 0, 4 }) {
+			Dataset<Datapoint> dataset = dataset(30);
+			RidgeCrossvalidationError<Datapoint> resampler = resampler(numFolds, true);
+			double[] errors = resampler.errors(ridge(true, 0.0), dataset, lambdas);
+			for (int l = 0; l < lambdas.length; ++l)
+				assertEquals(resampler.error(ridge(true, lambdas[l]), dataset), errors[l], 1e-9);
+		}
+	}
+
+	public void testTooManyFolds() throws Exception {
+		Dataset<Datapoint> dataset = dataset(3);
+		try {
+			resampler(4, false).error(ridge(false, 0.1), dataset);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			resampler(0, false).errors(ridge(false, 0.1), new Dataset<Datapoint>(), new double[] { 0.1 });
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.demshape.dempred.transformer;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.RandomDataset;
+
+public class FeatureTransformerTest extends TestCase {
+
+	private Dataset<Datapoint> dataset(int seed) {
+		return new RandomDataset(seed, 5, 3).create();
+	}
+
+	public void testTransformPacked() {
+		Dataset<Datapoint> plain = dataset(3);
+		Dataset<Datapoint> packed = dataset(3).pack();
+		FeatureTransformer transformer = new FeatureTransformer(new Exp10Transformation());
+		transformer.transformFeatures(plain);
+		transformer.transformFeatures(packed);
+		for (int i = 0; i < plain.size(); ++i) {
+			for (int j = 0; j < 3; ++j)
+				assertEquals(plain.getDatapoint(i).getFeatureAt(j), packed.getDatapoint(i).getFeatureAt(j), 0.0);
+		}
+		assertEquals(Math.pow(10, dataset(3).getDatapoint(0).getFeatureAt(0)), packed.getDatapoint(0).getFeatureAt(0), 1e-12);
+		assertEquals(packed.getDatapoint(1).getFeatureAt(2), packed.getFeatureMatrix().getRow(1).get(2), 0.0);
+	}
+
+}
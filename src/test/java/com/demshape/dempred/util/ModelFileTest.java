@@ -0,0 +1,149 @@
+package com.demshape.dempred.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.demshape.dempred.classifier.ClassifierInterface;
+import com.demshape.dempred.classifier.RidgeRegressionDual;
+import com.demshape.dempred.classifier.RidgeRegressionPrimal;
+import com.demshape.dempred.datastructure.Datapoint;
+import com.demshape.dempred.datastructure.Dataset;
+import com.demshape.dempred.datastructure.DatasetNormalizer;
+import com.demshape.dempred.datastructure.RandomDataset;
+import com.demshape.dempred.grouper.AboveThreshold;
+import com.demshape.dempred.kernels.RBFKernel;
+import com.demshape.dempred.lossfunction.HardStepFunction;
+import com.demshape.dempred.lossfunction.LogLoss;
+import com.demshape.dempred.lossfunction.LossFunctionFactory;
+import com.demshape.dempred.lossfunction.LossFunctionInterface;
+import com.demshape.dempred.lossfunction.Mse;
+import com.demshape.dempred.lossfunction.Sigmodial;
+import com.demshape.dempred.math.SparseVector;
+
+public class ModelFileTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("dempred", ".model");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	private Dataset<Datapoint> dataset() {
+		return new RandomDataset(31, 30, 4).constant(2, 1.0).target(0.0, 0.2, 1.0, 0.0, 0.0, -1.0).groupThreshold(0.0).create();
+	}
+
+	private void assertSamePredictions(ClassifierInterface<Datapoint> expected, ClassifierInterface<Datapoint> actual) throws Exception {
+		for (Datapoint datapoint : dataset().getDatapoints())
+			assertEquals(expected.predict(datapoint), actual.predict(datapoint), 0.0);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testRoundTrip() throws Exception {
+		Dataset<Datapoint> dataset = dataset();
+		RidgeRegressionPrimal<Datapoint> primal = new RidgeRegressionPrimal<Datapoint>();
+		primal.setLambda2(0.1);
+		primal.setGroupAveraging(true);
+		primal.setW_plus(0.4);
+		primal.setGrouper(new AboveThreshold(0.5));
+		primal.learn(dataset);
+		RidgeRegressionPrimal<Datapoint> sparse = new RidgeRegressionPrimal<Datapoint>();
+		sparse.setWeight(new SparseVector(new double[] { 0.0, 2.0, 0.0, -1.0, 0.5 }));
+		RidgeRegressionDual<Datapoint> dual = new RidgeRegressionDual<Datapoint>();
+		dual.setKernel(new RBFKernel(1.5));
+		dual.setLambda(0.05);
+		dual.learn(dataset);
+		DatasetNormalizer normalizer = new DatasetNormalizer(dataset);
+
+		ModelFile.saveToFile(file, primal, sparse, dual, normalizer);
+		List<Object> objects = ModelFile.readFromFile(file);
+		assertEquals(4, objects.size());
+
+		RidgeRegressionPrimal<Datapoint> primalRead = (RidgeRegressionPrimal<Datapoint>) objects.get(0);
+		assertSamePredictions(primal, primalRead);
+		assertEquals(0.1, primalRead.getLambda2(), 0.0);
+		assertTrue(primalRead.isGroupAveraging());
+		assertEquals(0.4, primalRead.getW_plus(), 0.0);
+		assertTrue(primalRead.getGrouper() instanceof AboveThreshold);
+		for (Datapoint datapoint : dataset.getDatapoints())
+			assertEquals(primal.getGrouper().getGroup(datapoint.getValue()), primalRead.getGrouper().getGroup(datapoint.getValue()));
+
+		RidgeRegressionPrimal<Datapoint> sparseRead = (RidgeRegressionPrimal<Datapoint>) objects.get(1);
+		assertTrue(sparseRead.getWeight() instanceof SparseVector);
+		assertSamePredictions(sparse, sparseRead);
+
+		RidgeRegressionDual<Datapoint> dualRead = (RidgeRegressionDual<Datapoint>) objects.get(2);
+		assertTrue(dualRead.getKernel() instanceof RBFKernel);
+		assertSamePredictions(dual, dualRead);
+		for (Datapoint datapoint : dataset.getDatapoints())
+			assertEquals(dual.predict(datapoint), dualRead.compile().predict(datapoint.getFeatureVector()), 1e-12);
+
+		DatasetNormalizer normalizerRead = (DatasetNormalizer) objects.get(3);
+		assertTrue(Arrays.equals(normalizer.getZeroIndices(), normalizerRead.getZeroIndices()));
+		Dataset<Datapoint> expected = dataset();
+		Dataset<Datapoint> actual = dataset();
+		normalizer.normalize(expected);
+		normalizerRead.normalize(actual);
+		assertEquals(expected.numFeatures(), actual.numFeatures());
+		for (int i = 0; i < expected.size(); ++i) {
+			for (int j = 0; j < expected.numFeatures(); ++j)
+				assertEquals(expected.getDatapoint(i).getFeatureAt(j), actual.getDatapoint(i).getFeatureAt(j), 0.0);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testLossFunctions() throws Exception {
+		List<LossFunctionInterface<Datapoint>> lossFunctions = new ArrayList<LossFunctionInterface<Datapoint>>();
+		LossFunctionFactory<Datapoint> factory = new LossFunctionFactory<Datapoint>();
+		for (int type = 0; type <= 8; ++type)
+			lossFunctions.add(factory.getFunction(type));
+		lossFunctions.add(new HardStepFunction<Datapoint>(0.3));
+		lossFunctions.add(new Sigmodial<Datapoint>(2.5));
+		lossFunctions.add(new LogLoss<Datapoint>(0.01));
+		lossFunctions.add(null);
+		Object[] classifiers = new Object[lossFunctions.size()];
+		for (int i = 0; i < classifiers.length; ++i) {
+			RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+			classifier.setLossFunction(lossFunctions.get(i));
+			classifiers[i] = classifier;
+		}
+		ModelFile.saveToFile(file, classifiers);
+		List<Object> objects = ModelFile.readFromFile(file);
+		for (int i = 0; i < classifiers.length; ++i) {
+			LossFunctionInterface<Datapoint> expected = lossFunctions.get(i);
+			LossFunctionInterface<Datapoint> actual = ((RidgeRegressionPrimal<Datapoint>) objects.get(i)).getLossFunction();
+			if (expected == null) {
+				assertNull(actual);
+				continue;
+			}
+			assertEquals(expected.getClass(), actual.getClass());
+			if (expected instanceof HardStepFunction)
+				assertEquals(((HardStepFunction<Datapoint>) expected).getThreshold(), ((HardStepFunction<Datapoint>) actual).getThreshold(), 0.0);
+			else if (expected instanceof Sigmodial)
+				assertEquals(((Sigmodial<Datapoint>) expected).getSigma(), ((Sigmodial<Datapoint>) actual).getSigma(), 0.0);
+			else if (expected instanceof LogLoss)
+				assertEquals(((LogLoss<Datapoint>) expected).getEps(), ((LogLoss<Datapoint>) actual).getEps(), 0.0);
+		}
+	}
+
+	public void testUnknownLossFunction() throws Exception {
+		RidgeRegressionPrimal<Datapoint> classifier = new RidgeRegressionPrimal<Datapoint>();
+		classifier.setLossFunction(new Mse<Datapoint>() {
+		});
+		try {
+			ModelFile.saveToFile(file, classifier);
+			fail("Unknown loss functions must not be written");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}